@@ -8,6 +8,7 @@ plugins {
     java
     distribution
     alias(libs.plugins.spotless)
+    alias(libs.plugins.jmh)
 }
 
 group = "zeenea.connector.example"
@@ -31,6 +32,7 @@ dependencies {
     }
     compileOnly(jarFiles)
     testImplementation(jarFiles)
+    jmh(jarFiles)
 
     /*
      * Include the PF4J library that manage the plugins.
@@ -98,6 +100,15 @@ tasks.test {
     useJUnitPlatform()
 }
 
+/*
+ * Benchmarks are in the src/jmh folder, run them with: ./gradlew jmh
+ */
+jmh {
+    jmhVersion = libs.versions.jmh
+    // Report the allocation rate along with the time.
+    profilers.add("gc")
+}
+
 tasks.jar {
     manifest {
         attributes(
@@ -0,0 +1,196 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of strings for the large "in" lists.
+ *
+ * <p>The values are sorted and their characters are stored in a single array, without a string
+ * object per value. A value is found by an open addressing hash table of the indexes of the values,
+ * using the hash code of {@link String} which is cached by the searched text. The sorted values
+ * give the values starting with a prefix by a binary search.
+ *
+ * <p>The strings returned by the iterator are created for each call.
+ */
+final class CompactStringSet extends AbstractSet<String> {
+  private static final CompactStringSet EMPTY =
+      new CompactStringSet(new char[0], new int[1], new int[0]);
+
+  /** The characters of the sorted values. */
+  private final char[] chars;
+
+  /** The value {@code i} is from {@code offsets[i]} included to {@code offsets[i + 1]} excluded. */
+  private final int[] offsets;
+
+  /** The hash codes of the values. */
+  private final int[] hashes;
+
+  /**
+   * The open addressing hash table, an entry has the hash code of a value in its high half and the
+   * index of the value plus one in its low half, 0 for an empty entry.
+   */
+  private final long[] table;
+
+  /** The shift of the multiplied hash code giving its slot in the table. */
+  private final int shift;
+
+  /** The hash code of the set, the sum of the hash codes of the values. */
+  private final int hash;
+
+  private CompactStringSet(char[] chars, int[] offsets, int[] hashes) {
+    this.chars = chars;
+    this.offsets = offsets;
+    this.hashes = hashes;
+    var n = hashes.length;
+    var bits = 33 - Integer.numberOfLeadingZeros(Math.max(n, 1));
+    this.table = new long[1 << bits];
+    this.shift = 32 - bits;
+    var mask = table.length - 1;
+    var sum = 0;
+    for (int i = 0; i < n; ++i) {
+      var slot = slot(hashes[i]);
+      while (table[slot] != 0) slot = (slot + 1) & mask;
+      table[slot] = ((long) hashes[i] << 32) | (i + 1);
+      sum += hashes[i];
+    }
+    this.hash = sum;
+  }
+
+  /**
+   * Create a set.
+   *
+   * @param values The values, the duplicates are ignored.
+   * @return The set.
+   */
+  static CompactStringSet of(Collection<String> values) {
+    if (values instanceof CompactStringSet) return (CompactStringSet) values;
+    if (values.isEmpty()) return EMPTY;
+    var sorted = values.toArray(new String[0]);
+    Arrays.sort(sorted);
+    var count = 0;
+    var length = 0;
+    for (int i = 0; i < sorted.length; ++i) {
+      if (i > 0 && sorted[i].equals(sorted[count - 1])) continue;
+      sorted[count++] = sorted[i];
+      length += sorted[i].length();
+    }
+    var chars = new char[length];
+    var offsets = new int[count + 1];
+    var hashes = new int[count];
+    for (int i = 0; i < count; ++i) {
+      var value = sorted[i];
+      value.getChars(0, value.length(), chars, offsets[i]);
+      offsets[i + 1] = offsets[i] + value.length();
+      hashes[i] = value.hashCode();
+    }
+    return new CompactStringSet(chars, offsets, hashes);
+  }
+
+  /** The slot of a hash code, the hash codes of similar strings are spread by a multiplication. */
+  private int slot(int hash) {
+    return (hash * 0x9E3779B9) >>> shift;
+  }
+
+  @Override
+  public int size() {
+    return hashes.length;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof String)) return false;
+    var text = (String) o;
+    var h = text.hashCode();
+    var mask = table.length - 1;
+    for (int slot = slot(h); table[slot] != 0; slot = (slot + 1) & mask) {
+      var entry = table[slot];
+      if ((int) (entry >>> 32) == h && compare((int) entry - 1, text, false) == 0) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Test if a value starts with a prefix.
+   *
+   * @param prefix The prefix.
+   * @return {@code true} if at least one value starts with the prefix.
+   */
+  boolean containsPrefix(String prefix) {
+    // The values starting with the prefix follow the first value greater than or equal to it.
+    var low = 0;
+    var high = hashes.length;
+    while (low < high) {
+      var middle = (low + high) >>> 1;
+      if (compare(middle, prefix, false) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low < hashes.length && compare(low, prefix, true) == 0;
+  }
+
+  /** Compare a value with a text like {@link String#compareTo}, or only its prefix. */
+  private int compare(int index, String text, boolean prefixOnly) {
+    var start = offsets[index];
+    var length = offsets[index + 1] - start;
+    var textLength = text.length();
+    if (prefixOnly) length = Math.min(length, textLength);
+    var n = Math.min(length, textLength);
+    for (int i = 0; i < n; ++i) {
+      var c = chars[start + i];
+      var d = text.charAt(i);
+      if (c != d) return c - d;
+    }
+    return length - textLength;
+  }
+
+  private String value(int index) {
+    return new String(chars, offsets[index], offsets[index + 1] - offsets[index]);
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return new Iterator<>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < hashes.length;
+      }
+
+      @Override
+      public String next() {
+        if (index >= hashes.length) throw new NoSuchElementException();
+        return value(index++);
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o instanceof CompactStringSet) {
+      var that = (CompactStringSet) o;
+      return hash == that.hash
+          && Arrays.equals(offsets, that.offsets)
+          && Arrays.equals(chars, that.chars);
+    }
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
@@ -0,0 +1,975 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntFunction;
+import zeenea.connector.example.filter.FilterValue.Text;
+import zeenea.connector.example.filter.FilterValue.ValueList;
+
+/**
+ * A filter compiled for the evaluation of many items.
+ *
+ * <p>The compiled filter gives the same results as the filter, with less work per item:
+ *
+ * <ul>
+ *   <li>The keys are bound to slots, the value of a key is read once from the item even if several
+ *       terms use it. The slots are bound to the ordinals of the keys in the schema of the items:
+ *       a value is read from the item by its ordinal, without looking up its key.
+ *   <li>The nested "and" and "or" are flattened, and the constant terms are removed.
+ *   <li>The "=" and "in" terms on the same key of an "or" are merged in a single set lookup, as
+ *       well as the "!=" and "not in" terms of an "and".
+ *   <li>The "starts with", "ends with" and "contains" terms on the same key of an "or", or their
+ *       negations in an "and", are merged in a single pass over the value when there are many.
+ *   <li>The duplicated terms of an "and" or an "or" are removed.
+ *   <li>The terms of an "and" or an "or" are ordered by their estimated cost, cheapest first.
+ * </ul>
+ *
+ * <p>The evaluation of an "and" or an "or" stops as soon as the result is known. The terms are
+ * pure, so their order doesn't change the result. During the first evaluations, each "and" and "or"
+ * counts how often each of its terms decides the result. Then the terms are ordered by their cost
+ * divided by this rate: a cheap term that often rejects the item comes first in an "and", a cheap
+ * term that often accepts it comes first in an "or".
+ *
+ * <p>A compiled filter can be used by several threads. The statistics are counted atomically, and
+ * the reordered terms replace the sampled terms at once when the sampling ends.
+ */
+public final class CompiledFilter {
+  /**
+   * The minimal number of pattern terms merged in a single pass, the methods of {@code String} are
+   * faster for a few patterns.
+   */
+  private static final int MIN_MERGED_PATTERNS = 6;
+
+  /** The number of evaluations of an "and" or an "or" before its terms are reordered. */
+  static final int SAMPLE_SIZE = 1000;
+
+  /** The estimated costs of the terms, relative to a set lookup. */
+  private static final int NULL_COST = 1;
+
+  private static final int EQUAL_COST = 2;
+  private static final int AFFIX_COST = 3;
+  private static final int INFIX_COST = 4;
+  private static final int GLOB_COST = 6;
+  private static final int PATTERNS_COST = 8;
+  private static final int TEXT_COST = 10;
+  private static final int REGEX_COST = 20;
+
+  /** The estimated number of elements of a list. */
+  private static final int LIST_SIZE = 4;
+
+  private final Filter filter;
+
+  /** The keys of the slots, {@code null} for the slots of the local keys. */
+  private final FilterKey[] keys;
+
+  private final Node root;
+
+  /** The ordinals of the slots in the schema of the last item tested. */
+  private volatile Binding binding;
+
+  private CompiledFilter(Filter filter, FilterKey[] keys, Node root) {
+    this.filter = filter;
+    this.keys = keys;
+    this.root = root;
+  }
+
+  static CompiledFilter of(Filter filter, FilterSchema schema) {
+    var compiler = new Compiler();
+    var root = filter.toNode(compiler);
+    var compiled = new CompiledFilter(filter, compiler.keys.toArray(new FilterKey[0]), root);
+    if (schema != null) compiled.binding = new Binding(schema, compiled.keys);
+    return compiled;
+  }
+
+  /**
+   * The filter that has been compiled.
+   *
+   * @return The filter.
+   */
+  public Filter filter() {
+    return filter;
+  }
+
+  /**
+   * Test if an item matches the filter.
+   *
+   * @param item The item to test.
+   * @return {@code true} if the item matches the filter, {@code false} otherwise.
+   */
+  public boolean matches(FilterItem item) {
+    return matches(item, new Frame());
+  }
+
+  /**
+   * Test if an item matches the filter, reusing a frame to hold the values read from the item.
+   *
+   * @param item The item to test.
+   * @param frame The frame, reused for the items tested by the same thread.
+   * @return {@code true} if the item matches the filter, {@code false} otherwise.
+   */
+  public boolean matches(FilterItem item, Frame frame) {
+    if (root instanceof Constant) return ((Constant) root).result;
+    var binding = this.binding;
+    if (binding == null || binding.schema != item.schema()) {
+      // The items of another schema bind the filter again.
+      binding = new Binding(item.schema(), keys);
+      this.binding = binding;
+    }
+    frame.reset(item, binding.ordinals);
+    try {
+      return root.matches(frame);
+    } finally {
+      frame.release();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return root.toString();
+  }
+
+  /** The ordinals of the slots in a schema, -1 for the keys not in the schema. */
+  private static final class Binding {
+    private final FilterSchema schema;
+    private final int[] ordinals;
+
+    private Binding(FilterSchema schema, FilterKey[] keys) {
+      this.schema = schema;
+      this.ordinals = new int[keys.length];
+      for (int i = 0; i < keys.length; ++i) {
+        ordinals[i] = keys[i] != null ? schema.ordinal(keys[i]) : -1;
+      }
+    }
+  }
+
+  /**
+   * The values of the keys read for an item.
+   *
+   * <p>A frame can be reused for many items and by several compiled filters, but by a single thread
+   * at a time. It doesn't keep the item once it has been tested.
+   */
+  public static final class Frame {
+    private FilterItem item;
+    private int[] ordinals;
+    private FilterValue[] values = new FilterValue[0];
+
+    /** Create an empty frame. */
+    public Frame() {}
+
+    private void reset(FilterItem item, int[] ordinals) {
+      this.item = item;
+      this.ordinals = ordinals;
+      if (values.length < ordinals.length) values = new FilterValue[ordinals.length];
+    }
+
+    private void release() {
+      Arrays.fill(values, 0, ordinals.length, null);
+      item = null;
+      ordinals = null;
+    }
+
+    FilterValue value(int slot) {
+      var value = values[slot];
+      if (value == null) {
+        value = item.value(ordinals[slot]);
+        values[slot] = value;
+      }
+      return value;
+    }
+
+    void set(int slot, FilterValue value) {
+      values[slot] = value;
+    }
+  }
+
+  /** A node of a compiled filter. */
+  abstract static class Node {
+    abstract boolean matches(Frame frame);
+
+    /** The estimated cost of the evaluation of the node. */
+    abstract int cost();
+  }
+
+  /** Build the nodes of a compiled filter. */
+  static final class Compiler {
+    private final List<FilterKey> keys = new ArrayList<>();
+    private final Map<FilterKey, Integer> slots = new HashMap<>();
+
+    /** Get the slot of a key. */
+    int slot(FilterKey key) {
+      var slot = slots.get(key);
+      if (slot == null) {
+        slot = newSlot(key);
+        slots.put(key, slot);
+      }
+      return slot;
+    }
+
+    /** Add a slot, the key is {@code null} for a local key: its value is not read from items. */
+    private int newSlot(FilterKey key) {
+      keys.add(key);
+      return keys.size() - 1;
+    }
+
+    /**
+     * Compile a part of the filter where a key is bound to a local value.
+     *
+     * <p>The local key hides the key of the item having the same name.
+     *
+     * @param key The local key.
+     * @param compile The function compiling the part of the filter, given the slot of the key.
+     * @return The compiled node.
+     */
+    Node local(FilterKey key, IntFunction<Node> compile) {
+      var previous = slots.put(key, newSlot(null));
+      try {
+        return compile.apply(slots.get(key));
+      } finally {
+        if (previous != null) {
+          slots.put(key, previous);
+        } else {
+          slots.remove(key);
+        }
+      }
+    }
+
+    Node constant(boolean result) {
+      return result ? Constant.TRUE : Constant.FALSE;
+    }
+
+    Node isNull(FilterKey key) {
+      return new IsNull(slot(key));
+    }
+
+    Node isEqualTo(FilterKey key, FilterValue value) {
+      if (value instanceof Text) {
+        return new TextIn(slot(key), CompactStringSet.of(List.of(((Text) value).value())));
+      }
+      return new IsEqualTo(slot(key), value);
+    }
+
+    Node in(FilterKey key, CompactStringSet values) {
+      return new TextIn(slot(key), values);
+    }
+
+    Node text(Filter.TextFilter filter) {
+      return new TextMatches(slot(filter.key), filter, null, null);
+    }
+
+    /** Compile a "starts with", "ends with" or "contains" filter. */
+    Node text(Filter.TextFilter filter, Part part, String value) {
+      return new TextMatches(slot(filter.key), filter, part, value);
+    }
+
+    Node not(Node node) {
+      if (node instanceof Constant) return constant(!((Constant) node).result);
+      if (node instanceof Not) return ((Not) node).node;
+      return new Not(node);
+    }
+
+    Node anyMatch(FilterKey key, FilterKey elementKey, Filter filter) {
+      var listSlot = slot(key);
+      return local(elementKey, slot -> new AnyMatch(listSlot, slot, filter.toNode(this)));
+    }
+
+    Node allMatch(FilterKey key, FilterKey elementKey, Filter filter) {
+      var listSlot = slot(key);
+      return local(elementKey, slot -> new AllMatch(listSlot, slot, filter.toNode(this)));
+    }
+
+    /**
+     * Compile an "and".
+     *
+     * @param operands The operands, the nested "and" flattened.
+     * @return The compiled node, merged and sorted once for all the operands.
+     */
+    Node and(List<Filter> operands) {
+      var terms = terms(operands, And.class);
+      terms = merge(terms, Constant.TRUE, true);
+      if (terms.isEmpty()) return Constant.TRUE;
+      if (terms.size() == 1) return terms.get(0);
+      return new And(byCost(terms));
+    }
+
+    /**
+     * Compile an "or".
+     *
+     * @param operands The operands, the nested "or" flattened.
+     * @return The compiled node, merged and sorted once for all the operands.
+     */
+    Node or(List<Filter> operands) {
+      var terms = terms(operands, Or.class);
+      terms = merge(terms, Constant.FALSE, false);
+      if (terms.isEmpty()) return Constant.FALSE;
+      if (terms.size() == 1) return terms.get(0);
+      return new Or(byCost(terms));
+    }
+
+    private List<Node> terms(List<Filter> operands, Class<? extends Nary> klass) {
+      var terms = new ArrayList<Node>(operands.size());
+      for (Filter operand : operands) {
+        addTerms(terms, operand.toNode(this), klass);
+      }
+      return terms;
+    }
+
+    /** Sort the terms by cost, the terms of the same cost keep their order. */
+    private static Node[] byCost(List<Node> terms) {
+      var nodes = terms.toArray(new Node[0]);
+      Arrays.sort(nodes, Comparator.comparingInt(Node::cost));
+      return nodes;
+    }
+
+    private static void addTerms(List<Node> terms, Node node, Class<? extends Nary> klass) {
+      if (klass.isInstance(node)) {
+        terms.addAll(List.of(((Nary) node).nodes));
+      } else {
+        terms.add(node);
+      }
+    }
+
+    /**
+     * Remove the neutral and duplicated terms, and merge the set terms and the pattern terms on the
+     * same key.
+     *
+     * <p>In an "or", a value is accepted if it is in one of the sets of its key. In an "and", a
+     * value is rejected if it is in one of the sets of the "not in" terms of its key. The merged
+     * set replaces the first term of the key.
+     *
+     * <p>In the same way, the "starts with", "ends with" and "contains" terms of an "or" on the
+     * same key, or their negations in an "and", are merged in a single term testing all the
+     * patterns in one pass over the value.
+     *
+     * @param terms The terms.
+     * @param neutral The constant without effect on the result.
+     * @param negated {@code true} to merge the "not in" terms of an "and".
+     * @return The merged terms, a single absorbing constant if there is one.
+     */
+    private static ArrayList<Node> merge(List<Node> terms, Constant neutral, boolean negated) {
+      var merged = new ArrayList<Node>(terms.size());
+      var sets = new HashMap<Integer, Set<String>>();
+      var positions = new LinkedHashMap<Integer, Integer>();
+      var patternPositions = new LinkedHashMap<Integer, List<Integer>>();
+      var distinct = new HashSet<Node>();
+      for (Node term : terms) {
+        if (term == neutral) continue;
+        if (term instanceof Constant) {
+          merged.clear();
+          merged.add(term);
+          return merged;
+        }
+        if (!distinct.add(term)) continue;
+        var in = setTerm(term, negated);
+        if (in != null && sets.containsKey(in.slot)) {
+          // The set of the first term is copied only when another term is merged in it.
+          var set = sets.get(in.slot);
+          if (!(set instanceof HashSet)) {
+            set = new HashSet<>(set);
+            sets.put(in.slot, set);
+          }
+          set.addAll(in.values);
+          continue;
+        }
+        if (in != null) {
+          sets.put(in.slot, in.values);
+          positions.put(in.slot, merged.size());
+        }
+        var patternTerms = patternTerms(term, negated);
+        if (patternTerms != null) {
+          var slot = patternTerms.get(0).slot;
+          patternPositions.computeIfAbsent(slot, k -> new ArrayList<>()).add(merged.size());
+        }
+        merged.add(term);
+      }
+      for (Map.Entry<Integer, Integer> position : positions.entrySet()) {
+        var slot = position.getKey();
+        var set = sets.get(slot);
+        if (!(set instanceof HashSet)) continue;
+        Node in = new TextIn(slot, CompactStringSet.of(set));
+        merged.set(position.getValue(), negated ? new Not(in) : in);
+      }
+      var removed = false;
+      for (Map.Entry<Integer, List<Integer>> position : patternPositions.entrySet()) {
+        var indexes = position.getValue();
+        if (indexes.size() < 2) continue;
+        var group = new ArrayList<TextMatches>();
+        for (int index : indexes) {
+          group.addAll(patternTerms(merged.get(index), negated));
+        }
+        if (group.size() < MIN_MERGED_PATTERNS) continue;
+        Node anyPattern = new TextMatchesAny(position.getKey(), group);
+        merged.set(indexes.get(0), negated ? new Not(anyPattern) : anyPattern);
+        for (int i = 1; i < indexes.size(); ++i) {
+          merged.set(indexes.get(i), null);
+        }
+        removed = true;
+      }
+      if (removed) merged.removeIf(Objects::isNull);
+      return merged;
+    }
+
+    /** Get the pattern terms of a term, {@code null} if the term is not a pattern term. */
+    private static List<TextMatches> patternTerms(Node term, boolean negated) {
+      if (negated) {
+        if (!(term instanceof Not)) return null;
+        term = ((Not) term).node;
+      }
+      if (term instanceof TextMatches && ((TextMatches) term).part != null) {
+        return List.of((TextMatches) term);
+      }
+      if (term instanceof TextMatchesAny) return ((TextMatchesAny) term).terms;
+      return null;
+    }
+
+    private static TextIn setTerm(Node term, boolean negated) {
+      if (negated) {
+        if (term instanceof Not && ((Not) term).node instanceof TextIn) {
+          return (TextIn) ((Not) term).node;
+        }
+      } else if (term instanceof TextIn) {
+        return (TextIn) term;
+      }
+      return null;
+    }
+  }
+
+  private static final class Constant extends Node {
+    private static final Constant TRUE = new Constant(true);
+    private static final Constant FALSE = new Constant(false);
+
+    private final boolean result;
+
+    private Constant(boolean result) {
+      this.result = result;
+    }
+
+    @Override
+    boolean matches(Frame frame) {
+      return result;
+    }
+
+    @Override
+    int cost() {
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return result ? "always" : "never";
+    }
+  }
+
+  private static final class IsNull extends Node {
+    private final int slot;
+
+    private IsNull(int slot) {
+      this.slot = slot;
+    }
+
+    @Override
+    boolean matches(Frame frame) {
+      return frame.value(slot).isEmpty();
+    }
+
+    @Override
+    int cost() {
+      return NULL_COST;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IsNull && ((IsNull) o).slot == slot;
+    }
+
+    @Override
+    public int hashCode() {
+      return slot;
+    }
+
+    @Override
+    public String toString() {
+      return "$" + slot + " is null";
+    }
+  }
+
+  private static final class IsEqualTo extends Node {
+    private final int slot;
+    private final FilterValue value;
+
+    private IsEqualTo(int slot, FilterValue value) {
+      this.slot = slot;
+      this.value = value;
+    }
+
+    @Override
+    boolean matches(Frame frame) {
+      return frame.value(slot).equals(value);
+    }
+
+    @Override
+    int cost() {
+      return EQUAL_COST;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof IsEqualTo)) return false;
+      IsEqualTo that = (IsEqualTo) o;
+      return slot == that.slot && value.equals(that.value);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(slot, value);
+    }
+
+    @Override
+    public String toString() {
+      return "$" + slot + " = " + value;
+    }
+  }
+
+  /** Test if a text is equal to one of a set of values, merging the "=" and "in" terms. */
+  private static final class TextIn extends Node {
+    private final int slot;
+    private final CompactStringSet values;
+    private final String single;
+
+    private TextIn(int slot, CompactStringSet values) {
+      this.slot = slot;
+      this.values = values;
+      this.single = values.size() == 1 ? values.iterator().next() : null;
+    }
+
+    @Override
+    boolean matches(Frame frame) {
+      var value = frame.value(slot);
+      if (!(value instanceof Text)) return false;
+      var text = ((Text) value).value();
+      return single != null ? single.equals(text) : values.contains(text);
+    }
+
+    @Override
+    int cost() {
+      return EQUAL_COST;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof TextIn)) return false;
+      TextIn that = (TextIn) o;
+      return slot == that.slot && values.equals(that.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(slot, values);
+    }
+
+    @Override
+    public String toString() {
+      return "$" + slot + " in " + values;
+    }
+  }
+
+  /** The part of a text tested by a pattern. */
+  enum Part {
+    PREFIX,
+    SUFFIX,
+    INFIX
+  }
+
+  private static final class TextMatches extends Node {
+    private final int slot;
+    private final Filter.TextFilter filter;
+
+    /** The part of the text matched by the pattern, {@code null} if the filter is not a pattern. */
+    private final Part part;
+
+    private final String pattern;
+
+    private TextMatches(int slot, Filter.TextFilter filter, Part part, String pattern) {
+      this.slot = slot;
+      this.filter = filter;
+      this.part = part;
+      this.pattern = pattern;
+    }
+
+    @Override
+    boolean matches(Frame frame) {
+      var value = frame.value(slot);
+      return value instanceof Text && filter.matchesValues(((Text) value).value());
+    }
+
+    @Override
+    int cost() {
+      if (part != null) return part == Part.INFIX ? INFIX_COST : AFFIX_COST;
+      if (filter instanceof Filter.MatchesGlob) return GLOB_COST;
+      if (filter instanceof Filter.MatchesRegex) return REGEX_COST;
+      return TEXT_COST;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof TextMatches)) return false;
+      TextMatches that = (TextMatches) o;
+      return slot == that.slot && filter.equals(that.filter);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(slot, filter);
+    }
+
+    @Override
+    public String toString() {
+      return "$" + slot + ": " + filter.display();
+    }
+  }
+
+  /** Test if a text matches one of the patterns of several terms, merging the terms. */
+  private static final class TextMatchesAny extends Node {
+    private final int slot;
+    private final List<TextMatches> terms;
+    private final TextPatterns patterns;
+
+    private TextMatchesAny(int slot, List<TextMatches> terms) {
+      this.slot = slot;
+      this.terms = terms;
+      var prefixes = new ArrayList<String>();
+      var suffixes = new ArrayList<String>();
+      var infixes = new ArrayList<String>();
+      for (TextMatches term : terms) {
+        switch (term.part) {
+          case PREFIX:
+            prefixes.add(term.pattern);
+            break;
+          case SUFFIX:
+            suffixes.add(term.pattern);
+            break;
+          default:
+            infixes.add(term.pattern);
+        }
+      }
+      this.patterns = TextPatterns.of(prefixes, suffixes, infixes);
+    }
+
+    @Override
+    boolean matches(Frame frame) {
+      var value = frame.value(slot);
+      return value instanceof Text && patterns.matches(((Text) value).value());
+    }
+
+    @Override
+    int cost() {
+      return PATTERNS_COST;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof TextMatchesAny)) return false;
+      TextMatchesAny that = (TextMatchesAny) o;
+      return slot == that.slot && terms.equals(that.terms);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(slot, terms);
+    }
+
+    @Override
+    public String toString() {
+      var sb = new StringBuilder();
+      sb.append('$').append(slot).append(": ");
+      for (TextMatches term : terms) {
+        if (term != terms.get(0)) sb.append(" or ");
+        sb.append(term.filter.display());
+      }
+      return sb.toString();
+    }
+  }
+
+  private static final class Not extends Node {
+    private final Node node;
+
+    private Not(Node node) {
+      this.node = node;
+    }
+
+    @Override
+    boolean matches(Frame frame) {
+      return !node.matches(frame);
+    }
+
+    @Override
+    int cost() {
+      return node.cost();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Not && ((Not) o).node.equals(node);
+    }
+
+    @Override
+    public int hashCode() {
+      return ~node.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "not (" + node + ")";
+    }
+  }
+
+  /**
+   * An "and" or an "or" of several terms.
+   *
+   * <p>The evaluation stops at the first term giving the result of the node. During the first
+   * {@link #SAMPLE_SIZE} evaluations, the node counts how often each term is evaluated and gives
+   * the result. Then the terms are sorted by their cost divided by the rate of evaluations giving
+   * the result.
+   */
+  private abstract static class Nary extends Node {
+    /** The terms in the order of evaluation, replaced by a reordered array after the sampling. */
+    volatile Node[] nodes;
+
+    /** The statistics of the terms, {@code null} once the terms have been reordered. */
+    private volatile Statistics statistics;
+
+    /** The terms, in no order: the equality doesn't depend on the order of evaluation. */
+    private final Set<Node> terms;
+
+    private final int hashCode;
+    private final int cost;
+
+    private Nary(Node[] nodes) {
+      this.nodes = nodes;
+      this.statistics = new Statistics(nodes);
+      this.terms = Set.copyOf(Arrays.asList(nodes));
+      this.hashCode = terms.hashCode();
+      var cost = 0;
+      for (Node node : nodes) {
+        cost += node.cost();
+      }
+      this.cost = cost;
+    }
+
+    /** The result of a term that gives the result of the node. */
+    abstract boolean decisive();
+
+    @Override
+    final boolean matches(Frame frame) {
+      var statistics = this.statistics;
+      if (statistics != null) return sample(frame, statistics);
+      var nodes = this.nodes;
+      var decisive = decisive();
+      for (Node node : nodes) {
+        if (node.matches(frame) == decisive) return decisive;
+      }
+      return !decisive;
+    }
+
+    private boolean sample(Frame frame, Statistics statistics) {
+      var nodes = statistics.nodes;
+      var decisive = decisive();
+      var result = !decisive;
+      for (int i = 0; i < nodes.length; ++i) {
+        statistics.evaluations.incrementAndGet(i);
+        if (nodes[i].matches(frame) == decisive) {
+          statistics.decisions.incrementAndGet(i);
+          result = decisive;
+          break;
+        }
+      }
+      // A single thread completes the sample and reorders the terms.
+      if (statistics.samples.incrementAndGet() == SAMPLE_SIZE) reorder(statistics);
+      return result;
+    }
+
+    private void reorder(Statistics statistics) {
+      var nodes = statistics.nodes;
+      var ranks = new double[nodes.length];
+      var order = new Integer[nodes.length];
+      for (int i = 0; i < nodes.length; ++i) {
+        // The rate is smoothed, a term never evaluated has a rate of 1/2.
+        var rate = (statistics.decisions.get(i) + 1.0) / (statistics.evaluations.get(i) + 2.0);
+        ranks[i] = nodes[i].cost() / rate;
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingDouble(i -> ranks[i]));
+      var reordered = new Node[nodes.length];
+      for (int i = 0; i < nodes.length; ++i) {
+        reordered[i] = nodes[order[i]];
+      }
+      this.nodes = reordered;
+      this.statistics = null;
+    }
+
+    @Override
+    final int cost() {
+      return cost;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o != null && o.getClass() == getClass() && ((Nary) o).terms.equals(terms);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    String toString(String operator) {
+      var sb = new StringBuilder();
+      for (Node node : nodes) {
+        if (sb.length() > 0) sb.append(operator);
+        sb.append('(').append(node).append(')');
+      }
+      return sb.toString();
+    }
+  }
+
+  /** The number of evaluations of the terms of an "and" or an "or", and of their decisions. */
+  private static final class Statistics {
+    /** The sampled terms, in the order of evaluation. */
+    private final Node[] nodes;
+
+    private final AtomicIntegerArray evaluations;
+    private final AtomicIntegerArray decisions;
+    private final AtomicInteger samples = new AtomicInteger();
+
+    private Statistics(Node[] nodes) {
+      this.nodes = nodes;
+      this.evaluations = new AtomicIntegerArray(nodes.length);
+      this.decisions = new AtomicIntegerArray(nodes.length);
+    }
+  }
+
+  private static final class And extends Nary {
+    private And(Node[] nodes) {
+      super(nodes);
+    }
+
+    @Override
+    boolean decisive() {
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      return toString(" and ");
+    }
+  }
+
+  private static final class Or extends Nary {
+    private Or(Node[] nodes) {
+      super(nodes);
+    }
+
+    @Override
+    boolean decisive() {
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return toString(" or ");
+    }
+  }
+
+  private abstract static class ListMatch extends Node {
+    final int slot;
+    final int elementSlot;
+    final Node node;
+
+    private ListMatch(int slot, int elementSlot, Node node) {
+      this.slot = slot;
+      this.elementSlot = elementSlot;
+      this.node = node;
+    }
+
+    List<FilterValue> elements(Frame frame) {
+      var value = frame.value(slot);
+      return value instanceof ValueList ? ((ValueList) value).value() : null;
+    }
+
+    @Override
+    final int cost() {
+      return LIST_SIZE * (1 + node.cost());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == null || o.getClass() != getClass()) return false;
+      ListMatch that = (ListMatch) o;
+      return slot == that.slot && elementSlot == that.elementSlot && node.equals(that.node);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(slot, elementSlot, node);
+    }
+  }
+
+  private static final class AnyMatch extends ListMatch {
+    private AnyMatch(int slot, int elementSlot, Node node) {
+      super(slot, elementSlot, node);
+    }
+
+    @Override
+    boolean matches(Frame frame) {
+      var elements = elements(frame);
+      if (elements == null) return false;
+      for (FilterValue element : elements) {
+        frame.set(elementSlot, element);
+        if (node.matches(frame)) return true;
+      }
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      return "any $" + elementSlot + " in $" + slot + " match (" + node + ")";
+    }
+  }
+
+  private static final class AllMatch extends ListMatch {
+    private AllMatch(int slot, int elementSlot, Node node) {
+      super(slot, elementSlot, node);
+    }
+
+    @Override
+    boolean matches(Frame frame) {
+      var elements = elements(frame);
+      if (elements == null) return false;
+      for (FilterValue element : elements) {
+        frame.set(elementSlot, element);
+        if (!node.matches(frame)) return false;
+      }
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return "all $" + elementSlot + " in $" + slot + " match (" + node + ")";
+    }
+  }
+}
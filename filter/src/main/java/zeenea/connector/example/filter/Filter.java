@@ -6,7 +6,14 @@
 
 package zeenea.connector.example.filter;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -110,7 +117,20 @@ public abstract class Filter {
    * @return A new filter.
    */
   public static Filter in(FilterKey key, Set<String> values) {
-    return new In(key, values);
+    return new In(key, CompactStringSet.of(values), null);
+  }
+
+  /**
+   * Create a new filter that tests if the value with the given key is one of the values read from
+   * a file.
+   *
+   * @param key The field key.
+   * @param file The name of the file, as written in the filter specification.
+   * @param values The values of the file.
+   * @return A new filter.
+   */
+  public static Filter inFile(FilterKey key, String file, Collection<String> values) {
+    return new In(key, CompactStringSet.of(values), file);
   }
 
   /**
@@ -121,7 +141,7 @@ public abstract class Filter {
    * @return A new filter.
    */
   public static Filter in(FilterKey key, String... values) {
-    return new In(key, Set.of(values));
+    return new In(key, CompactStringSet.of(Arrays.asList(values)), null);
   }
 
   /**
@@ -225,6 +245,15 @@ public abstract class Filter {
    */
   public abstract Set<FilterKey> keys();
 
+  /**
+   * The values read from files by the {@code key in @'file'} filters, which are not displayed.
+   *
+   * @return The values by file name.
+   */
+  public Map<String, Set<String>> valueFiles() {
+    return Map.of();
+  }
+
   /**
    * Test if an item matches the filter.
    *
@@ -265,6 +294,31 @@ public abstract class Filter {
    */
   public abstract @NotNull Filter withContext(FilterItem item);
 
+  /**
+   * Create a simplified filter knowing that the value of a text key starts with a given prefix.
+   *
+   * <p>This is useful to discard a whole group of items sharing the same prefix before reading
+   * them. For instance, the files of a directory all have a path starting with the directory path.
+   *
+   * <pre>
+   *     var filter = FilterParser.parse(" path starts with 'sales/' and name = 'customer' ");
+   *
+   *     // Nothing under 'hr/' can match, the whole directory can be skipped.
+   *     assertEquals(Filter.never(), filter.withPrefix(pathKey, "hr/"));
+   *
+   *     // Everything under 'sales/2024/' has a matching path, only the name must be tested.
+   *     assertEquals(FilterParser.parse(" name = 'customer' "), filter.withPrefix(pathKey, "sales/2024/"));
+   * </pre>
+   *
+   * <p>The simplification is conservative: a result different from {@code never()} doesn't
+   * guarantee that a value with the prefix matches.
+   *
+   * @param key The text key.
+   * @param prefix The common prefix of the values of the key.
+   * @return A simplified filter equivalent for the values starting with the prefix.
+   */
+  public abstract @NotNull Filter withPrefix(FilterKey key, String prefix);
+
   /**
    * Create a new filter that reject items that can already discarded base on some fields.
    *
@@ -295,6 +349,77 @@ public abstract class Filter {
 
   protected abstract @Nullable Filter rewrite(Set<FilterKey> keys);
 
+  /**
+   * Compile the filter for the evaluation of many items.
+   *
+   * <p>The filter is bound to the schema of the first item tested, and bound again when an item
+   * has another schema.
+   *
+   * @return The compiled filter, giving the same results as this filter.
+   */
+  public CompiledFilter compile() {
+    return CompiledFilter.of(this, null);
+  }
+
+  /**
+   * Compile the filter for the evaluation of many items of a schema.
+   *
+   * <p>The keys of the filter are bound to their ordinals in the schema: the values are read from
+   * the items by ordinal. The items of another schema are accepted, but bind the filter again.
+   *
+   * @param schema The schema of the items.
+   * @return The compiled filter, giving the same results as this filter.
+   */
+  public CompiledFilter compile(FilterSchema schema) {
+    return CompiledFilter.of(this, Objects.requireNonNull(schema));
+  }
+
+  /**
+   * Create the node evaluating the filter in a compiled filter.
+   *
+   * @param compiler The compiler binding the keys.
+   * @return The node.
+   */
+  abstract CompiledFilter.Node toNode(CompiledFilter.Compiler compiler);
+
+  /** The values read from files by the filters, by file name. */
+  private static Map<String, Set<String>> valueFiles(List<Filter> filters) {
+    var valueFiles = new HashMap<String, Set<String>>();
+    for (var filter : filters) {
+      valueFiles.putAll(filter.valueFiles());
+    }
+    return valueFiles;
+  }
+
+  /**
+   * Get the operands of an "and" or an "or", with the operands of the nested filters of the same
+   * operator, in order.
+   *
+   * <p>The filters are traversed without recursion, a long chain of terms is compiled in a single
+   * node.
+   *
+   * @param filter An "and" or an "or".
+   * @return The operands, none of them is of the same operator.
+   */
+  private static List<Filter> operands(Filter filter) {
+    var operands = new ArrayList<Filter>();
+    var pending = new ArrayDeque<Filter>();
+    pending.push(filter);
+    while (!pending.isEmpty()) {
+      var next = pending.pop();
+      if (next instanceof And && filter instanceof And) {
+        pending.push(((And) next).filter2);
+        pending.push(((And) next).filter1);
+      } else if (next instanceof Or && filter instanceof Or) {
+        pending.push(((Or) next).filter2);
+        pending.push(((Or) next).filter1);
+      } else {
+        operands.add(next);
+      }
+    }
+    return operands;
+  }
+
   @Override
   public final String toString() {
     return display();
@@ -331,11 +456,21 @@ public abstract class Filter {
       return this;
     }
 
+    @Override
+    public @NotNull Filter withPrefix(FilterKey key, String prefix) {
+      return this;
+    }
+
     @Override
     protected Filter rewrite(Set<FilterKey> keys) {
       return this;
     }
 
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.constant(result);
+    }
+
     @Override
     public String display() {
       return result ? "always" : "never";
@@ -380,11 +515,22 @@ public abstract class Filter {
       return never();
     }
 
+    @Override
+    public @NotNull Filter withPrefix(FilterKey key, String prefix) {
+      // A value with a prefix is a text value.
+      return this.key.equals(key) ? never() : this;
+    }
+
     @Override
     protected @Nullable Filter rewrite(Set<FilterKey> keys) {
       return keys.contains(key) ? this : null;
     }
 
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.isNull(key);
+    }
+
     @Override
     public String display() {
       return key.name() + " is null";
@@ -438,11 +584,23 @@ public abstract class Filter {
       return constant(itemValue.equals(value));
     }
 
+    @Override
+    public @NotNull Filter withPrefix(FilterKey key, String prefix) {
+      if (!this.key.equals(key)) return this;
+      if (value instanceof Text && ((Text) value).value().startsWith(prefix)) return this;
+      return never();
+    }
+
     @Override
     protected @Nullable Filter rewrite(Set<FilterKey> keys) {
       return keys.contains(key) ? this : null;
     }
 
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.isEqualTo(key, value);
+    }
+
     @Override
     public String display() {
       return key.name() + " = " + toLiteral(value);
@@ -503,10 +661,30 @@ public abstract class Filter {
       return never();
     }
 
+    @Override
+    public @NotNull Filter withPrefix(FilterKey key, String prefix) {
+      return this.key.equals(key) ? withPrefix(prefix) : this;
+    }
+
+    /**
+     * Simplify the filter knowing the prefix of the value of the key.
+     *
+     * @param prefix The common prefix of the values.
+     * @return A simplified filter, {@code this} by default.
+     */
+    protected @NotNull Filter withPrefix(String prefix) {
+      return this;
+    }
+
     @Override
     protected @Nullable Filter rewrite(Set<FilterKey> keys) {
       return keys.contains(key) ? this : null;
     }
+
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.text(this);
+    }
   }
 
   public static final class Starts extends TextFilter {
@@ -522,6 +700,18 @@ public abstract class Filter {
       return text.startsWith(value);
     }
 
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.text(this, CompiledFilter.Part.PREFIX, value);
+    }
+
+    @Override
+    protected @NotNull Filter withPrefix(String prefix) {
+      if (prefix.startsWith(value)) return always();
+      if (value.startsWith(prefix)) return this;
+      return never();
+    }
+
     @Override
     public String display() {
       return key.name() + " starts with " + toLiteral(value);
@@ -554,6 +744,11 @@ public abstract class Filter {
       return text.endsWith(value);
     }
 
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.text(this, CompiledFilter.Part.SUFFIX, value);
+    }
+
     @Override
     public String display() {
       return key.name() + " ends with " + toLiteral(value);
@@ -586,6 +781,16 @@ public abstract class Filter {
       return text.contains(value);
     }
 
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.text(this, CompiledFilter.Part.INFIX, value);
+    }
+
+    @Override
+    protected @NotNull Filter withPrefix(String prefix) {
+      return prefix.contains(value) ? always() : this;
+    }
+
     @Override
     public String display() {
       return key.name() + " contains " + toLiteral(value);
@@ -606,11 +811,20 @@ public abstract class Filter {
   }
 
   public static final class In extends TextFilter {
-    private final Set<String> values;
+    private final CompactStringSet values;
+
+    /** The name of the file of the values, {@code null} if the values are listed in the filter. */
+    private final String file;
 
-    private In(FilterKey key, Set<String> values) {
+    private In(FilterKey key, CompactStringSet values, String file) {
       super(key);
       this.values = values;
+      this.file = file;
+    }
+
+    @Override
+    public Map<String, Set<String>> valueFiles() {
+      return file != null ? Map.of(file, values) : Map.of();
     }
 
     @Override
@@ -618,20 +832,29 @@ public abstract class Filter {
       return values.contains(text);
     }
 
+    @Override
+    protected @NotNull Filter withPrefix(String prefix) {
+      return values.containsPrefix(prefix) ? this : never();
+    }
+
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.in(key, values);
+    }
+
     @Override
     public String display() {
-      return key.name()
-          + " in ("
-          + values.stream().map(Filter::toLiteral).collect(Collectors.joining(", "))
-          + ')';
+      return key.name() + " in " + displayValues();
     }
 
     @Override
     public String displayInverse() {
-      return key.name()
-          + " not in ("
-          + values.stream().map(Filter::toLiteral).collect(Collectors.joining(", "))
-          + ')';
+      return key.name() + " not in " + displayValues();
+    }
+
+    private String displayValues() {
+      if (file != null) return "@" + toLiteral(file);
+      return values.stream().map(Filter::toLiteral).collect(Collectors.joining(", ", "(", ")"));
     }
 
     @Override
@@ -650,17 +873,24 @@ public abstract class Filter {
 
   public static final class MatchesGlob extends TextFilter {
     private final String glob;
+    private final Glob matcher;
     private final Pattern pattern;
 
     public MatchesGlob(FilterKey key, String glob) {
       super(key);
       this.glob = glob;
+      this.matcher = Glob.compile(glob);
       this.pattern = Pattern.compile(Glob.toRegex(glob));
     }
 
     @Override
     protected boolean matchesValues(String text) {
-      return pattern.matcher(text).matches();
+      return matcher.matches(text);
+    }
+
+    @Override
+    protected @NotNull Filter withPrefix(String prefix) {
+      return canMatchWithPrefix(pattern, prefix) ? this : never();
     }
 
     public String glob() {
@@ -693,9 +923,13 @@ public abstract class Filter {
   public static final class MatchesRegex extends TextFilter {
     private final Pattern pattern;
 
+    /** The automaton matching the pattern in linear time, {@code null} if not supported. */
+    private final RegexDfa dfa;
+
     public MatchesRegex(FilterKey key, Pattern pattern) {
       super(key);
       this.pattern = pattern;
+      this.dfa = RegexDfa.compile(pattern);
     }
 
     public Pattern pattern() {
@@ -704,7 +938,12 @@ public abstract class Filter {
 
     @Override
     protected boolean matchesValues(String text) {
-      return pattern.matcher(text).matches();
+      return dfa != null ? dfa.matches(text) : pattern.matcher(text).matches();
+    }
+
+    @Override
+    protected @NotNull Filter withPrefix(String prefix) {
+      return canMatchWithPrefix(pattern, prefix) ? this : never();
     }
 
     @Override
@@ -740,6 +979,11 @@ public abstract class Filter {
       return filter.keys();
     }
 
+    @Override
+    public Map<String, Set<String>> valueFiles() {
+      return filter.valueFiles();
+    }
+
     @Override
     public boolean matches(FilterItem item) {
       return !filter.matches(item);
@@ -753,12 +997,25 @@ public abstract class Filter {
       return Filter.not(filterWithContext);
     }
 
+    @Override
+    public @NotNull Filter withPrefix(FilterKey key, String prefix) {
+      Filter filterWithPrefix = filter.withPrefix(key, prefix);
+      if (filterWithPrefix.equals(Constant.ALWAYS)) return never();
+      if (filterWithPrefix.equals(Constant.NEVER)) return always();
+      return Filter.not(filterWithPrefix);
+    }
+
     @Override
     protected @Nullable Filter rewrite(Set<FilterKey> keys) {
       var rewritten = filter.rewrite(keys);
       return rewritten != null ? Filter.not(rewritten) : null;
     }
 
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.not(filter.toNode(compiler));
+    }
+
     @Override
     public String display() {
       return filter.displayInverse();
@@ -808,6 +1065,11 @@ public abstract class Filter {
       return allKeys;
     }
 
+    @Override
+    public final Map<String, Set<String>> valueFiles() {
+      return filter.valueFiles();
+    }
+
     @Override
     public final boolean matches(FilterItem item) {
       var value = item.get(key);
@@ -827,15 +1089,31 @@ public abstract class Filter {
 
     protected abstract Filter withFilter(Filter newFilter);
 
+    /** Create the same filter with a new element filter, still rejecting an item without list. */
+    protected abstract Filter withElementFilter(Filter newFilter);
+
     @Override
     public final @NotNull Filter withContext(FilterItem item) {
-      var contextFilter = filter.withContext(item);
-      var candidate = withFilter(contextFilter);
+      Filter contextFilter;
+      try {
+        // The element key hides the value of the context with the same key.
+        item.push(elementKey, FilterValue.unknownKey());
+        contextFilter = filter.withContext(item);
+      } finally {
+        item.pop(elementKey);
+      }
+      var candidate = withElementFilter(contextFilter);
       if (candidate.keys().stream().noneMatch(k -> item.get(k).isUnknownKey()))
         return candidate.matches(item) ? Constant.ALWAYS : Constant.NEVER;
       return candidate;
     }
 
+    @Override
+    public final @NotNull Filter withPrefix(FilterKey key, String prefix) {
+      // The key of a list filter is not a text key.
+      return this;
+    }
+
     @Override
     protected final @Nullable Filter rewrite(Set<FilterKey> keys) {
       if (!keys.contains(key)) return null;
@@ -862,6 +1140,16 @@ public abstract class Filter {
       return Filter.all(key, elementKey, newFilter);
     }
 
+    @Override
+    protected Filter withElementFilter(Filter newFilter) {
+      return new AllMatch(key, elementKey, newFilter);
+    }
+
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.allMatch(key, elementKey, filter);
+    }
+
     @Override
     public String display() {
       return "all " + elementKey.name() + " in " + key.name() + " match (" + filter.display() + ")";
@@ -892,6 +1180,16 @@ public abstract class Filter {
       return Filter.any(key, elementKey, newFilter);
     }
 
+    @Override
+    protected Filter withElementFilter(Filter newFilter) {
+      return Filter.any(key, elementKey, newFilter);
+    }
+
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.anyMatch(key, elementKey, filter);
+    }
+
     @Override
     public String display() {
       return "any " + elementKey.name() + " in " + key.name() + " match (" + filter.display() + ")";
@@ -923,6 +1221,11 @@ public abstract class Filter {
       return set;
     }
 
+    @Override
+    public Map<String, Set<String>> valueFiles() {
+      return Filter.valueFiles(operands(this));
+    }
+
     @Override
     public boolean matches(FilterItem item) {
       return filter1.matches(item) && filter2.matches(item);
@@ -933,6 +1236,11 @@ public abstract class Filter {
       return Filter.and(filter1.withContext(item), filter2.withContext(item));
     }
 
+    @Override
+    public @NotNull Filter withPrefix(FilterKey key, String prefix) {
+      return Filter.and(filter1.withPrefix(key, prefix), filter2.withPrefix(key, prefix));
+    }
+
     @Override
     protected @Nullable Filter rewrite(Set<FilterKey> keys) {
       var rewrite1 = filter1.rewrite(keys);
@@ -942,6 +1250,11 @@ public abstract class Filter {
       return rewrite2;
     }
 
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.and(operands(this));
+    }
+
     @Override
     public String display() {
       return "(" + filter1.display() + ") and (" + filter2.display() + ")";
@@ -976,6 +1289,11 @@ public abstract class Filter {
       return set;
     }
 
+    @Override
+    public Map<String, Set<String>> valueFiles() {
+      return Filter.valueFiles(operands(this));
+    }
+
     @Override
     public boolean matches(FilterItem item) {
       return filter1.matches(item) || filter2.matches(item);
@@ -986,6 +1304,11 @@ public abstract class Filter {
       return Filter.or(filter1.withContext(item), filter2.withContext(item));
     }
 
+    @Override
+    public @NotNull Filter withPrefix(FilterKey key, String prefix) {
+      return Filter.or(filter1.withPrefix(key, prefix), filter2.withPrefix(key, prefix));
+    }
+
     @Override
     protected @Nullable Filter rewrite(Set<FilterKey> keys) {
       var rewrite1 = filter1.rewrite(keys);
@@ -994,6 +1317,11 @@ public abstract class Filter {
       return null;
     }
 
+    @Override
+    CompiledFilter.Node toNode(CompiledFilter.Compiler compiler) {
+      return compiler.or(operands(this));
+    }
+
     @Override
     public String display() {
       return "(" + filter1.display() + ") or (" + filter2.display() + ")";
@@ -1013,6 +1341,17 @@ public abstract class Filter {
     }
   }
 
+  /**
+   * Tell if a text starting with the given prefix can match the pattern.
+   *
+   * <p>When a match fails without hitting the end of the input, adding more characters can't make
+   * it succeed.
+   */
+  private static boolean canMatchWithPrefix(Pattern pattern, String prefix) {
+    var matcher = pattern.matcher(prefix);
+    return matcher.matches() || matcher.hitEnd();
+  }
+
   static String fromLiteral(String text) {
     var sb = new StringBuilder();
     for (int i = 1, n = text.length() - 1; i < n; ++i) {
@@ -6,19 +6,36 @@
 
 package zeenea.connector.example.filter;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-/** The container of the data tested by the filter. */
+/**
+ * The container of the data tested by the filter.
+ *
+ * <p>The values are stored in an array indexed by the ordinals of the keys in a {@link
+ * FilterSchema}. The items created by {@link FilterSchema#newItem()} can be cleared and reused for
+ * many items, the items created by the {@code of()} methods are immutable.
+ */
 public final class FilterItem {
-  private final Map<FilterKey, FilterValue> values;
-  private final LinkedList<FilterKeyValue> localValues = new LinkedList<>();
+  private final FilterSchema schema;
+  private final FilterValue[] values;
+  private final boolean mutable;
+
+  /** The temporary values, the top of the stack is at the end. */
+  private FilterKey[] localKeys = new FilterKey[4];
 
-  private FilterItem(Map<FilterKey, FilterValue> values) {
+  private FilterValue[] localValues = new FilterValue[4];
+  private int localSize = 0;
+
+  FilterItem(FilterSchema schema, FilterValue[] values, boolean mutable) {
+    this.schema = schema;
     this.values = values;
+    this.mutable = mutable;
   }
 
   /**
@@ -28,7 +45,12 @@ public final class FilterItem {
    * @return A new item.
    */
   public static FilterItem of(Map<FilterKey, FilterValue> values) {
-    return new FilterItem(Map.copyOf(values));
+    var schema = FilterSchema.of(values.keySet());
+    var array = new FilterValue[schema.size()];
+    for (var entry : values.entrySet()) {
+      array[schema.ordinal(entry.getKey())] = Objects.requireNonNull(entry.getValue());
+    }
+    return new FilterItem(schema, array, false);
   }
 
   /**
@@ -38,7 +60,7 @@ public final class FilterItem {
    * @return A new item.
    */
   public static FilterItem of(List<FilterKeyValue> values) {
-    return new FilterItem(
+    return of(
         values.stream()
             .collect(Collectors.toUnmodifiableMap(FilterKeyValue::key, FilterKeyValue::value)));
   }
@@ -50,11 +72,62 @@ public final class FilterItem {
    * @return A new item.
    */
   public static FilterItem of(FilterKeyValue... values) {
-    return new FilterItem(
+    return of(
         Stream.of(values)
             .collect(Collectors.toUnmodifiableMap(FilterKeyValue::key, FilterKeyValue::value)));
   }
 
+  /**
+   * The schema of the item.
+   *
+   * @return The schema.
+   */
+  public FilterSchema schema() {
+    return schema;
+  }
+
+  /**
+   * Set the value of a key.
+   *
+   * @param key The key.
+   * @param value The value.
+   * @throws IllegalArgumentException if the key is not part of the schema of the item.
+   * @throws UnsupportedOperationException if the item is immutable.
+   */
+  public void set(FilterKey key, FilterValue value) {
+    checkMutable();
+    var ordinal = schema.ordinal(key);
+    if (ordinal < 0) {
+      throw new IllegalArgumentException("Key " + key.name() + " is not part of the schema");
+    }
+    values[ordinal] = Objects.requireNonNull(value);
+  }
+
+  /**
+   * Set the value of a key.
+   *
+   * @param keyValue The key and the value.
+   * @throws IllegalArgumentException if the key is not part of the schema of the item.
+   * @throws UnsupportedOperationException if the item is immutable.
+   */
+  public void set(FilterKeyValue keyValue) {
+    set(keyValue.key(), keyValue.value());
+  }
+
+  /**
+   * Remove all the values, to reuse the item.
+   *
+   * @throws UnsupportedOperationException if the item is immutable.
+   */
+  public void clear() {
+    checkMutable();
+    Arrays.fill(values, null);
+  }
+
+  private void checkMutable() {
+    if (!mutable) throw new UnsupportedOperationException("The filter item is immutable");
+  }
+
   /**
    * Add a temporary value in the item.
    *
@@ -62,7 +135,13 @@ public final class FilterItem {
    * @param value The temporary value.
    */
   void push(FilterKey key, FilterValue value) {
-    push(FilterKeyValue.of(key, value));
+    if (localSize == localKeys.length) {
+      localKeys = Arrays.copyOf(localKeys, localSize * 2);
+      localValues = Arrays.copyOf(localValues, localSize * 2);
+    }
+    localKeys[localSize] = key;
+    localValues[localSize] = value;
+    localSize++;
   }
 
   /**
@@ -71,7 +150,7 @@ public final class FilterItem {
    * @param keyValue The temporary key and value.
    */
   void push(FilterKeyValue keyValue) {
-    localValues.push(keyValue);
+    push(keyValue.key(), keyValue.value());
   }
 
   /**
@@ -86,10 +165,13 @@ public final class FilterItem {
    * @throws java.util.NoSuchElementException if there is no temporary value.
    */
   void pop(FilterKey key) {
-    FilterKeyValue removed = localValues.pop();
-    if (!removed.key().equals(key))
+    if (localSize == 0) throw new NoSuchElementException();
+    var removed = localKeys[--localSize];
+    localKeys[localSize] = null;
+    localValues[localSize] = null;
+    if (!removed.equals(key))
       throw new IllegalStateException(
-          "Invalid key removed. Expected " + key + " removed " + removed.key());
+          "Invalid key removed. Expected " + key + " removed " + removed);
   }
 
   /**
@@ -99,10 +181,20 @@ public final class FilterItem {
    * @return The value of the key or {@code FilterValue#unknownKey} if the key doesn't exists.
    */
   public FilterValue get(FilterKey key) {
-    return localValues.stream()
-        .filter(kv -> kv.key().equals(key))
-        .map(FilterKeyValue::value)
-        .findFirst()
-        .orElseGet(() -> values.getOrDefault(key, FilterValue.unknownKey));
+    for (int i = localSize - 1; i >= 0; --i) {
+      if (localKeys[i].equals(key)) return localValues[i];
+    }
+    return value(schema.ordinal(key));
+  }
+
+  /**
+   * Get the value of a key from its ordinal, ignoring the temporary values.
+   *
+   * @param ordinal The ordinal of the key in the schema of the item, -1 if it is not in the schema.
+   * @return The value of the key or {@code FilterValue#unknownKey} if the key doesn't exists.
+   */
+  FilterValue value(int ordinal) {
+    var value = ordinal >= 0 ? values[ordinal] : null;
+    return value != null ? value : FilterValue.unknownKey;
   }
 }
@@ -28,9 +28,10 @@ import org.jetbrains.annotations.NotNull;
  * </dl>
  */
 public final class FilterKey {
-  private static final Pattern NAME_PATTERN = Pattern.compile("[_a-zA-Z][_a-zA-Z0-9]+");
+  private static final Pattern NAME_PATTERN = Pattern.compile("[_a-zA-Z][_a-zA-Z0-9]*");
   private final @NotNull String name;
   private final @NotNull FilterKind kind;
+  private final int hash;
 
   private FilterKey(@NotNull FilterKind kind, @NotNull String name) {
     this.kind = requireNonNull(kind, "kind");
@@ -39,6 +40,7 @@ public final class FilterKey {
           "Invalid filter key name '" + name + "' should match /" + NAME_PATTERN.pattern() + "/");
     }
     this.name = name;
+    this.hash = Objects.hash(name);
   }
 
   /**
@@ -89,7 +91,7 @@ public final class FilterKey {
 
   @Override
   public int hashCode() {
-    return Objects.hash(name);
+    return hash;
   }
 
   @Override
@@ -6,24 +6,38 @@
 
 package zeenea.connector.example.filter;
 
+import java.nio.file.Path;
 import java.util.Set;
 
 /** Parser of filter specification. */
 public class FilterParser {
   private final FilterKeyDictionary keyDictionary;
+  private final Path basePath;
 
-  private FilterParser(Set<FilterKey> keySet) {
+  private FilterParser(Set<FilterKey> keySet, Path basePath) {
     this.keyDictionary = FilterKeyDictionary.of(keySet);
+    this.basePath = basePath;
   }
 
   /** Create a parser that accept the given keys. */
   public static FilterParser of(FilterKey... keys) {
-    return new FilterParser(Set.of(keys));
+    return new FilterParser(Set.of(keys), Path.of(""));
   }
 
   /** Create a parser that accept the given set of keys. */
   public static FilterParser of(Set<FilterKey> keySet) {
-    return new FilterParser(keySet);
+    return new FilterParser(keySet, Path.of(""));
+  }
+
+  /**
+   * Create a parser that accept the given set of keys.
+   *
+   * @param keySet The keys.
+   * @param basePath The directory of the relative files of the {@code key in @'file'} filters.
+   * @return The parser.
+   */
+  public static FilterParser of(Set<FilterKey> keySet, Path basePath) {
+    return new FilterParser(keySet, basePath);
   }
 
   /**
@@ -38,6 +52,7 @@ public class FilterParser {
       if (filterSpec == null || filterSpec.isEmpty()) return Filter.always();
       RawFilterParser rawParser = new RawFilterParser(filterSpec);
       rawParser.keyDic = keyDictionary;
+      rawParser.basePath = basePath;
       return rawParser.filter();
     } catch (TokenMgrException | ParseException e) {
       throw new FilterParsingException(e.getMessage(), e);
@@ -0,0 +1,94 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The keys of the filter items of a connection.
+ *
+ * <p>The schema gives an ordinal to each key, the values of the items created by the schema are
+ * stored in an array indexed by these ordinals. An item created by the schema can be reused for
+ * many items:
+ *
+ * <pre>
+ *     var schema = FilterSchema.of(List.of(nameKey, pathKey));
+ *     var item = schema.newItem();
+ *     for (File file : files) {
+ *       item.clear();
+ *       item.set(nameKey, FilterValue.text(file.getName()));
+ *       item.set(pathKey, FilterValue.text(file.getPath()));
+ *       if (filter.matches(item)) accepted.add(file);
+ *     }
+ * </pre>
+ */
+public final class FilterSchema {
+  private final List<FilterKey> keys;
+  private final Map<FilterKey, Integer> ordinals;
+
+  private FilterSchema(List<FilterKey> keys) {
+    this.keys = keys;
+    this.ordinals = new HashMap<>(keys.size() * 2);
+    for (int i = 0; i < keys.size(); ++i) {
+      ordinals.put(keys.get(i), i);
+    }
+  }
+
+  /**
+   * Create a schema.
+   *
+   * @param keys The keys of the items. The duplicated keys are ignored.
+   * @return A new schema.
+   */
+  public static FilterSchema of(Collection<FilterKey> keys) {
+    return new FilterSchema(List.copyOf(new LinkedHashSet<>(keys)));
+  }
+
+  /**
+   * The keys of the schema.
+   *
+   * @return The keys, in the order of their ordinals.
+   */
+  public List<FilterKey> keys() {
+    return keys;
+  }
+
+  /**
+   * The number of keys of the schema.
+   *
+   * @return The number of keys.
+   */
+  public int size() {
+    return keys.size();
+  }
+
+  /**
+   * Get the ordinal of a key.
+   *
+   * @param key The key.
+   * @return The ordinal of the key, -1 if the key is not part of the schema.
+   */
+  public int ordinal(FilterKey key) {
+    var ordinal = ordinals.get(key);
+    return ordinal != null ? ordinal : -1;
+  }
+
+  /**
+   * Create a new empty item.
+   *
+   * <p>The item is not thread safe, it should be used by a single thread at a time.
+   *
+   * @return A new item having no value.
+   */
+  public FilterItem newItem() {
+    return new FilterItem(this, new FilterValue[keys.size()], true);
+  }
+}
@@ -6,8 +6,167 @@
 
 package zeenea.connector.example.filter;
 
-/** Tool to convert a glob pattern to a regex. */
-class Glob {
+/**
+ * Glob patterns.
+ *
+ * <p>A glob pattern contains:
+ *
+ * <ul>
+ *   <li>{@code ?} matching any character,
+ *   <li>{@code *} matching any sequence of characters,
+ *   <li>{@code \?}, {@code \*} and {@code \\} matching the characters {@code ?}, {@code *} and
+ *       {@code \},
+ *   <li>any other character, including a {@code \} not followed by {@code ?}, {@code *} or {@code
+ *       \}, matching itself.
+ * </ul>
+ *
+ * <p>The glob is matched like the regex given by {@link #toRegex(String)}: a character is a code
+ * point, and the line terminators are not matched by {@code ?} and {@code *}.
+ *
+ * <p>The glob is matched directly over the text, without regex. The literal prefix and suffix are
+ * compared first, then the remaining part is matched by a greedy algorithm: each star matches as
+ * few characters as possible and only the last star is extended on a mismatch. The matching time
+ * is linear for the common patterns having at most one star, and {@code O(text * pattern)} in the
+ * worst case.
+ */
+final class Glob {
+  private static final byte LITERAL = 0;
+  private static final byte ANY = 1;
+  private static final byte STAR = 2;
+
+  /** The literal characters before the first wildcard. */
+  private final String prefix;
+
+  /** The literal characters after the last star, empty if there is no star. */
+  private final String suffix;
+
+  /** The tokens between the prefix and the suffix, {@code null} if there is no wildcard. */
+  private final byte[] types;
+
+  private final char[] chars;
+
+  private Glob(String prefix, String suffix, byte[] types, char[] chars) {
+    this.prefix = prefix;
+    this.suffix = suffix;
+    this.types = types;
+    this.chars = chars;
+  }
+
+  /**
+   * Compile a glob pattern.
+   *
+   * @param glob The glob pattern.
+   * @return The compiled glob.
+   */
+  static Glob compile(String glob) {
+    var n = glob.length();
+    var types = new byte[n];
+    var chars = new char[n];
+    var count = 0;
+    for (var i = 0; i < n; ++i) {
+      var ch = glob.charAt(i);
+      if (ch == '?') {
+        types[count++] = ANY;
+      } else if (ch == '*') {
+        // Consecutive stars are the same as a single star.
+        if (count == 0 || types[count - 1] != STAR) types[count++] = STAR;
+      } else {
+        if (ch == '\\' && i + 1 < n) {
+          var next = glob.charAt(i + 1);
+          if (next == '\\' || next == '?' || next == '*') {
+            ch = next;
+            i += 1;
+          }
+        }
+        types[count] = LITERAL;
+        chars[count++] = ch;
+      }
+    }
+
+    var start = 0;
+    while (start < count && types[start] == LITERAL) start++;
+    var prefix = new String(chars, 0, start);
+    if (start == count) return new Glob(prefix, "", null, null);
+
+    var end = count;
+    while (types[end - 1] == LITERAL) end--;
+    var suffix = "";
+    if (types[end - 1] == STAR) {
+      suffix = new String(chars, end, count - end);
+    } else {
+      // The literal characters after a '?' are part of the tokens.
+      end = count;
+    }
+    var bodyTypes = new byte[end - start];
+    var bodyChars = new char[end - start];
+    System.arraycopy(types, start, bodyTypes, 0, end - start);
+    System.arraycopy(chars, start, bodyChars, 0, end - start);
+    return new Glob(prefix, suffix, bodyTypes, bodyChars);
+  }
+
+  /**
+   * Test if a text matches the glob.
+   *
+   * @param text The text.
+   * @return {@code true} if the whole text matches the glob.
+   */
+  boolean matches(String text) {
+    if (types == null) return text.equals(prefix);
+    var end = text.length() - suffix.length();
+    if (end < prefix.length() || !text.startsWith(prefix) || !text.endsWith(suffix)) return false;
+    return matchesBody(text, prefix.length(), end);
+  }
+
+  private boolean matchesBody(String text, int start, int end) {
+    var n = types.length;
+    var p = 0;
+    var t = start;
+    var starP = -1;
+    var starT = -1;
+    while (t < end) {
+      if (p < n) {
+        var type = types[p];
+        if (type == STAR) {
+          starP = ++p;
+          starT = t;
+          continue;
+        }
+        if (type == LITERAL) {
+          if (chars[p] == text.charAt(t)) {
+            p++;
+            t++;
+            continue;
+          }
+        } else if (!isLineTerminator(text.charAt(t))) {
+          p++;
+          t += charCount(text, t, end);
+          continue;
+        }
+      }
+      // Mismatch: the last star matches one more character.
+      if (starP < 0 || isLineTerminator(text.charAt(starT))) return false;
+      starT += charCount(text, starT, end);
+      t = starT;
+      p = starP;
+    }
+    while (p < n && types[p] == STAR) p++;
+    return p == n;
+  }
+
+  /** The number of characters of the code point at an index. */
+  private static int charCount(String text, int index, int end) {
+    return Character.isHighSurrogate(text.charAt(index))
+            && index + 1 < end
+            && Character.isLowSurrogate(text.charAt(index + 1))
+        ? 2
+        : 1;
+  }
+
+  /** The line terminators not matched by the '.' of a regex. */
+  static boolean isLineTerminator(char ch) {
+    return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+  }
+
   public static String toRegex(String glob) {
     var n = glob.length();
     var sb = new StringBuilder(n + n / 2);
@@ -22,18 +181,17 @@ class Glob {
           sb.append(".*");
           break;
         case '\\':
-          sb.append('\\');
-          i += 1;
-          if (i >= n) {
-            // Escape final '\' character
-            sb.append('\\');
-          } else {
-            var next = glob.charAt(i);
-            // Double the escape '\' character to avoir interpretation except for "\\", "\?" and
-            // "\*".
-            if (next != '\\' && next != '?' && next != '*') sb.append('\\');
-            sb.append(next);
+          if (i + 1 < n) {
+            var next = glob.charAt(i + 1);
+            // Keep the escape of "\\", "\?" and "\*".
+            if (next == '\\' || next == '?' || next == '*') {
+              sb.append('\\').append(next);
+              i += 1;
+              break;
+            }
           }
+          // Any other '\' is a literal character, the next character is translated as usual.
+          sb.append("\\\\");
           break;
         case '.':
         case '(':
@@ -0,0 +1,691 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Regex matched by a lazily built deterministic automaton, in a time linear in the text length.
+ *
+ * <p>The regex is translated to a non-deterministic automaton, the states of the deterministic
+ * automaton are the sets of states of the non-deterministic automaton and are created on their
+ * first use. The transitions are cached, up to {@link #MAX_STATES} states: over this limit the new
+ * states are computed for each text, which is slower but still linear.
+ *
+ * <p>The supported syntax is a subset of {@link Pattern}:
+ *
+ * <ul>
+ *   <li>the literal characters and the escapes {@code \t}, {@code \n}, {@code \r}, {@code \f},
+ *       {@code \a}, {@code \e}, {@code \xhh}, <code>&#92;uhhhh</code> and {@code \} followed by a
+ *       character other than a letter or a digit,
+ *   <li>{@code .}, the classes {@code [...]} and {@code [^...]} with ranges, and the predefined
+ *       classes {@code \d}, {@code \D}, {@code \s}, {@code \S}, {@code \w} and {@code \W},
+ *   <li>the groups {@code (...)}, {@code (?:...)} and {@code (?<name>...)}, the alternatives
+ *       {@code |},
+ *   <li>the greedy and reluctant quantifiers {@code *}, {@code +}, {@code ?} and {@code {n,m}},
+ *   <li>{@code ^} at the start and {@code $} at the end of the regex,
+ *   <li>the flags {@code d}, {@code i}, {@code m} and {@code s}.
+ * </ul>
+ *
+ * <p>The whole text is matched, like {@link java.util.regex.Matcher#matches()}, so the reluctant
+ * quantifiers are the same as the greedy ones. A text containing surrogates is matched by the
+ * pattern, as a code point may be matched by {@code .} or a negated class.
+ */
+final class RegexDfa {
+  /** The maximum number of cached states of the deterministic automaton. */
+  static final int MAX_STATES = 4096;
+
+  /** The maximum number of states of the non-deterministic automaton. */
+  private static final int MAX_NFA_STATES = 10_000;
+
+  private static final int SUPPORTED_FLAGS =
+      Pattern.UNIX_LINES | Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL;
+
+  /** The scratch buffers of the closures, reused by the thread. */
+  private static final ThreadLocal<Scratch> scratches = ThreadLocal.withInitial(Scratch::new);
+
+  private final Pattern pattern;
+  private final Nfa nfa;
+  private final Map<StateKey, State> states = new ConcurrentHashMap<>();
+  private final State start;
+
+  /** Set once {@link #MAX_STATES} states are cached, the new states are then never cached. */
+  private volatile boolean full;
+
+  private RegexDfa(Pattern pattern, Nfa nfa) {
+    this.pattern = pattern;
+    this.nfa = nfa;
+    var scratch = scratches.get().reserve(nfa.size);
+    scratch.targets[0] = nfa.start;
+    this.start = state(nfa.closure(scratch, 1));
+  }
+
+  /**
+   * Compile a pattern.
+   *
+   * @param pattern The pattern.
+   * @return The compiled pattern, {@code null} if the pattern uses an unsupported construct.
+   */
+  static RegexDfa compile(Pattern pattern) {
+    if ((pattern.flags() & ~SUPPORTED_FLAGS) != 0) return null;
+    try {
+      var node = new Parser(pattern.pattern(), pattern.flags()).parse();
+      var nfa = new Nfa();
+      nfa.start = node.compile(nfa, nfa.add(Nfa.MATCH, null, -1, -1));
+      return new RegexDfa(pattern, nfa);
+    } catch (Unsupported e) {
+      return null;
+    }
+  }
+
+  /**
+   * Test if a text matches the regex.
+   *
+   * @param text The text.
+   * @return {@code true} if the whole text matches the regex.
+   */
+  boolean matches(String text) {
+    var state = start;
+    for (int i = 0, n = text.length(); i < n; ++i) {
+      var c = text.charAt(i);
+      if (Character.isSurrogate(c)) return pattern.matcher(text).matches();
+      var next = c < State.ASCII ? state.ascii[c] : state.others.get(c);
+      if (next == null) next = next(state, c);
+      if (next.dead) return false;
+      state = next;
+    }
+    return state.accepting;
+  }
+
+  /** The number of cached states. */
+  int stateCount() {
+    return states.size();
+  }
+
+  /**
+   * Compute a transition missing from the cache.
+   *
+   * <p>The states are immutable but for their transitions, which are only written here and read
+   * without lock: a missing transition is computed again, to the same state if it is cached. Only
+   * the insertion of a new state in the cache is locked.
+   */
+  private State next(State state, char c) {
+    var scratch = scratches.get().reserve(nfa.size);
+    var count = 0;
+    for (int s : state.nfaStates) {
+      if (nfa.types[s] == Nfa.CHAR && nfa.predicates[s].test(c)) {
+        scratch.targets[count++] = nfa.out1[s];
+      }
+    }
+    var next = state(nfa.closure(scratch, count));
+    if (state.cached && next.cached) {
+      if (c < State.ASCII) {
+        state.ascii[c] = next;
+      } else {
+        state.others.put(c, next);
+      }
+    }
+    return next;
+  }
+
+  private State state(int[] nfaStates) {
+    var key = new StateKey(nfaStates);
+    var state = states.get(key);
+    if (state != null) return state;
+    var accepting = false;
+    for (int s : nfaStates) {
+      accepting |= nfa.types[s] == Nfa.MATCH;
+    }
+    if (!full) {
+      synchronized (this) {
+        state = states.get(key);
+        if (state != null) return state;
+        if (states.size() < MAX_STATES) {
+          state = new State(nfaStates, accepting, true);
+          states.put(key, state);
+          return state;
+        }
+        full = true;
+      }
+    }
+    return new State(nfaStates, accepting, false);
+  }
+
+  /** A state of the deterministic automaton. */
+  private static final class State {
+    static final int ASCII = 128;
+
+    final int[] nfaStates;
+    final boolean accepting;
+    final boolean dead;
+
+    /** The state is in the cache, the transitions are cached only between cached states. */
+    final boolean cached;
+
+    final State[] ascii = new State[ASCII];
+    final Map<Character, State> others = new ConcurrentHashMap<>();
+
+    State(int[] nfaStates, boolean accepting, boolean cached) {
+      this.nfaStates = nfaStates;
+      this.accepting = accepting;
+      this.dead = nfaStates.length == 0;
+      this.cached = cached;
+    }
+  }
+
+  private static final class StateKey {
+    private final int[] nfaStates;
+    private final int hash;
+
+    StateKey(int[] nfaStates) {
+      this.nfaStates = nfaStates;
+      this.hash = Arrays.hashCode(nfaStates);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof StateKey && Arrays.equals(nfaStates, ((StateKey) o).nfaStates);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /** A Thompson automaton, the states are added from the end of the regex to its start. */
+  private static final class Nfa {
+    static final byte MATCH = 0;
+    static final byte CHAR = 1;
+    static final byte SPLIT = 2;
+
+    byte[] types = new byte[16];
+    IntPredicate[] predicates = new IntPredicate[16];
+    int[] out1 = new int[16];
+    int[] out2 = new int[16];
+    int size;
+    int start;
+
+    int add(byte type, IntPredicate predicate, int target1, int target2) {
+      if (size == MAX_NFA_STATES) throw new Unsupported();
+      if (size == types.length) {
+        types = Arrays.copyOf(types, size * 2);
+        predicates = Arrays.copyOf(predicates, size * 2);
+        out1 = Arrays.copyOf(out1, size * 2);
+        out2 = Arrays.copyOf(out2, size * 2);
+      }
+      types[size] = type;
+      predicates[size] = predicate;
+      out1[size] = target1;
+      out2[size] = target2;
+      return size++;
+    }
+
+    /**
+     * The sorted states reachable without reading a character, without the split states.
+     *
+     * @param scratch The scratch buffers, the first {@code count} targets are the states to start
+     *     from.
+     * @param count The number of states to start from.
+     */
+    int[] closure(Scratch scratch, int count) {
+      var visited = scratch.visited;
+      var stack = scratch.stack;
+      // The visited states, in the order of their visit.
+      var seen = scratch.seen;
+      var top = 0;
+      var n = 0;
+      for (int i = 0; i < count; ++i) {
+        var s = scratch.targets[i];
+        if (!visited[s]) {
+          visited[s] = true;
+          stack[top++] = s;
+          seen[n++] = s;
+        }
+      }
+      while (top > 0) {
+        var s = stack[--top];
+        if (types[s] != SPLIT) continue;
+        for (int i = 0; i < 2; ++i) {
+          var target = i == 0 ? out1[s] : out2[s];
+          if (target >= 0 && !visited[target]) {
+            visited[target] = true;
+            stack[top++] = target;
+            seen[n++] = target;
+          }
+        }
+      }
+      var m = 0;
+      for (int i = 0; i < n; ++i) {
+        visited[seen[i]] = false;
+        if (types[seen[i]] != SPLIT) seen[m++] = seen[i];
+      }
+      var result = Arrays.copyOf(seen, m);
+      Arrays.sort(result);
+      return result;
+    }
+  }
+
+  /** The buffers of a closure, sized to the largest automaton of the thread. */
+  private static final class Scratch {
+    boolean[] visited = new boolean[0];
+    int[] stack = new int[0];
+    int[] targets = new int[0];
+    int[] seen = new int[0];
+
+    Scratch reserve(int size) {
+      if (visited.length < size) {
+        visited = new boolean[size];
+        stack = new int[size];
+        targets = new int[size];
+        seen = new int[size];
+      }
+      return this;
+    }
+  }
+
+  /** A regex syntax tree. */
+  private abstract static class Node {
+    /** Add the states of the node, return its start state. */
+    abstract int compile(Nfa nfa, int next);
+  }
+
+  private static final class CharNode extends Node {
+    private final IntPredicate predicate;
+
+    CharNode(IntPredicate predicate) {
+      this.predicate = predicate;
+    }
+
+    @Override
+    int compile(Nfa nfa, int next) {
+      return nfa.add(Nfa.CHAR, predicate, next, -1);
+    }
+  }
+
+  private static final class Sequence extends Node {
+    private final List<Node> nodes;
+
+    Sequence(List<Node> nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    int compile(Nfa nfa, int next) {
+      for (int i = nodes.size() - 1; i >= 0; --i) {
+        next = nodes.get(i).compile(nfa, next);
+      }
+      return next;
+    }
+  }
+
+  private static final class Alternatives extends Node {
+    private final List<Node> nodes;
+
+    Alternatives(List<Node> nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    int compile(Nfa nfa, int next) {
+      var start = nodes.get(nodes.size() - 1).compile(nfa, next);
+      for (int i = nodes.size() - 2; i >= 0; --i) {
+        start = nfa.add(Nfa.SPLIT, null, nodes.get(i).compile(nfa, next), start);
+      }
+      return start;
+    }
+  }
+
+  private static final class Repeat extends Node {
+    private final Node node;
+    private final int min;
+
+    /** The maximum number of repetitions, -1 if unbounded. */
+    private final int max;
+
+    Repeat(Node node, int min, int max) {
+      this.node = node;
+      this.min = min;
+      this.max = max;
+    }
+
+    @Override
+    int compile(Nfa nfa, int next) {
+      var start = next;
+      if (max < 0) {
+        // The loop state is created first, its first target is set once the node is compiled.
+        var loop = nfa.add(Nfa.SPLIT, null, -1, next);
+        var body = node.compile(nfa, loop);
+        nfa.out1[loop] = body;
+        start = loop;
+      } else {
+        for (int i = min; i < max; ++i) {
+          start = nfa.add(Nfa.SPLIT, null, node.compile(nfa, start), next);
+        }
+      }
+      for (int i = 0; i < min; ++i) {
+        start = node.compile(nfa, start);
+      }
+      return start;
+    }
+  }
+
+  /** A construct of the regex not supported by the automaton. */
+  private static final class Unsupported extends RuntimeException {
+    Unsupported() {
+      super(null, null, false, false);
+    }
+  }
+
+  /** A recursive descent parser of the regexes accepted by {@link Pattern}. */
+  private static final class Parser {
+    private static final Node EMPTY = new Sequence(List.of());
+
+    private final String regex;
+    private final boolean caseInsensitive;
+    private final boolean multiline;
+    private final IntPredicate dot;
+    private int index;
+
+    Parser(String regex, int flags) {
+      this.regex = regex;
+      this.caseInsensitive = (flags & Pattern.CASE_INSENSITIVE) != 0;
+      this.multiline = (flags & Pattern.MULTILINE) != 0;
+      if ((flags & Pattern.DOTALL) != 0) {
+        this.dot = c -> true;
+      } else if ((flags & Pattern.UNIX_LINES) != 0) {
+        this.dot = c -> c != '\n';
+      } else {
+        this.dot = c -> !Glob.isLineTerminator((char) c);
+      }
+    }
+
+    Node parse() {
+      var node = alternatives();
+      if (index < regex.length()) throw new Unsupported();
+      return node;
+    }
+
+    private boolean more() {
+      return index < regex.length();
+    }
+
+    private char peek() {
+      return regex.charAt(index);
+    }
+
+    private Node alternatives() {
+      var nodes = new ArrayList<Node>();
+      nodes.add(sequence());
+      while (more() && peek() == '|') {
+        index++;
+        nodes.add(sequence());
+      }
+      return nodes.size() == 1 ? nodes.get(0) : new Alternatives(nodes);
+    }
+
+    private Node sequence() {
+      var nodes = new ArrayList<Node>();
+      while (more() && peek() != '|' && peek() != ')') {
+        nodes.add(repeat());
+      }
+      return nodes.size() == 1 ? nodes.get(0) : new Sequence(nodes);
+    }
+
+    private Node repeat() {
+      var node = atom();
+      while (more()) {
+        var c = peek();
+        int min;
+        int max;
+        if (c == '*') {
+          min = 0;
+          max = -1;
+          index++;
+        } else if (c == '+') {
+          min = 1;
+          max = -1;
+          index++;
+        } else if (c == '?') {
+          min = 0;
+          max = 1;
+          index++;
+        } else if (c == '{') {
+          index++;
+          min = number();
+          max = min;
+          if (more() && peek() == ',') {
+            index++;
+            max = more() && peek() == '}' ? -1 : number();
+          }
+          if (!more() || peek() != '}' || (max >= 0 && max < min)) throw new Unsupported();
+          index++;
+        } else {
+          break;
+        }
+        if (more() && peek() == '?') {
+          // A reluctant quantifier matches the same whole texts as a greedy one.
+          index++;
+        } else if (more() && peek() == '+') {
+          // A possessive quantifier doesn't backtrack.
+          throw new Unsupported();
+        }
+        node = new Repeat(node, min, max);
+      }
+      return node;
+    }
+
+    private int number() {
+      var start = index;
+      var value = 0;
+      while (more() && peek() >= '0' && peek() <= '9') {
+        value = value * 10 + (regex.charAt(index++) - '0');
+        if (value > MAX_NFA_STATES) throw new Unsupported();
+      }
+      if (index == start) throw new Unsupported();
+      return value;
+    }
+
+    private Node atom() {
+      var c = regex.charAt(index++);
+      switch (c) {
+        case '(':
+          return group();
+        case '[':
+          return new CharNode(characterClass());
+        case '.':
+          return new CharNode(dot);
+        case '^':
+          // The start of the text, always matched at the start of the regex but for an empty text
+          // with the multiline flag.
+          if (index != 1 || multiline) throw new Unsupported();
+          return EMPTY;
+        case '$':
+          // The end of the text, always matched at the end of the regex.
+          if (index != regex.length()) throw new Unsupported();
+          return EMPTY;
+        case '\\':
+          return new CharNode(escape());
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+          throw new Unsupported();
+        default:
+          return new CharNode(literal(c));
+      }
+    }
+
+    private Node group() {
+      if (more() && peek() == '?') {
+        index++;
+        if (more() && peek() == ':') {
+          index++;
+        } else if (more() && peek() == '<' && index + 1 < regex.length()) {
+          // A named group, the lookbehinds "(?<=" and "(?<!" are not supported.
+          var next = regex.charAt(index + 1);
+          if (next == '=' || next == '!') throw new Unsupported();
+          var end = regex.indexOf('>', index);
+          if (end < 0) throw new Unsupported();
+          index = end + 1;
+        } else {
+          throw new Unsupported();
+        }
+      }
+      var node = alternatives();
+      if (!more() || peek() != ')') throw new Unsupported();
+      index++;
+      return node;
+    }
+
+    private IntPredicate characterClass() {
+      var negated = more() && peek() == '^';
+      if (negated) index++;
+      if (more() && peek() == ']') throw new Unsupported();
+      IntPredicate predicate = c -> false;
+      while (true) {
+        if (!more()) throw new Unsupported();
+        var c = regex.charAt(index++);
+        if (c == ']') break;
+        if (c == '[' || (c == '&' && more() && peek() == '&')) throw new Unsupported();
+        IntPredicate element;
+        if (c == '\\' && isPredefined()) {
+          element = escape();
+        } else {
+          var from = c == '\\' ? escapedChar() : checked(c);
+          if (index + 1 < regex.length() && peek() == '-' && regex.charAt(index + 1) != ']') {
+            index++;
+            var d = regex.charAt(index++);
+            if (d == '[' || (d == '\\' && isPredefined())) throw new Unsupported();
+            var to = d == '\\' ? escapedChar() : checked(d);
+            if (to < from) throw new Unsupported();
+            element = caseInsensitive(ch -> ch >= from && ch <= to);
+          } else {
+            element = literal(from);
+          }
+        }
+        predicate = predicate.or(element);
+      }
+      return negated ? predicate.negate() : predicate;
+    }
+
+    /** Test if the escape at the index is a predefined class. */
+    private boolean isPredefined() {
+      return more() && "dDsSwW".indexOf(peek()) >= 0;
+    }
+
+    /** Parse the escape after a '\'. */
+    private IntPredicate escape() {
+      if (!more()) throw new Unsupported();
+      switch (peek()) {
+        case 'd':
+          index++;
+          return RegexDfa::isDigit;
+        case 'D':
+          index++;
+          return c -> !isDigit(c);
+        case 's':
+          index++;
+          return RegexDfa::isSpace;
+        case 'S':
+          index++;
+          return c -> !isSpace(c);
+        case 'w':
+          index++;
+          return RegexDfa::isWord;
+        case 'W':
+          index++;
+          return c -> !isWord(c);
+        default:
+          return literal(escapedChar());
+      }
+    }
+
+    /** Parse the escape of a character after a '\'. */
+    private char escapedChar() {
+      if (!more()) throw new Unsupported();
+      var c = regex.charAt(index++);
+      switch (c) {
+        case 't':
+          return '\t';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 'f':
+          return '\f';
+        case 'a':
+          return '\u0007';
+        case 'e':
+          return '\u001B';
+        case 'x':
+          return checked(hex(2));
+        case 'u':
+          return checked(hex(4));
+        default:
+          if (Character.isLetterOrDigit(c)) throw new Unsupported();
+          return checked(c);
+      }
+    }
+
+    private char hex(int digits) {
+      if (index + digits > regex.length()) throw new Unsupported();
+      var value = 0;
+      for (int i = 0; i < digits; ++i) {
+        var digit = Character.digit(regex.charAt(index++), 16);
+        if (digit < 0) throw new Unsupported();
+        value = value * 16 + digit;
+      }
+      return (char) value;
+    }
+
+    private static char checked(char c) {
+      if (Character.isSurrogate(c)) throw new Unsupported();
+      return c;
+    }
+
+    private IntPredicate literal(char c) {
+      checked(c);
+      return caseInsensitive(ch -> ch == c);
+    }
+
+    /** Without the unicode case flag, only the ASCII characters are case insensitive. */
+    private IntPredicate caseInsensitive(IntPredicate predicate) {
+      if (!caseInsensitive) return predicate;
+      return c ->
+          predicate.test(c)
+              || (c < 128 && (predicate.test(toUpper(c)) || predicate.test(toLower(c))));
+    }
+  }
+
+  private static int toUpper(int c) {
+    return c >= 'a' && c <= 'z' ? c - 32 : c;
+  }
+
+  private static int toLower(int c) {
+    return c >= 'A' && c <= 'Z' ? c + 32 : c;
+  }
+
+  private static boolean isDigit(int c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isSpace(int c) {
+    return c == ' ' || (c >= '\t' && c <= '\r');
+  }
+
+  private static boolean isWord(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || isDigit(c);
+  }
+}
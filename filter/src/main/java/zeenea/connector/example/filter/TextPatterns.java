@@ -0,0 +1,221 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeMap;
+
+/**
+ * Test if a text starts with, ends with or contains one of a set of patterns, in a single pass.
+ *
+ * <p>The prefixes and the suffixes are stored in tries, the text is read from its start for the
+ * prefixes and from its end for the suffixes until a pattern is found or no pattern can match. The
+ * patterns contained in the text are found by an Aho-Corasick automaton: the text is read once
+ * whatever the number of patterns.
+ */
+final class TextPatterns {
+  private final boolean matchesAll;
+  private final Trie prefixes;
+  private final Trie suffixes;
+  private final Trie infixes;
+
+  private TextPatterns(boolean matchesAll, Trie prefixes, Trie suffixes, Trie infixes) {
+    this.matchesAll = matchesAll;
+    this.prefixes = prefixes;
+    this.suffixes = suffixes;
+    this.infixes = infixes;
+  }
+
+  /**
+   * Create the patterns.
+   *
+   * @param prefixes The values of the "starts with" tests.
+   * @param suffixes The values of the "ends with" tests.
+   * @param infixes The values of the "contains" tests.
+   * @return The patterns.
+   */
+  static TextPatterns of(
+      Collection<String> prefixes, Collection<String> suffixes, Collection<String> infixes) {
+    var matchesAll = prefixes.contains("") || suffixes.contains("") || infixes.contains("");
+    return new TextPatterns(
+        matchesAll,
+        prefixes.isEmpty() ? null : Trie.of(prefixes, false, false),
+        suffixes.isEmpty() ? null : Trie.of(suffixes, true, false),
+        infixes.isEmpty() ? null : Trie.of(infixes, false, true));
+  }
+
+  /**
+   * Test if a text matches one of the patterns.
+   *
+   * @param text The text.
+   * @return {@code true} if the text starts with one of the prefixes, ends with one of the
+   *     suffixes or contains one of the infixes.
+   */
+  boolean matches(String text) {
+    if (matchesAll) return true;
+    return (prefixes != null && prefixes.matchesPrefix(text))
+        || (suffixes != null && suffixes.matchesSuffix(text))
+        || (infixes != null && infixes.matchesInfix(text));
+  }
+
+  /**
+   * A trie of patterns, with the failure links of the Aho-Corasick automaton for the infixes.
+   *
+   * <p>The children of the state {@code s} are in {@code labels} and {@code targets} from {@code
+   * first[s]} included to {@code first[s + 1]} excluded, sorted by label. The root is the state 0.
+   */
+  private static final class Trie {
+    private final int[] first;
+    private final char[] labels;
+    private final int[] targets;
+
+    /** A pattern ends at the state, or at one of the states of its failure links. */
+    private final boolean[] terminal;
+
+    /** The state of the longest proper suffix of the state that is a prefix of a pattern. */
+    private final int[] fail;
+
+    /** The children of the root for the ASCII characters, most characters of a text go there. */
+    private final int[] rootChildren = new int[128];
+
+    private Trie(int[] first, char[] labels, int[] targets, boolean[] terminal, int[] fail) {
+      this.first = first;
+      this.labels = labels;
+      this.targets = targets;
+      this.terminal = terminal;
+      this.fail = fail;
+      for (int c = 0; c < rootChildren.length; ++c) {
+        rootChildren[c] = search(0, (char) c);
+      }
+    }
+
+    static Trie of(Collection<String> patterns, boolean reversed, boolean failureLinks) {
+      var children = new ArrayList<TreeMap<Character, Integer>>();
+      var terminals = new ArrayList<Boolean>();
+      children.add(new TreeMap<>());
+      terminals.add(false);
+      for (String pattern : patterns) {
+        var state = 0;
+        var n = pattern.length();
+        for (int i = 0; i < n; ++i) {
+          var c = pattern.charAt(reversed ? n - 1 - i : i);
+          var next = children.get(state).get(c);
+          if (next == null) {
+            next = children.size();
+            children.get(state).put(c, next);
+            children.add(new TreeMap<>());
+            terminals.add(false);
+          }
+          state = next;
+        }
+        terminals.set(state, true);
+      }
+
+      var count = children.size();
+      var first = new int[count + 1];
+      var labels = new char[count - 1];
+      var targets = new int[count - 1];
+      var terminal = new boolean[count];
+      var index = 0;
+      for (int state = 0; state < count; ++state) {
+        first[state] = index;
+        terminal[state] = terminals.get(state);
+        for (var child : children.get(state).entrySet()) {
+          labels[index] = child.getKey();
+          targets[index++] = child.getValue();
+        }
+      }
+      first[count] = index;
+
+      var trie = new Trie(first, labels, targets, terminal, failureLinks ? new int[count] : null);
+      if (failureLinks) trie.buildFailureLinks();
+      return trie;
+    }
+
+    /** Compute the failure links in breadth first order, the root links to itself. */
+    private void buildFailureLinks() {
+      var queue = new ArrayDeque<Integer>();
+      for (int i = first[0]; i < first[1]; ++i) {
+        fail[targets[i]] = 0;
+        queue.add(targets[i]);
+      }
+      while (!queue.isEmpty()) {
+        int state = queue.poll();
+        for (int i = first[state]; i < first[state + 1]; ++i) {
+          var c = labels[i];
+          var target = targets[i];
+          var link = fail[state];
+          var next = child(link, c);
+          while (next < 0 && link != 0) {
+            link = fail[link];
+            next = child(link, c);
+          }
+          fail[target] = next >= 0 ? next : 0;
+          terminal[target] |= terminal[fail[target]];
+          queue.add(target);
+        }
+      }
+    }
+
+    /** Get the child of a state, -1 if there is none. */
+    private int child(int state, char c) {
+      if (state == 0 && c < rootChildren.length) return rootChildren[c];
+      return search(state, c);
+    }
+
+    private int search(int state, char c) {
+      var from = first[state];
+      var to = first[state + 1];
+      if (to - from <= 4) {
+        for (int i = from; i < to; ++i) {
+          if (labels[i] == c) return targets[i];
+        }
+        return -1;
+      }
+      var i = Arrays.binarySearch(labels, from, to, c);
+      return i >= 0 ? targets[i] : -1;
+    }
+
+    boolean matchesPrefix(String text) {
+      var state = 0;
+      for (int i = 0, n = text.length(); i < n; ++i) {
+        state = child(state, text.charAt(i));
+        if (state < 0) return false;
+        if (terminal[state]) return true;
+      }
+      return false;
+    }
+
+    boolean matchesSuffix(String text) {
+      var state = 0;
+      for (int i = text.length() - 1; i >= 0; --i) {
+        state = child(state, text.charAt(i));
+        if (state < 0) return false;
+        if (terminal[state]) return true;
+      }
+      return false;
+    }
+
+    boolean matchesInfix(String text) {
+      var state = 0;
+      for (int i = 0, n = text.length(); i < n; ++i) {
+        var c = text.charAt(i);
+        var next = child(state, c);
+        while (next < 0 && state != 0) {
+          state = fail[state];
+          next = child(state, c);
+        }
+        state = next >= 0 ? next : 0;
+        if (terminal[state]) return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CompactStringSetTest {
+  private static final String CHARS = "abcAB/_\u00e9\uD83D\uDE00";
+
+  @Test
+  @DisplayName("Set should contain the distinct values in order")
+  void setShouldContainTheDistinctValuesInOrder() {
+    var set = CompactStringSet.of(List.of("orders", "customers", "", "orders"));
+    assertEquals(3, set.size());
+    assertEquals(List.of("", "customers", "orders"), new ArrayList<>(set));
+    assertTrue(set.contains("customers"));
+    assertTrue(set.contains(""));
+    assertFalse(set.contains("customer"));
+    assertFalse(set.contains(null));
+  }
+
+  @Test
+  @DisplayName("Set should be equal to the set of the same values")
+  void setShouldBeEqualToTheSetOfTheSameValues() {
+    var set = CompactStringSet.of(List.of("orders", "customers"));
+    assertEquals(Set.of("customers", "orders"), set);
+    assertEquals(set, Set.of("customers", "orders"));
+    assertEquals(Set.of("customers", "orders").hashCode(), set.hashCode());
+    assertEquals(CompactStringSet.of(Set.of("customers", "orders")), set);
+    assertEquals(Set.of(), CompactStringSet.of(List.of()));
+  }
+
+  @Test
+  @DisplayName("Set should find the values starting with a prefix")
+  void setShouldFindTheValuesStartingWithAPrefix() {
+    var set = CompactStringSet.of(List.of("sales/orders", "sales/customers", "hr/employees"));
+    assertTrue(set.containsPrefix(""));
+    assertTrue(set.containsPrefix("sales/"));
+    assertTrue(set.containsPrefix("hr/employees"));
+    assertFalse(set.containsPrefix("hr/employees/"));
+    assertFalse(set.containsPrefix("finance/"));
+    assertFalse(CompactStringSet.of(List.of()).containsPrefix(""));
+  }
+
+  @Test
+  @DisplayName("Set should give the same results as a hash set")
+  void setShouldGiveTheSameResultsAsAHashSet() {
+    var random = new Random(5);
+    for (int i = 0; i < 1000; ++i) {
+      var values = new ArrayList<String>();
+      var count = random.nextInt(40);
+      for (int j = 0; j < count; ++j) {
+        values.add(randomText(random));
+      }
+      var expected = new HashSet<>(values);
+      var set = CompactStringSet.of(values);
+      assertEquals(expected, set);
+      for (int j = 0; j < 50; ++j) {
+        var text = randomText(random);
+        assertEquals(expected.contains(text), set.contains(text), text);
+        var startsWith = expected.stream().anyMatch(v -> v.startsWith(text));
+        assertEquals(startsWith, set.containsPrefix(text), text);
+      }
+    }
+  }
+
+  private static String randomText(Random random) {
+    var text = new StringBuilder();
+    var length = random.nextInt(5);
+    for (int i = 0; i < length; ++i) {
+      text.append(CHARS.charAt(random.nextInt(CHARS.length())));
+    }
+    return text.toString();
+  }
+}
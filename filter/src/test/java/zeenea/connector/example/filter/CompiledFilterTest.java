@@ -0,0 +1,399 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static zeenea.connector.example.filter.FilterValue.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CompiledFilterTest {
+  private static final String[] WORDS = {"", "ab", "abc", "b", "ba", "cab", "x"};
+
+  private final FilterKey projectKey = FilterKey.text("project");
+  private final FilterKey tableKey = FilterKey.text("table");
+  private final FilterKey tagsKey = FilterKey.list("tags");
+  private final FilterKey tagKey = FilterKey.text("tag");
+
+  @Test
+  @DisplayName("compiled filter should merge equal and in terms of an or on the same key")
+  void test_compiled_filter_should_merge_equal_and_in_terms_of_an_or() {
+    var filter =
+        Filter.or(
+            Filter.or(Filter.isEqualTo(projectKey, "a"), Filter.contains(tableKey, "tmp")),
+            Filter.or(Filter.in(projectKey, "b", "c"), Filter.isEqualTo(projectKey, "d")));
+    var compiled = filter.compile();
+
+    assertEquals("($0 in [a, b, c, d]) or ($1: table contains 'tmp')", sorted(compiled));
+    assertTrue(compiled.matches(FilterItem.of(FilterKeyValue.of(projectKey, text("c")))));
+    assertTrue(compiled.matches(FilterItem.of(FilterKeyValue.of(tableKey, text("tmp_1")))));
+    assertFalse(compiled.matches(FilterItem.of(FilterKeyValue.of(projectKey, text("e")))));
+  }
+
+  @Test
+  @DisplayName("compiled filter should merge not equal terms of an and on the same key")
+  void test_compiled_filter_should_merge_not_equal_terms_of_an_and() {
+    var filter =
+        Filter.and(
+            Filter.not(Filter.isEqualTo(projectKey, "a")),
+            Filter.and(
+                Filter.not(Filter.isNull(tableKey)), Filter.not(Filter.in(projectKey, "b"))));
+    var compiled = filter.compile();
+
+    assertEquals("(not ($1 is null)) and (not ($0 in [a, b]))", sorted(compiled));
+    assertFalse(compiled.matches(FilterItem.of(FilterKeyValue.of(projectKey, text("b")))));
+  }
+
+  @Test
+  @DisplayName("compiled filter should merge the pattern terms of an or on the same key")
+  void test_compiled_filter_should_merge_the_pattern_terms_of_an_or() {
+    var filter =
+        Filter.or(
+            Filter.or(
+                Filter.or(Filter.contains(tableKey, "tmp"), Filter.startsWith(tableKey, "bak_")),
+                Filter.or(Filter.endsWith(tableKey, "_old"), Filter.contains(projectKey, "x"))),
+            Filter.or(
+                Filter.or(Filter.contains(tableKey, "temp"), Filter.startsWith(tableKey, "old_")),
+                Filter.endsWith(tableKey, "_bak")));
+    var compiled = filter.compile();
+
+    assertEquals(
+        "($1: project contains 'x')"
+            + " or ($0: table contains 'tmp' or table starts with 'bak_' or table ends with '_old'"
+            + " or table contains 'temp' or table starts with 'old_' or table ends with '_bak')",
+        compiled.toString());
+    assertTrue(compiled.matches(FilterItem.of(FilterKeyValue.of(tableKey, text("orders_old")))));
+    assertTrue(compiled.matches(FilterItem.of(FilterKeyValue.of(tableKey, text("a_temp_b")))));
+    assertFalse(compiled.matches(FilterItem.of(FilterKeyValue.of(tableKey, text("orders")))));
+  }
+
+  @Test
+  @DisplayName("compiled filter should merge the negated pattern terms of an and on the same key")
+  void test_compiled_filter_should_merge_the_negated_pattern_terms_of_an_and() {
+    var filter = Filter.always();
+    for (String infix : List.of("a", "b", "c", "d", "e", "f")) {
+      filter = Filter.and(filter, Filter.not(Filter.contains(tableKey, infix)));
+    }
+    var compiled = filter.compile();
+
+    assertTrue(compiled.toString().startsWith("not ($0: table contains 'a' or table contains"));
+    assertFalse(compiled.matches(FilterItem.of(FilterKeyValue.of(tableKey, text("xxfxx")))));
+    assertTrue(compiled.matches(FilterItem.of(FilterKeyValue.of(tableKey, text("xxgxx")))));
+  }
+
+  @Test
+  @DisplayName("compiled filter should keep a few pattern terms")
+  void test_compiled_filter_should_keep_a_few_pattern_terms() {
+    var filter = Filter.or(Filter.contains(tableKey, "tmp"), Filter.endsWith(tableKey, "_old"));
+
+    assertEquals(
+        "($0: table ends with '_old') or ($0: table contains 'tmp')", filter.compile().toString());
+  }
+
+  @Test
+  @DisplayName("compiled filter should remove the duplicated terms")
+  void test_compiled_filter_should_remove_the_duplicated_terms() {
+    var filter =
+        Filter.and(
+            Filter.and(Filter.contains(tableKey, "tmp"), Filter.not(Filter.isNull(projectKey))),
+            Filter.contains(tableKey, "tmp"));
+
+    assertEquals(
+        "(not ($1 is null)) and ($0: table contains 'tmp')", filter.compile().toString());
+  }
+
+  @Test
+  @DisplayName("compiled filter should remove the duplicated terms whatever their order")
+  void test_compiled_filter_should_remove_the_duplicated_terms_in_any_order() {
+    // The terms have the same cost, they are evaluated in the order of the filter.
+    var tmp = Filter.contains(tableKey, "tmp");
+    var x = Filter.contains(projectKey, "x");
+    var filter = Filter.or(Filter.and(tmp, x), Filter.and(x, tmp));
+
+    assertEquals(
+        "($0: table contains 'tmp') and ($1: project contains 'x')", filter.compile().toString());
+  }
+
+  @Test
+  @DisplayName("compiled filter should evaluate the cheapest terms first")
+  void test_compiled_filter_should_evaluate_the_cheapest_terms_first() {
+    var filter =
+        Filter.and(
+            Filter.regex(tableKey, Pattern.compile("t.*p")), Filter.isEqualTo(projectKey, "a"));
+
+    assertEquals("($1 in [a]) and ($0: table ~ /t.*p/)", filter.compile().toString());
+  }
+
+  @Test
+  @DisplayName("compiled filter should first evaluate the terms deciding the result most often")
+  void test_compiled_filter_should_reorder_the_terms_with_the_statistics() {
+    var filter = Filter.or(Filter.isEqualTo(tableKey, "a"), Filter.isEqualTo(projectKey, "b"));
+    var compiled = filter.compile();
+    var item =
+        FilterItem.of(
+            FilterKeyValue.of(tableKey, text("x")), FilterKeyValue.of(projectKey, text("b")));
+    assertEquals("($0 in [a]) or ($1 in [b])", compiled.toString());
+
+    for (int i = 0; i < CompiledFilter.SAMPLE_SIZE; ++i) {
+      assertTrue(compiled.matches(item));
+    }
+
+    assertEquals("($1 in [b]) or ($0 in [a])", compiled.toString());
+    assertTrue(compiled.matches(item));
+    assertFalse(compiled.matches(FilterItem.of(FilterKeyValue.of(tableKey, text("x")))));
+  }
+
+  @Test
+  @DisplayName("compiled filter should count the statistics of the threads sharing it")
+  void test_compiled_filter_should_count_the_statistics_of_several_threads() {
+    var filter = Filter.or(Filter.isEqualTo(tableKey, "a"), Filter.isEqualTo(projectKey, "b"));
+    var compiled = filter.compile();
+    var item =
+        FilterItem.of(
+            FilterKeyValue.of(tableKey, text("x")), FilterKeyValue.of(projectKey, text("b")));
+
+    var matched =
+        IntStream.range(0, 10 * CompiledFilter.SAMPLE_SIZE)
+            .parallel()
+            .filter(i -> compiled.matches(item, new CompiledFilter.Frame()))
+            .count();
+
+    assertEquals(10L * CompiledFilter.SAMPLE_SIZE, matched);
+    assertEquals("($1 in [b]) or ($0 in [a])", compiled.toString());
+  }
+
+  @Test
+  @DisplayName("compiled filter should give the same results after the reordering of the terms")
+  void test_compiled_filter_should_give_the_same_results_after_the_reordering() {
+    var random = new Random(7);
+    var items = new ArrayList<FilterItem>();
+    for (int i = 0; i < 3 * CompiledFilter.SAMPLE_SIZE; ++i) {
+      items.add(randomItem(random));
+    }
+    for (int i = 0; i < 200; ++i) {
+      var filter = randomFilter(random, 4, List.of(projectKey, tableKey));
+      var compiled = filter.compile();
+      for (FilterItem item : items) {
+        assertEquals(filter.matches(item), compiled.matches(item), filter::display);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("compiled filter should keep the element key local to the list filter")
+  void test_compiled_filter_should_keep_the_element_key_local() {
+    // The element key hides the key of the item having the same name.
+    var filter =
+        Filter.and(
+            Filter.isEqualTo(tagKey, "outer"),
+            Filter.any(tagsKey, tagKey, Filter.isEqualTo(tagKey, "inner")));
+    var compiled = filter.compile();
+    var item =
+        FilterItem.of(
+            FilterKeyValue.of(tagKey, text("outer")),
+            FilterKeyValue.textList(tagsKey, "other", "inner"));
+
+    assertTrue(filter.matches(item));
+    assertTrue(compiled.matches(item));
+  }
+
+  @Test
+  @DisplayName("compiled filter should fold the constant filters")
+  void test_compiled_filter_should_fold_the_constant_filters() {
+    assertEquals("always", Filter.not(Filter.never()).compile().toString());
+    assertEquals("never", Filter.all(tagsKey, tagKey, Filter.never()).compile().toString());
+  }
+
+  @Test
+  @DisplayName("compiled filter should give the same results as the filter")
+  void test_compiled_filter_should_give_the_same_results_as_the_filter() {
+    var random = new Random(42);
+    var items = new ArrayList<FilterItem>();
+    for (int i = 0; i < 200; ++i) {
+      items.add(randomItem(random));
+    }
+    for (int i = 0; i < 2000; ++i) {
+      var filter = randomFilter(random, 4, List.of(projectKey, tableKey));
+      var compiled = filter.compile();
+      for (FilterItem item : items) {
+        assertEquals(filter.matches(item), compiled.matches(item), filter::display);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("compiled filter should compile a long chain of terms in a single node")
+  void test_compiled_filter_should_compile_a_long_chain_in_a_single_node() {
+    // As built by the parser, each "or" nests the previous ones.
+    var filter = Filter.isEqualTo(projectKey, "p0");
+    for (int i = 1; i < 20_000; ++i) {
+      filter = Filter.or(filter, Filter.isEqualTo(projectKey, "p" + i));
+    }
+    filter =
+        Filter.or(
+            Filter.and(Filter.contains(tableKey, "tmp"), Filter.not(Filter.isNull(tagKey))),
+            filter);
+    var compiled = filter.compile();
+
+    var display = compiled.toString();
+    assertTrue(display.startsWith("($2 in [p0, "));
+    assertTrue(display.endsWith("]) or ((not ($1 is null)) and ($0: table contains 'tmp'))"));
+    assertTrue(compiled.matches(FilterItem.of(FilterKeyValue.of(projectKey, text("p19999")))));
+    assertFalse(compiled.matches(FilterItem.of(FilterKeyValue.of(projectKey, text("p20000")))));
+    assertTrue(
+        compiled.matches(
+            FilterItem.of(
+                FilterKeyValue.of(tableKey, text("tmp_1")), FilterKeyValue.of(tagKey, text("")))));
+  }
+
+  @Test
+  @DisplayName("compiled filter should read the values of the items of its schema by ordinal")
+  void test_compiled_filter_should_read_the_values_by_ordinal() {
+    var random = new Random(11);
+    // The schema has other keys, in another order than the slots.
+    var schema =
+        FilterSchema.of(List.of(FilterKey.text("other"), tagsKey, tagKey, tableKey, projectKey));
+    var items = new ArrayList<FilterItem>();
+    for (int i = 0; i < 200; ++i) {
+      var item = schema.newItem();
+      var values = randomItem(random);
+      for (FilterKey key : List.of(projectKey, tableKey, tagKey, tagsKey)) {
+        if (!values.get(key).isUnknownKey()) item.set(key, values.get(key));
+      }
+      items.add(item);
+      // The items of another schema bind the filter again.
+      if (i % 10 == 0) items.add(values);
+    }
+    for (int i = 0; i < 500; ++i) {
+      var filter = randomFilter(random, 4, List.of(projectKey, tableKey));
+      var compiled = filter.compile(schema);
+      for (FilterItem item : items) {
+        assertEquals(filter.matches(item), compiled.matches(item), filter::display);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("compiled filter should not read the element key from an item of its schema")
+  void test_compiled_filter_should_not_read_the_element_key_by_ordinal() {
+    var schema = FilterSchema.of(List.of(tagKey, tagsKey));
+    var filter = Filter.all(tagsKey, tagKey, Filter.isEqualTo(tagKey, "inner"));
+    var compiled = filter.compile(schema);
+    var item = schema.newItem();
+    item.set(tagKey, text("inner"));
+    item.set(tagsKey, FilterValue.list(List.of(text("inner"), text("other"))));
+
+    assertFalse(filter.matches(item));
+    assertFalse(compiled.matches(item));
+  }
+
+  @Test
+  @DisplayName("compiled filter should give the same results with a reused frame")
+  void test_compiled_filter_should_give_the_same_results_with_a_reused_frame() {
+    var random = new Random(13);
+    var items = new ArrayList<FilterItem>();
+    for (int i = 0; i < 100; ++i) {
+      items.add(randomItem(random));
+    }
+    // The frame is shared by filters having a different number of slots.
+    var frame = new CompiledFilter.Frame();
+    for (int i = 0; i < 500; ++i) {
+      var filter = randomFilter(random, 4, List.of(projectKey, tableKey));
+      var compiled = filter.compile();
+      for (FilterItem item : items) {
+        assertEquals(filter.matches(item), compiled.matches(item, frame), filter::display);
+      }
+    }
+  }
+
+  /** Display a compiled filter with the set values sorted. */
+  private static String sorted(CompiledFilter compiled) {
+    var display = compiled.toString();
+    var matcher = Pattern.compile("\\[([^]]*)]").matcher(display);
+    var sb = new StringBuilder();
+    while (matcher.find()) {
+      var values = new ArrayList<>(List.of(matcher.group(1).split(", ")));
+      values.sort(null);
+      matcher.appendReplacement(sb, "[" + String.join(", ", values) + "]");
+    }
+    matcher.appendTail(sb);
+    return sb.toString();
+  }
+
+  private Filter randomFilter(Random random, int depth, List<FilterKey> keys) {
+    var key = keys.get(random.nextInt(keys.size()));
+    switch (random.nextInt(depth <= 0 ? 9 : 14)) {
+      case 0:
+        return Filter.isNull(key);
+      case 1:
+        return Filter.isEqualTo(key, word(random));
+      case 2:
+        return Filter.startsWith(key, word(random));
+      case 3:
+        return Filter.endsWith(key, word(random));
+      case 4:
+        return Filter.contains(key, word(random));
+      case 5:
+        return Filter.in(key, Set.of(word(random)));
+      case 6:
+        return Filter.glob(key, "*" + word(random) + "?");
+      case 7:
+        return Filter.regex(key, Pattern.compile("a.*"));
+      case 8:
+        return Filter.constant(random.nextBoolean());
+      case 9:
+      case 10:
+        return Filter.and(
+            randomFilter(random, depth - 1, keys), randomFilter(random, depth - 1, keys));
+      case 11:
+        return Filter.or(
+            randomFilter(random, depth - 1, keys), randomFilter(random, depth - 1, keys));
+      case 12:
+        return Filter.not(randomFilter(random, depth - 1, keys));
+      default:
+        var elementKeys = new ArrayList<>(keys);
+        elementKeys.add(tagKey);
+        var elementFilter = randomFilter(random, depth - 1, elementKeys);
+        return random.nextBoolean()
+            ? Filter.any(tagsKey, tagKey, elementFilter)
+            : Filter.all(tagsKey, tagKey, elementFilter);
+    }
+  }
+
+  private FilterItem randomItem(Random random) {
+    var values = new ArrayList<FilterKeyValue>();
+    for (FilterKey key : List.of(projectKey, tableKey, tagKey)) {
+      if (random.nextInt(8) > 0) values.add(FilterKeyValue.of(key, randomText(random)));
+    }
+    var size = random.nextInt(6) - 1;
+    if (size >= 0) {
+      var tags = new ArrayList<String>();
+      for (int i = 0; i < size; ++i) {
+        tags.add(word(random));
+      }
+      values.add(FilterKeyValue.textList(tagsKey, tags));
+    }
+    return FilterItem.of(values);
+  }
+
+  private static FilterValue randomText(Random random) {
+    return random.nextInt(10) == 0 ? FilterValue.unset() : text(word(random));
+  }
+
+  private static String word(Random random) {
+    return WORDS[random.nextInt(WORDS.length)];
+  }
+}
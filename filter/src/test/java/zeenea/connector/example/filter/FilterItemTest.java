@@ -0,0 +1,107 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class FilterItemTest {
+  private static final FilterKey NAME_KEY = FilterKey.text("name");
+  private static final FilterKey PATH_KEY = FilterKey.text("path");
+  private static final FilterKey TAGS_KEY = FilterKey.list("tags");
+  private static final FilterKey TAG_KEY = FilterKey.text("tag");
+
+  private final FilterSchema schema = FilterSchema.of(List.of(NAME_KEY, PATH_KEY, TAGS_KEY));
+
+  @Test
+  @DisplayName("Schema should give an ordinal to each key")
+  void schemaShouldGiveAnOrdinalToEachKey() {
+    assertEquals(0, schema.ordinal(NAME_KEY));
+    assertEquals(2, schema.ordinal(FilterKey.list("tags")));
+    assertEquals(-1, schema.ordinal(TAG_KEY));
+  }
+
+  @Test
+  @DisplayName("Item of a schema should return the values set")
+  void schemaItemShouldReturnTheValuesSet() {
+    var item = schema.newItem();
+    item.set(NAME_KEY, FilterValue.text("customer"));
+    item.set(FilterKeyValue.text(PATH_KEY, null));
+
+    assertEquals(FilterValue.text("customer"), item.get(NAME_KEY));
+    assertTrue(item.get(PATH_KEY).isUnset());
+    assertTrue(item.get(TAGS_KEY).isUnknownKey());
+    assertTrue(item.get(TAG_KEY).isUnknownKey());
+  }
+
+  @Test
+  @DisplayName("Item of a schema should be reusable after clear")
+  void schemaItemShouldBeReusableAfterClear() {
+    var filter = Filter.isEqualTo(NAME_KEY, "customer");
+    var item = schema.newItem();
+    item.set(NAME_KEY, FilterValue.text("customer"));
+    assertTrue(filter.matches(item));
+
+    item.clear();
+    assertTrue(item.get(NAME_KEY).isUnknownKey());
+    item.set(NAME_KEY, FilterValue.text("order"));
+    assertFalse(filter.matches(item));
+  }
+
+  @Test
+  @DisplayName("Item of a schema should evaluate list filters")
+  void schemaItemShouldEvaluateListFilters() {
+    var filter =
+        Filter.and(
+            Filter.any(TAGS_KEY, TAG_KEY, Filter.isEqualTo(TAG_KEY, "pii")),
+            Filter.all(TAGS_KEY, NAME_KEY, Filter.startsWith(NAME_KEY, "p")));
+    var item = schema.newItem();
+    item.set(NAME_KEY, FilterValue.text("customer"));
+    item.set(FilterKeyValue.textList(TAGS_KEY, "public", "pii"));
+
+    assertTrue(filter.matches(item));
+    // The element key hides the value of the item only during the evaluation.
+    assertEquals(FilterValue.text("customer"), item.get(NAME_KEY));
+  }
+
+  @Test
+  @DisplayName("Item should reject a key missing from the schema")
+  void itemShouldRejectAKeyMissingFromTheSchema() {
+    var item = schema.newItem();
+    assertThrows(IllegalArgumentException.class, () -> item.set(TAG_KEY, FilterValue.text("x")));
+  }
+
+  @Test
+  @DisplayName("Item created from values should be immutable")
+  void itemCreatedFromValuesShouldBeImmutable() {
+    var item = FilterItem.of(FilterKeyValue.text(NAME_KEY, "customer"));
+    assertEquals(FilterValue.text("customer"), item.get(NAME_KEY));
+    assertTrue(item.get(PATH_KEY).isUnknownKey());
+    assertThrows(UnsupportedOperationException.class, item::clear);
+  }
+
+  @Test
+  @DisplayName("Pop should check the key of the top value")
+  void popShouldCheckTheKeyOfTheTopValue() {
+    var item = schema.newItem();
+    for (int i = 0; i < 10; ++i) {
+      item.push(FilterKey.text("k" + i), FilterValue.text("v" + i));
+    }
+    assertEquals(FilterValue.text("v3"), item.get(FilterKey.text("k3")));
+    assertThrows(IllegalStateException.class, () -> item.pop(FilterKey.text("k0")));
+    for (int i = 8; i >= 0; --i) {
+      item.pop(FilterKey.text("k" + i));
+    }
+    assertTrue(item.get(FilterKey.text("k3")).isUnknownKey());
+  }
+}
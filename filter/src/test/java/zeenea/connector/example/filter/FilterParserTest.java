@@ -13,10 +13,15 @@ import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import zeenea.connector.example.filter.Filter.MatchesGlob;
 import zeenea.connector.example.filter.Filter.MatchesRegex;
 
@@ -57,6 +62,14 @@ public class FilterParserTest {
     assertEquals(Filter.isEqualTo(projectKey, "text'quote\\"), actual);
   }
 
+  @Test
+  @DisplayName("parse should parse a single letter key")
+  void parseShouldParseSingleLetterKey() {
+    var key = FilterKey.text("x");
+    var actual = FilterParser.of(Set.of(key)).parse("x = 'zeenea'");
+    assertEquals(Filter.isEqualTo(key, "zeenea"), actual);
+  }
+
   @Test
   @DisplayName("parse should parse != filter")
   void parseShouldParseNotEqualToFilter() {
@@ -113,6 +126,36 @@ public class FilterParserTest {
     assertEquals(Filter.not(Filter.in(projectKey, "zeenea", "datacruncher")), actual);
   }
 
+  @Test
+  @DisplayName("parse should parse in filter with the values of a file")
+  void parseShouldParseInFilterWithTheValuesOfAFile(@TempDir Path tempDir) throws IOException {
+    Files.writeString(tempDir.resolve("projects.txt"), "zeenea\n\ndatacruncher\n");
+    var actual =
+        FilterParser.of(Set.of(projectKey), tempDir).parse("project not in @'projects.txt'");
+    assertEquals(Filter.not(Filter.in(projectKey, "zeenea", "datacruncher")), actual);
+    assertEquals("project not in @'projects.txt'", actual.display());
+    assertEquals(
+        Map.of("projects.txt", Set.of("zeenea", "datacruncher")),
+        Filter.and(actual, Filter.in(projectKey, "other")).valueFiles());
+  }
+
+  @Test
+  @DisplayName("parse should ignore the byte order mark and the spaces of a file of values")
+  void parseShouldIgnoreTheByteOrderMarkAndTheSpacesOfAFile(@TempDir Path tempDir)
+      throws IOException {
+    Files.writeString(
+        tempDir.resolve("projects.txt"), "\uFEFFzeenea  \r\n \t\r\n datacruncher\t\r\n");
+    var actual = FilterParser.of(Set.of(projectKey), tempDir).parse("project in @'projects.txt'");
+    assertEquals(Filter.in(projectKey, "zeenea", "datacruncher"), actual);
+  }
+
+  @Test
+  @DisplayName("parse should reject in filter with a missing file")
+  void parseShouldRejectInFilterWithAMissingFile(@TempDir Path tempDir) {
+    var parser = FilterParser.of(Set.of(projectKey), tempDir);
+    assertThrows(FilterParsingException.class, () -> parser.parse("project in @'missing.txt'"));
+  }
+
   @Test
   @DisplayName("parse should parse not filter")
   void parseShouldParseNotFilter() {
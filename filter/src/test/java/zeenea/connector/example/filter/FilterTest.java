@@ -1469,4 +1469,104 @@ class FilterTest {
     var actual = filter.partial(otherKey);
     assertEquals(Filter.always(), actual);
   }
+
+  @Test
+  @DisplayName("withPrefix should rewrite starts with as always if the prefix starts with the value")
+  void test_withPrefix_should_rewrite_starts_with_as_always_if_the_prefix_starts_with_the_value() {
+    var filter = Filter.startsWith(projectKey, "sales/");
+    var actual = filter.withPrefix(projectKey, "sales/2024/");
+    assertEquals(Filter.always(), actual);
+  }
+
+  @Test
+  @DisplayName("withPrefix should not rewrite starts with if the value starts with the prefix")
+  void test_withPrefix_should_not_rewrite_starts_with_if_the_value_starts_with_the_prefix() {
+    var filter = Filter.startsWith(projectKey, "sales/2024/");
+    var actual = filter.withPrefix(projectKey, "sales/");
+    assertEquals(filter, actual);
+  }
+
+  @Test
+  @DisplayName("withPrefix should rewrite starts with as never if the prefix diverges")
+  void test_withPrefix_should_rewrite_starts_with_as_never_if_the_prefix_diverges() {
+    var filter = Filter.startsWith(projectKey, "sales/");
+    var actual = filter.withPrefix(projectKey, "hr/");
+    assertEquals(Filter.never(), actual);
+  }
+
+  @Test
+  @DisplayName("withPrefix should not rewrite starts with if the key is different")
+  void test_withPrefix_should_not_rewrite_starts_with_if_the_key_is_different() {
+    var filter = Filter.startsWith(projectKey, "sales/");
+    var actual = filter.withPrefix(tableKey, "hr/");
+    assertEquals(filter, actual);
+  }
+
+  @Test
+  @DisplayName("withPrefix should rewrite equals as never if the value doesn't start with the prefix")
+  void test_withPrefix_should_rewrite_equals_as_never_if_the_value_does_not_start_with_prefix() {
+    var filter = Filter.isEqualTo(projectKey, "sales/file.json");
+    var actual = filter.withPrefix(projectKey, "hr/");
+    assertEquals(Filter.never(), actual);
+  }
+
+  @Test
+  @DisplayName("withPrefix should rewrite is null as never")
+  void test_withPrefix_should_rewrite_is_null_as_never() {
+    var filter = Filter.isNull(projectKey);
+    var actual = filter.withPrefix(projectKey, "sales/");
+    assertEquals(Filter.never(), actual);
+  }
+
+  @Test
+  @DisplayName("withPrefix should rewrite in as never if no value starts with the prefix")
+  void test_withPrefix_should_rewrite_in_as_never_if_no_value_starts_with_the_prefix() {
+    var filter = Filter.in(projectKey, "sales/a.json", "sales/b.json");
+    assertEquals(Filter.never(), filter.withPrefix(projectKey, "hr/"));
+    assertEquals(filter, filter.withPrefix(projectKey, "sales/"));
+  }
+
+  @Test
+  @DisplayName("withPrefix should keep glob only if a path with the prefix can match")
+  void test_withPrefix_should_keep_glob_only_if_a_path_with_the_prefix_can_match() {
+    var filter = Filter.glob(projectKey, "prod/*/x");
+    assertEquals(filter, filter.withPrefix(projectKey, ""));
+    assertEquals(filter, filter.withPrefix(projectKey, "prod/"));
+    assertEquals(filter, filter.withPrefix(projectKey, "prod/eu/"));
+    assertEquals(Filter.never(), filter.withPrefix(projectKey, "dev/"));
+  }
+
+  @Test
+  @DisplayName("withPrefix should keep regex only if a path with the prefix can match")
+  void test_withPrefix_should_keep_regex_only_if_a_path_with_the_prefix_can_match() {
+    var filter = Filter.regex(projectKey, Pattern.compile("(sales|hr)/[0-9]+/.*"));
+    assertEquals(filter, filter.withPrefix(projectKey, "sales/2024/"));
+    assertEquals(Filter.never(), filter.withPrefix(projectKey, "sales/archive/"));
+  }
+
+  @Test
+  @DisplayName("withPrefix should invert the result of not")
+  void test_withPrefix_should_invert_the_result_of_not() {
+    var filter = Filter.not(Filter.startsWith(projectKey, "tmp/"));
+    assertEquals(Filter.never(), filter.withPrefix(projectKey, "tmp/cache/"));
+    assertEquals(Filter.always(), filter.withPrefix(projectKey, "sales/"));
+  }
+
+  @Test
+  @DisplayName("withPrefix should simplify and operands")
+  void test_withPrefix_should_simplify_and_operands() {
+    var tableFilter = Filter.isEqualTo(tableKey, "zeenea");
+    var filter = Filter.and(Filter.startsWith(projectKey, "sales/"), tableFilter);
+    assertEquals(tableFilter, filter.withPrefix(projectKey, "sales/2024/"));
+    assertEquals(Filter.never(), filter.withPrefix(projectKey, "hr/"));
+  }
+
+  @Test
+  @DisplayName("withPrefix should simplify or operands")
+  void test_withPrefix_should_simplify_or_operands() {
+    var filter =
+        Filter.or(Filter.startsWith(projectKey, "sales/"), Filter.startsWith(projectKey, "hr/"));
+    assertEquals(Filter.always(), filter.withPrefix(projectKey, "hr/2024/"));
+    assertEquals(Filter.never(), filter.withPrefix(projectKey, "tmp/"));
+  }
 }
@@ -6,6 +6,8 @@
 
 package zeenea.connector.example.filter;
 
+import java.util.Random;
+import java.util.regex.Pattern;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -71,4 +73,76 @@ public class GlobTest {
   void toRegexShouldSupportStarEscape() {
     Assertions.assertEquals("star\\*", Glob.toRegex("star\\*"));
   }
+
+  @Test
+  @DisplayName("toRegex should escape regex active character after a literal \\")
+  void toRegexShouldEscapeRegexActiveCharacterAfterAntislash() {
+    Assertions.assertEquals("f\\\\\\(x\\)", Glob.toRegex("f\\(x)"));
+  }
+
+  @Test
+  @DisplayName("matches should compare a glob without wildcard")
+  void matchesShouldCompareAGlobWithoutWildcard() {
+    Assertions.assertTrue(Glob.compile("what\\*.ever").matches("what*.ever"));
+    Assertions.assertFalse(Glob.compile("what.ever").matches("whatxever"));
+  }
+
+  @Test
+  @DisplayName("matches should match the prefix and the suffix of a star")
+  void matchesShouldMatchThePrefixAndTheSuffixOfAStar() {
+    var glob = Glob.compile("sales/*.json");
+    Assertions.assertTrue(glob.matches("sales/2024/orders.json"));
+    Assertions.assertTrue(glob.matches("sales/.json"));
+    Assertions.assertFalse(glob.matches("sales.json"));
+    Assertions.assertFalse(glob.matches("hr/orders.json"));
+  }
+
+  @Test
+  @DisplayName("matches should backtrack the last star")
+  void matchesShouldBacktrackTheLastStar() {
+    var glob = Glob.compile("*a?c*abc");
+    Assertions.assertTrue(glob.matches("xaxcabababc"));
+    Assertions.assertFalse(glob.matches("xaxcababab"));
+  }
+
+  @Test
+  @DisplayName("matches should not match a line terminator with a wildcard")
+  void matchesShouldNotMatchALineTerminatorWithAWildcard() {
+    Assertions.assertFalse(Glob.compile("a*b").matches("a\nb"));
+    Assertions.assertFalse(Glob.compile("a?b").matches("a\rb"));
+    Assertions.assertTrue(Glob.compile("a*\n*b").matches("ax\nxb"));
+  }
+
+  @Test
+  @DisplayName("matches should match a code point with ?")
+  void matchesShouldMatchACodePointWithQuestionMark() {
+    Assertions.assertTrue(Glob.compile("a?b").matches("a\uD83D\uDE00b"));
+  }
+
+  @Test
+  @DisplayName("matches should give the same result as the regex")
+  void matchesShouldGiveTheSameResultAsTheRegex() {
+    String[] globParts = {"a", "b", "?", "*", "\\", ".", "(", "\n", "\uD83D\uDE00"};
+    String[] textParts = {"a", "b", ".", "\\", "?", "*", "(", "\n", "\uD83D\uDE00"};
+    var random = new Random(42);
+    for (int i = 0; i < 10_000; ++i) {
+      var glob = random(random, globParts, 8);
+      var regex = Pattern.compile(Glob.toRegex(glob));
+      var compiled = Glob.compile(glob);
+      for (int j = 0; j < 20; ++j) {
+        var text = random(random, textParts, 10);
+        Assertions.assertEquals(
+            regex.matcher(text).matches(), compiled.matches(text), glob + " / " + text);
+      }
+    }
+  }
+
+  private static String random(Random random, String[] parts, int maxLength) {
+    var sb = new StringBuilder();
+    var length = random.nextInt(maxLength);
+    for (int i = 0; i < length; ++i) {
+      sb.append(parts[random.nextInt(parts.length)]);
+    }
+    return sb.toString();
+  }
 }
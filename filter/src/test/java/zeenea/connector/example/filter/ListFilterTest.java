@@ -193,6 +193,27 @@ public class ListFilterTest {
     assertEquals(filter, actual);
   }
 
+  @Test
+  @DisplayName("withContext should keep ALL if the element filter doesn't depend on the element")
+  void testWithContextShouldKeepAllIfTheElementFilterDoesntDependOnTheElement() {
+    var filter =
+        Filter.all(
+            LIST_KEY,
+            ITEM_KEY,
+            Filter.or(Filter.isEqualTo(OTHER_KEY, "x"), Filter.isEqualTo(ITEM_KEY, "a")));
+    var actual = filter.withContext(FilterItem.of(FilterKeyValue.text(OTHER_KEY, "x")));
+    assertTrue(actual.matches(FilterItem.of(FilterKeyValue.textList(LIST_KEY, "c"))));
+    assertFalse(actual.matches(FilterItem.of(FilterKeyValue.of(LIST_KEY, FilterValue.unset()))));
+  }
+
+  @Test
+  @DisplayName("withContext should not replace the element key by the value of the context")
+  void testWithContextShouldNotReplaceTheElementKeyByTheValueOfTheContext() {
+    var filter = Filter.any(LIST_KEY, ITEM_KEY, Filter.in(ITEM_KEY, "a", "b"));
+    var actual = filter.withContext(FilterItem.of(FilterKeyValue.text(ITEM_KEY, "c")));
+    assertEquals(filter, actual);
+  }
+
   @Test
   @DisplayName(
       "partial should not rewrite ALL if the list key is present and item filter use only item key")
@@ -0,0 +1,191 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RegexDfaTest {
+  private static final String[] ATOMS = {
+    "a", "b", "A", ".", "\\d", "\\w", "\\s", "\\W", "[ab]", "[^a]", "[a-c]", "[A-Z]", "[-a]",
+    "[Z-a]", "\\.", "\\n", "\\x41", "\\u00e9", "\u00e9", "[\\w.]", "[^a-zA-Z]", "\\\\", "]",
+    "(a)"
+  };
+  private static final String[] QUANTIFIERS = {"", "", "*", "+", "?", "{2}", "{1,3}", "{2,}", "*?"};
+  private static final String TEXT_CHARS = "aAbBcZ09 _.\n\r\u00e9\u00c9\u2028\\]";
+
+  private static RegexDfa dfa(String regex) {
+    return dfa(regex, 0);
+  }
+
+  private static RegexDfa dfa(String regex, int flags) {
+    var dfa = RegexDfa.compile(Pattern.compile(regex, flags));
+    assertNotNull(dfa, regex);
+    return dfa;
+  }
+
+  @Test
+  @DisplayName("DFA should match the whole text")
+  void dfaShouldMatchTheWholeText() {
+    var dfa = dfa("sales/.*\\.json");
+    assertTrue(dfa.matches("sales/customer.json"));
+    assertFalse(dfa.matches("sales/customer.json.bak"));
+    assertFalse(dfa.matches("hr/sales/customer.json"));
+    assertTrue(dfa("^(customer|order)_v\\d{1,2}$").matches("order_v12"));
+    assertTrue(dfa("(?<name>[a-z]+)/(?<id>\\d+)").matches("orders/42"));
+  }
+
+  @Test
+  @DisplayName("DFA should match classes and escapes")
+  void dfaShouldMatchClassesAndEscapes() {
+    var dfa = dfa("[^a-c\\d][\\w-]+\\s?\\x41\\(");
+    assertTrue(dfa.matches("z_x-y A("));
+    assertFalse(dfa.matches("b_x-y A("));
+    assertFalse(dfa.matches("z_x-yA)"));
+  }
+
+  @Test
+  @DisplayName("DFA should follow the flags")
+  void dfaShouldFollowTheFlags() {
+    assertTrue(dfa("customer", Pattern.CASE_INSENSITIVE).matches("CusTomer"));
+    assertFalse(dfa("\u00e9", Pattern.CASE_INSENSITIVE).matches("\u00c9"));
+    assertFalse(dfa("a.b").matches("a\nb"));
+    assertTrue(dfa("a.b", Pattern.DOTALL).matches("a\nb"));
+    assertTrue(dfa("a.b", Pattern.UNIX_LINES).matches("a\rb"));
+  }
+
+  @Test
+  @DisplayName("DFA should not support back-references, lookarounds and unicode flags")
+  void dfaShouldNotSupportBackReferences() {
+    assertNull(RegexDfa.compile(Pattern.compile("(a)\\1")));
+    assertNull(RegexDfa.compile(Pattern.compile("a(?=b)b")));
+    assertNull(RegexDfa.compile(Pattern.compile("a*+")));
+    assertNull(RegexDfa.compile(Pattern.compile("\\p{L}+")));
+    assertNull(RegexDfa.compile(Pattern.compile("a", Pattern.UNICODE_CASE)));
+    assertNull(RegexDfa.compile(Pattern.compile("^a", Pattern.MULTILINE)));
+  }
+
+  @Test
+  @DisplayName("DFA should match a surrogate pair as a character")
+  void dfaShouldMatchASurrogatePairAsACharacter() {
+    var dfa = dfa("a.b");
+    assertTrue(dfa.matches("a\uD83D\uDE00b"));
+    assertFalse(dfa.matches("a\uD83D\uDE00\uD83D\uDE00b"));
+  }
+
+  @Test
+  @DisplayName("DFA should not backtrack")
+  void dfaShouldNotBacktrack() {
+    var text = "a".repeat(100_000);
+    assertFalse(dfa("(a*)*b").matches(text));
+    assertFalse(dfa("(a|aa)*c").matches(text));
+  }
+
+  @Test
+  @DisplayName("DFA should limit the number of cached states")
+  void dfaShouldLimitTheNumberOfCachedStates() {
+    var pattern = Pattern.compile("[ab]*a[ab]{14}");
+    var dfa = RegexDfa.compile(pattern);
+    var random = new Random(1);
+    for (int i = 0; i < 2000; ++i) {
+      var text = new StringBuilder();
+      for (int j = 0; j < 60; ++j) {
+        text.append(random.nextBoolean() ? 'a' : 'b');
+      }
+      assertEquals(pattern.matcher(text).matches(), dfa.matches(text.toString()), text::toString);
+    }
+    assertEquals(RegexDfa.MAX_STATES, dfa.stateCount());
+  }
+
+  @Test
+  @DisplayName("DFA should match from several threads sharing its states")
+  void dfaShouldMatchFromSeveralThreads() throws Exception {
+    var pattern = Pattern.compile("(a|b)*a[ab]{13}");
+    var dfa = RegexDfa.compile(pattern);
+    var threads = Executors.newFixedThreadPool(4);
+    try {
+      var results = new ArrayList<Future<?>>();
+      for (int t = 0; t < 4; ++t) {
+        var random = new Random(t);
+        results.add(
+            threads.submit(
+                () -> {
+                  for (int i = 0; i < 2000; ++i) {
+                    var text = new StringBuilder();
+                    for (int j = 0; j < 40; ++j) {
+                      text.append(random.nextBoolean() ? 'a' : 'b');
+                    }
+                    assertEquals(
+                        pattern.matcher(text).matches(),
+                        dfa.matches(text.toString()),
+                        text::toString);
+                  }
+                }));
+      }
+      for (var result : results) {
+        result.get();
+      }
+    } finally {
+      threads.shutdown();
+    }
+    assertEquals(RegexDfa.MAX_STATES, dfa.stateCount());
+  }
+
+  @Test
+  @DisplayName("DFA should match like the pattern")
+  void dfaShouldMatchLikeThePattern() {
+    int[] flags = {0, Pattern.CASE_INSENSITIVE, Pattern.DOTALL, Pattern.UNIX_LINES};
+    var random = new Random(42);
+    for (int i = 0; i < 2000; ++i) {
+      var regex = randomRegex(random, 0);
+      var pattern = Pattern.compile(regex, flags[random.nextInt(flags.length)]);
+      var dfa = RegexDfa.compile(pattern);
+      assertNotNull(dfa, regex);
+      for (int j = 0; j < 20; ++j) {
+        var text = randomText(random);
+        assertEquals(
+            pattern.matcher(text).matches(), dfa.matches(text), () -> regex + " on " + text);
+      }
+    }
+  }
+
+  private static String randomRegex(Random random, int depth) {
+    var regex = new StringBuilder();
+    var count = 1 + random.nextInt(3);
+    for (int i = 0; i < count; ++i) {
+      if (depth < 2 && random.nextInt(4) == 0) {
+        regex.append(random.nextBoolean() ? "(" : "(?:").append(randomRegex(random, depth + 1));
+        if (random.nextBoolean()) regex.append('|').append(randomRegex(random, depth + 1));
+        regex.append(')');
+      } else {
+        regex.append(ATOMS[random.nextInt(ATOMS.length)]);
+      }
+      regex.append(QUANTIFIERS[random.nextInt(QUANTIFIERS.length)]);
+    }
+    return regex.toString();
+  }
+
+  private static String randomText(Random random) {
+    var text = new StringBuilder();
+    var length = random.nextInt(8);
+    for (int i = 0; i < length; ++i) {
+      text.append(TEXT_CHARS.charAt(random.nextInt(TEXT_CHARS.length())));
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TextPatternsTest {
+
+  @Test
+  @DisplayName("matches should find the prefixes")
+  void matchesShouldFindThePrefixes() {
+    var patterns = TextPatterns.of(List.of("tmp_", "bak_", "t"), List.of(), List.of());
+    assertTrue(patterns.matches("tmp_orders"));
+    assertTrue(patterns.matches("bak_orders"));
+    assertTrue(patterns.matches("table"));
+    assertFalse(patterns.matches("orders_tmp"));
+    assertFalse(patterns.matches("bak"));
+  }
+
+  @Test
+  @DisplayName("matches should find the suffixes")
+  void matchesShouldFindTheSuffixes() {
+    var patterns = TextPatterns.of(List.of(), List.of("_old", ".bak"), List.of());
+    assertTrue(patterns.matches("orders_old"));
+    assertTrue(patterns.matches("orders.bak"));
+    assertFalse(patterns.matches("old_orders"));
+  }
+
+  @Test
+  @DisplayName("matches should find the infixes sharing a suffix with another infix")
+  void matchesShouldFindTheInfixesSharingASuffix() {
+    var patterns = TextPatterns.of(List.of(), List.of(), List.of("he", "she", "his", "hers"));
+    assertTrue(patterns.matches("ushers"));
+    assertTrue(patterns.matches("xshx_his"));
+    assertFalse(patterns.matches("hxsxe"));
+  }
+
+  @Test
+  @DisplayName("matches should accept all the texts with an empty pattern")
+  void matchesShouldAcceptAllTheTextsWithAnEmptyPattern() {
+    assertTrue(TextPatterns.of(List.of(), List.of(), List.of("x", "")).matches(""));
+  }
+
+  @Test
+  @DisplayName("matches should give the same result as the string methods")
+  void matchesShouldGiveTheSameResultAsTheStringMethods() {
+    var random = new Random(42);
+    for (int i = 0; i < 2_000; ++i) {
+      var prefixes = words(random, random.nextInt(3));
+      var suffixes = words(random, random.nextInt(3));
+      var infixes = words(random, random.nextInt(6));
+      var patterns = TextPatterns.of(prefixes, suffixes, infixes);
+      for (int j = 0; j < 50; ++j) {
+        var text = word(random, random.nextInt(12));
+        var expected =
+            prefixes.stream().anyMatch(text::startsWith)
+                || suffixes.stream().anyMatch(text::endsWith)
+                || infixes.stream().anyMatch(text::contains);
+        assertEquals(expected, patterns.matches(text), () -> infixes + " / " + text);
+      }
+    }
+  }
+
+  private static List<String> words(Random random, int count) {
+    var words = new ArrayList<String>();
+    for (int i = 0; i < count; ++i) {
+      words.add(word(random, 1 + random.nextInt(4)));
+    }
+    return words;
+  }
+
+  private static String word(Random random, int length) {
+    var sb = new StringBuilder();
+    for (int i = 0; i < length; ++i) {
+      sb.append("abc".charAt(random.nextInt(3)));
+    }
+    return sb.toString();
+  }
+}
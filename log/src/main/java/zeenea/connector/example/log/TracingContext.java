@@ -43,6 +43,11 @@ public class TracingContext {
     return new TracingContext(connectionCode + "/synchonize#" + nextNumber());
   }
 
+  /** Create the context of the background file watcher. */
+  public static @NotNull TracingContext watch(@NotNull String connectionCode) {
+    return new TracingContext(connectionCode + "/watch#" + nextNumber());
+  }
+
   /** Create the context of the extraction of a test. */
   public static @NotNull TracingContext test() {
     return new TracingContext("test/test#" + nextNumber());
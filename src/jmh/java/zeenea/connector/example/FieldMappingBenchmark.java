@@ -0,0 +1,75 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import zeenea.connector.example.json.JsonField;
+import zeenea.connector.example.log.TracingContext;
+import zeenea.connector.example.property.CustomProperties;
+import zeenea.connector.example.property.CustomProperty;
+import zeenea.connector.field.Field;
+
+/** Measure the mapping of the fields of wide datasets. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FieldMappingBenchmark {
+  private static final String[] TYPES = {"string", "Integer", "BIGDECIMAL", "timestamp", "custom"};
+
+  @Param({"100", "1000", "20000"})
+  public int fieldCount;
+
+  private final TracingContext ctx = TracingContext.test();
+  private final ExampleMapper mapper = new ExampleMapper("bench");
+  private final PropertyConverters noProperties = PropertyConverters.of(CustomProperties.empty());
+  private final PropertyConverters fieldProperties =
+      PropertyConverters.of(
+          new CustomProperties(List.of(CustomProperty.string("classification", "class"))));
+  private List<JsonField> fields;
+
+  @Setup(Level.Trial)
+  public void createFields() {
+    fields = new ArrayList<>(fieldCount);
+    for (int i = 0; i < fieldCount; ++i) {
+      var field = new JsonField();
+      field.setName("f" + i);
+      field.setNativeType("varchar(32)");
+      field.setDataType(TYPES[i % TYPES.length]);
+      field.setNullable(true);
+      if (i % 2 == 0) field.setCustomProperty("class", TextNode.valueOf("internal"));
+      fields.add(field);
+    }
+  }
+
+  @Benchmark
+  public List<Field> fields() {
+    return mapper.fields(ctx, fields, noProperties);
+  }
+
+  @Benchmark
+  public List<Field> fieldsWithProperties() {
+    return mapper.fields(ctx, fields, fieldProperties);
+  }
+}
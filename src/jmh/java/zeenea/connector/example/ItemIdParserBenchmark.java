@@ -0,0 +1,103 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import zeenea.connector.common.IdentificationProperty;
+import zeenea.connector.common.ItemIdentifier;
+
+/** Compare the parsing of the item identifiers with the previous regex based implementation. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ItemIdParserBenchmark {
+  private static final Pattern ID_SEP = Pattern.compile("/");
+
+  /** Number of distinct identifiers, each one is parsed several times per invocation. */
+  @Param({"100", "10000"})
+  public int idCount;
+
+  private String[] ids;
+  private ExampleMapper mapper;
+
+  @Setup(Level.Trial)
+  public void createIds() {
+    // Foreign keys and lineage reference the same datasets many times.
+    ids = new String[idCount * 4];
+    for (int i = 0; i < ids.length; ++i) {
+      var index = i % idCount;
+      ids[i] = "database=db" + index % 3 + "/schema=s" + index % 17 + "/table=t" + index;
+    }
+    mapper = new ExampleMapper("bench");
+  }
+
+  @Benchmark
+  public void regex(Blackhole bh) {
+    for (String id : ids) {
+      bh.consume(parseItemIdWithRegex(id));
+    }
+  }
+
+  @Benchmark
+  public void uncached(Blackhole bh) {
+    for (String id : ids) {
+      bh.consume(mapper.parseItemIdUncached(id));
+    }
+  }
+
+  @Benchmark
+  public void cached(Blackhole bh) {
+    for (String id : ids) {
+      bh.consume(mapper.parseItemId(id));
+    }
+  }
+
+  @Benchmark
+  public void labels(Blackhole bh) {
+    for (String id : ids) {
+      bh.consume(mapper.parseItemLabels(id, null));
+    }
+  }
+
+  private ItemIdentifier parseItemIdWithRegex(String id) {
+    return ItemIdentifier.of(
+        ID_SEP
+            .splitAsStream(id)
+            .filter(Predicate.not(String::isEmpty))
+            .map(ItemIdParserBenchmark::parseIdProperty)
+            .collect(Collectors.toList()));
+  }
+
+  private static IdentificationProperty parseIdProperty(String property) {
+    var index = property.indexOf('=');
+    if (index > 0) {
+      return IdentificationProperty.of(property.substring(0, index), property.substring(index + 1));
+    } else {
+      var value = index == 0 ? property.substring(1) : property;
+      return IdentificationProperty.of("id", value);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure how the file discovery scales with the parallelism.
+ *
+ * <p>The benchmark generates a tree of {@code fanOut ^ depth} leaf directories each containing
+ * {@code filesPerDirectory} files, half of them having the searched extension.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FileFinderBenchmark {
+  private static final String EXTENSION = ".dataset.ndjson";
+
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  @Param({"3"})
+  public int depth;
+
+  @Param({"8"})
+  public int fanOut;
+
+  @Param({"40"})
+  public int filesPerDirectory;
+
+  private Path root;
+
+  @Setup(Level.Trial)
+  public void createTree() throws IOException {
+    root = Files.createTempDirectory("file-finder-benchmark");
+    createDirectory(root, depth);
+  }
+
+  private void createDirectory(Path directory, int remainingDepth) throws IOException {
+    for (int i = 0; i < filesPerDirectory; ++i) {
+      var extension = i % 2 == 0 ? EXTENSION : ".txt";
+      Files.createFile(directory.resolve("file_" + i + extension));
+    }
+    if (remainingDepth > 0) {
+      for (int i = 0; i < fanOut; ++i) {
+        createDirectory(Files.createDirectory(directory.resolve("dir_" + i)), remainingDepth - 1);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteTree() throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Benchmark
+  public List<FileRef> find() throws IOException {
+    return new FileFinder(root, EXTENSION, parallelism).find();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare the evaluation of a filter tree with the evaluation of the compiled filter.
+ *
+ * <p>The benchmark is in the root module as the filter module has no JMH setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CompiledFilterBenchmark {
+  private static final FilterKey PATH = FilterKey.text("path");
+  private static final FilterKey SCHEMA = FilterKey.text("schema");
+  private static final FilterKey TABLE = FilterKey.text("table");
+  private static final FilterKey TAGS = FilterKey.list("tags");
+  private static final FilterKey TAG = FilterKey.text("tag");
+
+  @Param({"1000"})
+  public int itemCount;
+
+  private List<FilterItem> items;
+  private Filter filter;
+  private CompiledFilter compiled;
+
+  @Setup(Level.Trial)
+  public void createItems() {
+    // A typical include/exclude filter, with several values for the same key.
+    filter =
+        Filter.and(
+            Filter.or(
+                Filter.or(Filter.isEqualTo(SCHEMA, "sales"), Filter.isEqualTo(SCHEMA, "finance")),
+                Filter.or(Filter.isEqualTo(SCHEMA, "hr"), Filter.startsWith(PATH, "shared/"))),
+            Filter.and(
+                Filter.and(
+                    Filter.not(Filter.isEqualTo(TABLE, "tmp")),
+                    Filter.not(Filter.endsWith(TABLE, "_bak"))),
+                Filter.not(Filter.any(TAGS, TAG, Filter.isEqualTo(TAG, "private")))));
+    // The items share a schema, as the items of the connector.
+    var itemSchema = FilterSchema.of(List.of(PATH, SCHEMA, TABLE, TAGS));
+    compiled = filter.compile(itemSchema);
+
+    String[] schemas = {"sales", "finance", "hr", "ops", "dev"};
+    items = new ArrayList<>(itemCount);
+    for (int i = 0; i < itemCount; ++i) {
+      var schema = schemas[i % schemas.length];
+      var item = itemSchema.newItem();
+      item.set(FilterKeyValue.text(PATH, (i % 7 == 0 ? "shared/" : "data/") + schema));
+      item.set(FilterKeyValue.text(SCHEMA, schema));
+      item.set(FilterKeyValue.text(TABLE, i % 11 == 0 ? "t" + i + "_bak" : "t" + i));
+      item.set(
+          FilterKeyValue.textList(TAGS, "tag" + (i % 3), i % 13 == 0 ? "private" : "public"));
+      items.add(item);
+    }
+  }
+
+  @Benchmark
+  public int filter() {
+    var count = 0;
+    for (FilterItem item : items) {
+      if (filter.matches(item)) ++count;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int compiled() {
+    var count = 0;
+    for (FilterItem item : items) {
+      if (compiled.matches(item)) ++count;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int compiledReusedFrame() {
+    // The frame is reused for all the items, as by the reader of a file.
+    var frame = new CompiledFilter.Frame();
+    var count = 0;
+    for (FilterItem item : items) {
+      if (compiled.matches(item, frame)) ++count;
+    }
+    return count;
+  }
+}
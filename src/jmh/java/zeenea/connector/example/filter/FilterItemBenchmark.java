@@ -0,0 +1,88 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Compare the filter items created for each item with a filter item reused for all the items. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FilterItemBenchmark {
+  private static final FilterKey ID = FilterKey.text("id");
+  private static final FilterKey NAME = FilterKey.text("name");
+  private static final FilterKey PATH = FilterKey.text("path");
+  private static final FilterKey OWNER = FilterKey.text("owner");
+  private static final FilterKey TAGS = FilterKey.list("tags");
+  private static final FilterKey TAG = FilterKey.text("tag");
+
+  @Param({"1000"})
+  public int itemCount;
+
+  private final FilterSchema schema = FilterSchema.of(List.of(ID, NAME, PATH, OWNER, TAGS));
+  private final FilterItem reusedItem = schema.newItem();
+  private List<List<FilterKeyValue>> items;
+  private CompiledFilter filter;
+
+  @Setup(Level.Trial)
+  public void createItems() {
+    filter =
+        Filter.and(
+                Filter.or(Filter.startsWith(PATH, "sales/"), Filter.isEqualTo(OWNER, "admin")),
+                Filter.not(Filter.any(TAGS, TAG, Filter.isEqualTo(TAG, "private"))))
+            .compile(schema);
+    items = new ArrayList<>(itemCount);
+    for (int i = 0; i < itemCount; ++i) {
+      items.add(
+          List.of(
+              FilterKeyValue.text(ID, "schema/table" + i),
+              FilterKeyValue.text(NAME, "table" + i),
+              FilterKeyValue.text(PATH, (i % 2 == 0 ? "sales/" : "hr/") + i + ".json"),
+              FilterKeyValue.text(OWNER, i % 5 == 0 ? "admin" : "user"),
+              FilterKeyValue.textList(TAGS, "public", i % 7 == 0 ? "private" : "shared")));
+    }
+  }
+
+  @Benchmark
+  public int newItems() {
+    var count = 0;
+    for (List<FilterKeyValue> values : items) {
+      if (filter.matches(FilterItem.of(values))) ++count;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int reusedItem() {
+    var count = 0;
+    for (List<FilterKeyValue> values : items) {
+      reusedItem.clear();
+      for (FilterKeyValue value : values) {
+        reusedItem.set(value);
+      }
+      if (filter.matches(reusedItem)) ++count;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Compare the glob matcher with the regex translation of the glob. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GlobBenchmark {
+  @Param({"sales/*.json", "*/customer_*.json", "*/2024/??/*_v?.json"})
+  public String glob;
+
+  private Pattern regex;
+  private Glob matcher;
+  private List<String> paths;
+
+  @Setup(Level.Trial)
+  public void createPaths() {
+    regex = Pattern.compile(Glob.toRegex(glob));
+    matcher = Glob.compile(glob);
+    String[] directories = {"sales", "hr", "finance/2024/03", "sales/2024/11"};
+    String[] names = {"customer_orders", "employees", "invoice_v2", "customer_v1"};
+    paths = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      var directory = directories[i % directories.length];
+      var name = names[(i / directories.length) % names.length];
+      paths.add(directory + "/" + name + (i % 3 == 0 ? ".csv" : ".json"));
+    }
+  }
+
+  @Benchmark
+  public int regex() {
+    var count = 0;
+    for (String path : paths) {
+      if (regex.matcher(path).matches()) ++count;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int glob() {
+    var count = 0;
+    for (String path : paths) {
+      if (matcher.matches(path)) ++count;
+    }
+    return count;
+  }
+}
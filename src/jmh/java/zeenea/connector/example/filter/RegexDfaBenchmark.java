@@ -0,0 +1,72 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Compare the regex automaton with the backtracking pattern matcher. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RegexDfaBenchmark {
+  @Param({"sales/.*\\.json", "[a-z_/]+_v\\d+\\.(json|csv)", ".*customer.*", "(\\w+_?)*\\.bak"})
+  public String regex;
+
+  private Pattern pattern;
+  private RegexDfa dfa;
+  private List<String> paths;
+
+  @Setup(Level.Trial)
+  public void createPaths() {
+    pattern = Pattern.compile(regex);
+    dfa = RegexDfa.compile(pattern);
+    String[] directories = {"sales", "hr", "finance/2024/03", "sales/2024/11"};
+    String[] names = {"customer_orders", "employees", "invoice_v2", "customer_v1"};
+    paths = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      var directory = directories[i % directories.length];
+      var name = names[(i / directories.length) % names.length];
+      paths.add(directory + "/" + name + (i % 3 == 0 ? ".csv" : ".json"));
+    }
+  }
+
+  @Benchmark
+  public int pattern() {
+    var count = 0;
+    for (String path : paths) {
+      if (pattern.matcher(path).matches()) ++count;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int dfa() {
+    var count = 0;
+    for (String path : paths) {
+      if (dfa.matches(path)) ++count;
+    }
+    return count;
+  }
+}
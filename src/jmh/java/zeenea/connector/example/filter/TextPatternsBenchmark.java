@@ -0,0 +1,83 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measure a long "or" of "contains", "starts with" and "ends with" filters on the same key. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TextPatternsBenchmark {
+  private static final FilterKey NAME = FilterKey.text("name");
+
+  @Param({"5", "50"})
+  public int patternCount;
+
+  private List<FilterItem> items;
+  private Filter filter;
+  private CompiledFilter compiled;
+
+  @Setup(Level.Trial)
+  public void createItems() {
+    filter = Filter.never();
+    for (int i = 0; i < patternCount; ++i) {
+      switch (i % 3) {
+        case 0:
+          filter = Filter.or(filter, Filter.contains(NAME, "tmp" + i));
+          break;
+        case 1:
+          filter = Filter.or(filter, Filter.startsWith(NAME, "bak" + i + "_"));
+          break;
+        default:
+          filter = Filter.or(filter, Filter.endsWith(NAME, "_old" + i));
+      }
+    }
+    compiled = filter.compile();
+
+    items = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      var name = "customer_orders_" + i + (i % 10 == 0 ? "_tmp0" : "_2024");
+      items.add(FilterItem.of(FilterKeyValue.text(NAME, name)));
+    }
+  }
+
+  @Benchmark
+  public int filter() {
+    var count = 0;
+    for (FilterItem item : items) {
+      if (filter.matches(item)) ++count;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int compiled() {
+    var count = 0;
+    for (FilterItem item : items) {
+      if (compiled.matches(item)) ++count;
+    }
+    return count;
+  }
+}
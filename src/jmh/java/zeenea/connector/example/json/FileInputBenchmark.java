@@ -0,0 +1,93 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare the stream and memory mapped input paths when parsing a dataset file.
+ *
+ * <p>The heap churn is reported by the gc profiler ({@code gc.alloc.rate.norm}), enabled in the
+ * build for all the benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FileInputBenchmark {
+  /** A {@link FileInput.Mode} name, the enum is not visible from the generated code. */
+  @Param({"STREAM", "MAPPED"})
+  public String mode;
+
+  @Param({"64"})
+  public int fileSizeMb;
+
+  private Path file;
+
+  @Setup(Level.Trial)
+  public void createFile() throws IOException {
+    file = Files.createTempFile("file-input-benchmark", ".dataset.ndjson");
+    var targetSize = fileSizeMb * 1024L * 1024L;
+    try (Writer writer = Files.newBufferedWriter(file)) {
+      for (int i = 0; Files.size(file) < targetSize; ++i) {
+        for (int j = 0; j < 1000; ++j) {
+          writer.write(dataset(i * 1000 + j));
+        }
+        writer.flush();
+      }
+    }
+  }
+
+  private static String dataset(int index) {
+    var sb = new StringBuilder();
+    sb.append("{\"id\":\"schema=bench/table=t").append(index).append('"');
+    sb.append(",\"name\":\"t").append(index).append('"');
+    sb.append(",\"description\":\"Table used by the benchmark\",\"fields\":[");
+    for (int i = 0; i < 10; ++i) {
+      if (i > 0) sb.append(',');
+      sb.append("{\"name\":\"f").append(i).append("\",\"nativeType\":\"varchar(32)\"");
+      sb.append(",\"dataType\":\"String\",\"nullable\":true,\"multivalued\":false}");
+    }
+    sb.append("]}\n");
+    return sb.toString();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFile() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) throws IOException {
+    try (var input = FileInput.open(file, 0, Long.MAX_VALUE, FileInput.Mode.valueOf(mode));
+        var iterator = Json.MAPPER.readerFor(JsonDataset.class).readValues(input)) {
+      while (iterator.hasNext()) {
+        blackhole.consume(iterator.next());
+      }
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import zeenea.connector.example.file.FileRef;
+import zeenea.connector.example.log.TracingContext;
+
+/** Compare the full binding of the datasets with the projection read by the inventory. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class JsonProjectionBenchmark {
+  @Param({"10", "200"})
+  public int fieldCount;
+
+  private final TracingContext ctx = TracingContext.test();
+  private Path directory;
+  private FileRef fileRef;
+  private JsonProjection<JsonDataset> projection;
+
+  @Setup(Level.Trial)
+  public void createFile() throws IOException {
+    directory = Files.createTempDirectory("json-projection-benchmark");
+    var file = directory.resolve("bench.dataset.ndjson");
+    try (Writer writer = Files.newBufferedWriter(file)) {
+      for (int i = 0; i < 10_000; ++i) {
+        writer.write(dataset(i));
+      }
+    }
+    fileRef =
+        new FileRef(file, directory, Files.readAttributes(file, BasicFileAttributes.class));
+    projection = JsonProjection.of(JsonDataset.class, List.of("owner"));
+  }
+
+  private String dataset(int index) {
+    var sb = new StringBuilder();
+    sb.append("{\"id\":\"schema=bench/table=t").append(index).append('"');
+    sb.append(",\"name\":\"t").append(index).append('"');
+    sb.append(",\"owner\":\"team").append(index % 10).append('"');
+    sb.append(",\"comment\":\"Not used by the inventory\"");
+    sb.append(",\"description\":\"Table used by the benchmark\",\"fields\":[");
+    for (int i = 0; i < fieldCount; ++i) {
+      if (i > 0) sb.append(',');
+      sb.append("{\"name\":\"f").append(i).append("\",\"nativeType\":\"varchar(32)\"");
+      sb.append(",\"dataType\":\"String\",\"nullable\":true,\"multivalued\":false}");
+    }
+    sb.append("]}\n");
+    return sb.toString();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFile() throws IOException {
+    Files.deleteIfExists(fileRef.getPath());
+    Files.deleteIfExists(directory);
+  }
+
+  @Benchmark
+  public void full(Blackhole blackhole) {
+    try (var reader = new JsonItemReader<>(ctx, fileRef, JsonDataset.class, null)) {
+      reader.forEachRemaining(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void projection(Blackhole blackhole) {
+    try (var reader = new JsonItemReader<>(ctx, fileRef, projection, null)) {
+      reader.forEachRemaining(blackhole::consume);
+    }
+  }
+}
@@ -7,11 +7,14 @@
 package zeenea.connector.example;
 
 import java.nio.file.Path;
+import java.util.Optional;
 import zeenea.connector.ConnectionConfiguration;
+import zeenea.connector.example.file.Compression;
 import zeenea.connector.example.filter.Filter;
 import zeenea.connector.example.log.Strings;
 import zeenea.connector.example.log.TracingContext;
 import zeenea.connector.example.property.CustomProperties;
+import zeenea.connector.exception.InvalidConfigurationException;
 
 /**
  * Configuration.
@@ -24,13 +27,35 @@ public class Config {
   public static final String EXTENSION_CONF = "extension";
   public static final String CUSTOM_PROPERTIES_CONF = "custom_properties";
   public static final String FIELD_CUSTOM_PROPERTIES_CONF = "field_custom_properties";
+  public static final String PARALLELISM_CONF = "parallelism";
+  public static final String MANIFEST_CONF = "manifest";
+  public static final String WATCH_CONF = "watch";
+  public static final String ITEM_CACHE_SIZE_CONF = "item_cache_size";
+  public static final String FILE_CACHE_MEMORY_CONF = "file_cache_memory";
+  public static final String EXTRACTION_PARALLELISM_CONF = "extraction_parallelism";
+  public static final String EXTRACTION_WINDOW_CONF = "extraction_window";
+
+  /** Default number of items kept in memory by the extraction. */
+  public static final int DEFAULT_ITEM_CACHE_SIZE = 256;
+
+  /** Default memory of the items shared by the inventory and the extraction, in MB. */
+  public static final long DEFAULT_FILE_CACHE_MEMORY = 64;
 
   private final String connectionCode;
   private final Path root;
   private final String fileExtension;
   private final CustomProperties customProperties;
   private final CustomProperties fieldProperties;
+  private final PropertyConverters customPropertyConverters;
+  private final PropertyConverters fieldPropertyConverters;
   private final Filter filter;
+  private final int parallelism;
+  private final Path manifestFile;
+  private final boolean watch;
+  private final int itemCacheSize;
+  private final long fileCacheMemory;
+  private final int extractionParallelism;
+  private final int extractionWindow;
 
   private Config(
       String connectionCode,
@@ -38,13 +63,31 @@ public class Config {
       String fileExtension,
       CustomProperties customProperties,
       CustomProperties fieldProperties,
-      Filter filter) {
+      PropertyConverters customPropertyConverters,
+      PropertyConverters fieldPropertyConverters,
+      Filter filter,
+      int parallelism,
+      Path manifestFile,
+      boolean watch,
+      int itemCacheSize,
+      long fileCacheMemory,
+      int extractionParallelism,
+      int extractionWindow) {
     this.connectionCode = connectionCode;
     this.root = root;
     this.fileExtension = fileExtension;
     this.customProperties = customProperties;
     this.fieldProperties = fieldProperties;
+    this.customPropertyConverters = customPropertyConverters;
+    this.fieldPropertyConverters = fieldPropertyConverters;
     this.filter = filter;
+    this.parallelism = parallelism;
+    this.manifestFile = manifestFile;
+    this.watch = watch;
+    this.itemCacheSize = itemCacheSize;
+    this.fileCacheMemory = fileCacheMemory;
+    this.extractionParallelism = extractionParallelism;
+    this.extractionWindow = extractionWindow;
   }
 
   public static Config create(
@@ -63,6 +106,8 @@ public class Config {
         configuration
             .getStringOptional(EXTENSION_CONF)
             .map(e -> Strings.ensurePrefix(".", e))
+            // Compressed files are always accepted, the extension is the one of the content.
+            .map(Compression::logicalName)
             .orElse(Strings.ensurePrefix(".", defaultExtension + ".ndjson"));
 
     // Parse custom properties.
@@ -74,11 +119,94 @@ public class Config {
         CustomProperties.parse(
             configuration.getStringOptional(FIELD_CUSTOM_PROPERTIES_CONF).orElse(""));
 
+    // Compile the conversion of the custom properties once for all the items.
+    var customPropertyConverters = PropertyConverters.of(customProperties);
+    var fieldPropertyConverters = PropertyConverters.of(fieldProperties);
+
     // Parser Filter.
-    var filter = ItemFilters.parseFilter(configuration, customProperties);
+    var filter = ItemFilters.parseFilter(configuration, customPropertyConverters);
+
+    // Number of directories explored in parallel, default to the number of processors.
+    var parallelism =
+        configuration
+            .getLongOptional(PARALLELISM_CONF)
+            .map(Long::intValue)
+            .orElse(Runtime.getRuntime().availableProcessors());
+    if (parallelism < 1) {
+      throw new InvalidConfigurationException(
+          "Invalid " + PARALLELISM_CONF + " value: " + parallelism);
+    }
+
+    // The manifest is stored in the scanner home, one file per connection.
+    var manifestFile =
+        configuration.getBooleanOptional(MANIFEST_CONF).orElse(false)
+            ? configuration
+                .getScannerHomeFolder()
+                .resolve("cache")
+                .resolve(connectionCode)
+                .resolve(defaultExtension + ".manifest.json")
+            : null;
+
+    // Keep the items in memory and update them when the files change.
+    var watch = configuration.getBooleanOptional(WATCH_CONF).orElse(false);
+
+    // Number of items read again by the extraction kept in memory.
+    var itemCacheSize =
+        configuration
+            .getLongOptional(ITEM_CACHE_SIZE_CONF)
+            .map(Long::intValue)
+            .orElse(DEFAULT_ITEM_CACHE_SIZE);
+    if (itemCacheSize < 0) {
+      throw new InvalidConfigurationException(
+          "Invalid " + ITEM_CACHE_SIZE_CONF + " value: " + itemCacheSize);
+    }
+
+    // Memory of the items read by the inventory and kept for the extraction.
+    var fileCacheMemory =
+        configuration.getLongOptional(FILE_CACHE_MEMORY_CONF).orElse(DEFAULT_FILE_CACHE_MEMORY);
+    if (fileCacheMemory < 0) {
+      throw new InvalidConfigurationException(
+          "Invalid " + FILE_CACHE_MEMORY_CONF + " value: " + fileCacheMemory);
+    }
+
+    // Number of items mapped in parallel by the extraction, default to the number of processors.
+    var extractionParallelism =
+        configuration
+            .getLongOptional(EXTRACTION_PARALLELISM_CONF)
+            .map(Long::intValue)
+            .orElse(Runtime.getRuntime().availableProcessors());
+    if (extractionParallelism < 1) {
+      throw new InvalidConfigurationException(
+          "Invalid " + EXTRACTION_PARALLELISM_CONF + " value: " + extractionParallelism);
+    }
+
+    // Number of items being mapped or waiting to be consumed.
+    var extractionWindow =
+        configuration
+            .getLongOptional(EXTRACTION_WINDOW_CONF)
+            .map(Long::intValue)
+            .orElse(4 * extractionParallelism);
+    if (extractionWindow < 1) {
+      throw new InvalidConfigurationException(
+          "Invalid " + EXTRACTION_WINDOW_CONF + " value: " + extractionWindow);
+    }
 
     return new Config(
-        connectionCode, fullPath, extension, customProperties, fieldProperties, filter);
+        connectionCode,
+        fullPath,
+        extension,
+        customProperties,
+        fieldProperties,
+        customPropertyConverters,
+        fieldPropertyConverters,
+        filter,
+        parallelism,
+        manifestFile,
+        watch,
+        itemCacheSize,
+        fileCacheMemory * 1024 * 1024,
+        extractionParallelism,
+        extractionWindow);
   }
 
   public String connectionCode() {
@@ -104,4 +232,41 @@ public class Config {
   public CustomProperties fieldProperties() {
     return fieldProperties;
   }
+
+  public PropertyConverters customPropertyConverters() {
+    return customPropertyConverters;
+  }
+
+  public PropertyConverters fieldPropertyConverters() {
+    return fieldPropertyConverters;
+  }
+
+  public int parallelism() {
+    return parallelism;
+  }
+
+  public Optional<Path> manifestFile() {
+    return Optional.ofNullable(manifestFile);
+  }
+
+  public boolean watch() {
+    return watch;
+  }
+
+  public int itemCacheSize() {
+    return itemCacheSize;
+  }
+
+  /** The memory of the items shared by the inventory and the extraction, in bytes. */
+  public long fileCacheMemory() {
+    return fileCacheMemory;
+  }
+
+  public int extractionParallelism() {
+    return extractionParallelism;
+  }
+
+  public int extractionWindow() {
+    return extractionWindow;
+  }
 }
@@ -6,18 +6,12 @@
 
 package zeenea.connector.example;
 
-import java.math.BigDecimal;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import zeenea.connector.common.DataSourceIdentifier;
@@ -27,8 +21,8 @@ import zeenea.connector.common.ItemReference;
 import zeenea.connector.contact.Contact;
 import zeenea.connector.dataset.DataType;
 import zeenea.connector.dataset.ForeignKey;
+import zeenea.connector.example.cache.LruCache;
 import zeenea.connector.example.file.FileItem;
-import zeenea.connector.example.json.Customizable;
 import zeenea.connector.example.json.JsonContact;
 import zeenea.connector.example.json.JsonField;
 import zeenea.connector.example.json.JsonForeignKey;
@@ -37,69 +31,118 @@ import zeenea.connector.example.json.JsonItemRef;
 import zeenea.connector.example.json.JsonOperation;
 import zeenea.connector.example.log.SimpleLogger;
 import zeenea.connector.example.log.TracingContext;
-import zeenea.connector.example.property.CustomProperties;
-import zeenea.connector.example.property.CustomProperty;
 import zeenea.connector.field.Field;
 import zeenea.connector.process.Operation;
-import zeenea.connector.property.InstantPropertyDefinition;
-import zeenea.connector.property.NumberPropertyDefinition;
 import zeenea.connector.property.PropertiesBuilder;
 import zeenea.connector.property.PropertyValue;
-import zeenea.connector.property.StringPropertyDefinition;
-import zeenea.connector.property.TagPropertyDefinition;
-import zeenea.connector.property.UrlPropertyDefinition;
 
 /**
  * This class contains the object mapping. This is often done in the connection object but, because
  * they are reused by the three connections, we put them in a separate class.
  */
 public class ExampleMapper {
-  /** Item identifier segments. */
-  private static final Pattern ID_SEP = Pattern.compile("/");
-
   private static final String DEFAULT_KEY = "id";
   private static final String FIELD_KEY = "field";
 
+  /** Number of item identifiers and labels kept in the caches. */
+  private static final int ID_CACHE_SIZE = 16 * 1024;
+
+  /**
+   * Data types by name. The names are case-insensitive: the lower case and the enum names are
+   * looked up first, without converting the type to lower case.
+   */
+  private static final Map<String, DataType> DATA_TYPES = dataTypes();
+
   private static final SimpleLogger log = SimpleLogger.of(ExampleMapper.class);
 
   private final String currentConnectionCode;
 
+  /**
+   * Parsed item identifiers. The same identifiers are referenced by many items, the cache avoids
+   * parsing them again and shares the instances.
+   */
+  private final LruCache<String, ItemIdentifier> itemIds = new LruCache<>(ID_CACHE_SIZE);
+
+  /** Parsed item labels. */
+  private final LruCache<String, List<String>> itemLabels = new LruCache<>(ID_CACHE_SIZE);
+
   public ExampleMapper(String currentConnectionCode) {
     this.currentConnectionCode = currentConnectionCode;
   }
 
   public ItemIdentifier parseItemId(String id) {
-    return ItemIdentifier.of(
-        ID_SEP
-            .splitAsStream(id)
-            .filter(Predicate.not(String::isEmpty))
-            .map(this::parseIdProperty)
-            .collect(Collectors.toList()));
+    return itemIds.computeIfAbsent(id, this::parseItemIdUncached);
+  }
+
+  /**
+   * Parse an item identifier without using the cache.
+   *
+   * <p>The identifier is a list of properties separated by slashes, the empty segments are ignored.
+   *
+   * @param id The item identifier.
+   * @return The parsed item identifier.
+   */
+  ItemIdentifier parseItemIdUncached(String id) {
+    var properties = new ArrayList<IdentificationProperty>(4);
+    var length = id.length();
+    var start = 0;
+    while (start < length) {
+      var end = id.indexOf('/', start);
+      if (end < 0) end = length;
+      if (end > start) properties.add(parseIdProperty(id, start, end));
+      start = end + 1;
+    }
+    return ItemIdentifier.of(properties);
   }
 
   public List<String> parseItemLabels(JsonItem item) {
-    String label = item.getLabel();
+    return parseItemLabels(item.getId(), item.getLabel());
+  }
+
+  /**
+   * Get the labels of an item.
+   *
+   * @param id The item identifier.
+   * @param label The item label, the labels are the values of the identifier if it is {@code null}.
+   * @return The labels, as an unmodifiable list.
+   */
+  public List<String> parseItemLabels(String id, String label) {
     if (label != null) {
-      return ID_SEP
-          .splitAsStream(item.getLabel())
-          .filter(Predicate.not(String::isEmpty))
-          .collect(Collectors.toList());
+      return itemLabels.computeIfAbsent(label, ExampleMapper::splitLabel);
     } else {
-      return ID_SEP
-          .splitAsStream(item.getId())
-          .filter(Predicate.not(String::isEmpty))
-          .map(this::parseIdProperty)
-          .map(IdentificationProperty::getValue)
-          .collect(Collectors.toList());
+      var properties = parseItemId(id).getIdentificationProperties();
+      var labels = new String[properties.size()];
+      for (int i = 0; i < labels.length; ++i) {
+        labels[i] = properties.get(i).getValue();
+      }
+      return List.of(labels);
     }
   }
 
+  private static List<String> splitLabel(String label) {
+    var labels = new ArrayList<String>(4);
+    var length = label.length();
+    var start = 0;
+    while (start < length) {
+      var end = label.indexOf('/', start);
+      if (end < 0) end = length;
+      if (end > start) labels.add(label.substring(start, end));
+      start = end + 1;
+    }
+    return List.copyOf(labels);
+  }
+
   public IdentificationProperty parseIdProperty(String property) {
-    var index = property.indexOf('=');
-    if (index > 0) {
-      return IdentificationProperty.of(property.substring(0, index), property.substring(index + 1));
+    return parseIdProperty(property, 0, property.length());
+  }
+
+  private IdentificationProperty parseIdProperty(String id, int start, int end) {
+    var index = id.indexOf('=', start);
+    if (index > start && index < end) {
+      return IdentificationProperty.of(id.substring(start, index), id.substring(index + 1, end));
     } else {
-      return IdentificationProperty.of(DEFAULT_KEY, index == 0 ? property.substring(1) : property);
+      var valueStart = index == start ? start + 1 : start;
+      return IdentificationProperty.of(DEFAULT_KEY, id.substring(valueStart, end));
     }
   }
 
@@ -140,12 +183,15 @@ public class ExampleMapper {
   }
 
   public List<Field> fields(
-      TracingContext ctx, List<JsonField> fields, CustomProperties customProperties) {
-    var list = new ArrayList<Field>();
+      TracingContext ctx, List<JsonField> fields, PropertyConverters customProperties) {
+    // Datasets can have thousands of fields.
+    var list = new ArrayList<Field>(fields.size());
     int fieldIdx = 0;
     for (JsonField field : fields) {
       var properties =
-          customProperties(ctx, PropertiesBuilder.create(), field, customProperties).build();
+          customProperties.isEmpty()
+              ? Map.<String, PropertyValue>of()
+              : customProperties.addProperties(ctx, PropertiesBuilder.create(), field).build();
 
       /*
        * Get native type and data type.
@@ -184,123 +230,12 @@ public class ExampleMapper {
   public Map<String, PropertyValue> properties(
       TracingContext ctx,
       FileItem<? extends JsonItem> fileItem,
-      CustomProperties customProperties) {
+      PropertyConverters customProperties) {
     var item = fileItem.getItem();
     PropertiesBuilder properties =
-        PropertiesBuilder.create().put(Metadata.PATH_MD, fileItem.getFileRef().getRelativePath());
-    return customProperties(ctx, properties, item, customProperties).build();
-  }
-
-  private PropertiesBuilder customProperties(
-      TracingContext ctx,
-      PropertiesBuilder builder,
-      Customizable item,
-      CustomProperties customProperties) {
-    for (CustomProperty property : customProperties.getProperties()) {
-      var value = item.getCustomProperty(property.getAttributeName());
-      if (value != null && !value.isNull() && !value.isMissingNode()) {
-        switch (property.getType()) {
-          case STRING:
-          case LONG_TEXT:
-            builder.put((StringPropertyDefinition) property.getDefinition(), value.asText());
-            break;
-
-          case TAG:
-            if (value.isTextual()) {
-              builder.put(
-                  (TagPropertyDefinition) property.getDefinition(), List.of(value.asText()));
-            } else if (value.isArray()) {
-              var values = new ArrayList<String>();
-              for (var i = value.elements(); i.hasNext(); ) {
-                values.add(i.next().asText());
-              }
-              builder.put((TagPropertyDefinition) property.getDefinition(), values);
-            }
-            break;
-
-          case NUMBER:
-            if (value.isNumber()) {
-              builder.put(
-                  (NumberPropertyDefinition) property.getDefinition(), value.decimalValue());
-            } else if (value.isTextual()) {
-              try {
-                builder.put(
-                    (NumberPropertyDefinition) property.getDefinition(),
-                    new BigDecimal(value.textValue()));
-              } catch (NumberFormatException e) {
-                log.entry("example_mapper_invalid_number")
-                    .context(ctx)
-                    .with("property_code", property.getCode())
-                    .with("json_attribute_name", property.getAttributeName())
-                    .with("value", value.textValue())
-                    .quiet()
-                    .warn(e);
-              }
-            }
-            break;
-
-          case INSTANT:
-            if (value.isTextual()) {
-              try {
-                builder.put(
-                    (InstantPropertyDefinition) property.getDefinition(),
-                    ZonedDateTime.parse(value.textValue()).toInstant());
-              } catch (DateTimeParseException e) {
-                log.entry("example_mapper_invalid_instant")
-                    .context(ctx)
-                    .with("property_code", property.getCode())
-                    .with("json_attribute_name", property.getAttributeName())
-                    .with("value", value.textValue())
-                    .quiet()
-                    .warn(e);
-              }
-            }
-            break;
-
-          case URL:
-            URI uri = null;
-            String label = null;
-
-            if (value.isTextual()) {
-              try {
-                uri = new URI(value.textValue());
-              } catch (URISyntaxException e) {
-                log.entry("example_mapper_invalid_uri")
-                    .context(ctx)
-                    .with("property_code", property.getCode())
-                    .with("json_attribute_name", property.getAttributeName())
-                    .with("value", value.textValue())
-                    .quiet()
-                    .warn(e);
-              }
-            } else if (value.isObject()) {
-              var uriPath = value.path("uri");
-              if (uriPath.isTextual()) {
-                try {
-                  uri = new URI(value.textValue());
-                } catch (URISyntaxException e) {
-                  log.entry("example_mapper_invalid_uri")
-                      .context(ctx)
-                      .with("property_code", property.getCode())
-                      .with("json_attribute_name", property.getAttributeName())
-                      .with("value", value.textValue())
-                      .quiet()
-                      .warn(e);
-                }
-              }
-              var labelPath = value.path("label");
-              if (labelPath.isTextual()) {
-                label = labelPath.textValue();
-              }
-            }
-            if (uri != null) {
-              builder.put((UrlPropertyDefinition) property.getDefinition(), uri, label);
-            }
-            break;
-        }
-      }
-    }
-    return builder;
+        PropertiesBuilder.create()
+            .put(Metadata.PATH_MD, fileItem.getFileRef().getLogicalRelativePath());
+    return customProperties.addProperties(ctx, properties, item).build();
   }
 
   public List<ForeignKey> foreignKeys(TracingContext ctx, List<JsonForeignKey> foreignKeys) {
@@ -318,6 +253,7 @@ public class ExampleMapper {
 
   private <E, R> List<R> list(
       TracingContext ctx, List<E> list, Function<? super E, ? extends R> elementMapper) {
+    if (list.isEmpty()) return List.of();
     return list.stream()
         .flatMap(
             element -> {
@@ -337,6 +273,15 @@ public class ExampleMapper {
         .collect(Collectors.toList());
   }
 
+  private static Map<String, DataType> dataTypes() {
+    var dataTypes = new HashMap<String, DataType>();
+    for (DataType dataType : DataType.values()) {
+      dataTypes.put(dataType.name(), dataType);
+      dataTypes.put(dataType.name().toLowerCase(Locale.ROOT), dataType);
+    }
+    return Map.copyOf(dataTypes);
+  }
+
   private ItemReference itemReference(JsonItemRef itemRef) {
     DataSourceIdentifier dsId;
     String connection = itemRef.getConnection();
@@ -351,46 +296,12 @@ public class ExampleMapper {
     return ItemReference.of(id, dsId);
   }
 
-  private DataType dataType(String type) {
-    switch (type.toLowerCase(Locale.ROOT)) {
-      case "string":
-        return DataType.String;
-      case "byte":
-        return DataType.Byte;
-      case "short":
-        return DataType.Short;
-      case "integer":
-        return DataType.Integer;
-      case "long":
-        return DataType.Long;
-      case "float":
-        return DataType.Float;
-      case "double":
-        return DataType.Double;
-      case "boolean":
-        return DataType.Boolean;
-      case "date":
-        return DataType.Date;
-      case "time":
-        return DataType.Time;
-      case "timestamp":
-        return DataType.Timestamp;
-      case "binary":
-        return DataType.Binary;
-      case "bigdecimal":
-        return DataType.BigDecimal;
-      case "geopoint":
-        return DataType.GeoPoint;
-      case "geoshape":
-        return DataType.GeoShape;
-      case "struct":
-        return DataType.Struct;
-      case "map":
-        return DataType.Map;
-      case "null":
-        return DataType.Null;
-      default:
-        return DataType.Unknown;
+  /** Get a data type from its case-insensitive name, package-private for the benchmark. */
+  static DataType dataType(String type) {
+    var dataType = DATA_TYPES.get(type);
+    if (dataType == null) {
+      dataType = DATA_TYPES.getOrDefault(type.toLowerCase(Locale.ROOT), DataType.Unknown);
     }
+    return dataType;
   }
 }
@@ -0,0 +1,185 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import zeenea.connector.example.cache.LruCache;
+
+/**
+ * Parse the instants of the custom properties.
+ *
+ * <p>The instants have the format of {@code ZonedDateTime.parse()}. The common forms, {@code
+ * yyyy-MM-ddTHH:mm:ss[.fffffffff]} followed by {@code Z} or by an offset {@code +HH:mm}, are parsed
+ * directly. The other forms are parsed by {@code ZonedDateTime}, their results are cached as they
+ * are often repeated.
+ *
+ * <p>An invalid value is reported by a {@code null} result. Syntax errors are detected without
+ * creating an exception, and invalid values are cached as well.
+ */
+public final class InstantParser {
+  private static final int SECONDS_PER_DAY = 86400;
+  private static final int DAYS_0000_TO_1970 = 719528;
+  private static final int[] NANO_SCALE = {
+    0, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1
+  };
+
+  private final LruCache<String, Optional<Instant>> cache;
+
+  /**
+   * Create a new parser.
+   *
+   * @param cacheSize The number of values parsed by {@code ZonedDateTime} kept in the cache.
+   */
+  public InstantParser(int cacheSize) {
+    this.cache = new LruCache<>(cacheSize);
+  }
+
+  /**
+   * Parse an instant.
+   *
+   * @param text The text to parse.
+   * @return The instant, {@code null} if the text is not a valid date time.
+   */
+  public Instant parse(String text) {
+    var instant = parseIso(text);
+    if (instant != null) return instant;
+    return cache.computeIfAbsent(text, InstantParser::parseZoned).orElse(null);
+  }
+
+  /**
+   * Parse the common ISO-8601 forms.
+   *
+   * @param text The text to parse.
+   * @return The instant, {@code null} if the text is not in a common form or if it is invalid.
+   */
+  static Instant parseIso(String text) {
+    var length = text.length();
+    if (length < 20
+        || text.charAt(4) != '-'
+        || text.charAt(7) != '-'
+        || text.charAt(10) != 'T'
+        || text.charAt(13) != ':'
+        || text.charAt(16) != ':') {
+      return null;
+    }
+    var year = digits(text, 0, 4);
+    var month = digits(text, 5, 2);
+    var day = digits(text, 8, 2);
+    var hour = digits(text, 11, 2);
+    var minute = digits(text, 14, 2);
+    var second = digits(text, 17, 2);
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > monthLength(year, month)) {
+      return null;
+    }
+    if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+      return null;
+    }
+
+    // Fraction of second.
+    var pos = 19;
+    var nano = 0;
+    if (text.charAt(pos) == '.') {
+      var start = ++pos;
+      while (pos < length && pos - start < 9 && isDigit(text.charAt(pos))) {
+        nano = nano * 10 + (text.charAt(pos++) - '0');
+      }
+      var count = pos - start;
+      if (count == 0) return null;
+      nano *= NANO_SCALE[count];
+    }
+
+    // Offset.
+    if (pos >= length) return null;
+    int offset;
+    var sign = text.charAt(pos);
+    if (sign == 'Z' && pos + 1 == length) {
+      offset = 0;
+    } else if ((sign == '+' || sign == '-') && pos + 6 == length && text.charAt(pos + 3) == ':') {
+      var offsetHour = digits(text, pos + 1, 2);
+      var offsetMinute = digits(text, pos + 4, 2);
+      if (offsetHour < 0 || offsetMinute < 0 || offsetMinute > 59) return null;
+      offset = offsetHour * 3600 + offsetMinute * 60;
+      if (offset > 18 * 3600) return null;
+      if (sign == '-') offset = -offset;
+    } else {
+      return null;
+    }
+
+    var epochSecond =
+        epochDay(year, month, day) * SECONDS_PER_DAY
+            + hour * 3600
+            + minute * 60
+            + second
+            - offset;
+    return Instant.ofEpochSecond(epochSecond, nano);
+  }
+
+  private static Optional<Instant> parseZoned(String text) {
+    // Reject the syntax errors without the exception thrown by ZonedDateTime.
+    var position = new ParsePosition(0);
+    var parsed = DateTimeFormatter.ISO_ZONED_DATE_TIME.parseUnresolved(text, position);
+    if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() < text.length()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(ZonedDateTime.parse(text).toInstant());
+    } catch (DateTimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  /** Parse a number of digits, -1 if one of the characters is not a digit. */
+  private static int digits(String text, int start, int count) {
+    var value = 0;
+    for (int i = start; i < start + count; ++i) {
+      var c = text.charAt(i);
+      if (!isDigit(c)) return -1;
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isLeapYear(int year) {
+    return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  private static int monthLength(int year, int month) {
+    switch (month) {
+      case 2:
+        return isLeapYear(year) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /** Same computation as {@code LocalDate.toEpochDay()}, for a positive year. */
+  private static long epochDay(int year, int month, int day) {
+    long total = 365L * year;
+    total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+    total += (367 * month - 362) / 12;
+    total += day - 1;
+    if (month > 2) {
+      total--;
+      if (!isLeapYear(year)) total--;
+    }
+    return total - DAYS_0000_TO_1970;
+  }
+}
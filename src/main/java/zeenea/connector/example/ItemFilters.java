@@ -9,6 +9,7 @@ package zeenea.connector.example;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Pattern;
 import zeenea.connector.ConnectionConfiguration;
 import zeenea.connector.example.file.FileItem;
@@ -19,9 +20,9 @@ import zeenea.connector.example.filter.FilterKey;
 import zeenea.connector.example.filter.FilterKeyValue;
 import zeenea.connector.example.filter.FilterParser;
 import zeenea.connector.example.filter.FilterParsingException;
+import zeenea.connector.example.filter.FilterSchema;
+import zeenea.connector.example.filter.FilterValue;
 import zeenea.connector.example.json.JsonItem;
-import zeenea.connector.example.property.CustomProperties;
-import zeenea.connector.example.property.CustomProperty;
 import zeenea.connector.exception.InvalidConfigurationException;
 
 public class ItemFilters {
@@ -32,16 +33,14 @@ public class ItemFilters {
   private static final Pattern INVALID_PROPERTY_CHAR = Pattern.compile("[^_a-zA-Z0-9]");
 
   public static Filter parseFilter(
-      ConnectionConfiguration configuration, CustomProperties customProperties) {
+      ConnectionConfiguration configuration, PropertyConverters customProperties) {
     Optional<String> filterString = configuration.getStringOptional(Config.FILTER_CONF);
     if (filterString.isEmpty() || filterString.get().isBlank()) return Filter.always();
-    var filterKeys = new HashSet<FilterKey>();
-    filterKeys.add(ID_KEY);
-    filterKeys.add(NAME_KEY);
-    filterKeys.add(PATH_KEY);
-    addCustomProperties(customProperties, filterKeys);
+    var filterKeys = new HashSet<>(itemSchema(customProperties).keys());
     try {
-      return FilterParser.of(filterKeys).parse(filterString.get());
+      // The files of the values are relative to scanner home folder.
+      return FilterParser.of(filterKeys, configuration.getScannerHomeFolder())
+          .parse(filterString.get());
     } catch (FilterParsingException e) {
       throw new InvalidConfigurationException("Invalid filter value: " + e.getMessage(), e);
     }
@@ -51,90 +50,68 @@ public class ItemFilters {
     return filter.partial(ItemFilters.PATH_KEY);
   }
 
-  public static FilterItem item(
-      FileItem<? extends JsonItem> fileItem, CustomProperties customProperties) {
-    var kvList = new ArrayList<FilterKeyValue>();
-    var item = fileItem.getItem();
-    kvList.add(FilterKeyValue.text(ID_KEY, item.getId()));
-    kvList.add(FilterKeyValue.text(NAME_KEY, item.getName()));
-    kvList.add(FilterKeyValue.text(PATH_KEY, fileItem.getFileRef().getRelativePath()));
-    addCustomPropertiesValues(item, customProperties, kvList);
-    return FilterItem.of(kvList);
+  /**
+   * Simplify a file filter for the files of a directory.
+   *
+   * @param fileFilter The file filter.
+   * @param directoryPrefix The relative path of the directory ending with a slash, or an empty
+   *     string for the root directory.
+   * @return The simplified filter, {@code Filter.never()} if no file of the directory can match.
+   */
+  public static Filter directoryFilter(Filter fileFilter, String directoryPrefix) {
+    return fileFilter.withPrefix(PATH_KEY, directoryPrefix);
   }
 
-  public static FilterItem fileItem(FileRef f) {
-    return FilterItem.of(FilterKeyValue.text(PATH_KEY, f.getRelativePath()));
+  /**
+   * Get the schema of the filter items.
+   *
+   * @param customProperties The custom properties.
+   * @return The schema having the keys of the items and of their custom properties.
+   */
+  public static FilterSchema itemSchema(PropertyConverters customProperties) {
+    var filterKeys = new ArrayList<FilterKey>();
+    filterKeys.add(ID_KEY);
+    filterKeys.add(NAME_KEY);
+    filterKeys.add(PATH_KEY);
+    customProperties.addFilterKeys(filterKeys);
+    return FilterSchema.of(filterKeys);
   }
 
-  private static void addCustomProperties(
-      CustomProperties customProperties, HashSet<FilterKey> filterKeys) {
-    for (CustomProperty property : customProperties.getProperties()) {
-      String propertyCode = filterKeyName(property.getCode());
-      switch (property.getType()) {
-        case STRING:
-        case NUMBER:
-        case INSTANT:
-        case LONG_TEXT:
-          filterKeys.add(FilterKey.text(propertyCode));
-          break;
-        case TAG:
-          filterKeys.add(FilterKey.list(propertyCode));
-          break;
-        case URL:
-          filterKeys.add(FilterKey.text(propertyCode + "_url"));
-          filterKeys.add(FilterKey.text(propertyCode + "_label"));
-          break;
-      }
-    }
+  /**
+   * Set the values of a filter item.
+   *
+   * @param filterItem The filter item to reuse, created by the schema of {@link
+   *     #itemSchema(PropertyConverters)}.
+   * @param fileItem The item.
+   * @param customProperties The custom properties.
+   * @return The filter item.
+   */
+  public static FilterItem item(
+      FilterItem filterItem,
+      FileItem<? extends JsonItem> fileItem,
+      PropertyConverters customProperties) {
+    var item = fileItem.getItem();
+    filterItem.clear();
+    filterItem.set(ID_KEY, FilterValue.text(item.getId()));
+    filterItem.set(NAME_KEY, FilterValue.text(item.getName()));
+    filterItem.set(PATH_KEY, FilterValue.text(fileItem.getFileRef().getLogicalRelativePath()));
+    customProperties.setFilterValues(item, filterItem);
+    return filterItem;
   }
 
-  private static void addCustomPropertiesValues(
-      JsonItem item, CustomProperties customProperties, ArrayList<FilterKeyValue> kvList) {
-    for (CustomProperty property : customProperties.getProperties()) {
-      String propertyCode = filterKeyName(property.getCode());
-      var value = item.getCustomProperty(property.getAttributeName());
-      if (value != null && !value.isNull() && !value.isMissingNode()) {
-        switch (property.getType()) {
-          case STRING:
-          case NUMBER:
-          case INSTANT:
-          case LONG_TEXT:
-            kvList.add(FilterKeyValue.text(FilterKey.text(propertyCode), value.asText()));
-            break;
-
-          case TAG:
-            var values = new ArrayList<String>();
-            if (value.isTextual()) {
-              values.add(value.asText());
-            } else if (value.isArray()) {
-              for (var i = value.elements(); i.hasNext(); ) {
-                values.add(i.next().asText());
-              }
-            }
-            kvList.add(FilterKeyValue.textList(FilterKey.list(propertyCode), values));
-            break;
+  public static FilterItem fileItem(FileRef f) {
+    return FilterItem.of(FilterKeyValue.text(PATH_KEY, f.getLogicalRelativePath()));
+  }
 
-          case URL:
-            String uri = null;
-            String label = null;
-            if (value.isTextual()) {
-              uri = value.textValue();
-            } else if (value.isObject()) {
-              var uriPath = value.path("uri");
-              if (uriPath.isTextual()) {
-                uri = value.textValue();
-              }
-              var labelPath = value.path("label");
-              if (labelPath.isTextual()) {
-                label = labelPath.textValue();
-              }
-            }
-            kvList.add(FilterKeyValue.text(FilterKey.text(propertyCode + "_url"), uri));
-            kvList.add(FilterKeyValue.text(FilterKey.text(propertyCode + "_label"), label));
-            break;
-        }
-      }
-    }
+  /**
+   * Get the names of the custom attributes needed to evaluate a filter.
+   *
+   * @param filter The filter.
+   * @param customProperties The custom properties.
+   * @return The attribute names of the custom properties used by the filter.
+   */
+  public static Set<String> filterAttributes(Filter filter, PropertyConverters customProperties) {
+    return customProperties.attributeNames(filter.keys());
   }
 
   /**
@@ -151,7 +128,7 @@ public class ItemFilters {
    * @param code Custom property code.
    * @return A valid filter key.
    */
-  private static String filterKeyName(String code) {
+  static String filterKeyName(String code) {
     if (code.isEmpty()) return "_";
     var matcher = INVALID_PROPERTY_CHAR.matcher(code);
     var filterKey = matcher.replaceAll("_");
@@ -0,0 +1,384 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import zeenea.connector.example.filter.FilterItem;
+import zeenea.connector.example.filter.FilterKey;
+import zeenea.connector.example.filter.FilterValue;
+import zeenea.connector.example.json.Customizable;
+import zeenea.connector.example.log.SimpleLogger;
+import zeenea.connector.example.log.TracingContext;
+import zeenea.connector.example.property.CustomProperties;
+import zeenea.connector.example.property.CustomProperty;
+import zeenea.connector.property.InstantPropertyDefinition;
+import zeenea.connector.property.LongTextPropertyDefinition;
+import zeenea.connector.property.NumberPropertyDefinition;
+import zeenea.connector.property.PropertiesBuilder;
+import zeenea.connector.property.StringPropertyDefinition;
+import zeenea.connector.property.TagPropertyDefinition;
+import zeenea.connector.property.UrlPropertyDefinition;
+
+/**
+ * Convert the JSON values of custom properties to Zeenea property values and filter values.
+ *
+ * <p>The converters are created once per connection from the custom property definitions: the
+ * property type is resolved, the definitions are typed and the filter keys are built when they are
+ * created, not for each item.
+ */
+public final class PropertyConverters {
+  private static final SimpleLogger log = SimpleLogger.of(PropertyConverters.class);
+
+  /** Number of unusual or invalid instants kept by each instant property. */
+  private static final int INSTANT_CACHE_SIZE = 1024;
+
+  private final Converter[] converters;
+
+  private PropertyConverters(Converter[] converters) {
+    this.converters = converters;
+  }
+
+  /**
+   * Create the converters of custom properties.
+   *
+   * @param customProperties The custom properties.
+   * @return The converters, in the order of the custom properties.
+   */
+  public static PropertyConverters of(CustomProperties customProperties) {
+    var properties = customProperties.getProperties();
+    var converters = new Converter[properties.size()];
+    for (int i = 0; i < converters.length; ++i) {
+      converters[i] = converter(properties.get(i));
+    }
+    return new PropertyConverters(converters);
+  }
+
+  private static Converter converter(CustomProperty property) {
+    switch (property.getType()) {
+      case STRING:
+        return new StringConverter(property);
+      case LONG_TEXT:
+        return new LongTextConverter(property);
+      case TAG:
+        return new TagConverter(property);
+      case NUMBER:
+        return new NumberConverter(property);
+      case INSTANT:
+        return new InstantConverter(property);
+      case URL:
+        return new UrlConverter(property);
+      default:
+        throw new IllegalArgumentException("Unknown property type: " + property.getType());
+    }
+  }
+
+  /**
+   * Check if there is no custom property.
+   *
+   * @return {@code true} if there is no custom property.
+   */
+  public boolean isEmpty() {
+    return converters.length == 0;
+  }
+
+  /**
+   * Add the filter keys of the custom properties.
+   *
+   * @param filterKeys The filter keys to complete.
+   */
+  public void addFilterKeys(Collection<FilterKey> filterKeys) {
+    for (Converter converter : converters) {
+      filterKeys.addAll(converter.filterKeys);
+    }
+  }
+
+  /**
+   * Get the attribute names of the custom properties having some filter keys.
+   *
+   * @param filterKeys The filter keys.
+   * @return The attribute names.
+   */
+  public Set<String> attributeNames(Set<FilterKey> filterKeys) {
+    var attributes = new HashSet<String>();
+    for (Converter converter : converters) {
+      for (FilterKey key : converter.filterKeys) {
+        if (filterKeys.contains(key)) attributes.add(converter.attributeName);
+      }
+    }
+    return attributes;
+  }
+
+  /**
+   * Add the values of the custom properties of an item.
+   *
+   * @param ctx Tracing context.
+   * @param builder The properties builder.
+   * @param item The item.
+   * @return The properties builder.
+   */
+  public PropertiesBuilder addProperties(
+      TracingContext ctx, PropertiesBuilder builder, Customizable item) {
+    for (Converter converter : converters) {
+      var value = converter.value(item);
+      if (value != null) converter.addProperty(ctx, builder, value);
+    }
+    return builder;
+  }
+
+  /**
+   * Set the filter values of the custom properties of an item.
+   *
+   * @param item The item.
+   * @param filterItem The filter item to complete, its schema contains the filter keys.
+   */
+  public void setFilterValues(Customizable item, FilterItem filterItem) {
+    for (Converter converter : converters) {
+      var value = converter.value(item);
+      if (value != null) converter.setFilterValues(value, filterItem);
+    }
+  }
+
+  /** Converter of a custom property. */
+  private abstract static class Converter {
+    private final String code;
+    private final String attributeName;
+    private final List<FilterKey> filterKeys;
+
+    private Converter(CustomProperty property, List<FilterKey> filterKeys) {
+      this.code = property.getCode();
+      this.attributeName = property.getAttributeName();
+      this.filterKeys = filterKeys;
+    }
+
+    /** Get the value of the property, {@code null} if it is not set. */
+    private JsonNode value(Customizable item) {
+      var value = item.getCustomProperty(attributeName);
+      return value == null || value.isNull() || value.isMissingNode() ? null : value;
+    }
+
+    abstract void addProperty(TracingContext ctx, PropertiesBuilder builder, JsonNode value);
+
+    abstract void setFilterValues(JsonNode value, FilterItem filterItem);
+
+    /** Log an invalid value, the exception is {@code null} when there is none. */
+    void warnInvalid(TracingContext ctx, String logCode, String value, Exception e) {
+      var entry =
+          log.entry(logCode)
+              .context(ctx)
+              .with("property_code", code)
+              .with("json_attribute_name", attributeName)
+              .with("value", value)
+              .quiet();
+      if (e != null) {
+        entry.warn(e);
+      } else {
+        entry.warn();
+      }
+    }
+  }
+
+  /** Converter of the properties having a text filter key. */
+  private abstract static class TextConverter extends Converter {
+    private final FilterKey filterKey;
+
+    private TextConverter(CustomProperty property) {
+      this(property, FilterKey.text(ItemFilters.filterKeyName(property.getCode())));
+    }
+
+    private TextConverter(CustomProperty property, FilterKey filterKey) {
+      super(property, List.of(filterKey));
+      this.filterKey = filterKey;
+    }
+
+    @Override
+    void setFilterValues(JsonNode value, FilterItem filterItem) {
+      filterItem.set(filterKey, FilterValue.text(value.asText()));
+    }
+  }
+
+  private static final class StringConverter extends TextConverter {
+    private final StringPropertyDefinition definition;
+
+    private StringConverter(CustomProperty property) {
+      super(property);
+      this.definition = (StringPropertyDefinition) property.getDefinition();
+    }
+
+    @Override
+    void addProperty(TracingContext ctx, PropertiesBuilder builder, JsonNode value) {
+      builder.put(definition, value.asText());
+    }
+  }
+
+  private static final class LongTextConverter extends TextConverter {
+    private final LongTextPropertyDefinition definition;
+
+    private LongTextConverter(CustomProperty property) {
+      super(property);
+      this.definition = (LongTextPropertyDefinition) property.getDefinition();
+    }
+
+    @Override
+    void addProperty(TracingContext ctx, PropertiesBuilder builder, JsonNode value) {
+      builder.put(definition, value.asText());
+    }
+  }
+
+  private static final class NumberConverter extends TextConverter {
+    private final NumberPropertyDefinition definition;
+
+    private NumberConverter(CustomProperty property) {
+      super(property);
+      this.definition = (NumberPropertyDefinition) property.getDefinition();
+    }
+
+    @Override
+    void addProperty(TracingContext ctx, PropertiesBuilder builder, JsonNode value) {
+      if (value.isNumber()) {
+        builder.put(definition, value.decimalValue());
+      } else if (value.isTextual()) {
+        try {
+          builder.put(definition, new BigDecimal(value.textValue()));
+        } catch (NumberFormatException e) {
+          warnInvalid(ctx, "example_mapper_invalid_number", value.textValue(), e);
+        }
+      }
+    }
+  }
+
+  private static final class InstantConverter extends TextConverter {
+    private final InstantPropertyDefinition definition;
+    private final InstantParser parser = new InstantParser(INSTANT_CACHE_SIZE);
+
+    private InstantConverter(CustomProperty property) {
+      super(property);
+      this.definition = (InstantPropertyDefinition) property.getDefinition();
+    }
+
+    @Override
+    void addProperty(TracingContext ctx, PropertiesBuilder builder, JsonNode value) {
+      if (value.isTextual()) {
+        var instant = parser.parse(value.textValue());
+        if (instant != null) {
+          builder.put(definition, instant);
+        } else {
+          warnInvalid(ctx, "example_mapper_invalid_instant", value.textValue(), null);
+        }
+      }
+    }
+  }
+
+  private static final class TagConverter extends Converter {
+    private final TagPropertyDefinition definition;
+    private final FilterKey filterKey;
+
+    private TagConverter(CustomProperty property) {
+      this(property, FilterKey.list(ItemFilters.filterKeyName(property.getCode())));
+    }
+
+    private TagConverter(CustomProperty property, FilterKey filterKey) {
+      super(property, List.of(filterKey));
+      this.definition = (TagPropertyDefinition) property.getDefinition();
+      this.filterKey = filterKey;
+    }
+
+    @Override
+    void addProperty(TracingContext ctx, PropertiesBuilder builder, JsonNode value) {
+      if (value.isTextual()) {
+        builder.put(definition, List.of(value.asText()));
+      } else if (value.isArray()) {
+        builder.put(definition, values(value));
+      }
+    }
+
+    @Override
+    void setFilterValues(JsonNode value, FilterItem filterItem) {
+      List<FilterValue> values;
+      if (value.isTextual()) {
+        values = List.of(FilterValue.text(value.asText()));
+      } else if (value.isArray()) {
+        values = new ArrayList<>(value.size());
+        for (JsonNode element : value) {
+          values.add(FilterValue.text(element.asText()));
+        }
+      } else {
+        values = List.of();
+      }
+      filterItem.set(filterKey, FilterValue.list(values));
+    }
+
+    private static List<String> values(JsonNode array) {
+      var values = new ArrayList<String>(array.size());
+      for (JsonNode element : array) {
+        values.add(element.asText());
+      }
+      return values;
+    }
+  }
+
+  private static final class UrlConverter extends Converter {
+    private final UrlPropertyDefinition definition;
+    private final FilterKey urlKey;
+    private final FilterKey labelKey;
+
+    private UrlConverter(CustomProperty property) {
+      this(property, ItemFilters.filterKeyName(property.getCode()));
+    }
+
+    private UrlConverter(CustomProperty property, String filterKeyName) {
+      this(
+          property,
+          FilterKey.text(filterKeyName + "_url"),
+          FilterKey.text(filterKeyName + "_label"));
+    }
+
+    private UrlConverter(CustomProperty property, FilterKey urlKey, FilterKey labelKey) {
+      super(property, List.of(urlKey, labelKey));
+      this.definition = (UrlPropertyDefinition) property.getDefinition();
+      this.urlKey = urlKey;
+      this.labelKey = labelKey;
+    }
+
+    @Override
+    void addProperty(TracingContext ctx, PropertiesBuilder builder, JsonNode value) {
+      var uri = uri(value);
+      if (uri != null) {
+        try {
+          builder.put(definition, new URI(uri), label(value));
+        } catch (URISyntaxException e) {
+          warnInvalid(ctx, "example_mapper_invalid_uri", uri, e);
+        }
+      }
+    }
+
+    @Override
+    void setFilterValues(JsonNode value, FilterItem filterItem) {
+      filterItem.set(urlKey, FilterValue.text(uri(value)));
+      filterItem.set(labelKey, FilterValue.text(label(value)));
+    }
+
+    /** The URI is either the value or the "uri" attribute of an object. */
+    private static String uri(JsonNode value) {
+      if (value.isTextual()) return value.textValue();
+      var uri = value.path("uri");
+      return uri.isTextual() ? uri.textValue() : null;
+    }
+
+    private static String label(JsonNode value) {
+      var label = value.path("label");
+      return label.isTextual() ? label.textValue() : null;
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A cache keeping the most recently used entries, up to a maximum number.
+ *
+ * <p>The cache is thread safe. Large caches are split into shards locked independently, to limit
+ * the contention between threads; the least recently used entry is then evicted from the shard of
+ * the new entry. A cache with a maximum size of zero keeps nothing.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public final class LruCache<K, V> {
+  /** Caches from this size are sharded. */
+  private static final int SHARDED_SIZE = 1024;
+
+  private static final int SHARD_COUNT = 16;
+
+  private final Shard<K, V>[] shards;
+
+  /**
+   * Create a new cache.
+   *
+   * <p>From {@value #SHARDED_SIZE} entries, the cache is split in {@value #SHARD_COUNT} shards
+   * keeping each {@code maxSize / 16} entries: the capacity is rounded down to a multiple of 16
+   * (1500 gives 1488), and an entry may be evicted while other shards still have room.
+   *
+   * @param maxSize The maximum number of entries.
+   */
+  @SuppressWarnings("unchecked")
+  public LruCache(int maxSize) {
+    if (maxSize < 0) throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+    var shardCount = maxSize >= SHARDED_SIZE ? SHARD_COUNT : 1;
+    this.shards = new Shard[shardCount];
+    for (int i = 0; i < shardCount; ++i) {
+      shards[i] = new Shard<>(maxSize / shardCount);
+    }
+  }
+
+  private Shard<K, V> shard(K key) {
+    if (shards.length == 1) return shards[0];
+    var h = key.hashCode();
+    // Spread the high bits, like HashMap does.
+    return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+  }
+
+  /**
+   * Get a value.
+   *
+   * @param key The key.
+   * @return The value, {@code null} if it is not in the cache.
+   */
+  public V get(K key) {
+    var shard = shard(key);
+    synchronized (shard) {
+      return shard.get(key);
+    }
+  }
+
+  /**
+   * Add a value.
+   *
+   * @param key The key.
+   * @param value The value.
+   */
+  public void put(K key, V value) {
+    var shard = shard(key);
+    synchronized (shard) {
+      if (shard.maxSize > 0) shard.put(key, value);
+    }
+  }
+
+  /**
+   * Remove a value.
+   *
+   * @param key The key.
+   */
+  public void remove(K key) {
+    var shard = shard(key);
+    synchronized (shard) {
+      shard.remove(key);
+    }
+  }
+
+  /**
+   * Get a value, computing it if it is not in the cache.
+   *
+   * <p>The value is computed outside of the lock, it may be computed several times when requested
+   * concurrently. A {@code null} value is not cached.
+   *
+   * @param key The key.
+   * @param compute The function computing the value.
+   * @return The value.
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> compute) {
+    var value = get(key);
+    if (value == null) {
+      value = compute.apply(key);
+      if (value != null) put(key, value);
+    }
+    return value;
+  }
+
+  public int size() {
+    var size = 0;
+    for (Shard<K, V> shard : shards) {
+      synchronized (shard) {
+        size += shard.size();
+      }
+    }
+    return size;
+  }
+
+  public void clear() {
+    for (Shard<K, V> shard : shards) {
+      synchronized (shard) {
+        shard.clear();
+      }
+    }
+  }
+
+  /** A part of the cache, in access order. */
+  private static final class Shard<K, V> extends LinkedHashMap<K, V> {
+    private final int maxSize;
+
+    private Shard(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > maxSize;
+    }
+  }
+}
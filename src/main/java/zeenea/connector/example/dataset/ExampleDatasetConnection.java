@@ -7,12 +7,9 @@
 package zeenea.connector.example.dataset;
 
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import zeenea.connector.Item;
 import zeenea.connector.common.ItemIdentifier;
@@ -22,11 +19,14 @@ import zeenea.connector.example.Config;
 import zeenea.connector.example.ExampleMapper;
 import zeenea.connector.example.Ids;
 import zeenea.connector.example.Metadata;
-import zeenea.connector.example.file.FileItem;
 import zeenea.connector.example.file.FileRepository;
+import zeenea.connector.example.file.ItemIndex;
 import zeenea.connector.example.json.JsonDataset;
+import zeenea.connector.example.log.Durations;
 import zeenea.connector.example.log.SimpleLogger;
 import zeenea.connector.example.log.TracingContext;
+import zeenea.connector.example.stream.InstrumentedStream;
+import zeenea.connector.example.stream.ParallelMapper;
 import zeenea.connector.inventory.InventoryConnection;
 import zeenea.connector.property.PropertyDefinition;
 
@@ -42,8 +42,11 @@ public class ExampleDatasetConnection implements InventoryConnection {
   /** FileFinder instance. */
   private final FileRepository fileRepository;
 
-  /** Cache for extractItem item lookup. */
-  private Map<ItemIdentifier, FileItem<JsonDataset>> datasetByItemId;
+  /** Mapper of the extracted items, in parallel. */
+  private final ParallelMapper itemMapper;
+
+  /** Index for extractItem item lookup. */
+  private ItemIndex<ItemIdentifier, JsonDataset> datasetByItemId;
 
   /**
    * Create a new instance of {@code ExampleDatasetConnection}
@@ -56,6 +59,11 @@ public class ExampleDatasetConnection implements InventoryConnection {
     this.config = Objects.requireNonNull(config);
     this.mapper = Objects.requireNonNull(mapper);
     this.fileRepository = Objects.requireNonNull(fileRepository);
+    this.itemMapper =
+        new ParallelMapper(
+            "example-dataset-" + config.connectionCode(),
+            config.extractionParallelism(),
+            config.extractionWindow());
   }
 
   @Override
@@ -76,33 +84,36 @@ public class ExampleDatasetConnection implements InventoryConnection {
         .with("connection_code", config.connectionCode())
         .info();
 
-    // We use an intermediate list to be able to count items.
-    // There is a known issue that the returned stream is closed before being consumed which make
-    // the use of onClose() useless to add post processing operation.
-    List<ItemInventory> inventory =
+    var inventory =
         fileRepository
-            .loadFileItems(ctx, JsonDataset.class)
-            .filter(d -> d.getItem().getId() != null)
+            .loadItemSummaries(ctx, JsonDataset.class)
+            .filter(d -> d.getId() != null)
             .map(
                 d ->
                     ItemInventory.of(
-                        mapper.parseItemId(d.getItem().getId()),
-                        mapper.parseItemLabels(d.getItem())))
+                        mapper.parseItemId(d.getId()),
+                        mapper.parseItemLabels(d.getId(), d.getLabel())))
             .peek(
                 i ->
                     log.entry("example_dataset_inventory_inventory_item_found")
                         .context(ctx)
                         .with("id", Ids.log(i.getItemIdentifier()))
                         .with("labels", Ids.logLabels(i.getLabels()))
-                        .debug())
-            .collect(Collectors.toList());
-
-    log.entry("example_dataset_inventory_success")
-        .context(ctx)
-        .with("item_count", inventory.size())
-        .info();
-
-    return inventory.stream();
+                        .debug());
+
+    // The items are counted as they are consumed. There is a known issue that the returned stream
+    // is closed before being consumed, so the count is logged at the end of the stream.
+    return InstrumentedStream.of(
+        inventory,
+        (count, duration, complete) ->
+            log.entry(
+                    complete
+                        ? "example_dataset_inventory_success"
+                        : "example_dataset_inventory_interrupted")
+                .context(ctx)
+                .with("item_count", count)
+                .with("duration", Durations.toString(duration))
+                .info());
   }
 
   @Override
@@ -112,7 +123,10 @@ public class ExampleDatasetConnection implements InventoryConnection {
 
     loadDatasets(ctx);
 
-    return stream.filter(this::isDataset).flatMap(id -> extractItem(ctx, id));
+    // The items are mapped in parallel, in the order of the identifiers.
+    return itemMapper
+        .map(ctx, stream.filter(this::isDataset), id -> extractItem(ctx, id))
+        .flatMap(Function.identity());
   }
 
   /**
@@ -131,7 +145,7 @@ public class ExampleDatasetConnection implements InventoryConnection {
         .with("item_id", Ids.log(itemId))
         .info();
 
-    var fileItem = datasetByItemId.get(itemId);
+    var fileItem = datasetByItemId.get(ctx, itemId);
     if (fileItem == null) {
       // Item not found in the source.
       log.entry("example_dataset_extract_item_not_found")
@@ -148,10 +162,10 @@ public class ExampleDatasetConnection implements InventoryConnection {
             .id(itemId)
             .name(item.getName())
             .description(item.getDescription())
-            .properties(mapper.properties(ctx, fileItem, config.customProperties()))
+            .properties(mapper.properties(ctx, fileItem, config.customPropertyConverters()))
             .contacts(mapper.contacts(ctx, item))
             .sourceDatasets(mapper.itemReferences(ctx, item.getSources()))
-            .fields(mapper.fields(ctx, item.getFields(), config.fieldProperties()))
+            .fields(mapper.fields(ctx, item.getFields(), config.fieldPropertyConverters()))
             .primaryKeyIdentifiers(mapper.fieldIds(ctx, item.getPrimaryKey()))
             .foreignKeys(mapper.foreignKeys(ctx, item.getForeignKeys()))
             .build();
@@ -182,14 +196,13 @@ public class ExampleDatasetConnection implements InventoryConnection {
   private void loadDatasets(TracingContext ctx) {
     if (datasetByItemId == null) {
       datasetByItemId =
-          fileRepository
-              .loadFileItems(ctx, JsonDataset.class)
-              .collect(
-                  Collectors.toMap(
-                      v -> mapper.parseItemId(v.getItem().getId()), Function.identity()));
+          fileRepository.loadItemIndex(ctx, JsonDataset.class, v -> mapper.parseItemId(v.getId()));
     }
   }
 
   @Override
-  public void close() {}
+  public void close() {
+    itemMapper.close();
+    fileRepository.close();
+  }
 }
@@ -0,0 +1,209 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decode a BGZF stream, decoding the members in parallel.
+ *
+ * <p>BGZF is a multi-member gzip format where each member stores its compressed size in an extra
+ * field with the identifier {@code BC}. This allows to read the members without decoding them, and
+ * to decode several members at the same time. The decoded members are provided in order.
+ */
+final class BgzfInputStream extends InputStream {
+  private static final int HEADER_SIZE = 18;
+  private static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+  private final InputStream input;
+  private final int readAhead;
+  private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+  private boolean inputEnd;
+  private byte[] block = new byte[0];
+  private int position;
+
+  /**
+   * Create a new stream.
+   *
+   * @param input The compressed stream, positioned on the first member.
+   */
+  BgzfInputStream(InputStream input) {
+    this.input = input;
+    this.readAhead = 2 * ForkJoinPool.commonPool().getParallelism();
+  }
+
+  /**
+   * Tell if a stream is in BGZF format, without consuming it.
+   *
+   * @param input A stream supporting mark.
+   * @return {@code true} if the first member has a BGZF header.
+   * @throws IOException If the stream can't be read.
+   */
+  static boolean isBgzf(InputStream input) throws IOException {
+    input.mark(HEADER_SIZE);
+    try {
+      var header = input.readNBytes(HEADER_SIZE);
+      return header.length == HEADER_SIZE && hasBgzfHeader(header);
+    } finally {
+      input.reset();
+    }
+  }
+
+  private static boolean hasBgzfHeader(byte[] header) {
+    return (header[0] & 0xFF) == 0x1F
+        && (header[1] & 0xFF) == 0x8B
+        && header[2] == 8
+        && (header[3] & 0x04) != 0
+        && uint16(header, 10) == 6
+        && header[12] == 'B'
+        && header[13] == 'C'
+        && uint16(header, 14) == 2;
+  }
+
+  private static int uint16(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+  }
+
+  private static long uint32(byte[] bytes, int offset) {
+    return uint16(bytes, offset) | (long) uint16(bytes, offset + 2) << 16;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) return -1;
+    return block[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) return 0;
+    if (!fill()) return -1;
+    var count = Math.min(len, block.length - position);
+    System.arraycopy(block, position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return block.length - position;
+  }
+
+  /**
+   * Make sure there are decoded bytes to read.
+   *
+   * @return {@code false} at the end of the stream.
+   */
+  private boolean fill() throws IOException {
+    while (position >= block.length) {
+      submit();
+      var next = pending.poll();
+      if (next == null) return false;
+      block = get(next);
+      position = 0;
+    }
+    return true;
+  }
+
+  /** Read members until enough are being decoded. */
+  private void submit() throws IOException {
+    while (!inputEnd && pending.size() < readAhead) {
+      var member = readMember();
+      if (member == null) {
+        inputEnd = true;
+      } else {
+        pending.add(ForkJoinPool.commonPool().submit(() -> decode(member)));
+      }
+    }
+  }
+
+  /**
+   * Read a whole compressed member.
+   *
+   * @return The member, or {@code null} at the end of the stream.
+   */
+  private byte[] readMember() throws IOException {
+    var header = input.readNBytes(HEADER_SIZE);
+    if (header.length == 0) return null;
+    if (header.length < HEADER_SIZE) throw new EOFException("Truncated BGZF member header");
+    if (!hasBgzfHeader(header)) throw new ZipException("Not a BGZF member");
+    var memberSize = uint16(header, 16) + 1;
+    var member = new byte[memberSize];
+    System.arraycopy(header, 0, member, 0, HEADER_SIZE);
+    var remaining = memberSize - HEADER_SIZE;
+    if (input.readNBytes(member, HEADER_SIZE, remaining) < remaining) {
+      throw new EOFException("Truncated BGZF member");
+    }
+    return member;
+  }
+
+  /** Decode a member and check its CRC. */
+  private static byte[] decode(byte[] member) throws IOException {
+    var size = (int) uint32(member, member.length - 4);
+    if (size > MAX_BLOCK_SIZE) throw new ZipException("Invalid BGZF member size: " + size);
+    var data = new byte[size];
+    var inflater = new Inflater(true);
+    try {
+      inflater.setInput(member, HEADER_SIZE, member.length - HEADER_SIZE - 8);
+      var count = 0;
+      while (count < size && !inflater.finished()) {
+        var n = inflater.inflate(data, count, size - count);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+        count += n;
+      }
+      if (count != size) throw new ZipException("Corrupted BGZF member");
+    } catch (DataFormatException e) {
+      throw new ZipException(e.getMessage());
+    } finally {
+      inflater.end();
+    }
+    var crc = new CRC32();
+    crc.update(data);
+    if (crc.getValue() != uint32(member, member.length - 8)) {
+      throw new ZipException("Corrupted BGZF member: CRC mismatch");
+    }
+    return data;
+  }
+
+  private static byte[] get(Future<byte[]> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException e) {
+      // The pool wraps the checked exceptions of a task in a runtime exception, and wraps it again
+      // when it is rethrown in another thread.
+      var cause = e.getCause();
+      while (cause instanceof RuntimeException) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof IOException) throw (IOException) cause;
+      throw new IOException(e.getCause());
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (Future<byte[]> future : pending) {
+      future.cancel(false);
+    }
+    pending.clear();
+    input.close();
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of a file, given by the suffix of its name.
+ *
+ * <p>A compressed file is read as a stream, it is never decompressed on the disk.
+ */
+public enum Compression {
+  NONE(""),
+  GZIP(".gz"),
+  DEFLATE(".deflate");
+
+  /** Size of the buffers of the decoders, large enough to amortize the native calls. */
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String suffix;
+
+  Compression(String suffix) {
+    this.suffix = suffix;
+  }
+
+  public String suffix() {
+    return suffix;
+  }
+
+  /**
+   * Get the compression of a file.
+   *
+   * @param fileName The file name.
+   * @return The compression, {@code NONE} if the file name has no compression suffix.
+   */
+  public static Compression of(String fileName) {
+    for (Compression compression : values()) {
+      if (compression != NONE && fileName.endsWith(compression.suffix)) return compression;
+    }
+    return NONE;
+  }
+
+  /**
+   * Get the name of a file without its compression suffix.
+   *
+   * @param fileName The file name.
+   * @return The logical file name.
+   */
+  public static String logicalName(String fileName) {
+    var compression = of(fileName);
+    return fileName.substring(0, fileName.length() - compression.suffix.length());
+  }
+
+  /**
+   * Decode a compressed stream.
+   *
+   * <p>Multi-member gzip files are supported. When every member carries its compressed size, as in
+   * the BGZF format, the members are decoded in parallel.
+   *
+   * @param input The compressed stream.
+   * @return The decoded stream.
+   * @throws IOException If the stream header is invalid.
+   */
+  public InputStream decode(InputStream input) throws IOException {
+    switch (this) {
+      case GZIP:
+        var buffered = new BufferedInputStream(input, BUFFER_SIZE);
+        if (BgzfInputStream.isBgzf(buffered)) return new BgzfInputStream(buffered);
+        return new GZIPInputStream(buffered, BUFFER_SIZE);
+      case DEFLATE:
+        return new InflaterInputStream(input, new Inflater(), BUFFER_SIZE) {
+          @Override
+          public void close() throws IOException {
+            // The inflater is not released by the stream when it is provided.
+            try {
+              super.close();
+            } finally {
+              inf.end();
+            }
+          }
+        };
+      default:
+        return input;
+    }
+  }
+}
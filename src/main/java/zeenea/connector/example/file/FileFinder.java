@@ -0,0 +1,193 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import zeenea.connector.example.ItemFilters;
+import zeenea.connector.example.filter.Filter;
+
+/**
+ * Find the files having a given extension in a directory tree.
+ *
+ * <p>Each directory is listed by its own fork-join task, so the subdirectories are explored in
+ * parallel. The attributes read while listing a directory are reused to tell files from
+ * directories, so there is a single stat call per path.
+ *
+ * <p>The path filter is simplified for each directory with the directory path as a prefix. When it
+ * can't match anything, the directory isn't listed at all.
+ */
+public class FileFinder {
+  private final Path root;
+  private final String extension;
+  private final int parallelism;
+  private final Filter fileFilter;
+
+  /**
+   * Create a new instance of {@code FileFinder} that accepts every file.
+   *
+   * @param root The root directory.
+   * @param extension The extension of the files to find.
+   * @param parallelism The maximum number of directories listed at the same time.
+   */
+  public FileFinder(Path root, String extension, int parallelism) {
+    this(root, extension, parallelism, Filter.always());
+  }
+
+  /**
+   * Create a new instance of {@code FileFinder}.
+   *
+   * @param root The root directory.
+   * @param extension The extension of the files to find.
+   * @param parallelism The maximum number of directories listed at the same time.
+   * @param fileFilter The filter on the file path (see {@link ItemFilters#fileFilter(Filter)}).
+   */
+  public FileFinder(Path root, String extension, int parallelism, Filter fileFilter) {
+    if (parallelism < 1) throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+    this.root = Objects.requireNonNull(root);
+    this.extension = Objects.requireNonNull(extension);
+    this.parallelism = parallelism;
+    this.fileFilter = Objects.requireNonNull(fileFilter);
+  }
+
+  /**
+   * Find the files.
+   *
+   * @return The list of the file references, sorted by path.
+   * @throws IOException If a directory can't be read.
+   */
+  public List<FileRef> find() throws IOException {
+    var found = new ConcurrentLinkedQueue<FileRef>();
+    find(found::add);
+    return found.stream()
+        .sorted(Comparator.comparing(FileRef::getPath))
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  /**
+   * Find the files and give them to the consumer as they are found.
+   *
+   * <p>The consumer is called from the worker threads, so it must be thread safe.
+   *
+   * @param consumer The file reference consumer.
+   * @throws IOException If a directory can't be read.
+   */
+  public void find(Consumer<FileRef> consumer) throws IOException {
+    var pool = new ForkJoinPool(parallelism);
+    try {
+      var rootFilter = ItemFilters.directoryFilter(fileFilter, "");
+      if (rootFilter.equals(Filter.never())) return;
+      pool.invoke(new DirectoryTask(root, "", rootFilter, consumer));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /** Tell if a file has the extension, compressed or not. */
+  private boolean hasExtension(Path path) {
+    return Compression.logicalName(path.getFileName().toString()).endsWith(extension);
+  }
+
+  /**
+   * Get the attributes of a regular file.
+   *
+   * @param path The file path.
+   * @param attrs The attributes read when listing the directory.
+   * @return The attributes of the file, or {@code null} if it isn't a regular file.
+   */
+  private static BasicFileAttributes fileAttributes(Path path, BasicFileAttributes attrs) {
+    if (attrs.isRegularFile()) return attrs;
+    if (!attrs.isSymbolicLink()) return null;
+    // Symbolic links to regular files are accepted, this requires to follow the link.
+    try {
+      var targetAttrs = Files.readAttributes(path, BasicFileAttributes.class);
+      return targetAttrs.isRegularFile() ? targetAttrs : null;
+    } catch (IOException e) {
+      // Broken link.
+      return null;
+    }
+  }
+
+  /** List a directory, fork a new task for every subdirectory that may contain matching files. */
+  private final class DirectoryTask extends RecursiveAction {
+    private final Path directory;
+    private final String prefix;
+    private final Filter filter;
+    private final Consumer<FileRef> consumer;
+
+    /**
+     * @param directory The directory to list.
+     * @param prefix The relative path of the directory, ending with a slash if not empty.
+     * @param filter The file filter simplified for the directory.
+     * @param consumer The file reference consumer.
+     */
+    private DirectoryTask(
+        Path directory, String prefix, Filter filter, Consumer<FileRef> consumer) {
+      this.directory = directory;
+      this.prefix = prefix;
+      this.filter = filter;
+      this.consumer = consumer;
+    }
+
+    @Override
+    protected void compute() {
+      var subTasks = new ArrayList<DirectoryTask>();
+      try {
+        Files.walkFileTree(
+            directory,
+            Set.of(),
+            1,
+            new SimpleFileVisitor<>() {
+              @Override
+              public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                // With a max depth of 1, the subdirectories are visited as files.
+                if (attrs.isDirectory()) {
+                  var subPrefix = prefix + path.getFileName() + "/";
+                  var subFilter = ItemFilters.directoryFilter(filter, subPrefix);
+                  if (!subFilter.equals(Filter.never())) {
+                    var task = new DirectoryTask(path, subPrefix, subFilter, consumer);
+                    task.fork();
+                    subTasks.add(task);
+                  }
+                } else if (hasExtension(path)) {
+                  var fileAttrs = fileAttributes(path, attrs);
+                  if (fileAttrs != null) {
+                    var fileRef = new FileRef(path, root, fileAttrs);
+                    if (filter.matches(ItemFilters.fileItem(fileRef))) {
+                      consumer.accept(fileRef);
+                    }
+                  }
+                }
+                return FileVisitResult.CONTINUE;
+              }
+            });
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      for (DirectoryTask task : subTasks) {
+        task.join();
+      }
+    }
+  }
+}
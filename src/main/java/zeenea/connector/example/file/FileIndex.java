@@ -0,0 +1,259 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import zeenea.connector.example.Config;
+import zeenea.connector.example.ItemFilters;
+import zeenea.connector.example.filter.Filter;
+import zeenea.connector.example.log.SimpleLogger;
+import zeenea.connector.example.log.TracingContext;
+
+/**
+ * An index of the items of the files under the root, kept up to date by watching the file system.
+ *
+ * <p>Every directory of the tree is registered on a {@link WatchService}. A background thread
+ * reads again the files created or modified and removes the deleted ones. When events have been
+ * lost, the whole tree is scanned again.
+ *
+ * @param <E> The item type.
+ */
+final class FileIndex<E> implements AutoCloseable {
+  private static final SimpleLogger log = SimpleLogger.of(FileIndex.class);
+
+  private final TracingContext ctx;
+  private final Path root;
+  private final Path workDir;
+  private final boolean rootIsFile;
+  private final String extension;
+  private final Filter fileFilter;
+  private final Supplier<List<FileRef>> scanner;
+  private final Function<FileRef, List<FileItem<E>>> reader;
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+  private final Map<Path, List<FileItem<E>>> itemsByFile = new ConcurrentHashMap<>();
+
+  /**
+   * Create the index, scan the whole tree and start watching it.
+   *
+   * @param ctx Tracing context of the watcher.
+   * @param config The connection configuration.
+   * @param scanner Find all the files.
+   * @param reader Read the items of a file accepted by the filter.
+   * @throws IOException If the watch service can't be created or the root registered.
+   */
+  FileIndex(
+      TracingContext ctx,
+      Config config,
+      Supplier<List<FileRef>> scanner,
+      Function<FileRef, List<FileItem<E>>> reader)
+      throws IOException {
+    this.ctx = ctx;
+    this.root = config.root();
+    this.rootIsFile = Files.isRegularFile(root);
+    var parent = root.getParent();
+    this.workDir = !rootIsFile ? root : parent != null ? parent : Path.of("");
+    this.extension = config.fileExtension();
+    this.fileFilter = ItemFilters.fileFilter(config.filter());
+    this.scanner = scanner;
+    this.reader = reader;
+    this.watchService = root.getFileSystem().newWatchService();
+    try {
+      // Register before scanning, so no change can be missed between the scan and the watch.
+      register(rootIsFile ? workDir : root);
+      scan();
+    } catch (IOException | RuntimeException e) {
+      watchService.close();
+      throw e;
+    }
+
+    var thread = new Thread(this::watch, "example-file-index-" + config.connectionCode());
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Provide with the items currently in the index.
+   *
+   * @return The items, sorted by file path.
+   */
+  List<FileItem<E>> snapshot() {
+    return itemsByFile.entrySet().stream()
+        .sorted(Map.Entry.comparingByKey())
+        .flatMap(e -> e.getValue().stream())
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public void close() throws IOException {
+    // The watcher thread ends when the service is closed.
+    watchService.close();
+  }
+
+  /** Read all the files and drop the entries of the files that don't exist anymore. */
+  private void scan() {
+    var seen = new HashSet<Path>();
+    for (FileRef fileRef : scanner.get()) {
+      itemsByFile.put(fileRef.getPath(), reader.apply(fileRef));
+      seen.add(fileRef.getPath());
+    }
+    itemsByFile.keySet().retainAll(seen);
+  }
+
+  /** Register a directory and its subdirectories. */
+  private void register(Path directory) throws IOException {
+    if (rootIsFile) {
+      registerDirectory(directory);
+      return;
+    }
+    Files.walkFileTree(
+        directory,
+        new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+              throws IOException {
+            registerDirectory(dir);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException e) {
+            // The directory may have been removed in the meantime.
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  private void registerDirectory(Path directory) throws IOException {
+    var key = directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+    directories.put(key, directory);
+  }
+
+  /** Watcher thread loop. */
+  private void watch() {
+    log.entry("example_file_index_watch_start").context(ctx).with("root", root).info();
+    while (true) {
+      WatchKey key;
+      try {
+        key = watchService.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        break;
+      }
+
+      // Collect all the pending events, so a file written in several steps is read once.
+      var changed = new LinkedHashSet<Path>();
+      var overflow = false;
+      try {
+        do {
+          overflow |= collect(key, changed);
+          key = watchService.poll();
+        } while (key != null);
+      } catch (ClosedWatchServiceException e) {
+        break;
+      }
+
+      try {
+        if (overflow) {
+          log.entry("example_file_index_overflow").context(ctx).with("root", root).warn();
+          register(rootIsFile ? workDir : root);
+          scan();
+        } else {
+          for (Path path : changed) {
+            update(path);
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        log.entry("example_file_index_update_failure").context(ctx).with("root", root).error(e);
+      }
+    }
+    log.entry("example_file_index_watch_end").context(ctx).with("root", root).info();
+  }
+
+  /**
+   * Collect the paths changed in a watched directory.
+   *
+   * @return {@code true} if events have been lost.
+   */
+  private boolean collect(WatchKey key, Set<Path> changed) {
+    var directory = directories.get(key);
+    var overflow = false;
+    for (var event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        overflow = true;
+      } else if (directory != null) {
+        changed.add(directory.resolve((Path) event.context()));
+      }
+    }
+    if (!key.reset()) {
+      // The directory has been deleted.
+      directories.remove(key);
+    }
+    return overflow;
+  }
+
+  /** Update the index for a path that has been created, modified or deleted. */
+  private void update(Path path) throws IOException {
+    if (rootIsFile) {
+      if (path.equals(root)) updateFile(path);
+    } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+      // New directory, or directory moved in the tree: its content was not watched.
+      register(path);
+      try (Stream<Path> paths = Files.walk(path)) {
+        for (Path file : (Iterable<Path>) paths::iterator) {
+          updateFile(file);
+        }
+      }
+    } else {
+      updateFile(path);
+    }
+  }
+
+  private void updateFile(Path path) throws IOException {
+    BasicFileAttributes attrs;
+    try {
+      attrs = Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      // Deleted file or directory.
+      itemsByFile.keySet().removeIf(p -> p.startsWith(path));
+      return;
+    }
+    var logicalName = Compression.logicalName(path.getFileName().toString());
+    if (!attrs.isRegularFile() || !logicalName.endsWith(extension)) return;
+
+    var fileRef = new FileRef(path, workDir, attrs);
+    if (fileFilter.matches(ItemFilters.fileItem(fileRef))) {
+      itemsByFile.put(path, reader.apply(fileRef));
+    } else {
+      itemsByFile.remove(path);
+    }
+  }
+}
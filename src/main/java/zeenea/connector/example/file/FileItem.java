@@ -9,10 +9,26 @@ package zeenea.connector.example.file;
 public final class FileItem<T> {
   private final T item;
   private final FileRef fileRef;
+  private final long offset;
+  private final long length;
 
   public FileItem(T item, FileRef fileRef) {
+    this(item, fileRef, -1, -1);
+  }
+
+  /**
+   * Create a file item with its location in the file.
+   *
+   * @param item The item.
+   * @param fileRef The reference of the file.
+   * @param offset The position of the first byte of the item, -1 if it is unknown.
+   * @param length The number of bytes of the item, -1 if it is unknown.
+   */
+  public FileItem(T item, FileRef fileRef, long offset, long length) {
     this.item = item;
     this.fileRef = fileRef;
+    this.offset = offset;
+    this.length = length;
   }
 
   public T getItem() {
@@ -22,4 +38,23 @@ public final class FileItem<T> {
   public FileRef getFileRef() {
     return fileRef;
   }
+
+  /** The position of the first byte of the item in the file, -1 if it is unknown. */
+  public long getOffset() {
+    return offset;
+  }
+
+  /** The number of bytes of the item in the file, -1 if it is unknown. */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Tell if the item can be read again from the file alone.
+   *
+   * @return {@code true} if the location of the item in the file is known.
+   */
+  public boolean isLocated() {
+    return offset >= 0;
+  }
 }
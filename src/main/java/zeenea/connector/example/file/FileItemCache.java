@@ -0,0 +1,268 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import zeenea.connector.example.json.JsonItem;
+import zeenea.connector.example.json.JsonItemSpliterator;
+
+/**
+ * Cache of the items read from the files, shared by the operations of a connection.
+ *
+ * <p>An entry is only valid as long as the size and the modification time of the file don't change.
+ * The cache has a memory budget, based on an estimation of the size of the items: the least
+ * recently used files are evicted when it is exceeded. The entries are also softly referenced so
+ * the garbage collector can reclaim them when the memory is low.
+ *
+ * <p>The items of the files read as a stream are collected on the side by a {@link Filler}, and
+ * cached when their file has been read completely. The items of compressed files are not cached:
+ * the extraction needs the location of the items, unknown in these files.
+ */
+final class FileItemCache {
+  /** Estimated size of an item without its strings and custom properties. */
+  private static final long ITEM_WEIGHT = 128;
+
+  /** Estimated size of a custom property value. */
+  private static final long PROPERTY_WEIGHT = 96;
+
+  private final long budget;
+  private final Function<List<?>, Reference<List<?>>> references;
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long weight;
+
+  /**
+   * Create a new cache.
+   *
+   * @param budget The estimated memory the items can use, in bytes. Nothing is cached if zero.
+   */
+  FileItemCache(long budget) {
+    this(budget, SoftReference::new);
+  }
+
+  /**
+   * Create a new cache referencing the items with another kind of reference.
+   *
+   * @param budget The estimated memory the items can use, in bytes. Nothing is cached if zero.
+   * @param references The function creating the reference of the items of a file.
+   */
+  FileItemCache(long budget, Function<List<?>, Reference<List<?>>> references) {
+    this.budget = budget;
+    this.references = references;
+  }
+
+  /**
+   * Get the items of a file.
+   *
+   * @param fileRef The file reference.
+   * @param klass The item class.
+   * @param <E> The item type.
+   * @return The items, {@code null} if they are not in the cache or if the file changed.
+   */
+  @SuppressWarnings("unchecked")
+  synchronized <E> List<FileItem<E>> get(FileRef fileRef, Class<E> klass) {
+    var key = new Key(fileRef.getPath(), klass);
+    var entry = entries.get(key);
+    if (entry == null) return null;
+    var items = entry.items.get();
+    if (items == null
+        || entry.size != fileRef.getSize()
+        || entry.lastModified != fileRef.getLastModified()) {
+      remove(key);
+      return null;
+    }
+    return (List<FileItem<E>>) (List<?>) items;
+  }
+
+  /**
+   * Record the items of a file.
+   *
+   * @param fileRef The file reference.
+   * @param klass The item class.
+   * @param items All the items of the file accepted by the filter.
+   * @param <E> The item type.
+   */
+  <E extends JsonItem> void put(FileRef fileRef, Class<E> klass, List<FileItem<E>> items) {
+    var entryWeight = 0L;
+    for (FileItem<E> fileItem : items) {
+      entryWeight += weight(fileItem);
+    }
+    put(fileRef, klass, items, entryWeight);
+  }
+
+  private synchronized <E extends JsonItem> void put(
+      FileRef fileRef, Class<E> klass, List<FileItem<E>> items, long entryWeight) {
+    var key = new Key(fileRef.getPath(), klass);
+    remove(key);
+    if (budget == 0 || entryWeight > budget) return;
+    if (fileRef.getCompression() != Compression.NONE) return;
+
+    weight += entryWeight;
+    entries.put(key, new Entry(fileRef, references.apply(List.copyOf(items)), entryWeight));
+    evict();
+  }
+
+  /** Remove the least recently used entries and the ones reclaimed by the garbage collector. */
+  private void evict() {
+    for (Iterator<Entry> i = entries.values().iterator(); i.hasNext(); ) {
+      var entry = i.next();
+      if (weight <= budget && entry.items.get() != null) continue;
+      weight -= entry.weight;
+      i.remove();
+    }
+  }
+
+  private void remove(Key key) {
+    var entry = entries.remove(key);
+    if (entry != null) weight -= entry.weight;
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  /** The number of files in the cache, including the ones reclaimed by the garbage collector. */
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /** The estimated memory used by the cached items, in bytes. */
+  synchronized long weight() {
+    return weight;
+  }
+
+  /**
+   * Create a filler collecting the items of the files read as a stream.
+   *
+   * @param klass The item class.
+   * @param <E> The item type.
+   * @return The filler, to notify of the files read.
+   */
+  <E extends JsonItem> Filler<E> filler(Class<E> klass) {
+    return new Filler<>(klass);
+  }
+
+  private static long weight(FileItem<? extends JsonItem> fileItem) {
+    var item = fileItem.getItem();
+    var total = ITEM_WEIGHT;
+    total += weight(item.getId()) + weight(item.getLabel()) + weight(item.getName());
+    for (JsonNode value : item.getCustomPropertyMap().values()) {
+      total += PROPERTY_WEIGHT + value.size() * PROPERTY_WEIGHT;
+    }
+    return total;
+  }
+
+  private static long weight(String text) {
+    return text == null ? 0 : 48 + text.length();
+  }
+
+  /**
+   * Collect the items of the files read as a stream, and cache them when their file has been read
+   * completely without failure.
+   *
+   * <p>The items of a file are collected until they exceed the budget of the cache, then they are
+   * dropped: a file too large for the cache is never kept entirely in memory.
+   *
+   * @param <E> The item type.
+   */
+  final class Filler<E extends JsonItem> implements JsonItemSpliterator.FileListener {
+    private final Class<E> klass;
+    private final Map<FileRef, Buffer<E>> buffers = new ConcurrentHashMap<>();
+
+    private Filler(Class<E> klass) {
+      this.klass = klass;
+    }
+
+    /**
+     * Collect an item accepted by the filter.
+     *
+     * @param fileItem The item.
+     */
+    void add(FileItem<E> fileItem) {
+      var fileRef = fileItem.getFileRef();
+      if (budget == 0 || fileRef.getCompression() != Compression.NONE) return;
+      buffers.computeIfAbsent(fileRef, k -> new Buffer<>()).add(fileItem, budget);
+    }
+
+    @Override
+    public void fileRead(FileRef fileRef, boolean failed) {
+      var buffer = buffers.remove(fileRef);
+      // A file that failed is read again next time.
+      if (failed) return;
+      if (buffer == null) {
+        // No item of the file was accepted.
+        put(fileRef, klass, List.of(), 0);
+      } else if (buffer.items != null) {
+        put(fileRef, klass, buffer.items, buffer.weight);
+      }
+    }
+  }
+
+  /** The items collected for a file. */
+  private static final class Buffer<E extends JsonItem> {
+    private List<FileItem<E>> items = new ArrayList<>();
+    private long weight;
+
+    private synchronized void add(FileItem<E> fileItem, long budget) {
+      if (items == null) return;
+      weight += weight(fileItem);
+      if (weight > budget) {
+        items = null;
+      } else {
+        items.add(fileItem);
+      }
+    }
+  }
+
+  private static final class Key {
+    private final Path path;
+    private final Class<?> klass;
+
+    private Key(Path path, Class<?> klass) {
+      this.path = path;
+      this.klass = klass;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key key = (Key) o;
+      return path.equals(key.path) && klass.equals(key.klass);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, klass);
+    }
+  }
+
+  private static final class Entry {
+    private final long size;
+    private final long lastModified;
+    private final Reference<List<?>> items;
+    private final long weight;
+
+    private Entry(FileRef fileRef, Reference<List<?>> items, long weight) {
+      this.size = fileRef.getSize();
+      this.lastModified = fileRef.getLastModified();
+      this.items = items;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import zeenea.connector.example.Config;
+import zeenea.connector.example.json.Json;
+import zeenea.connector.example.json.JsonManifest;
+import zeenea.connector.example.log.SimpleLogger;
+import zeenea.connector.example.log.TracingContext;
+
+/**
+ * The summary of the files read by the last inventory.
+ *
+ * <p>A file is considered unchanged if it has the same size and modification time as recorded. If
+ * only the modification time changed, the content hash is compared. The manifest is rewritten
+ * after each inventory with the files found during the inventory, so deleted files are dropped.
+ */
+final class FileManifest {
+  private static final SimpleLogger log = SimpleLogger.of(FileManifest.class);
+
+  /** Increase when the manifest content changes to invalidate the existing manifests. */
+  private static final String FORMAT_VERSION = "1";
+
+  private static final String HASH_ALGORITHM = "SHA-256";
+
+  private final Path file;
+  private final String fingerprint;
+  private final Map<String, JsonManifest.Entry> previous;
+  private final Map<String, JsonManifest.Entry> current = new TreeMap<>();
+
+  private FileManifest(Path file, String fingerprint, Map<String, JsonManifest.Entry> previous) {
+    this.file = file;
+    this.fingerprint = fingerprint;
+    this.previous = previous;
+  }
+
+  /**
+   * Load a manifest.
+   *
+   * <p>If the manifest doesn't exist, can't be read or was written with another configuration, an
+   * empty manifest is returned.
+   *
+   * @param ctx Tracing context.
+   * @param file The manifest file.
+   * @param fingerprint The fingerprint of the current configuration.
+   * @return The manifest.
+   */
+  static FileManifest load(TracingContext ctx, Path file, String fingerprint) {
+    try {
+      var manifest = Json.readValue(file, JsonManifest.class);
+      if (fingerprint.equals(manifest.getFingerprint())) {
+        return new FileManifest(file, fingerprint, manifest.getFiles());
+      }
+      log.entry("example_manifest_outdated").context(ctx).with("path", file).info();
+    } catch (NoSuchFileException e) {
+      log.entry("example_manifest_not_found").context(ctx).with("path", file).info();
+    } catch (IOException | RuntimeException e) {
+      log.entry("example_manifest_read_failure").context(ctx).with("path", file).warn(e);
+    }
+    return new FileManifest(file, fingerprint, Map.of());
+  }
+
+  /**
+   * Compute the fingerprint of the configuration.
+   *
+   * <p>Any change in the configuration affecting the recorded items must change the fingerprint.
+   * The display of the filter only names the files of the {@code key in @'file'} filters, their
+   * values are hashed.
+   *
+   * @param config The connection configuration.
+   * @param klass The item class.
+   * @return The fingerprint.
+   */
+  static String fingerprint(Config config, Class<?> klass) {
+    return String.join(
+        "\n",
+        FORMAT_VERSION,
+        klass.getName(),
+        config.root().toString(),
+        config.fileExtension(),
+        config.filter().display(),
+        valueFilesHash(config.filter().valueFiles()),
+        config.customProperties().getProperties().toString());
+  }
+
+  private static String valueFilesHash(Map<String, Set<String>> valueFiles) {
+    var digest = newDigest();
+    for (var entry : new TreeMap<>(valueFiles).entrySet()) {
+      digest.update(("@" + entry.getKey() + "\n").getBytes(StandardCharsets.UTF_8));
+      entry.getValue().stream()
+          .sorted()
+          .forEach(value -> digest.update((value + "\n").getBytes(StandardCharsets.UTF_8)));
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Get the items of a file if it didn't change since the manifest was written.
+   *
+   * @param ctx Tracing context.
+   * @param fileRef The file reference.
+   * @return The recorded items, or {@code null} if the file must be read.
+   */
+  List<ItemSummary> lookup(TracingContext ctx, FileRef fileRef) {
+    var path = fileRef.getRelativePath();
+    var entry = previous.get(path);
+    if (entry == null || entry.getSize() != fileRef.getSize()) return null;
+
+    if (entry.getLastModified() != fileRef.getLastModified()) {
+      // The file has been touched, check if the content actually changed.
+      try {
+        if (!hash(fileRef.getPath()).equals(entry.getHash())) return null;
+      } catch (IOException e) {
+        log.entry("example_manifest_hash_failure").context(ctx).with("path", path).warn(e);
+        return null;
+      }
+      entry.setLastModified(fileRef.getLastModified());
+    }
+
+    current.put(path, entry);
+    return entry.getItems().stream()
+        .map(i -> new ItemSummary(i.getId(), i.getLabel()))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Record the items of a file that has been read.
+   *
+   * @param fileRef The file reference.
+   * @param digest The digest of the file content.
+   * @param items The items of the file accepted by the filter.
+   */
+  void put(FileRef fileRef, MessageDigest digest, List<ItemSummary> items) {
+    var entry = new JsonManifest.Entry();
+    entry.setSize(fileRef.getSize());
+    entry.setLastModified(fileRef.getLastModified());
+    entry.setHash(toHex(digest.digest()));
+    entry.setItems(
+        items.stream()
+            .map(
+                s -> {
+                  var item = new JsonManifest.Item();
+                  item.setId(s.getId());
+                  item.setLabel(s.getLabel());
+                  return item;
+                })
+            .collect(Collectors.toList()));
+    current.put(fileRef.getRelativePath(), entry);
+  }
+
+  /**
+   * Write the files recorded since the manifest was loaded.
+   *
+   * <p>A failure is logged but doesn't fail the inventory, the files will be read again next time.
+   *
+   * @param ctx Tracing context.
+   */
+  void save(TracingContext ctx) {
+    var manifest = new JsonManifest();
+    manifest.setFingerprint(fingerprint);
+    manifest.setFiles(current);
+    try {
+      Files.createDirectories(file.getParent());
+      // Write a temporary file first to never leave a partial manifest.
+      var temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        Json.writeValue(temp, manifest);
+        move(temp, file);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+      log.entry("example_manifest_saved")
+          .context(ctx)
+          .with("path", file)
+          .with("file_count", current.size())
+          .info();
+    } catch (IOException | RuntimeException e) {
+      log.entry("example_manifest_write_failure").context(ctx).with("path", file).warn(e);
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(
+          source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /** Create a digest used to hash the file content. */
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 is required by the Java specification.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String hash(Path path) throws IOException {
+    var digest = newDigest();
+    try (InputStream input = new DigestInputStream(Files.newInputStream(path), digest)) {
+      input.transferTo(OutputStream.nullOutputStream());
+    }
+    return toHex(digest.digest());
+  }
+
+  private static String toHex(byte[] bytes) {
+    var sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+}
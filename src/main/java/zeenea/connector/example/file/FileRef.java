@@ -7,6 +7,7 @@
 package zeenea.connector.example.file;
 
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -14,10 +15,25 @@ import java.util.stream.StreamSupport;
 public final class FileRef {
   private final Path path;
   private final Path workDir;
+  private final long size;
+  private final long lastModified;
 
-  public FileRef(Path path, Path workDir) {
+  /**
+   * Create a new file reference.
+   *
+   * @param path The file path.
+   * @param workDir The directory the relative path is computed from.
+   * @param attrs The file attributes read when the file was found.
+   */
+  public FileRef(Path path, Path workDir, BasicFileAttributes attrs) {
+    this(path, workDir, attrs.size(), attrs.lastModifiedTime().toMillis());
+  }
+
+  public FileRef(Path path, Path workDir, long size, long lastModified) {
     this.path = Objects.requireNonNull(path);
     this.workDir = Objects.requireNonNull(workDir);
+    this.size = size;
+    this.lastModified = lastModified;
   }
 
   public Path getPath() {
@@ -28,10 +44,29 @@ public final class FileRef {
     return workDir;
   }
 
+  /** The size of the file in bytes when it was found. */
+  public long getSize() {
+    return size;
+  }
+
+  /** The last modification time of the file in milliseconds when it was found. */
+  public long getLastModified() {
+    return lastModified;
+  }
+
   public String getRelativePath() {
     var rel = workDir.relativize(path);
     return StreamSupport.stream(rel.spliterator(), false)
         .map(Path::toString)
         .collect(Collectors.joining("/"));
   }
+
+  /** The relative path without the compression suffix, as seen by the users. */
+  public String getLogicalRelativePath() {
+    return Compression.logicalName(getRelativePath());
+  }
+
+  public Compression getCompression() {
+    return Compression.of(path.getFileName().toString());
+  }
 }
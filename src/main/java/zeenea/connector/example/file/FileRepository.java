@@ -9,63 +9,352 @@ package zeenea.connector.example.file;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import zeenea.connector.example.Config;
 import zeenea.connector.example.ItemFilters;
+import zeenea.connector.example.filter.CompiledFilter;
+import zeenea.connector.example.filter.Filter;
+import zeenea.connector.example.filter.FilterSchema;
 import zeenea.connector.example.json.Json;
 import zeenea.connector.example.json.JsonItem;
+import zeenea.connector.example.json.JsonItemReader;
+import zeenea.connector.example.json.JsonItemSpliterator;
+import zeenea.connector.example.json.JsonProjection;
 import zeenea.connector.example.log.SimpleLogger;
 import zeenea.connector.example.log.TracingContext;
+import zeenea.connector.example.stream.InstrumentedStream;
 
-public class FileRepository {
+public class FileRepository implements AutoCloseable {
   private static final SimpleLogger log = SimpleLogger.of(FileRepository.class);
 
+  /** The maximum number of compiled residual filters kept for the next files. */
+  private static final int MAX_RESIDUAL_FILTERS = 256;
+
   private final Config config;
 
+  /** File indexes by item class, used in watch mode. */
+  private final Map<Class<?>, FileIndexHolder> fileIndexes = new ConcurrentHashMap<>();
+
+  /** Items read by the inventory, reused by the extraction. */
+  private final FileItemCache fileItemCache;
+
+  /** The schema of the filter items. */
+  private final FilterSchema itemSchema;
+
+  /** The filter of the items, compiled once for all the items. */
+  private final CompiledFilter itemFilter;
+
+  /** The compiled residual filters, shared by the files having the same residual filter. */
+  private final Map<Filter, CompiledFilter> residualFilters = new ConcurrentHashMap<>();
+
   public FileRepository(Config config) {
     this.config = Objects.requireNonNull(config);
+    this.fileItemCache = new FileItemCache(config.fileCacheMemory());
+    this.itemSchema = ItemFilters.itemSchema(config.customPropertyConverters());
+    this.itemFilter = config.filter().compile(itemSchema);
+    // The files whose path is not used by the filter share the compiled filter.
+    this.residualFilters.put(config.filter(), itemFilter);
   }
 
+  /**
+   * Load the items accepted by the filter.
+   *
+   * <p>In watch mode, the first call reads all the files and starts watching them. The next calls
+   * return the items in memory, up to date with the file changes.
+   *
+   * @param ctx Tracing context.
+   * @param klass The item class.
+   * @return The items.
+   */
   public <E extends JsonItem> Stream<FileItem<E>> loadFileItems(
       TracingContext ctx, Class<E> klass) {
-    // Create a file partial filter to avoid reading files that could be filtered.
-    var fileFilter = ItemFilters.fileFilter(config.filter());
+    if (config.watch()) {
+      return fileIndex(ctx, klass).snapshot().stream();
+    }
+    // Read the files and extract the items they contain accepted by the filter, large files can be
+    // read in parallel.
+    return JsonItemSpliterator.stream(ctx, findZeeneaFiles(ctx), klass, this::itemFilter);
+  }
+
+  /**
+   * Create the filter of the items of a file.
+   *
+   * <p>All the items of a file have the same path: the filter is simplified once per file with the
+   * path of the file. The returned filter reuses its filter item for all the items, it must be used
+   * by a single thread, the one reading the file.
+   *
+   * @param fileRef The file reference.
+   * @return The filter of the items of the file.
+   */
+  private <E extends JsonItem> Predicate<FileItem<E>> itemFilter(FileRef fileRef) {
+    var residual = config.filter().withContext(ItemFilters.fileItem(fileRef));
+    // The filter item is not needed when the path is enough to decide.
+    if (residual.equals(Filter.always())) return v -> true;
+    if (residual.equals(Filter.never())) return v -> false;
+
+    var compiled = residualFilters.get(residual);
+    if (compiled == null) {
+      compiled = residual.compile(itemSchema);
+      if (residualFilters.size() < MAX_RESIDUAL_FILTERS) {
+        var previous = residualFilters.putIfAbsent(residual, compiled);
+        if (previous != null) compiled = previous;
+      }
+    }
+    var filter = compiled;
+    var filterItem = itemSchema.newItem();
+    var frame = new CompiledFilter.Frame();
+    var converters = config.customPropertyConverters();
+    return v -> filter.matches(ItemFilters.item(filterItem, v, converters), frame);
+  }
 
-    return findZeeneaFiles(ctx).stream()
-        // Prefilter files, in case a whole file can be rejected before being read.
-        .filter(f -> fileFilter.matches(ItemFilters.fileItem(f)))
-        // Read the file and extract the items it contains.
-        .flatMap(f -> Json.readItems(ctx, f, klass).stream())
-        // Filter the items.
-        .filter(v -> config.filter().matches(ItemFilters.item(v, config.customProperties())));
+  @SuppressWarnings("unchecked")
+  private <E extends JsonItem> FileIndex<E> fileIndex(TracingContext ctx, Class<E> klass) {
+    // The index is created by its holder, outside of the map: the scan doesn't lock the map.
+    var holder = fileIndexes.computeIfAbsent(klass, k -> new FileIndexHolder());
+    return (FileIndex<E>) holder.get(() -> newFileIndex(ctx, klass));
+  }
+
+  private <E extends JsonItem> FileIndex<E> newFileIndex(TracingContext ctx, Class<E> klass) {
+    var watchCtx = TracingContext.watch(config.connectionCode());
+    try {
+      return new FileIndex<E>(
+          watchCtx,
+          config,
+          () -> findZeeneaFiles(watchCtx),
+          f -> {
+            try (var items = Json.readItems(watchCtx, f, klass)) {
+              return items.filter(itemFilter(f)).collect(Collectors.toList());
+            }
+          });
+    } catch (IOException e) {
+      throw log.entry("example_watch_files_failure")
+          .context(ctx)
+          .with("root", config.root())
+          .exception(e, FindFileException::new);
+    }
+  }
+
+  /** Stop watching the files. */
+  @Override
+  public void close() {
+    for (FileIndexHolder holder : fileIndexes.values()) {
+      try {
+        holder.close();
+      } catch (IOException e) {
+        log.entry("example_watch_close_failure").with("root", config.root()).warn(e);
+      }
+    }
+    fileIndexes.clear();
+    fileItemCache.clear();
+  }
+
+  /**
+   * Load the summary of the items needed by the inventory.
+   *
+   * <p>Only a projection of the items is read: the identifier, the label, the name and the custom
+   * attributes used by the filter. The items are kept in the file item cache for the extraction.
+   *
+   * <p>When the manifest is enabled, the files that didn't change since the last inventory are not
+   * read, their items are taken from the manifest.
+   *
+   * @param ctx Tracing context.
+   * @param klass The item class.
+   * @return The summaries of the items accepted by the filter.
+   */
+  public <E extends JsonItem> Stream<ItemSummary> loadItemSummaries(
+      TracingContext ctx, Class<E> klass) {
+    // In watch mode, the items are already in memory.
+    if (config.watch()) {
+      return loadFileItems(ctx, klass).map(v -> ItemSummary.of(v.getItem()));
+    }
+
+    // Only the attributes needed by the summary and the filter are read.
+    var projection = JsonProjection.of(klass, filterAttributes());
+    var manifestFile = config.manifestFile();
+    if (manifestFile.isEmpty()) {
+      return loadProjection(ctx, findZeeneaFiles(ctx), projection)
+          .map(v -> ItemSummary.of(v.getItem()));
+    }
+
+    var manifest =
+        FileManifest.load(ctx, manifestFile.get(), FileManifest.fingerprint(config, klass));
+    var filler = fileItemCache.filler(klass);
+    // The files are read one at a time, as the summaries are consumed.
+    var summaries =
+        findZeeneaFiles(ctx).stream()
+            .flatMap(fileRef -> fileSummaries(ctx, fileRef, projection, manifest, filler));
+    // The manifest is saved when all the files have been read, an interrupted inventory keeps the
+    // previous one.
+    return InstrumentedStream.of(
+        summaries,
+        (count, duration, complete) -> {
+          if (complete) manifest.save(ctx);
+        });
+  }
+
+  /**
+   * Provide the summaries of the items of a file, recorded by the manifest or read from the file.
+   *
+   * <p>A file read until its end is recorded by the manifest, unless reading it failed.
+   */
+  private <E extends JsonItem> Stream<ItemSummary> fileSummaries(
+      TracingContext ctx,
+      FileRef fileRef,
+      JsonProjection<E> projection,
+      FileManifest manifest,
+      FileItemCache.Filler<E> filler) {
+    var recorded = manifest.lookup(ctx, fileRef);
+    if (recorded != null) return recorded.stream();
+
+    var digest = FileManifest.newDigest();
+    var reader = new JsonItemReader<>(ctx, fileRef, projection, digest);
+    var fileSummaries = new ArrayList<ItemSummary>();
+    var summaries =
+        reader.stream()
+            .filter(itemFilter(fileRef))
+            .peek(filler::add)
+            .map(v -> ItemSummary.of(v.getItem()))
+            .peek(fileSummaries::add);
+    return InstrumentedStream.of(
+        summaries,
+        (count, duration, complete) -> {
+          // A file that failed or was not read until its end is read again next time.
+          var failed = !complete || reader.isFailed();
+          filler.fileRead(fileRef, failed);
+          if (!failed) manifest.put(fileRef, digest, fileSummaries);
+        });
+  }
+
+  /**
+   * Index the items accepted by the filter.
+   *
+   * <p>The index keeps the location of the items, they are read again when they are requested. The
+   * items of the compressed files, and all the items in watch mode, are kept in memory. The files
+   * read by the inventory and unchanged since are not read again.
+   *
+   * @param ctx Tracing context.
+   * @param klass The item class.
+   * @param key The function giving the key of an item.
+   * @param <K> The key type.
+   * @return The index of the items.
+   * @throws IllegalStateException If two items have the same key.
+   */
+  public <K, E extends JsonItem> ItemIndex<K, E> loadItemIndex(
+      TracingContext ctx, Class<E> klass, Function<E, K> key) {
+    var index = new ItemIndex<K, E>(klass, key, config.itemCacheSize());
+    if (config.watch()) {
+      // The items are already in memory.
+      try (var items = loadFileItems(ctx, klass)) {
+        items.forEach(v -> index.putResident(key.apply(v.getItem()), v));
+      }
+      return index;
+    }
+
+    var files = findZeeneaFiles(ctx);
+    var located = new ArrayList<FileRef>();
+    var compressed = new ArrayList<FileRef>();
+    for (FileRef fileRef : files) {
+      if (fileRef.getCompression() == Compression.NONE) {
+        located.add(fileRef);
+      } else {
+        compressed.add(fileRef);
+      }
+    }
+    // Only the location of the items is kept, the projection is enough for the key and the filter.
+    var projection = JsonProjection.of(klass, filterAttributes());
+    try (var items = loadProjection(ctx, located, projection)) {
+      items.forEach(v -> index.put(key.apply(v.getItem()), v));
+    }
+    try (var items = JsonItemSpliterator.stream(ctx, compressed, klass, this::itemFilter)) {
+      items.forEach(v -> index.put(key.apply(v.getItem()), v));
+    }
+    return index;
+  }
+
+  /**
+   * Read a projection of the items of files accepted by the filter.
+   *
+   * <p>The items of the files that didn't change since they were cached are taken from the file
+   * item cache. The other files are read as a stream, their items are cached on the side.
+   *
+   * @param ctx Tracing context.
+   * @param files The files.
+   * @param projection The projection.
+   * @return The items, in the order of the files.
+   */
+  private <E extends JsonItem> Stream<FileItem<E>> loadProjection(
+      TracingContext ctx, List<FileRef> files, JsonProjection<E> projection) {
+    var klass = projection.itemClass();
+    // The consecutive files not in the cache are read by the same stream.
+    var parts = new ArrayList<Supplier<Stream<FileItem<E>>>>();
+    var unread = new ArrayList<FileRef>();
+    for (FileRef fileRef : files) {
+      var cached = fileItemCache.get(fileRef, klass);
+      if (cached == null) {
+        unread.add(fileRef);
+        continue;
+      }
+      if (!unread.isEmpty()) {
+        parts.add(readProjection(ctx, List.copyOf(unread), projection));
+        unread.clear();
+      }
+      parts.add(cached::stream);
+    }
+    if (!unread.isEmpty()) parts.add(readProjection(ctx, unread, projection));
+    return parts.stream().flatMap(Supplier::get);
+  }
+
+  private <E extends JsonItem> Supplier<Stream<FileItem<E>>> readProjection(
+      TracingContext ctx, List<FileRef> files, JsonProjection<E> projection) {
+    return () -> {
+      var filler = fileItemCache.filler(projection.itemClass());
+      return JsonItemSpliterator.stream(ctx, files, projection, this::itemFilter, filler)
+          .peek(filler::add);
+    };
+  }
+
+  private Set<String> filterAttributes() {
+    return ItemFilters.filterAttributes(config.filter(), config.customPropertyConverters());
   }
 
   /**
    * Find Zeenea files. A Zeenea file is a file with the extension.
    *
+   * <p>Files that can be rejected by the filter only knowing their path are not returned.
+   *
    * @param ctx Tracing context.
    * @return A list of zeenea file references.
    */
   public List<FileRef> findZeeneaFiles(TracingContext ctx) {
     var root = config.root();
     var extension = config.fileExtension();
+    // Create a file partial filter to avoid reading files that could be filtered.
+    var fileFilter = ItemFilters.fileFilter(config.filter());
     Path fileName = root.getFileName();
-    if (fileName != null && fileName.toString().endsWith(extension) && Files.isRegularFile(root)) {
-      Path parent = root.getParent();
-      if (parent == null) {
-        parent = Path.of("");
+    try {
+      if (fileName != null
+          && Compression.logicalName(fileName.toString()).endsWith(extension)
+          && Files.isRegularFile(root)) {
+        Path parent = root.getParent();
+        if (parent == null) {
+          parent = Path.of("");
+        }
+        var attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        var fileRef = new FileRef(root, parent, attrs);
+        return fileFilter.matches(ItemFilters.fileItem(fileRef)) ? List.of(fileRef) : List.of();
       }
-      return List.of(new FileRef(root, parent));
-    }
-    try (var files = Files.walk(root)) {
-      return files
-          .filter(Files::isRegularFile)
-          .filter(p -> p.getFileName().toString().endsWith(extension))
-          .map(p -> new FileRef(p, root))
-          .collect(Collectors.toUnmodifiableList());
+      return new FileFinder(root, extension, config.parallelism(), fileFilter).find();
     } catch (IOException e) {
       throw log.entry("zdf_find_zeenea_files_failure")
           .context(ctx)
@@ -73,4 +362,39 @@ public class FileRepository {
           .exception(e, FindFileException::new);
     }
   }
+
+  /**
+   * The file index of an item class, created on the first use.
+   *
+   * <p>The initial scan of the files is done under the lock of the holder: the callers needing the
+   * same index wait for it, the others don't.
+   */
+  private static final class FileIndexHolder {
+    private volatile FileIndex<?> fileIndex;
+
+    /**
+     * Get the file index, create it if needed.
+     *
+     * @param factory Create the file index. If it fails, the next call tries again.
+     * @return The file index.
+     */
+    FileIndex<?> get(Supplier<FileIndex<?>> factory) {
+      var result = fileIndex;
+      if (result == null) {
+        synchronized (this) {
+          result = fileIndex;
+          if (result == null) {
+            result = factory.get();
+            fileIndex = result;
+          }
+        }
+      }
+      return result;
+    }
+
+    /** Close the file index, after its creation if it is in progress. */
+    synchronized void close() throws IOException {
+      if (fileIndex != null) fileIndex.close();
+    }
+  }
 }
@@ -0,0 +1,190 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import zeenea.connector.example.cache.LruCache;
+import zeenea.connector.example.json.Json;
+import zeenea.connector.example.log.SimpleLogger;
+import zeenea.connector.example.log.TracingContext;
+
+/**
+ * Index of the items by key, giving the location of each item in its file.
+ *
+ * <p>Only the location of an item is kept in memory, the item is read again from its file when it
+ * is requested. The most recently requested items are kept in a small cache. The items whose
+ * location can't be used, like the ones of compressed files, are kept in memory.
+ *
+ * <p>When a file changed since it was indexed, it is read again to locate its indexed items. The
+ * items no longer in the file are removed from the index, the new ones are ignored until the next
+ * inventory. The items of the file in the cache are kept until then.
+ *
+ * @param <K> The key type.
+ * @param <E> The item type.
+ */
+public final class ItemIndex<K, E> {
+  private static final SimpleLogger log = SimpleLogger.of(ItemIndex.class);
+
+  private final Class<E> klass;
+  private final Function<E, K> key;
+  private final Map<K, FileItem<E>> locations = new ConcurrentHashMap<>();
+  private final Map<K, FileItem<E>> residents = new HashMap<>();
+  private final LruCache<K, FileItem<E>> cache;
+
+  /**
+   * Create an empty index.
+   *
+   * @param klass The item class.
+   * @param key The function giving the key of an item.
+   * @param cacheSize The number of items read again to keep in memory.
+   */
+  ItemIndex(Class<E> klass, Function<E, K> key, int cacheSize) {
+    this.klass = klass;
+    this.key = key;
+    this.cache = new LruCache<>(cacheSize);
+  }
+
+  /**
+   * Add the location of an item.
+   *
+   * <p>If the item has no location, the item itself is kept in memory. Otherwise the item can be a
+   * projection, it is read again completely when requested.
+   *
+   * @param key The item key.
+   * @param fileItem The item.
+   * @throws IllegalStateException If the index already contains the key.
+   */
+  void put(K key, FileItem<E> fileItem) {
+    checkNotIndexed(key);
+    if (fileItem.isLocated()) {
+      // Drop the item, only its location is needed.
+      var fileRef = fileItem.getFileRef();
+      locations.put(
+          key, new FileItem<>(null, fileRef, fileItem.getOffset(), fileItem.getLength()));
+    } else {
+      residents.put(key, fileItem);
+    }
+  }
+
+  /**
+   * Add an item kept in memory.
+   *
+   * @param key The item key.
+   * @param fileItem The item.
+   * @throws IllegalStateException If the index already contains the key.
+   */
+  void putResident(K key, FileItem<E> fileItem) {
+    checkNotIndexed(key);
+    residents.put(key, fileItem);
+  }
+
+  private void checkNotIndexed(K key) {
+    if (locations.containsKey(key) || residents.containsKey(key)) {
+      throw new IllegalStateException("Duplicate key " + key);
+    }
+  }
+
+  /**
+   * Get an item.
+   *
+   * @param ctx Tracing context.
+   * @param key The item key.
+   * @return The item, {@code null} if the key isn't indexed or if the item can't be read again.
+   */
+  public FileItem<E> get(TracingContext ctx, K key) {
+    var resident = residents.get(key);
+    if (resident != null) return resident;
+    var location = locations.get(key);
+    if (location == null) return null;
+    return cache.computeIfAbsent(key, k -> read(ctx, k, location));
+  }
+
+  private FileItem<E> read(TracingContext ctx, K key, FileItem<E> location) {
+    var fileRef = location.getFileRef();
+    try {
+      // The location is only valid in the file that was indexed.
+      var attrs = Files.readAttributes(fileRef.getPath(), BasicFileAttributes.class);
+      if (attrs.size() != fileRef.getSize()
+          || attrs.lastModifiedTime().toMillis() != fileRef.getLastModified()) {
+        return relocate(ctx, key, location, attrs);
+      }
+      return Json.readItem(location, klass);
+    } catch (IOException | RuntimeException e) {
+      log.entry("example_read_item_failure")
+          .context(ctx)
+          .with("path", fileRef.getPath())
+          .with("offset", location.getOffset())
+          .error(e);
+      return null;
+    }
+  }
+
+  /**
+   * Read again a file that changed since it was indexed, updating the location of its items.
+   *
+   * @param ctx Tracing context.
+   * @param key The key of the requested item.
+   * @param location The location of the requested item in the indexed file.
+   * @param attrs The attributes of the changed file.
+   * @return The requested item, {@code null} if it is no longer in the file.
+   * @throws IOException If the item can't be read.
+   */
+  private synchronized FileItem<E> relocate(
+      TracingContext ctx, K key, FileItem<E> location, BasicFileAttributes attrs)
+      throws IOException {
+    var current = locations.get(key);
+    if (current != location) {
+      // The file was already read again.
+      return current != null ? Json.readItem(current, klass) : null;
+    }
+    var path = location.getFileRef().getPath();
+    log.entry("example_read_item_file_changed").context(ctx).with("path", path).info();
+    var fileRef = new FileRef(path, location.getFileRef().getWorkDir(), attrs);
+    var relocated = new HashMap<K, FileItem<E>>();
+    FileItem<E> found = null;
+    try (var items = Json.readItems(ctx, fileRef, klass)) {
+      for (var it = items.iterator(); it.hasNext(); ) {
+        var fileItem = it.next();
+        var itemKey = this.key.apply(fileItem.getItem());
+        // Only the items indexed in this file are updated.
+        if (!isIn(locations.get(itemKey), path)) continue;
+        relocated.put(
+            itemKey, new FileItem<>(null, fileRef, fileItem.getOffset(), fileItem.getLength()));
+        if (itemKey.equals(key)) found = fileItem;
+      }
+    }
+    for (var it = locations.entrySet().iterator(); it.hasNext(); ) {
+      var entry = it.next();
+      if (!isIn(entry.getValue(), path)) continue;
+      // The items read before the change are outdated.
+      cache.remove(entry.getKey());
+      var newLocation = relocated.get(entry.getKey());
+      if (newLocation != null) {
+        entry.setValue(newLocation);
+      } else {
+        it.remove();
+      }
+    }
+    return found;
+  }
+
+  private static boolean isIn(FileItem<?> location, Path path) {
+    return location != null && location.getFileRef().getPath().equals(path);
+  }
+
+  /** The number of indexed items. */
+  public int size() {
+    return locations.size() + residents.size();
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import zeenea.connector.example.json.JsonItem;
+
+/** The part of an item needed by the inventory. */
+public final class ItemSummary {
+  private final String id;
+  private final String label;
+
+  public ItemSummary(String id, String label) {
+    this.id = id;
+    this.label = label;
+  }
+
+  public static ItemSummary of(JsonItem item) {
+    return new ItemSummary(item.getId(), item.getLabel());
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Open the content of a file, or of a range of a file, as an input stream.
+ *
+ * <p>Large files are memory mapped: the parser reads the bytes directly from the page cache instead
+ * of going through a read system call and an intermediate buffer for each block. A mapping is
+ * limited to 2 GB, so the file is mapped by segments, one at a time.
+ *
+ * <p>A mapped file truncated by another process while it is read makes the JVM raise an {@link
+ * InternalError} instead of an {@link IOException}. It is converted to an {@link IOException} when
+ * raised by a read, but compiled code may raise it a bit later, after the read returned: the
+ * readers of the stream must also handle it as a read error.
+ */
+final class FileInput {
+  /** Files or ranges from this size are memory mapped. */
+  static final long MAPPED_THRESHOLD = 16L * 1024 * 1024;
+
+  /** Size of a mapped segment. */
+  static final long SEGMENT_SIZE = 1L << 30;
+
+  private FileInput() {}
+
+  /** How to read the file. */
+  enum Mode {
+    /** Memory map the file if it is large enough. */
+    AUTO,
+    /** Read the file with a stream. */
+    STREAM,
+    /** Memory map the file. */
+    MAPPED
+  }
+
+  /**
+   * Open a file range, memory mapped if it is large enough.
+   *
+   * @param path The file path.
+   * @param start The position of the first byte.
+   * @param end The position after the last byte, {@code Long.MAX_VALUE} for the end of the file.
+   * @return The input stream.
+   * @throws IOException If the file can't be opened.
+   */
+  static InputStream open(Path path, long start, long end) throws IOException {
+    return open(path, start, end, Mode.AUTO);
+  }
+
+  /**
+   * Open a file range.
+   *
+   * @param path The file path.
+   * @param start The position of the first byte.
+   * @param end The position after the last byte, {@code Long.MAX_VALUE} for the end of the file.
+   * @param mode How to read the file.
+   * @return The input stream.
+   * @throws IOException If the file can't be opened.
+   */
+  static InputStream open(Path path, long start, long end, Mode mode) throws IOException {
+    return open(path, start, end, mode, SEGMENT_SIZE);
+  }
+
+  /**
+   * Open a file range, with mapped segments of a given size.
+   *
+   * @param path The file path.
+   * @param start The position of the first byte.
+   * @param end The position after the last byte, {@code Long.MAX_VALUE} for the end of the file.
+   * @param mode How to read the file.
+   * @param segmentSize The size of a mapped segment.
+   * @return The input stream.
+   * @throws IOException If the file can't be opened.
+   */
+  static InputStream open(Path path, long start, long end, Mode mode, long segmentSize)
+      throws IOException {
+    var channel = FileChannel.open(path);
+    try {
+      var limit = Math.min(end, channel.size());
+      if (mode == Mode.MAPPED || (mode == Mode.AUTO && limit - start >= MAPPED_THRESHOLD)) {
+        return new MappedInputStream(path, channel, start, limit, segmentSize);
+      }
+      channel.position(start);
+      var input = Channels.newInputStream(channel);
+      return end == Long.MAX_VALUE ? input : new RangeInputStream(input, limit - start);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Input stream reading a file through memory mapped segments. */
+  private static final class MappedInputStream extends InputStream {
+    private final Path path;
+    private final FileChannel channel;
+    private final long end;
+    private final long segmentSize;
+    private long position;
+    private MappedByteBuffer segment;
+
+    private MappedInputStream(
+        Path path, FileChannel channel, long start, long end, long segmentSize) {
+      this.path = path;
+      this.channel = channel;
+      this.position = start;
+      this.end = end;
+      this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Make sure there are bytes to read in the current segment.
+     *
+     * @return {@code false} at the end of the range.
+     */
+    private boolean fill() throws IOException {
+      if (segment != null && segment.hasRemaining()) return true;
+      if (position >= end) return false;
+      var size = Math.min(segmentSize, end - position);
+      // The previous segment is released by the garbage collector.
+      segment = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+      position += size;
+      return true;
+    }
+
+    /**
+     * Convert the error raised when accessing a page of a file truncated after being mapped.
+     *
+     * @param e The error.
+     * @return The exception to throw.
+     */
+    private IOException truncated(InternalError e) {
+      return new IOException("The file was truncated while being read: " + path, e);
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!fill()) return -1;
+      try {
+        return segment.get() & 0xFF;
+      } catch (InternalError e) {
+        throw truncated(e);
+      }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) return 0;
+      if (!fill()) return -1;
+      var count = Math.min(len, segment.remaining());
+      try {
+        segment.get(b, off, count);
+      } catch (InternalError e) {
+        throw truncated(e);
+      }
+      return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      if (n <= 0 || !fill()) return 0;
+      var count = (int) Math.min(n, segment.remaining());
+      segment.position(segment.position() + count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      var inSegment = segment != null ? segment.remaining() : 0;
+      return (int) Math.min(Integer.MAX_VALUE, inSegment + (end - position));
+    }
+
+    /**
+     * Close the file.
+     *
+     * <p>The segment is unmapped by the garbage collector, it is no longer accessed after this
+     * call so a later truncation of the file has no effect.
+     */
+    @Override
+    public void close() throws IOException {
+      segment = null;
+      channel.close();
+    }
+  }
+
+  /** Input stream limited to a number of bytes. */
+  private static final class RangeInputStream extends FilterInputStream {
+    private long remaining;
+
+    private RangeInputStream(InputStream in, long length) {
+      super(in);
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) return -1;
+      int b = in.read();
+      if (b >= 0) --remaining;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (remaining <= 0) return -1;
+      int n = in.read(b, off, (int) Math.min(len, remaining));
+      if (n > 0) remaining -= n;
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = in.skip(Math.min(n, remaining));
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(in.available(), remaining);
+    }
+  }
+}
@@ -7,24 +7,20 @@
 package zeenea.connector.example.json;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
 import zeenea.connector.example.file.FileItem;
 import zeenea.connector.example.file.FileRef;
-import zeenea.connector.example.log.SimpleLogger;
-import zeenea.connector.example.log.Strings;
 import zeenea.connector.example.log.TracingContext;
 
 public class Json {
-  private static final SimpleLogger log = SimpleLogger.of(Json.class);
-
-  private static final JsonMapper MAPPER =
+  static final JsonMapper MAPPER =
       JsonMapper.builder()
           .addModule(new Jdk8Module())
           .addModule(new JavaTimeModule())
@@ -37,7 +33,9 @@ public class Json {
   /**
    * Read the content of a file.
    *
-   * <p>If the file fails, the exception is caught, logged and an empty stream is returned.
+   * <p>The items are read lazily, the file is closed when the stream is consumed or closed. If the
+   * file fails, the exception is caught, logged and the stream ends after the items read before the
+   * failure.
    *
    * @param ctx Tracing context.
    * @param fileRef The reference of the file.
@@ -45,31 +43,56 @@ public class Json {
    * @param <T> The element type.
    * @return The stream of the file items.
    */
-  public static <T> List<FileItem<T>> readItems(
+  public static <T> Stream<FileItem<T>> readItems(
       TracingContext ctx, FileRef fileRef, Class<T> klass) {
-    // Extract the connector case by convention on the root class name.
-    var env = Strings.removePrefix(klass.getSimpleName(), "Json").toLowerCase();
+    return new JsonItemReader<>(ctx, fileRef, klass, null).stream();
+  }
 
-    log.entry("example_" + env + "_read_file")
-        .context(ctx)
-        .with("path", fileRef.getRelativePath())
-        .info();
+  /**
+   * Read a single item at a known location of a file.
+   *
+   * @param fileItem A file item located in an uncompressed file.
+   * @param klass The item class.
+   * @param <T> The item type.
+   * @return The file item, bound to all the item attributes.
+   * @throws IOException If the file can't be read or parsed.
+   */
+  public static <T> FileItem<T> readItem(FileItem<?> fileItem, Class<T> klass)
+      throws IOException {
+    var offset = fileItem.getOffset();
+    var length = fileItem.getLength();
+    var fileRef = fileItem.getFileRef();
+    try (var input = FileInput.open(fileRef.getPath(), offset, offset + length)) {
+      var item = MAPPER.readValue(input, klass);
+      return new FileItem<>(item, fileRef, offset, length);
+    }
+  }
 
-    try (var input = MAPPER.createParser(fileRef.getPath().toFile())) {
-      var list = new ArrayList<FileItem<T>>();
-      MappingIterator<T> iterator = MAPPER.readValues(input, klass);
-      while (iterator.hasNext()) {
-        var item = iterator.next();
-        list.add(new FileItem<>(item, fileRef));
-      }
-      return list;
+  /**
+   * Read a JSON document from a file.
+   *
+   * @param path The file path.
+   * @param klass The document class.
+   * @param <T> The document type.
+   * @return The document.
+   * @throws IOException If the file can't be read or parsed.
+   */
+  public static <T> T readValue(Path path, Class<T> klass) throws IOException {
+    try (var input = Files.newInputStream(path)) {
+      return MAPPER.readValue(input, klass);
+    }
+  }
 
-    } catch (IOException | RuntimeException e) {
-      log.entry("example_" + env + "_read_file_failure")
-          .context(ctx)
-          .with("path", fileRef.getPath())
-          .error(e);
-      return List.of();
+  /**
+   * Write a JSON document in a file.
+   *
+   * @param path The file path.
+   * @param value The document.
+   * @throws IOException If the file can't be written.
+   */
+  public static void writeValue(Path path, Object value) throws IOException {
+    try (var output = Files.newOutputStream(path)) {
+      MAPPER.writeValue(output, value);
     }
   }
 }
@@ -0,0 +1,272 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import zeenea.connector.example.file.Compression;
+import zeenea.connector.example.file.FileItem;
+import zeenea.connector.example.file.FileRef;
+import zeenea.connector.example.log.SimpleLogger;
+import zeenea.connector.example.log.Strings;
+import zeenea.connector.example.log.TracingContext;
+
+/**
+ * Read the items of a file one at a time.
+ *
+ * <p>The file is opened when the first item is requested and closed when the last item has been
+ * read, when reading fails or when the reader is closed. Only the current item is in memory.
+ *
+ * <p>The reader can be limited to a range of the file starting at the beginning of an item. It can
+ * also read only a {@link JsonProjection projection} of the items.
+ *
+ * <p>If reading fails, the exception is caught, logged and the reader ends. The items read before
+ * the failure have already been provided, unlike when the whole file was read before providing its
+ * items: {@link #isFailed()} tells the callers recording the files that it must be read again.
+ *
+ * @param <T> The item type.
+ */
+public final class JsonItemReader<T> extends Spliterators.AbstractSpliterator<FileItem<T>>
+    implements AutoCloseable {
+  private static final SimpleLogger log = SimpleLogger.of(JsonItemReader.class);
+
+  private final TracingContext ctx;
+  private final FileRef fileRef;
+  private final Class<T> klass;
+  private final JsonProjection<T> projection;
+  private final MessageDigest digest;
+  private final long start;
+  private final long end;
+  private final String env;
+
+  private InputStream rawStream;
+  private InputStream stream;
+  private JsonParser parser;
+  private MappingIterator<T> iterator;
+  private long itemOffset;
+  private long itemLength;
+  private boolean done;
+  private boolean failed;
+
+  /**
+   * Create a new reader.
+   *
+   * @param ctx Tracing context.
+   * @param fileRef The reference of the file.
+   * @param klass The item class.
+   * @param digest A digest updated with the whole file content, or {@code null}.
+   */
+  public JsonItemReader(TracingContext ctx, FileRef fileRef, Class<T> klass, MessageDigest digest) {
+    this(ctx, fileRef, klass, null, digest, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Create a new reader of a projection of the items.
+   *
+   * @param ctx Tracing context.
+   * @param fileRef The reference of the file.
+   * @param projection The part of the items to read.
+   * @param digest A digest updated with the whole file content, or {@code null}.
+   */
+  public JsonItemReader(
+      TracingContext ctx, FileRef fileRef, JsonProjection<T> projection, MessageDigest digest) {
+    this(ctx, fileRef, projection.itemClass(), projection, digest, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Create a new reader of a range of a file.
+   *
+   * @param ctx Tracing context.
+   * @param fileRef The reference of the file.
+   * @param klass The item class.
+   * @param start The position of the first byte of the range.
+   * @param end The position after the last byte of the range.
+   */
+  public JsonItemReader(
+      TracingContext ctx, FileRef fileRef, Class<T> klass, long start, long end) {
+    this(ctx, fileRef, klass, null, null, start, end);
+  }
+
+  /**
+   * Create a new reader of a projection of the items of a range of a file.
+   *
+   * @param ctx Tracing context.
+   * @param fileRef The reference of the file.
+   * @param projection The part of the items to read.
+   * @param start The position of the first byte of the range.
+   * @param end The position after the last byte of the range.
+   */
+  public JsonItemReader(
+      TracingContext ctx, FileRef fileRef, JsonProjection<T> projection, long start, long end) {
+    this(ctx, fileRef, projection.itemClass(), projection, null, start, end);
+  }
+
+  private JsonItemReader(
+      TracingContext ctx,
+      FileRef fileRef,
+      Class<T> klass,
+      JsonProjection<T> projection,
+      MessageDigest digest,
+      long start,
+      long end) {
+    super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+    this.ctx = ctx;
+    this.fileRef = fileRef;
+    this.klass = klass;
+    this.projection = projection;
+    this.digest = digest;
+    this.start = start;
+    this.end = end;
+    // Extract the connector case by convention on the root class name.
+    this.env = Strings.removePrefix(klass.getSimpleName(), "Json").toLowerCase();
+  }
+
+  /**
+   * Provide with a stream of the items that closes the reader when closed.
+   *
+   * @return The stream of the file items.
+   */
+  public Stream<FileItem<T>> stream() {
+    return StreamSupport.stream(this, false).onClose(this::close);
+  }
+
+  /**
+   * Tell if reading the file failed.
+   *
+   * @return {@code true} if the file couldn't be read completely.
+   */
+  public boolean isFailed() {
+    return failed;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super FileItem<T>> action) {
+    if (done) return false;
+    T item;
+    try {
+      if (parser == null) open();
+      item = nextItem();
+      if (item == null) {
+        // Trailing white spaces may not have been read by the parser.
+        if (digest != null) {
+          stream.transferTo(OutputStream.nullOutputStream());
+          rawStream.transferTo(OutputStream.nullOutputStream());
+        }
+        close();
+        return false;
+      }
+    } catch (IOException | RuntimeException | InternalError e) {
+      // An internal error is raised when a memory mapped file is truncated while being read.
+      log.entry("example_" + env + "_read_file_failure")
+          .context(ctx)
+          .with("path", fileRef.getPath())
+          .error(e);
+      failed = true;
+      close();
+      return false;
+    }
+    action.accept(
+        itemOffset >= 0
+            ? new FileItem<>(item, fileRef, itemOffset, itemLength)
+            : new FileItem<>(item, fileRef));
+    return true;
+  }
+
+  private void open() throws IOException {
+    log.entry("example_" + env + "_read_file")
+        .context(ctx)
+        .with("path", fileRef.getRelativePath())
+        .more(
+            e -> {
+              if (isRange()) e.with("start", start).with("end", end);
+            })
+        .info();
+
+    var input = FileInput.open(fileRef.getPath(), start, end);
+    // The digest is computed on the file content, before decompression.
+    rawStream = digest != null ? new DigestInputStream(input, digest) : input;
+    stream = fileRef.getCompression().decode(rawStream);
+    parser = Json.MAPPER.createParser(stream);
+    // The stream is closed by the reader, the end of the file may have to be digested.
+    parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    if (projection == null) iterator = Json.MAPPER.readValues(parser, klass);
+  }
+
+  /**
+   * Read the next item.
+   *
+   * @return The item, or {@code null} at the end of the file.
+   */
+  private T nextItem() throws IOException {
+    T item;
+    if (projection == null) {
+      if (!iterator.hasNext()) return null;
+      var itemStart = parser.currentTokenLocation().getByteOffset();
+      item = iterator.next();
+      locate(itemStart);
+    } else {
+      if (parser.nextToken() == null) return null;
+      var itemStart = parser.currentTokenLocation().getByteOffset();
+      item = projection.read(parser);
+      locate(itemStart);
+    }
+    return item;
+  }
+
+  /**
+   * Record the location of the item just read.
+   *
+   * <p>The positions of a compressed file are in the decoded content, the item can't be read again
+   * from them.
+   *
+   * @param itemStart The position of the item start in the parsed content.
+   */
+  private void locate(long itemStart) {
+    if (fileRef.getCompression() != Compression.NONE || itemStart < 0) {
+      itemOffset = -1;
+      itemLength = -1;
+    } else {
+      itemOffset = start + itemStart;
+      itemLength = parser.currentLocation().getByteOffset() - itemStart;
+    }
+  }
+
+  private boolean isRange() {
+    return start != 0 || end != Long.MAX_VALUE;
+  }
+
+  @Override
+  public void close() {
+    done = true;
+    try {
+      if (iterator != null) iterator.close();
+      if (parser != null) parser.close();
+      if (stream != null) stream.close();
+      if (rawStream != null) rawStream.close();
+    } catch (IOException e) {
+      log.entry("example_" + env + "_close_file_failure")
+          .context(ctx)
+          .with("path", fileRef.getPath())
+          .warn(e);
+    } finally {
+      iterator = null;
+      parser = null;
+      stream = null;
+      rawStream = null;
+    }
+  }
+}
@@ -0,0 +1,402 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import zeenea.connector.example.file.Compression;
+import zeenea.connector.example.file.FileItem;
+import zeenea.connector.example.file.FileRef;
+import zeenea.connector.example.log.SimpleLogger;
+import zeenea.connector.example.log.TracingContext;
+
+/**
+ * Read the items of a list of files, splitting the work for parallel streams.
+ *
+ * <p>The spliterator is split between files first. When a single large uncompressed file remains,
+ * it is split into byte ranges, each one parsed by its own parser. A range starts at a line
+ * beginning with {@code '{'}, which is the beginning of an item for NDJSON files and for pretty
+ * printed files where only the top level objects start at the beginning of a line.
+ *
+ * <p>The items are provided in the file order, then in the order in the file. An {@link
+ * ItemFilter} can select the items of each file, and a {@link FileListener} can be told when a file
+ * not split has been read, after its last item was provided.
+ *
+ * @param <T> The item type.
+ */
+public final class JsonItemSpliterator<T> implements Spliterator<FileItem<T>>, AutoCloseable {
+  private static final SimpleLogger log = SimpleLogger.of(JsonItemSpliterator.class);
+
+  /** Files or ranges smaller than twice this size are not split. */
+  public static final long DEFAULT_MIN_SPLIT_SIZE = 32L * 1024 * 1024;
+
+  private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+  private final TracingContext ctx;
+  private final Class<T> klass;
+  private final JsonProjection<T> projection;
+  private final long minSplitSize;
+  private final ItemFilter<T> filter;
+  private final FileListener listener;
+  private final Set<JsonItemReader<T>> openReaders;
+  private final List<Chunk> chunks;
+  private int index;
+  private Chunk chunk;
+  private JsonItemReader<T> reader;
+
+  /** The filter of the items of the current chunk, {@code null} if all the items are provided. */
+  private Predicate<FileItem<T>> chunkFilter;
+
+  /** The last item read, before it is filtered. */
+  private FileItem<T> next;
+
+  /** Keep the item read, created once to not allocate it for each item. */
+  private final Consumer<FileItem<T>> setNext = item -> next = item;
+
+  private JsonItemSpliterator(
+      TracingContext ctx,
+      Class<T> klass,
+      JsonProjection<T> projection,
+      long minSplitSize,
+      ItemFilter<T> filter,
+      FileListener listener,
+      Set<JsonItemReader<T>> openReaders,
+      List<Chunk> chunks) {
+    this.ctx = ctx;
+    this.klass = klass;
+    this.projection = projection;
+    this.minSplitSize = minSplitSize;
+    this.filter = filter;
+    this.listener = listener;
+    this.openReaders = openReaders;
+    this.chunks = chunks;
+  }
+
+  /** Filter of the items of the files read by a spliterator. */
+  public interface ItemFilter<T> {
+    /**
+     * Create the filter of the items of a file, called before the first item of the file or of a
+     * range of the file by the thread reading it. The filter is only used by this thread.
+     *
+     * @param fileRef The file.
+     * @return The filter of the items of the file.
+     */
+    Predicate<FileItem<T>> forFile(FileRef fileRef);
+  }
+
+  /** Listener of the files read by a spliterator. */
+  public interface FileListener {
+    /**
+     * Called when a whole file has been read, after its last item was provided, by the thread
+     * reading it. The files split into ranges are not notified.
+     *
+     * @param fileRef The file.
+     * @param failed {@code true} if the file couldn't be read completely.
+     */
+    void fileRead(FileRef fileRef, boolean failed);
+  }
+
+  /**
+   * Create a spliterator reading a list of files.
+   *
+   * @param ctx Tracing context.
+   * @param files The files to read.
+   * @param klass The item class.
+   * @param minSplitSize The minimum size of a byte range.
+   * @param <T> The item type.
+   * @return The spliterator.
+   */
+  public static <T> JsonItemSpliterator<T> of(
+      TracingContext ctx, List<FileRef> files, Class<T> klass, long minSplitSize) {
+    return of(ctx, files, klass, null, minSplitSize, null, null);
+  }
+
+  /**
+   * Create a spliterator reading a projection of the items of a list of files.
+   *
+   * @param ctx Tracing context.
+   * @param files The files to read.
+   * @param projection The part of the items to read.
+   * @param minSplitSize The minimum size of a byte range.
+   * @param <T> The item type.
+   * @return The spliterator.
+   */
+  public static <T> JsonItemSpliterator<T> of(
+      TracingContext ctx, List<FileRef> files, JsonProjection<T> projection, long minSplitSize) {
+    return of(ctx, files, projection.itemClass(), projection, minSplitSize, null, null);
+  }
+
+  private static <T> JsonItemSpliterator<T> of(
+      TracingContext ctx,
+      List<FileRef> files,
+      Class<T> klass,
+      JsonProjection<T> projection,
+      long minSplitSize,
+      ItemFilter<T> filter,
+      FileListener listener) {
+    var chunks =
+        files.stream().map(f -> new Chunk(f, 0, f.getSize())).collect(Collectors.toList());
+    return new JsonItemSpliterator<>(
+        ctx,
+        klass,
+        projection,
+        minSplitSize,
+        filter,
+        listener,
+        ConcurrentHashMap.newKeySet(),
+        chunks);
+  }
+
+  /**
+   * Create a stream of the items of a list of files.
+   *
+   * <p>The stream is sequential, it can be made parallel with {@link Stream#parallel()}.
+   *
+   * @param ctx Tracing context.
+   * @param files The files to read.
+   * @param klass The item class.
+   * @param <T> The item type.
+   * @return The stream of the items, closing the open files when closed.
+   */
+  public static <T> Stream<FileItem<T>> stream(
+      TracingContext ctx, List<FileRef> files, Class<T> klass) {
+    return stream(of(ctx, files, klass, DEFAULT_MIN_SPLIT_SIZE));
+  }
+
+  /**
+   * Create a stream of the items of a list of files accepted by a filter.
+   *
+   * <p>The stream is sequential, it can be made parallel with {@link Stream#parallel()}.
+   *
+   * @param ctx Tracing context.
+   * @param files The files to read.
+   * @param klass The item class.
+   * @param filter The filter of the items of each file.
+   * @param <T> The item type.
+   * @return The stream of the items, closing the open files when closed.
+   */
+  public static <T> Stream<FileItem<T>> stream(
+      TracingContext ctx, List<FileRef> files, Class<T> klass, ItemFilter<T> filter) {
+    return stream(of(ctx, files, klass, null, DEFAULT_MIN_SPLIT_SIZE, filter, null));
+  }
+
+  /**
+   * Create a stream of a projection of the items of a list of files.
+   *
+   * <p>The stream is sequential, it can be made parallel with {@link Stream#parallel()}.
+   *
+   * @param ctx Tracing context.
+   * @param files The files to read.
+   * @param projection The part of the items to read.
+   * @param <T> The item type.
+   * @return The stream of the items, closing the open files when closed.
+   */
+  public static <T> Stream<FileItem<T>> stream(
+      TracingContext ctx, List<FileRef> files, JsonProjection<T> projection) {
+    return stream(ctx, files, projection, null, null);
+  }
+
+  /**
+   * Create a stream of a projection of the items of a list of files accepted by a filter, telling
+   * a listener when each file has been read.
+   *
+   * <p>The stream is sequential, it can be made parallel with {@link Stream#parallel()}.
+   *
+   * @param ctx Tracing context.
+   * @param files The files to read.
+   * @param projection The part of the items to read.
+   * @param filter The filter of the items of each file, or {@code null}.
+   * @param listener The listener of the files read, or {@code null}.
+   * @param <T> The item type.
+   * @return The stream of the items, closing the open files when closed.
+   */
+  public static <T> Stream<FileItem<T>> stream(
+      TracingContext ctx,
+      List<FileRef> files,
+      JsonProjection<T> projection,
+      ItemFilter<T> filter,
+      FileListener listener) {
+    return stream(
+        of(
+            ctx,
+            files,
+            projection.itemClass(),
+            projection,
+            DEFAULT_MIN_SPLIT_SIZE,
+            filter,
+            listener));
+  }
+
+  private static <T> Stream<FileItem<T>> stream(JsonItemSpliterator<T> spliterator) {
+    return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super FileItem<T>> action) {
+    while (true) {
+      if (reader == null) {
+        if (index >= chunks.size()) return false;
+        chunk = chunks.get(index++);
+        reader = openReader(chunk);
+        chunkFilter = filter != null ? filter.forFile(chunk.fileRef) : null;
+      }
+      if (chunkFilter == null) {
+        if (reader.tryAdvance(action)) return true;
+      } else {
+        while (reader.tryAdvance(setNext)) {
+          var item = next;
+          next = null;
+          if (chunkFilter.test(item)) {
+            action.accept(item);
+            return true;
+          }
+        }
+      }
+      // The reader closes itself at the end of the chunk.
+      openReaders.remove(reader);
+      if (listener != null && chunk.isWholeFile()) {
+        listener.fileRead(chunk.fileRef, reader.isFailed());
+      }
+      reader = null;
+      chunkFilter = null;
+    }
+  }
+
+  private JsonItemReader<T> openReader(Chunk chunk) {
+    JsonItemReader<T> chunkReader;
+    if (chunk.isWholeFile()) {
+      chunkReader =
+          projection != null
+              ? new JsonItemReader<>(ctx, chunk.fileRef, projection, null)
+              : new JsonItemReader<>(ctx, chunk.fileRef, klass, null);
+    } else {
+      chunkReader =
+          projection != null
+              ? new JsonItemReader<>(ctx, chunk.fileRef, projection, chunk.start, chunk.end)
+              : new JsonItemReader<>(ctx, chunk.fileRef, klass, chunk.start, chunk.end);
+    }
+    openReaders.add(chunkReader);
+    return chunkReader;
+  }
+
+  @Override
+  public Spliterator<FileItem<T>> trySplit() {
+    // Only the chunks not yet started can be given away.
+    if (reader != null) return null;
+
+    var remaining = chunks.size() - index;
+    if (remaining >= 2) {
+      var middle = index + remaining / 2;
+      var prefix = new ArrayList<>(chunks.subList(index, middle));
+      index = middle;
+      return new JsonItemSpliterator<>(
+          ctx, klass, projection, minSplitSize, filter, listener, openReaders, prefix);
+    }
+
+    if (remaining == 1) {
+      var chunk = chunks.get(index);
+      if (chunk.end - chunk.start < 2 * minSplitSize) return null;
+      // A compressed file can only be decoded from the beginning.
+      if (chunk.fileRef.getCompression() != Compression.NONE) return null;
+      var position = findItemStart(chunk);
+      if (position < 0 || chunk.end - position < minSplitSize) return null;
+      chunks.set(index, new Chunk(chunk.fileRef, position, chunk.end));
+      var prefix = new ArrayList<Chunk>(1);
+      prefix.add(new Chunk(chunk.fileRef, chunk.start, position));
+      return new JsonItemSpliterator<>(
+          ctx, klass, projection, minSplitSize, filter, listener, openReaders, prefix);
+    }
+
+    return null;
+  }
+
+  /**
+   * Find the first line starting with {@code '{'} after the middle of a chunk.
+   *
+   * @param chunk The chunk.
+   * @return The position of the {@code '{'}, or -1 if none was found.
+   */
+  private long findItemStart(Chunk chunk) {
+    var start = chunk.start + (chunk.end - chunk.start) / 2;
+    try (var channel = FileChannel.open(chunk.fileRef.getPath())) {
+      var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+      // The byte before the start position is needed to detect a line beginning.
+      var position = start - 1;
+      var previous = (byte) 0;
+      while (position < chunk.end) {
+        buffer.clear();
+        var count = channel.read(buffer, position);
+        if (count <= 0) break;
+        for (int i = 0; i < count && position + i < chunk.end; ++i) {
+          var current = buffer.get(i);
+          if (previous == '\n' && current == '{') return position + i;
+          previous = current;
+        }
+        position += count;
+      }
+    } catch (IOException e) {
+      log.entry("example_split_file_failure")
+          .context(ctx)
+          .with("path", chunk.fileRef.getPath())
+          .warn(e);
+    }
+    return -1;
+  }
+
+  @Override
+  public long estimateSize() {
+    // The number of items is unknown, the number of bytes is a good estimate of the work.
+    var size = 0L;
+    for (int i = index; i < chunks.size(); ++i) {
+      var chunk = chunks.get(i);
+      size += chunk.end - chunk.start;
+    }
+    return size;
+  }
+
+  @Override
+  public int characteristics() {
+    return Spliterator.ORDERED | Spliterator.NONNULL;
+  }
+
+  /** Close the files left open, including the ones opened by the split parts. */
+  @Override
+  public void close() {
+    for (JsonItemReader<T> openReader : openReaders) {
+      openReader.close();
+    }
+    openReaders.clear();
+  }
+
+  /** A range of a file. */
+  private static final class Chunk {
+    private final FileRef fileRef;
+    private final long start;
+    private final long end;
+
+    private Chunk(FileRef fileRef, long start, long end) {
+      this.fileRef = fileRef;
+      this.start = start;
+      this.end = end;
+    }
+
+    private boolean isWholeFile() {
+      return start == 0 && end == fileRef.getSize();
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/** Content of the file manifest, the summary of the files read by the last inventory. */
+public final class JsonManifest {
+  private String fingerprint;
+  private Map<String, Entry> files = new TreeMap<>();
+
+  /** A digest of the configuration, the manifest is ignored when it changes. */
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  public void setFingerprint(String fingerprint) {
+    this.fingerprint = fingerprint;
+  }
+
+  /** The file entries by relative path. */
+  public Map<String, Entry> getFiles() {
+    return files;
+  }
+
+  public void setFiles(Map<String, Entry> files) {
+    this.files = Objects.requireNonNull(files);
+  }
+
+  /** The state of a file and the items it contains. */
+  public static final class Entry {
+    private long size;
+    private long lastModified;
+    private String hash;
+    private List<Item> items = List.of();
+
+    public long getSize() {
+      return size;
+    }
+
+    public void setSize(long size) {
+      this.size = size;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+      this.lastModified = lastModified;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    public void setHash(String hash) {
+      this.hash = hash;
+    }
+
+    public List<Item> getItems() {
+      return items;
+    }
+
+    public void setItems(List<Item> items) {
+      this.items = Objects.requireNonNull(items);
+    }
+  }
+
+  /** An item accepted by the filter. */
+  public static final class Item {
+    private String id;
+    private String label;
+
+    public String getId() {
+      return id;
+    }
+
+    public void setId(String id) {
+      this.id = id;
+    }
+
+    public String getLabel() {
+      return label;
+    }
+
+    public void setLabel(String label) {
+      this.label = label;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Read only a part of the items: the identifier, the label, the name and some custom attributes.
+ *
+ * <p>The parser goes through the tokens of an item and skips the values of the other attributes
+ * without building them. Fields, foreign keys, contacts and the other custom attributes are never
+ * created, which makes reading the files for the inventory much cheaper.
+ *
+ * @param <T> The item type.
+ */
+public final class JsonProjection<T> {
+  private final Class<T> klass;
+  private final Constructor<T> constructor;
+  private final Set<String> attributes;
+
+  private JsonProjection(Class<T> klass, Constructor<T> constructor, Set<String> attributes) {
+    this.klass = klass;
+    this.constructor = constructor;
+    this.attributes = attributes;
+  }
+
+  /**
+   * Create a projection.
+   *
+   * @param klass The item class.
+   * @param attributes The names of the custom attributes to read.
+   * @param <T> The item type.
+   * @return The projection.
+   */
+  public static <T extends JsonItem> JsonProjection<T> of(
+      Class<T> klass, Collection<String> attributes) {
+    // An attribute with the name of a property is not a custom attribute.
+    var customAttributes = new HashSet<>(attributes);
+    var description =
+        Json.MAPPER.getDeserializationConfig().introspect(Json.MAPPER.constructType(klass));
+    for (BeanPropertyDefinition property : description.findProperties()) {
+      customAttributes.remove(property.getName());
+    }
+    try {
+      var constructor = klass.getDeclaredConstructor();
+      return new JsonProjection<>(klass, constructor, Set.copyOf(customAttributes));
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException(klass.getName() + " has no default constructor", e);
+    }
+  }
+
+  public Class<T> itemClass() {
+    return klass;
+  }
+
+  /**
+   * Read an item.
+   *
+   * @param parser The parser, on the token starting the item.
+   * @return The item.
+   * @throws IOException If the item can't be read.
+   */
+  T read(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new JsonParsingException(
+          "Expected an object, found " + parser.currentToken() + " at " + parser.currentLocation());
+    }
+    var item = newItem();
+    var jsonItem = (JsonItem) item;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      var name = parser.currentName();
+      parser.nextToken();
+      switch (name) {
+        case "id":
+          jsonItem.setId(text(parser));
+          break;
+        case "label":
+          jsonItem.setLabel(text(parser));
+          break;
+        case "name":
+          jsonItem.setName(text(parser));
+          break;
+        default:
+          if (attributes.contains(name)) {
+            jsonItem.setCustomProperty(name, Json.MAPPER.readTree(parser));
+          } else {
+            parser.skipChildren();
+          }
+      }
+    }
+    return item;
+  }
+
+  private static String text(JsonParser parser) throws IOException {
+    if (parser.currentToken().isScalarValue()) return parser.getValueAsString();
+    parser.skipChildren();
+    return null;
+  }
+
+  private T newItem() {
+    try {
+      return constructor.newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new JsonParsingException("Can't create an instance of " + klass.getName(), e);
+    }
+  }
+}
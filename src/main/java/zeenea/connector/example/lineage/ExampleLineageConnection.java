@@ -18,6 +18,7 @@ import zeenea.connector.example.file.FileRepository;
 import zeenea.connector.example.json.JsonProcess;
 import zeenea.connector.example.log.SimpleLogger;
 import zeenea.connector.example.log.TracingContext;
+import zeenea.connector.example.stream.ParallelMapper;
 import zeenea.connector.process.DataProcess;
 import zeenea.connector.property.PropertyDefinition;
 import zeenea.connector.synchronize.SynchronizeConnection;
@@ -40,6 +41,9 @@ public class ExampleLineageConnection implements SynchronizeConnection {
   /** FileFinder instance. */
   private final FileRepository fileRepository;
 
+  /** Mapper of the extracted items, in parallel. */
+  private final ParallelMapper itemMapper;
+
   /**
    * Construct a new instance of {@code ExampleLineageConnection}.
    *
@@ -51,6 +55,11 @@ public class ExampleLineageConnection implements SynchronizeConnection {
     this.config = Objects.requireNonNull(config);
     this.mapper = Objects.requireNonNull(mapper);
     this.fileRepository = Objects.requireNonNull(fileRepository);
+    this.itemMapper =
+        new ParallelMapper(
+            "example-lineage-" + config.connectionCode(),
+            config.extractionParallelism(),
+            config.extractionWindow());
   }
 
   /**
@@ -77,24 +86,28 @@ public class ExampleLineageConnection implements SynchronizeConnection {
     var ctx = TracingContext.synchronize(config.connectionCode());
     log.entry("example_lineage_synchronize_start").context(ctx).info();
 
-    return fileRepository
-        .loadFileItems(ctx, JsonProcess.class)
-        .map(
-            fileItem -> {
-              var process = fileItem.getItem();
-              return DataProcess.builder()
-                  .id(mapper.parseItemId(process.getId()))
-                  .name(process.getName())
-                  .description(process.getDescription())
-                  .properties(mapper.properties(ctx, fileItem, config.customProperties()))
-                  .contacts(mapper.contacts(ctx, process))
-                  .sources(mapper.itemReferences(ctx, process.getSources()))
-                  .targets(mapper.itemReferences(ctx, process.getTargets()))
-                  .operations(mapper.operations(ctx, process.getOperations()))
-                  .build();
-            });
+    // The processes are mapped in parallel, in the order of the files.
+    return itemMapper.map(
+        ctx,
+        fileRepository.loadFileItems(ctx, JsonProcess.class),
+        fileItem -> {
+          var process = fileItem.getItem();
+          return DataProcess.builder()
+              .id(mapper.parseItemId(process.getId()))
+              .name(process.getName())
+              .description(process.getDescription())
+              .properties(mapper.properties(ctx, fileItem, config.customPropertyConverters()))
+              .contacts(mapper.contacts(ctx, process))
+              .sources(mapper.itemReferences(ctx, process.getSources()))
+              .targets(mapper.itemReferences(ctx, process.getTargets()))
+              .operations(mapper.operations(ctx, process.getOperations()))
+              .build();
+        });
   }
 
   @Override
-  public void close() {}
+  public void close() {
+    itemMapper.close();
+    fileRepository.close();
+  }
 }
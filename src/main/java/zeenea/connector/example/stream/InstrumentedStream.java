@@ -0,0 +1,124 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.stream;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Count the elements of a stream and report them when the stream ends.
+ *
+ * <p>The listener is called once, either when the consumer reaches the end of the stream or when it
+ * closes the stream after having started to consume it.
+ *
+ * <p>The platform may take the iterator of a stream and close the stream before consuming the
+ * iterator. Closing a stream that has not been consumed yet is ignored: the listener is called when
+ * the elements are consumed.
+ *
+ * @param <T> The element type.
+ */
+public final class InstrumentedStream<T> implements Spliterator<T> {
+  private final Spliterator<T> source;
+  private final Listener listener;
+  private final long startTime = System.nanoTime();
+  private final AtomicBoolean ended = new AtomicBoolean();
+  private volatile boolean started;
+  private long count;
+
+  private InstrumentedStream(Spliterator<T> source, Listener listener) {
+    this.source = source;
+    this.listener = listener;
+  }
+
+  /**
+   * Instrument a stream.
+   *
+   * @param source The stream, closed with the returned stream.
+   * @param listener The listener called when the stream ends.
+   * @param <T> The element type.
+   * @return The instrumented stream.
+   */
+  public static <T> Stream<T> of(Stream<T> source, Listener listener) {
+    var instrumented = new InstrumentedStream<>(source.spliterator(), listener);
+    return StreamSupport.stream(instrumented, false)
+        .onClose(source::close)
+        .onClose(instrumented::close);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    started = true;
+    if (source.tryAdvance(action)) {
+      ++count;
+      return true;
+    }
+    end(true);
+    return false;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super T> action) {
+    started = true;
+    source.forEachRemaining(
+        e -> {
+          ++count;
+          action.accept(e);
+        });
+    end(true);
+  }
+
+  @Override
+  public Spliterator<T> trySplit() {
+    // The elements are counted by a single consumer.
+    return null;
+  }
+
+  @Override
+  public long estimateSize() {
+    return source.estimateSize();
+  }
+
+  @Override
+  public int characteristics() {
+    // A sized stream can be counted without being consumed.
+    return source.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+  }
+
+  @Override
+  public Comparator<? super T> getComparator() {
+    return source.getComparator();
+  }
+
+  private void close() {
+    if (started) end(false);
+  }
+
+  private void end(boolean complete) {
+    if (ended.compareAndSet(false, true)) {
+      listener.onEnd(count, Duration.ofNanos(System.nanoTime() - startTime), complete);
+    }
+  }
+
+  /** Listener of the end of a stream. */
+  @FunctionalInterface
+  public interface Listener {
+    /**
+     * Called once when the stream ends.
+     *
+     * @param count The number of elements consumed.
+     * @param duration The time since the stream was created.
+     * @param complete {@code true} if the end of the stream was reached, {@code false} if it was
+     *     closed before.
+     */
+    void onEnd(long count, Duration duration, boolean complete);
+  }
+}
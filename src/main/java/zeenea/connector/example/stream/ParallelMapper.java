@@ -0,0 +1,183 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.stream;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import zeenea.connector.example.log.TracingContext;
+
+/**
+ * Map the elements of a stream in parallel, keeping their order.
+ *
+ * <p>The elements are mapped by a dedicated pool of threads. At most a window of elements are
+ * mapped at the same time: the input stream is only consumed when the result of the first element
+ * of the window has been consumed. This bounds the memory used by the results waiting to be
+ * consumed, and the input stream is not read faster than the results are used.
+ *
+ * <p>The threads are created when a stream is first mapped, and stopped when the mapper is closed.
+ * A closed mapper can't map streams anymore, and the streams it was mapping fail with a {@link
+ * CancellationException} when they are consumed.
+ */
+public final class ParallelMapper implements AutoCloseable {
+  private final String name;
+  private final int parallelism;
+  private final int window;
+  private ExecutorService executor;
+  private boolean closed;
+
+  /**
+   * Create a new mapper.
+   *
+   * @param name The name of the threads, followed by their number.
+   * @param parallelism The number of threads. With a single thread, the elements are mapped by the
+   *     thread consuming the stream.
+   * @param window The maximum number of elements being mapped or waiting to be consumed.
+   */
+  public ParallelMapper(String name, int parallelism, int window) {
+    if (parallelism < 1) throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+    if (window < 1) throw new IllegalArgumentException("Invalid window: " + window);
+    this.name = name;
+    this.parallelism = parallelism;
+    this.window = window;
+  }
+
+  /**
+   * Map the elements of a stream.
+   *
+   * <p>The function is called in the tracing context. If it fails for an element, the exception is
+   * thrown when the element is consumed and the pending elements are abandoned.
+   *
+   * @param ctx Tracing context.
+   * @param input The input stream, closed with the returned stream.
+   * @param function The function to apply to each element.
+   * @param <T> The input element type.
+   * @param <R> The result element type.
+   * @return The stream of the results, in the order of the input stream.
+   * @throws IllegalStateException If the mapper is closed.
+   */
+  public <T, R> Stream<R> map(
+      TracingContext ctx, Stream<T> input, Function<? super T, ? extends R> function) {
+    if (parallelism == 1) {
+      checkNotClosed();
+      return input.map(function);
+    }
+    var spliterator = new MappingSpliterator<T, R>(executor(), input.iterator(), ctx, function);
+    return StreamSupport.stream(spliterator, false)
+        .onClose(spliterator::cancel)
+        .onClose(input::close);
+  }
+
+  private synchronized ExecutorService executor() {
+    checkNotClosed();
+    if (executor == null) executor = Executors.newFixedThreadPool(parallelism, threadFactory());
+    return executor;
+  }
+
+  private synchronized void checkNotClosed() {
+    if (closed) throw new IllegalStateException("The mapper " + name + " is closed");
+  }
+
+  private ThreadFactory threadFactory() {
+    var count = new AtomicInteger();
+    return r -> {
+      var thread = new Thread(r, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /** Stop the threads, the elements being mapped are abandoned. */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    if (executor == null) return;
+    // The elements not started are cancelled, their consumers would wait for them forever.
+    for (Runnable task : executor.shutdownNow()) {
+      if (task instanceof Future) ((Future<?>) task).cancel(false);
+    }
+    executor = null;
+  }
+
+  /** Spliterator submitting the mapping of a window of elements ahead of the consumption. */
+  private final class MappingSpliterator<T, R> extends Spliterators.AbstractSpliterator<R> {
+    private final ExecutorService executor;
+    private final Iterator<T> input;
+    private final TracingContext ctx;
+    private final Function<? super T, ? extends R> function;
+    private final ArrayDeque<Future<R>> pending = new ArrayDeque<>();
+
+    private MappingSpliterator(
+        ExecutorService executor,
+        Iterator<T> input,
+        TracingContext ctx,
+        Function<? super T, ? extends R> function) {
+      super(Long.MAX_VALUE, Spliterator.ORDERED);
+      this.executor = executor;
+      this.input = input;
+      this.ctx = ctx;
+      this.function = function;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super R> action) {
+      while (pending.size() < window && input.hasNext()) {
+        var element = input.next();
+        try {
+          pending.add(executor.submit(() -> ctx.<R>with(() -> function.apply(element))));
+        } catch (RejectedExecutionException e) {
+          cancel();
+          throw new CancellationException("The mapper " + name + " is closed");
+        }
+      }
+      var next = pending.poll();
+      if (next == null) return false;
+      action.accept(get(next));
+      return true;
+    }
+
+    private R get(Future<R> future) {
+      try {
+        return future.get();
+      } catch (CancellationException e) {
+        cancel();
+        throw new CancellationException("The mapper " + name + " is closed");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        cancel();
+        throw new CancellationException("Interrupted while mapping the elements");
+      } catch (ExecutionException e) {
+        cancel();
+        var cause = e.getCause();
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        throw new IllegalStateException(cause);
+      }
+    }
+
+    /** Abandon the elements being mapped. */
+    private void cancel() {
+      for (Future<R> future : pending) {
+        future.cancel(true);
+      }
+      pending.clear();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import zeenea.connector.common.IdentificationProperty;
+import zeenea.connector.common.ItemIdentifier;
+
+class ExampleMapperTest {
+  private static final Pattern ID_SEP = Pattern.compile("/");
+
+  private final ExampleMapper mapper = new ExampleMapper("test");
+
+  /** The previous implementation, splitting the identifier with a regex. */
+  private static ItemIdentifier parseItemIdWithRegex(String id) {
+    return ItemIdentifier.of(
+        ID_SEP
+            .splitAsStream(id)
+            .filter(Predicate.not(String::isEmpty))
+            .map(ExampleMapperTest::parseIdPropertyWithRegex)
+            .collect(Collectors.toList()));
+  }
+
+  private static IdentificationProperty parseIdPropertyWithRegex(String property) {
+    var index = property.indexOf('=');
+    if (index > 0) {
+      return IdentificationProperty.of(property.substring(0, index), property.substring(index + 1));
+    } else {
+      var value = index == 0 ? property.substring(1) : property;
+      return IdentificationProperty.of("id", value);
+    }
+  }
+
+  private static List<String> parseLabelsWithRegex(String label) {
+    return ID_SEP
+        .splitAsStream(label)
+        .filter(Predicate.not(String::isEmpty))
+        .collect(Collectors.toList());
+  }
+
+  /** The result of a parser, or the exception it throws, comparable between parsers. */
+  private static <T> Object outcome(Function<String, T> parser, String text) {
+    try {
+      return parser.apply(text);
+    } catch (RuntimeException e) {
+      return e.getClass().getName() + ": " + e.getMessage();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "",
+        "/",
+        "//",
+        "a",
+        "a//b",
+        "/a/b/",
+        "=v",
+        "k=",
+        "=",
+        "k=v=w",
+        "k=v/",
+        "a/k=v",
+        "k=v/=w/x",
+        "a/=/b=",
+        "database=db/schema=s/table=t"
+      })
+  @DisplayName("parseItemId() should parse the identifiers like the regex implementation")
+  void testParseItemId(String id) {
+    // The empty identifiers and values are rejected by the SDK.
+    var expected = outcome(ExampleMapperTest::parseItemIdWithRegex, id);
+
+    Assertions.assertThat(outcome(mapper::parseItemIdUncached, id)).isEqualTo(expected);
+    Assertions.assertThat(outcome(mapper::parseItemId, id)).isEqualTo(expected);
+    if (expected instanceof ItemIdentifier) {
+      // The cached identifier is shared.
+      Assertions.assertThat(mapper.parseItemId(id)).isSameAs(mapper.parseItemId(id));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "/", "a//b", "/a/b/", "=v", "k=v=w", "Sales/Orders"})
+  @DisplayName("parseItemLabels() should split the labels like the regex implementation")
+  void testParseLabels(String label) {
+    Assertions.assertThat(mapper.parseItemLabels("ignored", label))
+        .isEqualTo(parseLabelsWithRegex(label));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "a//b", "k=v=w/x", "=v/k=", "=v/k=x"})
+  @DisplayName("parseItemLabels() should use the identifier values without a label")
+  void testLabelsFromId(String id) {
+    var expected =
+        outcome(
+            text ->
+                parseItemIdWithRegex(text).getIdentificationProperties().stream()
+                    .map(IdentificationProperty::getValue)
+                    .collect(Collectors.toList()),
+            id);
+
+    Assertions.assertThat(outcome(text -> mapper.parseItemLabels(text, null), id))
+        .isEqualTo(expected);
+  }
+
+  @Test
+  @DisplayName("parseItemLabels() should return unmodifiable lists")
+  void testUnmodifiableLabels() {
+    var labels = mapper.parseItemLabels("id", "a/b");
+
+    Assertions.assertThatThrownBy(() -> labels.add("c"))
+        .isInstanceOf(UnsupportedOperationException.class);
+    Assertions.assertThatThrownBy(() -> mapper.parseItemLabels("a/b", null).clear())
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+}
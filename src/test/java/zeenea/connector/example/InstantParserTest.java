@@ -0,0 +1,100 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class InstantParserTest {
+
+  private final InstantParser parser = new InstantParser(16);
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "2024-01-02T03:04:05Z",
+        "2024-01-02T03:04:05.Z",
+        "2024-01-02T03:04:05.1Z",
+        "2024-01-02T03:04:05.123456789Z",
+        "2024-01-02T03:04:05+01:00",
+        "2024-01-02T03:04:05-05:30",
+        "2024-01-02T03:04:05+18:00",
+        "2024-02-29T23:59:59Z",
+        "2000-02-29T00:00:00Z",
+        "1969-12-31T23:59:59.5Z",
+        "0001-01-01T00:00:00Z",
+        "9999-12-31T23:59:59Z",
+        "2024-01-02T03:04Z",
+        "2024-01-02T03:04:05+01:00:30",
+        "2024-01-02T03:04:05+01:00[Europe/Paris]",
+        "2024-01-02t03:04:05z",
+        "+10000-01-01T00:00:00Z"
+      })
+  @DisplayName("parse() should parse the instants like ZonedDateTime")
+  void testValid(String text) {
+    var expected = ZonedDateTime.parse(text).toInstant();
+
+    Assertions.assertThat(parser.parse(text)).isEqualTo(expected);
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "",
+        "garbage",
+        "2024-01-02",
+        "2024-01-02 03:04:05Z",
+        "2024-01-02T03:04:05",
+        "2024-01-02T03:04:05.1234567891Z",
+        "2024-01-02T24:00:00Z",
+        "2024-01-02T03:60:00Z",
+        "2024-01-02T03:04:60Z",
+        "2024-13-01T00:00:00Z",
+        "2024-00-01T00:00:00Z",
+        "2024-01-00T00:00:00Z",
+        "2024-04-31T00:00:00Z",
+        "2023-02-29T00:00:00Z",
+        "1900-02-29T00:00:00Z",
+        "2024-01-02T03:04:05+18:01",
+        "2024-01-02T03:04:05+0100",
+        "2024-01-02T03:04:05Z trailing"
+      })
+  @DisplayName("parse() should return null for the values rejected by ZonedDateTime")
+  void testInvalid(String text) {
+    Assertions.assertThatThrownBy(() -> ZonedDateTime.parse(text))
+        .isInstanceOf(DateTimeParseException.class);
+
+    Assertions.assertThat(parser.parse(text)).isNull();
+  }
+
+  @Test
+  @DisplayName("parse() should return the cached result of a repeated value")
+  void testCache() {
+    var text = "2024-01-02T03:04:05+01:00[Europe/Paris]";
+
+    Assertions.assertThat(parser.parse(text)).isSameAs(parser.parse(text));
+    Assertions.assertThat(parser.parse("invalid")).isNull();
+    Assertions.assertThat(parser.parse("invalid")).isNull();
+  }
+
+  @Test
+  @DisplayName("parseIso() should parse the common forms without ZonedDateTime")
+  void testFastPath() {
+    Assertions.assertThat(InstantParser.parseIso("2024-01-02T03:04:05.250Z"))
+        .isEqualTo(Instant.parse("2024-01-02T03:04:05.250Z"));
+    Assertions.assertThat(InstantParser.parseIso("2024-01-02T03:04:05+02:00"))
+        .isEqualTo(Instant.parse("2024-01-02T01:04:05Z"));
+    Assertions.assertThat(InstantParser.parseIso("2024-01-02T03:04:05+01:00[Europe/Paris]"))
+        .isNull();
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import zeenea.connector.example.filter.FilterItem;
+import zeenea.connector.example.filter.FilterKey;
+import zeenea.connector.example.filter.FilterSchema;
+import zeenea.connector.example.filter.FilterValue;
+import zeenea.connector.example.json.JsonDataset;
+import zeenea.connector.example.log.TracingContext;
+import zeenea.connector.example.property.CustomProperties;
+import zeenea.connector.example.property.CustomProperty;
+import zeenea.connector.property.LongTextPropertyValue;
+import zeenea.connector.property.PropertiesBuilder;
+import zeenea.connector.property.PropertyValue;
+
+class PropertyConvertersTest {
+  private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+
+  private final TracingContext ctx = TracingContext.test();
+
+  private static PropertyConverters converters(CustomProperty... properties) {
+    return PropertyConverters.of(new CustomProperties(List.of(properties)));
+  }
+
+  private static JsonDataset item(String attribute, JsonNode value) {
+    var item = new JsonDataset();
+    item.setId("orders");
+    item.setName("orders");
+    item.setCustomProperty(attribute, value);
+    return item;
+  }
+
+  private Map<String, PropertyValue> properties(PropertyConverters converters, JsonDataset item) {
+    return converters.addProperties(ctx, PropertiesBuilder.create(), item).build();
+  }
+
+  private static FilterItem filterItem(PropertyConverters converters, JsonDataset item) {
+    var keys = new ArrayList<FilterKey>();
+    converters.addFilterKeys(keys);
+    var filterItem = FilterSchema.of(keys).newItem();
+    converters.setFilterValues(item, filterItem);
+    return filterItem;
+  }
+
+  @Test
+  @DisplayName("addProperties() should convert an URL given as a string")
+  void testUrlString() {
+    var converters = converters(CustomProperty.url("doc", "documentation"));
+    var item = item("documentation", factory.textNode("https://example.com/orders"));
+
+    Assertions.assertThat(properties(converters, item))
+        .isEqualTo(Map.of("doc", PropertyValue.url(URI.create("https://example.com/orders"))));
+
+    var filterItem = filterItem(converters, item);
+    Assertions.assertThat(filterItem.get(FilterKey.text("doc_url")))
+        .isEqualTo(FilterValue.text("https://example.com/orders"));
+    Assertions.assertThat(filterItem.get(FilterKey.text("doc_label")))
+        .isEqualTo(FilterValue.unset());
+  }
+
+  @Test
+  @DisplayName("addProperties() should convert an URL given as an object with an uri and a label")
+  void testUrlObject() {
+    var converters = converters(CustomProperty.url("doc", "documentation"));
+    var value = factory.objectNode().put("uri", "https://example.com").put("label", "Example");
+    var item = item("documentation", value);
+
+    Assertions.assertThat(properties(converters, item))
+        .isEqualTo(
+            Map.of("doc", PropertyValue.url(URI.create("https://example.com"), "Example")));
+
+    var filterItem = filterItem(converters, item);
+    Assertions.assertThat(filterItem.get(FilterKey.text("doc_url")))
+        .isEqualTo(FilterValue.text("https://example.com"));
+    Assertions.assertThat(filterItem.get(FilterKey.text("doc_label")))
+        .isEqualTo(FilterValue.text("Example"));
+  }
+
+  @Test
+  @DisplayName("addProperties() should ignore an URL without uri or with an invalid uri")
+  void testInvalidUrl() {
+    var converters = converters(CustomProperty.url("doc", "documentation"));
+    var withoutUri = item("documentation", factory.objectNode().put("label", "Example"));
+    var invalid = item("documentation", factory.textNode("https://example.com/a b"));
+
+    Assertions.assertThat(properties(converters, withoutUri)).isEmpty();
+    Assertions.assertThat(properties(converters, invalid)).isEmpty();
+
+    var filterItem = filterItem(converters, withoutUri);
+    Assertions.assertThat(filterItem.get(FilterKey.text("doc_url")))
+        .isEqualTo(FilterValue.unset());
+    Assertions.assertThat(filterItem.get(FilterKey.text("doc_label")))
+        .isEqualTo(FilterValue.text("Example"));
+  }
+
+  @Test
+  @DisplayName("addProperties() should convert a long text with its own value type")
+  void testLongText() {
+    var converters = converters(CustomProperty.longText("summary", "summary"));
+    var text = "First line.\nSecond line.";
+    var item = item("summary", factory.textNode(text));
+
+    Assertions.assertThat(properties(converters, item))
+        .isEqualTo(Map.of("summary", new LongTextPropertyValue(text)));
+
+    Assertions.assertThat(filterItem(converters, item).get(FilterKey.text("summary")))
+        .isEqualTo(FilterValue.text(text));
+  }
+
+  @Test
+  @DisplayName("addProperties() should convert a tag given as a string or as an array")
+  void testTag() {
+    var converters = converters(CustomProperty.tag("tags", "tags"));
+    var single = item("tags", factory.textNode("sales"));
+    var array = item("tags", factory.arrayNode().add("sales").add("orders"));
+
+    Assertions.assertThat(properties(converters, single))
+        .isEqualTo(Map.of("tags", PropertyValue.tag(List.of("sales"))));
+    Assertions.assertThat(properties(converters, array))
+        .isEqualTo(Map.of("tags", PropertyValue.tag(List.of("sales", "orders"))));
+
+    Assertions.assertThat(filterItem(converters, single).get(FilterKey.list("tags")))
+        .isEqualTo(FilterValue.list(List.of(FilterValue.text("sales"))));
+    Assertions.assertThat(filterItem(converters, array).get(FilterKey.list("tags")))
+        .isEqualTo(
+            FilterValue.list(List.of(FilterValue.text("sales"), FilterValue.text("orders"))));
+  }
+
+  @Test
+  @DisplayName("addProperties() should convert the numbers and the textual numbers")
+  void testNumber() {
+    var converters = converters(CustomProperty.number("rows", "rows"));
+    var number = item("rows", factory.numberNode(new BigDecimal("12.5")));
+    var textual = item("rows", factory.textNode("1e3"));
+
+    Assertions.assertThat(properties(converters, number))
+        .isEqualTo(Map.of("rows", PropertyValue.number(new BigDecimal("12.5"))));
+    Assertions.assertThat(properties(converters, textual))
+        .isEqualTo(Map.of("rows", PropertyValue.number(new BigDecimal("1e3"))));
+
+    // The filter values are the texts of the values.
+    Assertions.assertThat(filterItem(converters, number).get(FilterKey.text("rows")))
+        .isEqualTo(FilterValue.text("12.5"));
+    Assertions.assertThat(filterItem(converters, textual).get(FilterKey.text("rows")))
+        .isEqualTo(FilterValue.text("1e3"));
+  }
+
+  @Test
+  @DisplayName("addProperties() should ignore an invalid number and keep its filter value")
+  void testInvalidNumber() {
+    var converters = converters(CustomProperty.number("rows", "rows"));
+    var invalid = item("rows", factory.textNode("twelve"));
+    var other = item("rows", factory.booleanNode(true));
+
+    Assertions.assertThat(properties(converters, invalid)).isEmpty();
+    Assertions.assertThat(properties(converters, other)).isEmpty();
+
+    Assertions.assertThat(filterItem(converters, invalid).get(FilterKey.text("rows")))
+        .isEqualTo(FilterValue.text("twelve"));
+  }
+
+  @Test
+  @DisplayName("addProperties() should convert the strings and the valid instants")
+  void testStringAndInstant() {
+    var converters =
+        converters(
+            CustomProperty.string("owner", "owner"), CustomProperty.instant("updated", "updated"));
+    var item = item("owner", factory.textNode("Jean"));
+    item.setCustomProperty("updated", factory.textNode("2024-01-02T03:04:05Z"));
+
+    Assertions.assertThat(properties(converters, item))
+        .isEqualTo(
+            Map.of(
+                "owner",
+                PropertyValue.string("Jean"),
+                "updated",
+                PropertyValue.instant(Instant.parse("2024-01-02T03:04:05Z"))));
+
+    item.setCustomProperty("updated", factory.textNode("yesterday"));
+    Assertions.assertThat(properties(converters, item)).containsOnlyKeys("owner");
+    Assertions.assertThat(filterItem(converters, item).get(FilterKey.text("updated")))
+        .isEqualTo(FilterValue.text("yesterday"));
+  }
+
+  @Test
+  @DisplayName("setFilterValues() should not set the properties missing or null in the item")
+  void testMissingValues() {
+    var converters =
+        converters(CustomProperty.string("owner", "owner"), CustomProperty.tag("tags", "tags"));
+    var item = item("owner", factory.nullNode());
+
+    Assertions.assertThat(properties(converters, item)).isEmpty();
+
+    var filterItem = filterItem(converters, item);
+    Assertions.assertThat(filterItem.get(FilterKey.text("owner")))
+        .isEqualTo(FilterValue.unknownKey());
+    Assertions.assertThat(filterItem.get(FilterKey.list("tags")))
+        .isEqualTo(FilterValue.unknownKey());
+  }
+
+  @Test
+  @DisplayName("attributeNames() should give the attributes of the properties having the keys")
+  void testAttributeNames() {
+    var converters =
+        converters(
+            CustomProperty.url("doc", "documentation"), CustomProperty.string("owner", "owner"));
+
+    Assertions.assertThat(converters.attributeNames(Set.of(FilterKey.text("doc_label"))))
+        .containsExactly("documentation");
+    Assertions.assertThat(converters.attributeNames(Set.of(FilterKey.text("other")))).isEmpty();
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.cache;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LruCacheTest {
+
+  @Test
+  @DisplayName("put() should evict the least recently used entry")
+  void testEvictionOrder() {
+    var cache = new LruCache<String, Integer>(3);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.put("c", 3);
+
+    // a becomes the most recently used, b is the eldest.
+    Assertions.assertThat(cache.get("a")).isEqualTo(1);
+    cache.put("d", 4);
+
+    Assertions.assertThat(cache.size()).isEqualTo(3);
+    Assertions.assertThat(cache.get("b")).isNull();
+    Assertions.assertThat(cache.get("c")).isEqualTo(3);
+    Assertions.assertThat(cache.get("a")).isEqualTo(1);
+    Assertions.assertThat(cache.get("d")).isEqualTo(4);
+
+    // Replacing a value makes it the most recently used.
+    cache.put("c", 30);
+    cache.put("e", 5);
+    Assertions.assertThat(cache.get("a")).isNull();
+    Assertions.assertThat(cache.get("c")).isEqualTo(30);
+    Assertions.assertThat(cache.size()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("size() should count the entries kept after the removals")
+  void testSize() {
+    var cache = new LruCache<String, Integer>(10);
+    Assertions.assertThat(cache.size()).isEqualTo(0);
+
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.put("a", 3);
+    Assertions.assertThat(cache.size()).isEqualTo(2);
+
+    cache.remove("a");
+    cache.remove("missing");
+    Assertions.assertThat(cache.size()).isEqualTo(1);
+    Assertions.assertThat(cache.get("a")).isNull();
+
+    cache.clear();
+    Assertions.assertThat(cache.size()).isEqualTo(0);
+    Assertions.assertThat(cache.get("b")).isNull();
+  }
+
+  @Test
+  @DisplayName("put() should keep nothing in a cache of size zero")
+  void testZeroSize() {
+    var cache = new LruCache<String, Integer>(0);
+    cache.put("a", 1);
+
+    Assertions.assertThat(cache.size()).isEqualTo(0);
+    Assertions.assertThat(cache.computeIfAbsent("a", k -> 2)).isEqualTo(2);
+    Assertions.assertThat(cache.get("a")).isNull();
+  }
+
+  @Test
+  @DisplayName("computeIfAbsent() should compute the values once and not cache null")
+  void testComputeIfAbsent() {
+    var cache = new LruCache<String, Integer>(10);
+
+    Assertions.assertThat(cache.computeIfAbsent("a", String::length)).isEqualTo(1);
+    Assertions.assertThat(cache.computeIfAbsent("a", k -> 2)).isEqualTo(1);
+    Assertions.assertThat(cache.computeIfAbsent("b", k -> null)).isNull();
+    Assertions.assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("put() should keep a multiple of 16 entries in a sharded cache")
+  void testShardedSize() {
+    var cache = new LruCache<Integer, Integer>(1500);
+    for (int i = 0; i < 100_000; ++i) {
+      cache.put(i, i);
+      Assertions.assertThat(cache.size()).isLessThanOrEqualTo(1488);
+    }
+
+    // Each shard is full.
+    Assertions.assertThat(cache.size()).isEqualTo(1488);
+    // The most recent entries are kept, in any shard.
+    for (int i = 100_000 - 50; i < 100_000; ++i) {
+      Assertions.assertThat(cache.get(i)).isEqualTo(i);
+    }
+    Assertions.assertThat(cache.get(0)).isNull();
+  }
+}
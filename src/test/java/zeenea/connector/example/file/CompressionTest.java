@@ -0,0 +1,227 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zeenea.connector.example.json.JsonDataset;
+import zeenea.connector.example.json.JsonItemReader;
+import zeenea.connector.example.log.TracingContext;
+
+class CompressionTest {
+  /** The uncompressed size of a BGZF member written by the tests. */
+  private static final int BLOCK_SIZE = 60_000;
+
+  private final TracingContext ctx = TracingContext.test();
+
+  @TempDir Path root;
+
+  /** Items spanning several BGZF members and decoder buffers. */
+  private static byte[] content(int count) {
+    var content = new StringBuilder();
+    for (int i = 0; i < count; ++i) {
+      content.append("{\"id\":\"item").append(i).append("\",\"name\":\"orders\"}\n");
+    }
+    return content.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    var out = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(out)) {
+      gzip.write(content);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] content) throws IOException {
+    var out = new ByteArrayOutputStream();
+    try (var deflate = new DeflaterOutputStream(out)) {
+      deflate.write(content);
+    }
+    return out.toByteArray();
+  }
+
+  /** Write a BGZF member, see the SAM/BAM format specification. */
+  private static void writeBgzfMember(ByteArrayOutputStream out, byte[] data) {
+    var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(data);
+    deflater.finish();
+    var compressed = new byte[data.length + 1024];
+    var compressedSize = deflater.deflate(compressed);
+    deflater.end();
+    var crc = new CRC32();
+    crc.update(data);
+
+    var blockSize = 18 + compressedSize + 8;
+    out.writeBytes(new byte[] {0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0});
+    out.writeBytes(new byte[] {'B', 'C', 2, 0});
+    writeUint16(out, blockSize - 1);
+    out.write(compressed, 0, compressedSize);
+    writeUint32(out, crc.getValue());
+    writeUint32(out, data.length);
+  }
+
+  private static void writeUint16(ByteArrayOutputStream out, int value) {
+    out.write(value & 0xFF);
+    out.write((value >> 8) & 0xFF);
+  }
+
+  private static void writeUint32(ByteArrayOutputStream out, long value) {
+    writeUint16(out, (int) (value & 0xFFFF));
+    writeUint16(out, (int) ((value >> 16) & 0xFFFF));
+  }
+
+  private static byte[] bgzf(byte[] content) {
+    var out = new ByteArrayOutputStream();
+    for (int start = 0; start < content.length; start += BLOCK_SIZE) {
+      writeBgzfMember(
+          out, Arrays.copyOfRange(content, start, Math.min(content.length, start + BLOCK_SIZE)));
+    }
+    // The end of file marker is an empty member.
+    writeBgzfMember(out, new byte[0]);
+    return out.toByteArray();
+  }
+
+  private static byte[] decode(Compression compression, byte[] compressed) throws IOException {
+    try (var input = compression.decode(new ByteArrayInputStream(compressed))) {
+      var out = new ByteArrayOutputStream();
+      var buffer = new byte[1000];
+      // Alternate single bytes and buffers.
+      for (int step = 0; ; ++step) {
+        if (step % 2 == 0) {
+          var b = input.read();
+          if (b < 0) break;
+          out.write(b);
+        } else {
+          var count = input.read(buffer);
+          if (count < 0) break;
+          out.write(buffer, 0, count);
+        }
+      }
+      return out.toByteArray();
+    }
+  }
+
+  private static boolean isBgzf(byte[] compressed) throws IOException {
+    return BgzfInputStream.isBgzf(new BufferedInputStream(new ByteArrayInputStream(compressed)));
+  }
+
+  private FileRef writeFile(String name, byte[] content) throws IOException {
+    var path = root.resolve(name);
+    Files.write(path, content);
+    return new FileRef(path, root, Files.readAttributes(path, BasicFileAttributes.class));
+  }
+
+  @Test
+  @DisplayName("decode() should decode gzip files with one or several members")
+  void testGzip() throws IOException {
+    var content = content(10_000);
+    var first = Arrays.copyOfRange(content, 0, 12345);
+    var second = Arrays.copyOfRange(content, 12345, content.length);
+    var members = new ByteArrayOutputStream();
+    members.writeBytes(gzip(first));
+    members.writeBytes(gzip(second));
+
+    Assertions.assertThat(isBgzf(gzip(content))).isFalse();
+    Assertions.assertThat(decode(Compression.GZIP, gzip(content))).isEqualTo(content);
+    Assertions.assertThat(decode(Compression.GZIP, members.toByteArray())).isEqualTo(content);
+    Assertions.assertThat(decode(Compression.GZIP, gzip(new byte[0]))).isEqualTo(new byte[0]);
+  }
+
+  @Test
+  @DisplayName("decode() should decode BGZF files in order")
+  void testBgzf() throws IOException {
+    var content = content(50_000);
+    var compressed = bgzf(content);
+
+    Assertions.assertThat(isBgzf(compressed)).isTrue();
+    Assertions.assertThat(decode(Compression.GZIP, compressed)).isEqualTo(content);
+    Assertions.assertThat(decode(Compression.GZIP, bgzf(new byte[0]))).isEqualTo(new byte[0]);
+  }
+
+  @Test
+  @DisplayName("decode() should decode deflate files")
+  void testDeflate() throws IOException {
+    var content = content(10_000);
+
+    Assertions.assertThat(decode(Compression.DEFLATE, deflate(content))).isEqualTo(content);
+    Assertions.assertThat(decode(Compression.NONE, content)).isEqualTo(content);
+  }
+
+  @Test
+  @DisplayName("decode() should fail on a truncated or corrupted member")
+  void testInvalidMember() throws IOException {
+    var content = content(50_000);
+    var compressed = bgzf(content);
+    var truncated = Arrays.copyOf(compressed, compressed.length / 2);
+    var corrupted = compressed.clone();
+    // The CRC of the first member.
+    corrupted[corrupted.length - 28 - 8] ^= 1;
+    var gzip = gzip(content);
+
+    Assertions.assertThatThrownBy(() -> decode(Compression.GZIP, truncated))
+        .isInstanceOf(IOException.class);
+    Assertions.assertThatThrownBy(() -> decode(Compression.GZIP, corrupted))
+        .isInstanceOf(ZipException.class);
+    Assertions.assertThatThrownBy(
+            () -> decode(Compression.GZIP, Arrays.copyOf(gzip, gzip.length / 2)))
+        .isInstanceOf(IOException.class);
+    Assertions.assertThatThrownBy(
+            () -> decode(Compression.DEFLATE, Arrays.copyOf(deflate(content), 1000)))
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  @DisplayName("A truncated compressed file should fail without stopping the inventory")
+  void testTruncatedFile() throws IOException {
+    var content = content(50_000);
+    var compressed = bgzf(content);
+    var fileRef =
+        writeFile("items.dataset.ndjson.gz", Arrays.copyOf(compressed, compressed.length / 2));
+
+    try (var reader = new JsonItemReader<>(ctx, fileRef, JsonDataset.class, null)) {
+      var count = reader.stream().count();
+
+      Assertions.assertThat(count).isGreaterThan(0);
+      Assertions.assertThat(count).isLessThan(50_000);
+      Assertions.assertThat(reader.isFailed()).isTrue();
+    }
+  }
+
+  @Test
+  @DisplayName("The files should be known by their name without the compression suffix")
+  void testLogicalPath() throws IOException {
+    var gzip = writeFile("orders.dataset.ndjson.gz", gzip(content(10)));
+    var deflate = writeFile("orders.dataset.ndjson.deflate", deflate(content(10)));
+    var plain = writeFile("orders.gz.dataset.ndjson", content(10));
+
+    Assertions.assertThat(gzip.getCompression()).isEqualTo(Compression.GZIP);
+    Assertions.assertThat(gzip.getRelativePath()).isEqualTo("orders.dataset.ndjson.gz");
+    Assertions.assertThat(gzip.getLogicalRelativePath()).isEqualTo("orders.dataset.ndjson");
+    Assertions.assertThat(deflate.getCompression()).isEqualTo(Compression.DEFLATE);
+    Assertions.assertThat(deflate.getLogicalRelativePath()).isEqualTo("orders.dataset.ndjson");
+    Assertions.assertThat(plain.getCompression()).isEqualTo(Compression.NONE);
+    Assertions.assertThat(plain.getLogicalRelativePath()).isEqualTo("orders.gz.dataset.ndjson");
+    Assertions.assertThat(Compression.logicalName("a/b.json.gz")).isEqualTo("a/b.json");
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zeenea.connector.example.ItemFilters;
+import zeenea.connector.example.filter.Filter;
+
+class FileFinderTest {
+  private static final String EXTENSION = "dataset.ndjson";
+
+  @TempDir Path root;
+
+  private void createFiles(String... paths) throws IOException {
+    for (String path : paths) {
+      var file = root.resolve(path);
+      Files.createDirectories(file.getParent());
+      Files.writeString(file, "{}\n");
+    }
+  }
+
+  private List<String> find(Filter fileFilter) throws IOException {
+    return new FileFinder(root, EXTENSION, 4, fileFilter)
+        .find().stream().map(FileRef::getRelativePath).collect(Collectors.toList());
+  }
+
+  /** The walk of the file tree done before the parallel exploration. */
+  private Set<String> baselineWalk() throws IOException {
+    try (var files = Files.walk(root)) {
+      return files
+          .filter(Files::isRegularFile)
+          .filter(p -> p.getFileName().toString().endsWith(EXTENSION))
+          .map(p -> new FileRef(p, root, 0, 0).getRelativePath())
+          .collect(Collectors.toSet());
+    }
+  }
+
+  @Test
+  @DisplayName("find() should find the same files as a sequential walk, sorted by path")
+  void testSameFilesAsWalk() throws IOException {
+    createFiles(
+        "top.dataset.ndjson",
+        "sales/orders.dataset.ndjson",
+        "sales/2024/01/orders.dataset.ndjson",
+        "sales/2024/02/orders.dataset.ndjson",
+        "sales/2024/02/notes.txt",
+        "hr/employees.dataset.ndjson",
+        "hr/empty/.keep",
+        "a/b/c/d/e/f/deep.dataset.ndjson");
+    Files.createDirectories(root.resolve("empty"));
+
+    var actual = find(Filter.always());
+
+    Assertions.assertThat(actual).containsExactlyInAnyOrderElementsOf(baselineWalk());
+    Assertions.assertThat(actual)
+        .containsExactly(
+            "a/b/c/d/e/f/deep.dataset.ndjson",
+            "hr/employees.dataset.ndjson",
+            "sales/2024/01/orders.dataset.ndjson",
+            "sales/2024/02/orders.dataset.ndjson",
+            "sales/orders.dataset.ndjson",
+            "top.dataset.ndjson");
+  }
+
+  @Test
+  @DisplayName("find() should match the extension of the files, compressed or not")
+  void testExtension() throws IOException {
+    createFiles(
+        "orders.dataset.ndjson",
+        "orders.dataset.ndjson.gz",
+        "orders.dataset.ndjson.deflate",
+        "orders.dataset.ndjson.bak",
+        "orders.dataset.json",
+        "orders.ndjson",
+        "dir.dataset.ndjson/customers.txt");
+
+    Assertions.assertThat(find(Filter.always()))
+        .containsExactly(
+            "orders.dataset.ndjson", "orders.dataset.ndjson.deflate", "orders.dataset.ndjson.gz");
+  }
+
+  @Test
+  @DisplayName("find() should apply the filter to the logical path of the files")
+  void testFilter() throws IOException {
+    createFiles(
+        "sales/orders.dataset.ndjson.gz",
+        "sales/customers.dataset.ndjson",
+        "hr/employees.dataset.ndjson",
+        "sales.dataset.ndjson");
+    var filter = Filter.isEqualTo(ItemFilters.PATH_KEY, "sales/orders.dataset.ndjson");
+
+    Assertions.assertThat(find(filter)).containsExactly("sales/orders.dataset.ndjson.gz");
+    Assertions.assertThat(find(Filter.never())).isEmpty();
+  }
+
+  @Test
+  @DisplayName("find() should not list the directories excluded by the filter")
+  void testPruning() throws IOException {
+    createFiles("sales/orders.dataset.ndjson", "hr/private/employees.dataset.ndjson");
+    var locked = root.resolve("hr/private");
+    Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("---------"));
+    try {
+      // A privileged user reads the directory anyway, so listing it wouldn't fail.
+      Assumptions.assumeFalse(Files.isReadable(locked), "The directory is readable");
+      var filter = Filter.startsWith(ItemFilters.PATH_KEY, "sales/");
+
+      Assertions.assertThat(find(filter)).containsExactly("sales/orders.dataset.ndjson");
+      Assertions.assertThatThrownBy(() -> find(Filter.always())).isInstanceOf(IOException.class);
+    } finally {
+      Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwx------"));
+    }
+  }
+
+  @Test
+  @DisplayName("directoryFilter() should reject the directories excluded by the filter")
+  void testDirectoryFilter() {
+    var filter =
+        Filter.or(
+            Filter.startsWith(ItemFilters.PATH_KEY, "sales/2024/"),
+            Filter.isEqualTo(ItemFilters.PATH_KEY, "hr/employees.dataset.ndjson"));
+
+    Assertions.assertThat(ItemFilters.directoryFilter(filter, "")).isNotEqualTo(Filter.never());
+    Assertions.assertThat(ItemFilters.directoryFilter(filter, "sales/"))
+        .isNotEqualTo(Filter.never());
+    Assertions.assertThat(ItemFilters.directoryFilter(filter, "sales/2024/01/"))
+        .isEqualTo(Filter.always());
+    Assertions.assertThat(ItemFilters.directoryFilter(filter, "sales/2023/"))
+        .isEqualTo(Filter.never());
+    Assertions.assertThat(ItemFilters.directoryFilter(filter, "hr/archive/"))
+        .isEqualTo(Filter.never());
+    Assertions.assertThat(ItemFilters.directoryFilter(filter, "finance/"))
+        .isEqualTo(Filter.never());
+  }
+
+  @Test
+  @DisplayName("find() should accept linked files but not follow linked directories")
+  void testSymbolicLinks() throws IOException {
+    createFiles("data/orders.dataset.ndjson", "external/customers.dataset.ndjson");
+    Files.createSymbolicLink(
+        root.resolve("data/linked.dataset.ndjson"), root.resolve("data/orders.dataset.ndjson"));
+    Files.createSymbolicLink(
+        root.resolve("data/broken.dataset.ndjson"), root.resolve("data/missing.dataset.ndjson"));
+    Files.createSymbolicLink(root.resolve("data/external"), root.resolve("external"));
+    Files.createSymbolicLink(root.resolve("data/loop"), root.resolve("data"));
+
+    var actual = find(Filter.always());
+
+    Assertions.assertThat(actual).containsExactlyInAnyOrderElementsOf(baselineWalk());
+    Assertions.assertThat(actual)
+        .containsExactly(
+            "data/linked.dataset.ndjson",
+            "data/orders.dataset.ndjson",
+            "external/customers.dataset.ndjson");
+  }
+
+  @Test
+  @DisplayName("find() should fail when the root directory doesn't exist")
+  void testMissingRoot() {
+    var finder = new FileFinder(root.resolve("missing"), EXTENSION, 2);
+
+    Assertions.assertThatThrownBy(finder::find).isInstanceOf(IOException.class);
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zeenea.connector.example.Config;
+import zeenea.connector.example.TestConfiguration;
+import zeenea.connector.example.json.Json;
+import zeenea.connector.example.json.JsonDataset;
+import zeenea.connector.example.log.TracingContext;
+
+class FileIndexTest {
+  /** Some platforms poll the file system every few seconds instead of being notified. */
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private final TracingContext ctx = TracingContext.test();
+
+  private final AtomicInteger scanCount = new AtomicInteger();
+
+  private final Map<String, AtomicInteger> readCounts = new ConcurrentHashMap<>();
+
+  /** When set, reading the file named "gate" waits for the latch. */
+  private volatile CountDownLatch gate;
+
+  private final CountDownLatch gateEntered = new CountDownLatch(1);
+
+  private FileIndex<JsonDataset> index;
+
+  @TempDir Path root;
+
+  @AfterEach
+  void closeIndex() throws IOException {
+    if (index != null) index.close();
+  }
+
+  private Config config() {
+    var configuration =
+        TestConfiguration.builder()
+            .connectorId("example-dataset")
+            .connectionCode("test")
+            .connectionName("Test")
+            .pathParam("path", root)
+            .build();
+    return Config.create(ctx, configuration, "dataset");
+  }
+
+  private FileIndex<JsonDataset> createIndex() throws IOException {
+    var config = config();
+    index =
+        new FileIndex<>(
+            ctx,
+            config,
+            () -> {
+              scanCount.incrementAndGet();
+              try {
+                return new FileFinder(root, config.fileExtension(), 1).find();
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            },
+            this::read);
+    return index;
+  }
+
+  private List<FileItem<JsonDataset>> read(FileRef fileRef) {
+    var name = fileRef.getLogicalRelativePath();
+    readCounts.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+    var latch = gate;
+    if (latch != null && name.equals("gate.dataset.ndjson")) {
+      gateEntered.countDown();
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    try (var items = Json.readItems(ctx, fileRef, JsonDataset.class)) {
+      return items.collect(Collectors.toList());
+    }
+  }
+
+  private int readCount(String name) {
+    var count = readCounts.get(name);
+    return count != null ? count.get() : 0;
+  }
+
+  private void writeFile(String name, String... ids) throws IOException {
+    var path = root.resolve(name);
+    Files.createDirectories(path.getParent());
+    var content = new StringBuilder();
+    for (String id : ids) {
+      content.append("{\"id\":\"").append(id).append("\"}\n");
+    }
+    Files.writeString(path, content);
+  }
+
+  private List<String> ids() {
+    return index.snapshot().stream()
+        .map(v -> v.getItem().getId())
+        .collect(Collectors.toList());
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    var deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) Assertions.fail("Timeout");
+      Thread.sleep(10);
+    }
+  }
+
+  /** Block the watcher thread on the gate file, the next events are queued meanwhile. */
+  private CountDownLatch blockWatcher() throws IOException, InterruptedException {
+    var latch = new CountDownLatch(1);
+    gate = latch;
+    writeFile("gate.dataset.ndjson", "gate");
+    Assertions.assertThat(gateEntered.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)).isTrue();
+    return latch;
+  }
+
+  @Test
+  @DisplayName("FileIndex() should scan the files under the root, sorted by path")
+  void testInitialScan() throws IOException {
+    writeFile("sales/orders.dataset.ndjson", "orders", "customers");
+    writeFile("hr/employees.dataset.ndjson", "employees");
+    writeFile("hr/notes.txt", "notes");
+
+    createIndex();
+
+    Assertions.assertThat(ids()).containsExactly("employees", "orders", "customers");
+    Assertions.assertThat(scanCount.get()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("The index should follow the files created, modified and deleted")
+  void testEvents() throws IOException, InterruptedException {
+    writeFile("sales/orders.dataset.ndjson", "orders");
+    // A file could be read while being written in a directory not yet watched.
+    Files.createDirectories(root.resolve("hr"));
+    createIndex();
+
+    writeFile("hr/employees.dataset.ndjson", "employees");
+    await(() -> ids().contains("employees"));
+
+    writeFile("sales/orders.dataset.ndjson", "orders", "customers");
+    await(() -> ids().contains("customers"));
+
+    Files.delete(root.resolve("sales/orders.dataset.ndjson"));
+    await(() -> !ids().contains("orders"));
+    Assertions.assertThat(ids()).containsExactly("employees");
+    Assertions.assertThat(scanCount.get()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("The index should read once a file changed several times between two updates")
+  void testCoalescing() throws IOException, InterruptedException {
+    createIndex();
+    var latch = blockWatcher();
+
+    for (int i = 1; i <= 5; ++i) {
+      writeFile("orders.dataset.ndjson", "orders" + i);
+    }
+    // Let the file system deliver the events before the watcher collects them.
+    Thread.sleep(500);
+    latch.countDown();
+
+    await(() -> ids().contains("orders5"));
+    Assertions.assertThat(readCount("orders.dataset.ndjson")).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("The index should scan all the files again when events are lost")
+  void testOverflow() throws IOException, InterruptedException {
+    createIndex();
+    var latch = blockWatcher();
+
+    // The events of a directory are dropped past a few hundred pending events.
+    var count = 1000;
+    for (int i = 0; i < count; ++i) {
+      writeFile(String.format("file%04d.dataset.ndjson", i), "item" + i);
+    }
+    Thread.sleep(500);
+    latch.countDown();
+
+    await(() -> ids().size() == count + 1);
+    Assertions.assertThat(scanCount.get()).isEqualTo(2);
+    Assertions.assertThat(ids()).contains("gate", "item0", "item999");
+  }
+
+  @Test
+  @DisplayName("loadFileItems() in watch mode should return the items up to date")
+  void testWatchMode() throws IOException, InterruptedException {
+    writeFile("orders.dataset.ndjson", "orders");
+    var configuration =
+        TestConfiguration.builder()
+            .connectorId("example-dataset")
+            .connectionCode("test")
+            .connectionName("Test")
+            .pathParam("path", root)
+            .boolParam("watch", true)
+            .build();
+
+    try (var repository = new FileRepository(Config.create(ctx, configuration, "dataset"))) {
+      BooleanSupplier hasCustomers =
+          () -> {
+            try (var items = repository.loadFileItems(ctx, JsonDataset.class)) {
+              return items.anyMatch(v -> v.getItem().getId().equals("customers"));
+            }
+          };
+      Assertions.assertThat(hasCustomers.getAsBoolean()).isFalse();
+
+      writeFile("customers.dataset.ndjson", "customers");
+      await(hasCustomers);
+    }
+  }
+}
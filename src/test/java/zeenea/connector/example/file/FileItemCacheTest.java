@@ -0,0 +1,223 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zeenea.connector.example.Config;
+import zeenea.connector.example.TestConfiguration;
+import zeenea.connector.example.json.JsonDataset;
+import zeenea.connector.example.log.TracingContext;
+
+class FileItemCacheTest {
+  private static final Path ROOT = Path.of("/data");
+
+  /** The weight of an item with a one letter identifier and name. */
+  private static final long ITEM_WEIGHT = 128 + 49 + 49;
+
+  private final List<Reference<List<?>>> references = new ArrayList<>();
+
+  @TempDir Path root;
+
+  private FileItemCache newCache(long budget) {
+    return new FileItemCache(
+        budget,
+        items -> {
+          var reference = new SoftReference<List<?>>(items);
+          references.add(reference);
+          return reference;
+        });
+  }
+
+  private static FileRef fileRef(String name, long size, long lastModified) {
+    return new FileRef(ROOT.resolve(name), ROOT, size, lastModified);
+  }
+
+  private static FileItem<JsonDataset> item(FileRef fileRef, String id) {
+    var dataset = new JsonDataset();
+    dataset.setId(id);
+    dataset.setName(id);
+    return new FileItem<>(dataset, fileRef, 0, 10);
+  }
+
+  private static List<FileItem<JsonDataset>> items(FileRef fileRef, int count) {
+    var items = new ArrayList<FileItem<JsonDataset>>();
+    for (int i = 0; i < count; ++i) {
+      items.add(item(fileRef, String.valueOf((char) ('a' + i))));
+    }
+    return items;
+  }
+
+  @Test
+  @DisplayName("put() should account for the estimated size of the items")
+  void testWeight() {
+    var cache = newCache(1_000_000);
+    var orders = fileRef("orders.dataset.ndjson", 100, 1);
+    var withProperties = item(orders, "a");
+    var factory = JsonNodeFactory.instance;
+    withProperties.getItem().setCustomProperty("owner", factory.textNode("Jean"));
+    withProperties.getItem().setCustomProperty("tags", factory.arrayNode().add("x").add("y"));
+
+    cache.put(orders, JsonDataset.class, List.of(item(orders, "b"), withProperties));
+
+    Assertions.assertThat(cache.weight()).isEqualTo(2 * ITEM_WEIGHT + 96 + (96 + 2 * 96));
+    Assertions.assertThat(cache.get(orders, JsonDataset.class)).hasSize(2);
+
+    cache.put(orders, JsonDataset.class, List.of());
+    Assertions.assertThat(cache.weight()).isEqualTo(0);
+    Assertions.assertThat(cache.get(orders, JsonDataset.class)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("put() should evict the least recently used files when over the budget")
+  void testLruEviction() {
+    var cache = newCache(2 * 3 * ITEM_WEIGHT);
+    var first = fileRef("first.dataset.ndjson", 100, 1);
+    var second = fileRef("second.dataset.ndjson", 100, 1);
+    var third = fileRef("third.dataset.ndjson", 100, 1);
+    var large = fileRef("large.dataset.ndjson", 100, 1);
+    cache.put(first, JsonDataset.class, items(first, 3));
+    cache.put(second, JsonDataset.class, items(second, 3));
+
+    // The first file becomes the most recently used.
+    Assertions.assertThat(cache.get(first, JsonDataset.class)).hasSize(3);
+    cache.put(third, JsonDataset.class, items(third, 3));
+
+    Assertions.assertThat(cache.size()).isEqualTo(2);
+    Assertions.assertThat(cache.weight()).isEqualTo(2 * 3 * ITEM_WEIGHT);
+    Assertions.assertThat(cache.get(second, JsonDataset.class)).isNull();
+    Assertions.assertThat(cache.get(first, JsonDataset.class)).hasSize(3);
+    Assertions.assertThat(cache.get(third, JsonDataset.class)).hasSize(3);
+
+    // A file larger than the budget is not cached and doesn't evict the others.
+    cache.put(large, JsonDataset.class, items(large, 7));
+    Assertions.assertThat(cache.get(large, JsonDataset.class)).isNull();
+    Assertions.assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("get() should forget the items reclaimed by the garbage collector")
+  void testClearedReference() {
+    var cache = newCache(1_000_000);
+    var orders = fileRef("orders.dataset.ndjson", 100, 1);
+    var customers = fileRef("customers.dataset.ndjson", 100, 1);
+    cache.put(orders, JsonDataset.class, items(orders, 2));
+    cache.put(customers, JsonDataset.class, items(customers, 2));
+
+    // As done by the garbage collector when the memory is low.
+    references.forEach(Reference::clear);
+
+    Assertions.assertThat(cache.get(orders, JsonDataset.class)).isNull();
+    Assertions.assertThat(cache.weight()).isEqualTo(2 * ITEM_WEIGHT);
+    // The next put removes the other reclaimed entries.
+    cache.put(orders, JsonDataset.class, items(orders, 1));
+    Assertions.assertThat(cache.size()).isEqualTo(1);
+    Assertions.assertThat(cache.weight()).isEqualTo(ITEM_WEIGHT);
+  }
+
+  @Test
+  @DisplayName("get() should ignore the items of a file whose size or modification time changed")
+  void testInvalidation() {
+    var cache = newCache(1_000_000);
+    var orders = fileRef("orders.dataset.ndjson", 100, 1);
+    cache.put(orders, JsonDataset.class, items(orders, 2));
+
+    Assertions.assertThat(cache.get(fileRef("orders.dataset.ndjson", 100, 1), JsonDataset.class))
+        .hasSize(2);
+    Assertions.assertThat(cache.get(orders, FileItemCacheTest.class)).isNull();
+    Assertions.assertThat(cache.get(fileRef("orders.dataset.ndjson", 100, 2), JsonDataset.class))
+        .isNull();
+    // The entry was removed.
+    Assertions.assertThat(cache.get(orders, JsonDataset.class)).isNull();
+    Assertions.assertThat(cache.weight()).isEqualTo(0);
+
+    cache.put(orders, JsonDataset.class, items(orders, 2));
+    Assertions.assertThat(cache.get(fileRef("orders.dataset.ndjson", 101, 1), JsonDataset.class))
+        .isNull();
+    Assertions.assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  @DisplayName("Filler should cache the files read completely and fitting in the budget")
+  void testFiller() {
+    var cache = newCache(3 * ITEM_WEIGHT);
+    var filler = cache.filler(JsonDataset.class);
+    var orders = fileRef("orders.dataset.ndjson", 100, 1);
+    var failed = fileRef("failed.dataset.ndjson", 100, 1);
+    var large = fileRef("large.dataset.ndjson", 100, 1);
+    var empty = fileRef("empty.dataset.ndjson", 100, 1);
+    var compressed = fileRef("compressed.dataset.ndjson.gz", 100, 1);
+
+    items(orders, 2).forEach(filler::add);
+    filler.fileRead(orders, false);
+    items(failed, 2).forEach(filler::add);
+    filler.fileRead(failed, true);
+    items(large, 4).forEach(filler::add);
+    filler.fileRead(large, false);
+    filler.fileRead(empty, false);
+    items(compressed, 1).forEach(filler::add);
+    filler.fileRead(compressed, false);
+
+    Assertions.assertThat(cache.get(orders, JsonDataset.class)).hasSize(2);
+    Assertions.assertThat(cache.get(failed, JsonDataset.class)).isNull();
+    Assertions.assertThat(cache.get(large, JsonDataset.class)).isNull();
+    Assertions.assertThat(cache.get(empty, JsonDataset.class)).isEmpty();
+    Assertions.assertThat(cache.get(compressed, JsonDataset.class)).isNull();
+    Assertions.assertThat(cache.weight()).isEqualTo(2 * ITEM_WEIGHT);
+  }
+
+  /** Replace the content of a file, keeping its size and modification time. */
+  private static void replace(Path path, String content) throws IOException {
+    var lastModified = Files.getLastModifiedTime(path);
+    Files.writeString(path, content);
+    Files.setLastModifiedTime(path, lastModified);
+  }
+
+  @Test
+  @DisplayName("loadItemSummaries() should take the items of the unchanged files from the cache")
+  void testRepository() throws IOException {
+    var ctx = TracingContext.test();
+    var orders = root.resolve("orders.dataset.ndjson");
+    var invalid = root.resolve("invalid.dataset.ndjson");
+    Files.writeString(orders, "{\"id\":\"a\"}\n{\"id\":\"b\"}\n");
+    Files.writeString(invalid, "{\"id\":\"c\"}\n{\"id\":\"\n");
+    var configuration =
+        TestConfiguration.builder()
+            .connectorId("example-dataset")
+            .connectionCode("test")
+            .connectionName("Test")
+            .pathParam("path", root)
+            .build();
+
+    try (var repository = new FileRepository(Config.create(ctx, configuration, "dataset"))) {
+      List<String> first;
+      try (var summaries = repository.loadItemSummaries(ctx, JsonDataset.class)) {
+        first = summaries.map(ItemSummary::getId).collect(Collectors.toList());
+      }
+      Assertions.assertThat(first).containsExactly("c", "a", "b");
+
+      // Only the file read completely is taken from the cache.
+      replace(orders, "{\"id\":\"x\"}\n{\"id\":\"y\"}\n");
+      replace(invalid, "{\"id\":\"c\"}\n{\"id\":\"d\"}\n");
+      try (var summaries = repository.loadItemSummaries(ctx, JsonDataset.class)) {
+        Assertions.assertThat(summaries.map(ItemSummary::getId))
+            .containsExactly("c", "d", "a", "b");
+      }
+    }
+  }
+}
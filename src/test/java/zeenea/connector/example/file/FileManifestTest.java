@@ -0,0 +1,283 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zeenea.connector.example.Config;
+import zeenea.connector.example.TestConfiguration;
+import zeenea.connector.example.json.JsonDataset;
+import zeenea.connector.example.log.TracingContext;
+
+class FileManifestTest {
+  private static final String FINGERPRINT = "1\nconfiguration";
+
+  private final TracingContext ctx = TracingContext.test();
+
+  @TempDir Path root;
+
+  @TempDir Path home;
+
+  private Path manifestFile() {
+    return home.resolve("cache/test/dataset.manifest.json");
+  }
+
+  private FileRef writeFile(String name, String content) throws IOException {
+    var path = root.resolve(name);
+    Files.writeString(path, content);
+    return fileRef(path);
+  }
+
+  private FileRef fileRef(Path path) throws IOException {
+    return new FileRef(path, root, Files.readAttributes(path, BasicFileAttributes.class));
+  }
+
+  /** Record a file as the inventory does, with the digest of its content. */
+  private void put(FileManifest manifest, FileRef fileRef, String... ids) throws IOException {
+    var digest = FileManifest.newDigest();
+    digest.update(Files.readAllBytes(fileRef.getPath()));
+    var summaries =
+        List.of(ids).stream()
+            .map(id -> new ItemSummary(id, "label " + id))
+            .collect(Collectors.toList());
+    manifest.put(fileRef, digest, summaries);
+  }
+
+  private static List<String> ids(List<ItemSummary> summaries) {
+    return summaries.stream().map(ItemSummary::getId).collect(Collectors.toList());
+  }
+
+  private String fingerprint(TestConfiguration configuration) {
+    var config = Config.create(ctx, configuration, "dataset");
+    return FileManifest.fingerprint(config, JsonDataset.class);
+  }
+
+  /** Create the configuration of an inventory of the root folder using the manifest. */
+  private TestConfiguration manifestConfiguration() {
+    return TestConfiguration.builder()
+        .scannerHomeFolder(home)
+        .connectorId("example-dataset")
+        .connectionCode("test")
+        .connectionName("Test")
+        .pathParam("path", root)
+        .boolParam("manifest", true)
+        .build();
+  }
+
+  /** Write a manifest recording the file, as a previous inventory. */
+  private void saveManifest(FileRef fileRef, String... ids) throws IOException {
+    var manifest = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    put(manifest, fileRef, ids);
+    manifest.save(ctx);
+  }
+
+  @Test
+  @DisplayName("load() should read the items of the unchanged files saved by the last inventory")
+  void testRoundTrip() throws IOException {
+    var orders = writeFile("orders.dataset.ndjson", "{\"id\":\"orders\"}\n");
+    var empty = writeFile("empty.dataset.ndjson", "\n");
+    var manifest = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    put(manifest, orders, "orders", "customers");
+    put(manifest, empty);
+    manifest.save(ctx);
+
+    var actual = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+
+    var summaries = actual.lookup(ctx, orders);
+    Assertions.assertThat(ids(summaries)).containsExactly("orders", "customers");
+    Assertions.assertThat(summaries.get(1).getLabel()).isEqualTo("label customers");
+    Assertions.assertThat(actual.lookup(ctx, empty)).isEmpty();
+    Assertions.assertThat(actual.lookup(ctx, writeFile("new.dataset.ndjson", "{}"))).isNull();
+  }
+
+  @Test
+  @DisplayName("save() should only keep the files found by the last inventory")
+  void testDeletedFile() throws IOException {
+    var orders = writeFile("orders.dataset.ndjson", "{\"id\":\"orders\"}\n");
+    var customers = writeFile("customers.dataset.ndjson", "{\"id\":\"customers\"}\n");
+    var manifest = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    put(manifest, orders, "orders");
+    put(manifest, customers, "customers");
+    manifest.save(ctx);
+
+    // The next inventory only finds the orders, which are unchanged.
+    var next = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    Assertions.assertThat(next.lookup(ctx, orders)).isNotNull();
+    next.save(ctx);
+
+    var actual = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    Assertions.assertThat(actual.lookup(ctx, orders)).isNotNull();
+    Assertions.assertThat(actual.lookup(ctx, customers)).isNull();
+  }
+
+  @Test
+  @DisplayName("load() should ignore a manifest written with another configuration")
+  void testFingerprintChange() throws IOException {
+    var orders = writeFile("orders.dataset.ndjson", "{\"id\":\"orders\"}\n");
+    saveManifest(orders, "orders");
+
+    var actual = FileManifest.load(ctx, manifestFile(), FINGERPRINT + "\nid = 'orders'");
+
+    Assertions.assertThat(actual.lookup(ctx, orders)).isNull();
+  }
+
+  @Test
+  @DisplayName("fingerprint() should change with the values of the files of the filter")
+  void testFilterValuesChange() throws IOException {
+    var orders = writeFile("orders.dataset.ndjson", "{\"id\":\"orders\"}\n");
+    var values = home.resolve("ids.txt");
+    Files.writeString(values, "orders\ncustomers\n");
+    var configuration =
+        TestConfiguration.builder()
+            .scannerHomeFolder(home)
+            .connectorId("example-dataset")
+            .connectionCode("test")
+            .connectionName("Test")
+            .pathParam("path", root)
+            .boolParam("manifest", true)
+            .stringParam("filter", "id in @'ids.txt'")
+            .build();
+    var fingerprint = fingerprint(configuration);
+    var manifest = FileManifest.load(ctx, manifestFile(), fingerprint);
+    put(manifest, orders, "orders");
+    manifest.save(ctx);
+
+    // The same values in another order give the same fingerprint.
+    Files.writeString(values, "customers\norders\n");
+    var same = fingerprint(configuration);
+    Assertions.assertThat(same).isEqualTo(fingerprint);
+
+    Files.writeString(values, "orders\n");
+    var changed = fingerprint(configuration);
+    Assertions.assertThat(changed).isNotEqualTo(fingerprint);
+    Assertions.assertThat(FileManifest.load(ctx, manifestFile(), changed).lookup(ctx, orders))
+        .isNull();
+  }
+
+  @Test
+  @DisplayName("lookup() should read again a file whose size changed")
+  void testSizeChange() throws IOException {
+    var orders = writeFile("orders.dataset.ndjson", "{\"id\":\"orders\"}\n");
+    saveManifest(orders, "orders");
+    var lastModified = Files.getLastModifiedTime(orders.getPath());
+    Files.writeString(orders.getPath(), "{\"id\":\"orders\"}\n{\"id\":\"customers\"}\n");
+    // Even with the same modification time.
+    Files.setLastModifiedTime(orders.getPath(), lastModified);
+
+    var actual = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+
+    Assertions.assertThat(actual.lookup(ctx, fileRef(orders.getPath()))).isNull();
+  }
+
+  @Test
+  @DisplayName("lookup() should reuse a touched file whose content didn't change")
+  void testTouchedFile() throws IOException {
+    var orders = writeFile("orders.dataset.ndjson", "{\"id\":\"orders\"}\n");
+    saveManifest(orders, "orders");
+    var touched = orders.getLastModified() + 60_000;
+    Files.setLastModifiedTime(orders.getPath(), FileTime.fromMillis(touched));
+    var touchedRef = fileRef(orders.getPath());
+
+    var manifest = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    Assertions.assertThat(ids(manifest.lookup(ctx, touchedRef))).containsExactly("orders");
+    manifest.save(ctx);
+
+    // The new modification time is recorded, the content is not hashed again.
+    Files.writeString(orders.getPath(), "{\"id\":\"change\"}\n");
+    Files.setLastModifiedTime(orders.getPath(), FileTime.fromMillis(touched));
+    var actual = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    Assertions.assertThat(ids(actual.lookup(ctx, fileRef(orders.getPath()))))
+        .containsExactly("orders");
+  }
+
+  @Test
+  @DisplayName("lookup() should read again a touched file whose content changed")
+  void testModifiedFile() throws IOException {
+    var orders = writeFile("orders.dataset.ndjson", "{\"id\":\"orders\"}\n");
+    saveManifest(orders, "orders");
+    // Same size, different content.
+    Files.writeString(orders.getPath(), "{\"id\":\"change\"}\n");
+    Files.setLastModifiedTime(
+        orders.getPath(), FileTime.fromMillis(orders.getLastModified() + 60_000));
+
+    var actual = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+
+    var modified = fileRef(orders.getPath());
+    Assertions.assertThat(modified.getSize()).isEqualTo(orders.getSize());
+    Assertions.assertThat(actual.lookup(ctx, modified)).isNull();
+  }
+
+  @Test
+  @DisplayName("load() should start from an empty manifest when the file is missing or corrupt")
+  void testMissingOrCorruptManifest() throws IOException {
+    var orders = writeFile("orders.dataset.ndjson", "{\"id\":\"orders\"}\n");
+
+    var missing = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    Assertions.assertThat(missing.lookup(ctx, orders)).isNull();
+
+    saveManifest(orders, "orders");
+    var content = Files.readString(manifestFile());
+    Files.writeString(manifestFile(), content.substring(0, content.length() / 2));
+    var corrupt = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    Assertions.assertThat(corrupt.lookup(ctx, orders)).isNull();
+
+    // The corrupt manifest is replaced by the next inventory.
+    put(corrupt, orders, "orders");
+    corrupt.save(ctx);
+    var actual = FileManifest.load(ctx, manifestFile(), FINGERPRINT);
+    Assertions.assertThat(ids(actual.lookup(ctx, orders))).containsExactly("orders");
+  }
+
+  @Test
+  @DisplayName("loadItemSummaries() should read the files as the summaries are consumed")
+  void testLazyRead() throws IOException {
+    writeFile("a.dataset.ndjson", "{\"id\":\"a\"}\n");
+    var last = writeFile("b.dataset.ndjson", "{\"id\":\"b\"}\n");
+    var config = Config.create(ctx, manifestConfiguration(), "dataset");
+
+    try (var repository = new FileRepository(config);
+        var summaries = repository.loadItemSummaries(ctx, JsonDataset.class)) {
+      var iterator = summaries.iterator();
+      Assertions.assertThat(iterator.next().getId()).isEqualTo("a");
+      // The last file is read after the first summary is provided.
+      Files.writeString(last.getPath(), "{\"id\":\"c\"}\n");
+      Assertions.assertThat(iterator.next().getId()).isEqualTo("c");
+      Assertions.assertThat(iterator.hasNext()).isFalse();
+    }
+
+    var fingerprint = FileManifest.fingerprint(config, JsonDataset.class);
+    var actual = FileManifest.load(ctx, config.manifestFile().orElseThrow(), fingerprint);
+    Assertions.assertThat(ids(actual.lookup(ctx, fileRef(last.getPath())))).containsExactly("c");
+  }
+
+  @Test
+  @DisplayName("loadItemSummaries() should not record a file that failed")
+  void testFailedFile() throws IOException {
+    var valid = writeFile("valid.dataset.ndjson", "{\"id\":\"a\"}\n{\"id\":\"b\"}\n");
+    var invalid = writeFile("invalid.dataset.ndjson", "{\"id\":\"c\"}\n{\"id\":\n");
+    var config = Config.create(ctx, manifestConfiguration(), "dataset");
+
+    try (var repository = new FileRepository(config);
+        var summaries = repository.loadItemSummaries(ctx, JsonDataset.class)) {
+      Assertions.assertThat(summaries.map(ItemSummary::getId)).contains("a", "b");
+    }
+
+    var fingerprint = FileManifest.fingerprint(config, JsonDataset.class);
+    var actual = FileManifest.load(ctx, config.manifestFile().orElseThrow(), fingerprint);
+    Assertions.assertThat(ids(actual.lookup(ctx, valid))).containsExactly("a", "b");
+    Assertions.assertThat(actual.lookup(ctx, invalid)).isNull();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zeenea.connector.example.json.JsonDataset;
+import zeenea.connector.example.json.JsonItem;
+import zeenea.connector.example.json.JsonItemReader;
+import zeenea.connector.example.json.JsonProjection;
+import zeenea.connector.example.log.TracingContext;
+
+class ItemIndexTest {
+  private final TracingContext ctx = TracingContext.test();
+
+  @TempDir Path root;
+
+  private static String item(String id, String field) {
+    return "{\"id\":\"" + id + "\",\"fields\":[{\"name\":\"" + field + "\"}]}\n";
+  }
+
+  private FileRef writeFile(String name, String content) throws IOException {
+    var path = root.resolve(name);
+    Files.writeString(path, content);
+    return fileRef(path);
+  }
+
+  private FileRef fileRef(Path path) throws IOException {
+    return new FileRef(path, root, Files.readAttributes(path, BasicFileAttributes.class));
+  }
+
+  /** Index a file as the inventory does, with a projection of its items. */
+  private ItemIndex<String, JsonDataset> index(int cacheSize, FileRef... fileRefs) {
+    var index = new ItemIndex<String, JsonDataset>(JsonDataset.class, JsonItem::getId, cacheSize);
+    var projection = JsonProjection.of(JsonDataset.class, List.of());
+    for (FileRef fileRef : fileRefs) {
+      try (var reader = new JsonItemReader<>(ctx, fileRef, projection, null)) {
+        reader.stream().forEach(v -> index.put(v.getItem().getId(), v));
+      }
+    }
+    return index;
+  }
+
+  private static String field(FileItem<JsonDataset> fileItem) {
+    return fileItem.getItem().getFields().get(0).getName();
+  }
+
+  @Test
+  @DisplayName("get() should read the whole item again from its location")
+  void testReadByLocation() throws IOException {
+    var content = item("a", "fa") + "\n" + item("b", "fb") + item("c", "fc");
+    var fileRef = writeFile("items.dataset.ndjson", content);
+
+    var index = index(10, fileRef);
+
+    Assertions.assertThat(index.size()).isEqualTo(3);
+    Assertions.assertThat(field(index.get(ctx, "b"))).isEqualTo("fb");
+    Assertions.assertThat(field(index.get(ctx, "c"))).isEqualTo("fc");
+    Assertions.assertThat(field(index.get(ctx, "a"))).isEqualTo("fa");
+    Assertions.assertThat(index.get(ctx, "missing")).isNull();
+  }
+
+  @Test
+  @DisplayName("get() should read again an item evicted from the cache")
+  void testEviction() throws IOException {
+    var fileRef = writeFile("items.dataset.ndjson", item("a", "fa") + item("b", "fb"));
+    var index = index(1, fileRef);
+
+    var first = index.get(ctx, "a");
+    Assertions.assertThat(index.get(ctx, "a")).isSameAs(first);
+    // Reading b evicts a.
+    Assertions.assertThat(field(index.get(ctx, "b"))).isEqualTo("fb");
+    var second = index.get(ctx, "a");
+
+    Assertions.assertThat(second).isNotSameAs(first);
+    Assertions.assertThat(field(second)).isEqualTo("fa");
+    Assertions.assertThat(second.getOffset()).isEqualTo(first.getOffset());
+  }
+
+  @Test
+  @DisplayName("get() should read the file again when it changed since it was indexed")
+  void testModifiedFile() throws IOException {
+    var fileRef =
+        writeFile("items.dataset.ndjson", item("a", "fa") + item("b", "fb") + item("c", "fc"));
+    var other = writeFile("other.dataset.ndjson", item("d", "fd"));
+    var index = index(10, fileRef, other);
+    Assertions.assertThat(field(index.get(ctx, "a"))).isEqualTo("fa");
+
+    // The items move, one is modified, one is removed and one is added.
+    Files.writeString(
+        fileRef.getPath(), item("new", "fnew") + item("c", "fc") + item("a", "fa2"));
+
+    // The item in cache is returned until an item not in cache is read from the file.
+    Assertions.assertThat(field(index.get(ctx, "a"))).isEqualTo("fa");
+    Assertions.assertThat(field(index.get(ctx, "c"))).isEqualTo("fc");
+    Assertions.assertThat(field(index.get(ctx, "a"))).isEqualTo("fa2");
+    Assertions.assertThat(index.get(ctx, "b")).isNull();
+    Assertions.assertThat(index.get(ctx, "new")).isNull();
+    Assertions.assertThat(field(index.get(ctx, "d"))).isEqualTo("fd");
+    Assertions.assertThat(index.size()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("get() should keep in memory the items of the compressed files")
+  void testCompressedFile() throws IOException {
+    var out = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(out)) {
+      gzip.write((item("a", "fa") + item("b", "fb")).getBytes());
+    }
+    var path = root.resolve("items.dataset.ndjson.gz");
+    Files.write(path, out.toByteArray());
+    var fileRef = fileRef(path);
+
+    var index = new ItemIndex<String, JsonDataset>(JsonDataset.class, JsonItem::getId, 0);
+    try (var reader = new JsonItemReader<>(ctx, fileRef, JsonDataset.class, null)) {
+      reader.stream().forEach(v -> index.put(v.getItem().getId(), v));
+    }
+    Files.delete(path);
+
+    Assertions.assertThat(field(index.get(ctx, "b"))).isEqualTo("fb");
+    Assertions.assertThatThrownBy(() -> index.put("a", index.get(ctx, "b")))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
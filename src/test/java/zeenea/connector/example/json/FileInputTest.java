@@ -0,0 +1,91 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileInputTest {
+  private static final int SEGMENT_SIZE = 1000;
+
+  @TempDir Path root;
+
+  private Path writeFile(int size) throws IOException {
+    var content = new byte[size];
+    for (int i = 0; i < size; ++i) {
+      // No zero byte, they mark the skipped bytes.
+      content[i] = (byte) (1 + (i * 31 + i / 256) % 255);
+    }
+    var path = root.resolve("items.dataset.ndjson");
+    Files.write(path, content);
+    return path;
+  }
+
+  /**
+   * Read with buffers of an odd size and single bytes, crossing the segment boundaries.
+   *
+   * @param input The stream to read.
+   * @param skip If some bytes are skipped instead of being read.
+   * @return The bytes read, the skipped bytes are replaced by zeros.
+   */
+  private static byte[] readAll(InputStream input, boolean skip) throws IOException {
+    var out = new ByteArrayOutputStream();
+    var buffer = new byte[333];
+    for (int step = 0; ; ++step) {
+      if (skip && step % 5 == 4) {
+        var skipped = (int) input.skip(7);
+        out.write(new byte[skipped], 0, skipped);
+        if (skipped > 0) continue;
+      }
+      if (step % 3 == 2) {
+        var b = input.read();
+        if (b < 0) break;
+        out.write(b);
+        continue;
+      }
+      var count = input.read(buffer, 0, buffer.length);
+      if (count < 0) break;
+      out.write(buffer, 0, count);
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  @DisplayName("open() should read a mapped range across the segment boundaries")
+  void testSegmentBoundaries() throws IOException {
+    var path = writeFile(10 * SEGMENT_SIZE + 17);
+    var content = Files.readAllBytes(path);
+
+    long[][] ranges = {
+      {0, Long.MAX_VALUE}, {0, content.length}, {1500, 7777}, {999, 1001}, {2000, 3000}
+    };
+    for (long[] range : ranges) {
+      var expected =
+          Arrays.copyOfRange(content, (int) range[0], (int) Math.min(range[1], content.length));
+      for (boolean skip : new boolean[] {false, true}) {
+        byte[] actual;
+        try (var input =
+            FileInput.open(path, range[0], range[1], FileInput.Mode.MAPPED, SEGMENT_SIZE)) {
+          actual = readAll(input, skip);
+        }
+
+        Assertions.assertThat(actual.length).isEqualTo(expected.length);
+        for (int i = 0; i < actual.length; ++i) {
+          if (!skip || actual[i] != 0) Assertions.assertThat(actual[i]).isEqualTo(expected[i]);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zeenea.connector.example.file.FileItem;
+import zeenea.connector.example.file.FileRef;
+import zeenea.connector.example.log.TracingContext;
+
+class JsonItemReaderTest {
+  private final TracingContext ctx = TracingContext.test();
+
+  @TempDir Path root;
+
+  private FileRef writeFile(String name, String content) throws IOException {
+    var path = root.resolve(name);
+    Files.writeString(path, content);
+    return new FileRef(path, root, Files.readAttributes(path, BasicFileAttributes.class));
+  }
+
+  @Test
+  @DisplayName("stream() should provide the items with their location in the file")
+  void testItems() throws IOException {
+    var first = "{\"id\":\"a\",\"name\":\"orders\"}";
+    var second = "{\n  \"id\": \"b\",\n  \"fields\": [{\"name\": \"id\"}]\n}";
+    var fileRef = writeFile("items.dataset.ndjson", first + "\n" + second + "\n\n");
+
+    try (var reader = new JsonItemReader<>(ctx, fileRef, JsonDataset.class, null)) {
+      var items = reader.stream().collect(Collectors.toList());
+
+      Assertions.assertThat(items.stream().map(v -> v.getItem().getId()))
+          .containsExactly("a", "b");
+      Assertions.assertThat(items.get(1).getItem().getFields()).hasSize(1);
+      Assertions.assertThat(items.get(0).getOffset()).isEqualTo(0);
+      Assertions.assertThat(items.get(0).getLength()).isEqualTo(first.length());
+      Assertions.assertThat(items.get(1).getOffset()).isEqualTo(first.length() + 1);
+      Assertions.assertThat(items.get(1).getLength()).isEqualTo(second.length());
+      Assertions.assertThat(reader.isFailed()).isFalse();
+    }
+  }
+
+  @Test
+  @DisplayName("stream() should provide the items read before an invalid item, then stop")
+  void testInvalidItem() throws IOException {
+    var fileRef =
+        writeFile(
+            "items.dataset.ndjson",
+            "{\"id\":\"a\"}\n{\"id\":\"b\"}\n{\"id\": invalid}\n{\"id\":\"d\"}\n");
+
+    try (var reader = new JsonItemReader<>(ctx, fileRef, JsonDataset.class, null)) {
+      var items = reader.stream().map(v -> v.getItem().getId()).collect(Collectors.toList());
+
+      Assertions.assertThat(items).containsExactly("a", "b");
+      Assertions.assertThat(reader.isFailed()).isTrue();
+    }
+
+    try (var items = Json.readItems(ctx, fileRef, JsonDataset.class)) {
+      Assertions.assertThat(items.map(FileItem::getItem).map(JsonItem::getId))
+          .containsExactly("a", "b");
+    }
+  }
+
+  @Test
+  @DisplayName("stream() should stop when a memory mapped file is truncated while being read")
+  void testTruncatedMappedFile() throws IOException {
+    var content = new StringBuilder();
+    for (int i = 0; content.length() <= FileInput.MAPPED_THRESHOLD; ++i) {
+      content.append("{\"id\":\"item").append(i).append("\",\"name\":\"orders\"}\n");
+    }
+    var fileRef = writeFile("items.dataset.ndjson", content.toString());
+
+    try (var reader = new JsonItemReader<>(ctx, fileRef, JsonDataset.class, null)) {
+      Assertions.assertThat(reader.tryAdvance(v -> {})).isTrue();
+      try (var channel = FileChannel.open(fileRef.getPath(), StandardOpenOption.WRITE)) {
+        channel.truncate(0);
+      }
+
+      Assertions.assertThat(reader.stream().count()).isLessThan(100_000);
+      Assertions.assertThat(reader.isFailed()).isTrue();
+    }
+  }
+
+  @Test
+  @DisplayName("stream() should be empty when the file doesn't exist")
+  void testMissingFile() {
+    var fileRef = new FileRef(root.resolve("missing.dataset.ndjson"), root, 0, 0);
+
+    try (var reader = new JsonItemReader<>(ctx, fileRef, JsonDataset.class, null)) {
+      Assertions.assertThat(reader.stream().count()).isEqualTo(0);
+      Assertions.assertThat(reader.isFailed()).isTrue();
+    }
+  }
+}
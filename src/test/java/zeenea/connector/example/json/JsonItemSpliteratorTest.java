@@ -0,0 +1,197 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPOutputStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zeenea.connector.example.file.FileItem;
+import zeenea.connector.example.file.FileRef;
+import zeenea.connector.example.log.TracingContext;
+
+class JsonItemSpliteratorTest {
+  private final TracingContext ctx = TracingContext.test();
+
+  @TempDir Path root;
+
+  private FileRef fileRef(Path path) throws IOException {
+    return new FileRef(path, root, Files.readAttributes(path, BasicFileAttributes.class));
+  }
+
+  /**
+   * Write items alternating compact and pretty printed lines. Some descriptions contain {@code
+   * \n{} as written in the JSON strings, and nested objects start lines inside the items.
+   */
+  private String content(String prefix, int count) {
+    var content = new StringBuilder();
+    for (int i = 0; i < count; ++i) {
+      var id = prefix + i;
+      switch (i % 3) {
+        case 0:
+          content.append("{\"id\":\"").append(id).append("\",\"name\":\"").append(id);
+          content.append("\"}\n");
+          break;
+        case 1:
+          content.append("{\n  \"id\": \"").append(id).append("\",\n");
+          content.append("  \"fields\": [\n    {\"name\": \"field\"}\n  ]\n}\n");
+          break;
+        default:
+          content.append("{\"id\":\"").append(id);
+          content.append("\",\"description\":\"first line\\n{\\\"id\\\":\\\"fake\\\"}\"}\n\n");
+          break;
+      }
+    }
+    return content.toString();
+  }
+
+  private FileRef writeFile(String name, String content) throws IOException {
+    var path = root.resolve(name);
+    Files.writeString(path, content);
+    return fileRef(path);
+  }
+
+  /** Split the spliterator as far as possible, keeping the parts in order. */
+  private static <T> List<Spliterator<T>> splitAll(Spliterator<T> spliterator) {
+    var parts = new ArrayList<Spliterator<T>>();
+    var prefix = spliterator.trySplit();
+    if (prefix == null) {
+      parts.add(spliterator);
+    } else {
+      parts.addAll(splitAll(prefix));
+      parts.addAll(splitAll(spliterator));
+    }
+    return parts;
+  }
+
+  private static List<String> describe(List<FileItem<JsonDataset>> items) {
+    return items.stream()
+        .map(
+            v ->
+                v.getFileRef().getRelativePath()
+                    + ":"
+                    + v.getOffset()
+                    + ":"
+                    + v.getLength()
+                    + ":"
+                    + v.getItem().getId()
+                    + ":"
+                    + v.getItem().getDescription())
+        .collect(Collectors.toList());
+  }
+
+  private List<FileItem<JsonDataset>> readSequentially(List<FileRef> files) {
+    var items = new ArrayList<FileItem<JsonDataset>>();
+    for (FileRef file : files) {
+      try (var fileItems = Json.readItems(ctx, file, JsonDataset.class)) {
+        fileItems.forEach(items::add);
+      }
+    }
+    return items;
+  }
+
+  @Test
+  @DisplayName("trySplit() should split a file into ranges giving the items of a sequential read")
+  void testSplitFile() throws IOException {
+    var file = writeFile("items.dataset.ndjson", content("item", 200));
+    var expected = describe(readSequentially(List.of(file)));
+    Assertions.assertThat(expected).hasSize(200);
+
+    for (long minSplitSize : new long[] {1, 7, 50, 333, 2000, file.getSize()}) {
+      try (var spliterator =
+          JsonItemSpliterator.of(ctx, List.of(file), JsonDataset.class, minSplitSize)) {
+        var parts = splitAll(spliterator);
+        var actual = new ArrayList<FileItem<JsonDataset>>();
+        parts.forEach(part -> part.forEachRemaining(actual::add));
+
+        Assertions.assertThat(describe(actual)).isEqualTo(expected);
+        if (minSplitSize <= 50) Assertions.assertThat(parts.size()).isGreaterThan(10);
+        if (minSplitSize == file.getSize()) Assertions.assertThat(parts).hasSize(1);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("A parallel stream should give the items of several files in order")
+  void testParallelStream() throws IOException {
+    var files = new ArrayList<FileRef>();
+    for (int i = 0; i < 5; ++i) {
+      files.add(writeFile("file" + i + ".dataset.ndjson", content("file" + i + "-", 50 * i)));
+    }
+    var expected = describe(readSequentially(files));
+
+    try (var spliterator = JsonItemSpliterator.of(ctx, files, JsonDataset.class, 64)) {
+      var actual = StreamSupport.stream(spliterator, true).collect(Collectors.toList());
+
+      Assertions.assertThat(describe(actual)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  @DisplayName("A stream should filter the items with the filter of their file")
+  void testItemFilter() throws IOException {
+    var files = new ArrayList<FileRef>();
+    for (int i = 0; i < 5; ++i) {
+      files.add(writeFile("file" + i + ".dataset.ndjson", content("file" + i + "-", 50)));
+    }
+    var expected =
+        readSequentially(files).stream()
+            .filter(v -> !v.getItem().getId().endsWith("0"))
+            .collect(Collectors.toList());
+    var filteredFiles = ConcurrentHashMap.<FileRef>newKeySet();
+    var otherThreads = new AtomicInteger();
+    JsonItemSpliterator.ItemFilter<JsonDataset> filter =
+        fileRef -> {
+          Assertions.assertThat(filteredFiles.add(fileRef)).isTrue();
+          var thread = Thread.currentThread();
+          return v -> {
+            if (Thread.currentThread() != thread) otherThreads.incrementAndGet();
+            return v.getFileRef() == fileRef && !v.getItem().getId().endsWith("0");
+          };
+        };
+
+    try (var items = JsonItemSpliterator.stream(ctx, files, JsonDataset.class, filter)) {
+      var actual = items.parallel().collect(Collectors.toList());
+
+      Assertions.assertThat(describe(actual)).isEqualTo(describe(expected));
+      Assertions.assertThat(filteredFiles).containsExactlyInAnyOrderElementsOf(files);
+      Assertions.assertThat(otherThreads.get()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  @DisplayName("trySplit() should not split a compressed file")
+  void testCompressedFile() throws IOException {
+    var path = root.resolve("items.dataset.ndjson.gz");
+    try (var out = new GZIPOutputStream(Files.newOutputStream(path))) {
+      out.write(content("item", 2000).getBytes(StandardCharsets.UTF_8));
+    }
+    var file = fileRef(path);
+
+    try (var spliterator = JsonItemSpliterator.of(ctx, List.of(file), JsonDataset.class, 1)) {
+      Assertions.assertThat(spliterator.trySplit()).isNull();
+
+      var actual = new ArrayList<FileItem<JsonDataset>>();
+      spliterator.forEachRemaining(actual::add);
+      Assertions.assertThat(describe(actual)).isEqualTo(describe(readSequentially(List.of(file))));
+      Assertions.assertThat(actual).hasSize(2000);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JsonProjectionTest {
+  private static final List<String> ATTRIBUTES = List.of("schema", "owner", "tags", "fields");
+
+  private static final String ITEMS =
+      "{\"id\":\"orders\",\"name\":\"orders\",\"label\":\"Orders\",\"schema\":\"sales\"}\n"
+          + "{\"name\":\"customers\",\"owner\":{\"id\":\"nested\",\"name\":\"Jean\"},"
+          + "\"id\":\"customers\",\"tags\":[\"a\",{\"id\":\"x\"},[1,2]],\"rows\":12}\n"
+          + "{\"id\":\"employees\",\"fields\":[{\"name\":\"id\",\"nativeType\":\"int\"}],"
+          + "\"contacts\":[{\"role\":\"owner\",\"name\":\"Jean\"}],"
+          + "\"primaryKey\":[\"id\"],\"schema\":null,\"label\":null}\n"
+          + "{\"id\":12,\"name\":true,"
+          + "\"meta\":{\"label\":\"nested\",\"deep\":[{\"name\":\"x\"}]}}\n"
+          + "{}\n";
+
+  /** Read the items with the projection. */
+  private static List<JsonDataset> project(byte[] content, List<String> attributes)
+      throws IOException {
+    var projection = JsonProjection.of(JsonDataset.class, attributes);
+    var items = new ArrayList<JsonDataset>();
+    try (var parser = Json.MAPPER.createParser(content)) {
+      while (parser.nextToken() != null) {
+        items.add(projection.read(parser));
+      }
+    }
+    return items;
+  }
+
+  /** Read the whole items. */
+  private static List<JsonDataset> bind(byte[] content) throws IOException {
+    try (var iterator = Json.MAPPER.readerFor(JsonDataset.class).<JsonDataset>readValues(content)) {
+      return iterator.readAll();
+    }
+  }
+
+  private static void assertSameProjection(JsonDataset actual, JsonDataset full) {
+    Assertions.assertThat(actual.getId()).isEqualTo(full.getId());
+    Assertions.assertThat(actual.getName()).isEqualTo(full.getName());
+    Assertions.assertThat(actual.getLabel()).isEqualTo(full.getLabel());
+    for (Map.Entry<String, JsonNode> entry : full.getCustomPropertyMap().entrySet()) {
+      if (ATTRIBUTES.contains(entry.getKey())) {
+        Assertions.assertThat(actual.getCustomProperty(entry.getKey())).isEqualTo(entry.getValue());
+      }
+    }
+    for (String name : actual.getCustomPropertyMap().keySet()) {
+      Assertions.assertThat(full.getCustomPropertyMap().containsKey(name)).isTrue();
+      Assertions.assertThat(ATTRIBUTES.contains(name)).isTrue();
+    }
+    // The other attributes are skipped.
+    Assertions.assertThat(actual.getDescription()).isNull();
+    Assertions.assertThat(actual.getFields()).isEmpty();
+    Assertions.assertThat(actual.getContacts()).isEmpty();
+    Assertions.assertThat(actual.getPrimaryKey()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("read() should read the same identifiers, names and attributes as a full binding")
+  void testSameAsBinding() throws IOException {
+    var content = ITEMS.getBytes(StandardCharsets.UTF_8);
+
+    var actual = project(content, ATTRIBUTES);
+    var full = bind(content);
+
+    Assertions.assertThat(actual).hasSize(full.size());
+    for (int i = 0; i < actual.size(); ++i) {
+      assertSameProjection(actual.get(i), full.get(i));
+    }
+    Assertions.assertThat(actual.get(1).getId()).isEqualTo("customers");
+    Assertions.assertThat(actual.get(1).getCustomProperty("owner").get("name").asText())
+        .isEqualTo("Jean");
+    Assertions.assertThat(actual.get(1).getCustomProperty("tags").size()).isEqualTo(3);
+    Assertions.assertThat(actual.get(1).getCustomPropertyMap().containsKey("rows")).isFalse();
+    Assertions.assertThat(actual.get(3).getId()).isEqualTo("12");
+    Assertions.assertThat(actual.get(3).getLabel()).isNull();
+  }
+
+  @Test
+  @DisplayName("read() should read the example files as a full binding")
+  void testExampleFile() throws IOException {
+    byte[] content;
+    try (var input = getClass().getResourceAsStream("/dataset/example.dataset.ndjson")) {
+      content = input.readAllBytes();
+    }
+
+    var actual = project(content, ATTRIBUTES);
+    var full = bind(content);
+
+    Assertions.assertThat(actual).hasSize(full.size());
+    for (int i = 0; i < actual.size(); ++i) {
+      assertSameProjection(actual.get(i), full.get(i));
+    }
+  }
+
+  @Test
+  @DisplayName("read() should fail on an item which is not an object")
+  void testNotAnObject() {
+    var content = "[{\"id\":\"orders\"}]".getBytes(StandardCharsets.UTF_8);
+
+    Assertions.assertThatThrownBy(() -> project(content, ATTRIBUTES))
+        .isInstanceOf(JsonParsingException.class);
+  }
+}
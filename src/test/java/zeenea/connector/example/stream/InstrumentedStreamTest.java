@@ -0,0 +1,101 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.stream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class InstrumentedStreamTest {
+
+  private final List<String> events = new ArrayList<>();
+
+  private final InstrumentedStream.Listener listener =
+      (count, duration, complete) -> events.add(count + (complete ? " complete" : " closed"));
+
+  @Test
+  @DisplayName("of() should report the count when the end of the stream is reached")
+  void testEndOfStream() {
+    var actual = InstrumentedStream.of(Stream.of("a", "b", "c"), listener);
+
+    Assertions.assertThat(actual.collect(Collectors.toList())).containsExactly("a", "b", "c");
+    Assertions.assertThat(events).containsExactly("3 complete");
+  }
+
+  @Test
+  @DisplayName("of() should report the count once when the stream is closed after its end")
+  void testCloseAfterEnd() {
+    try (var actual = InstrumentedStream.of(Stream.of("a", "b"), listener)) {
+      Assertions.assertThat(actual.iterator()).toIterable().containsExactly("a", "b");
+    }
+
+    Assertions.assertThat(events).containsExactly("2 complete");
+  }
+
+  @Test
+  @DisplayName("of() should ignore a close before the stream is consumed")
+  void testEarlyClose() {
+    var actual = InstrumentedStream.of(Stream.of("a", "b", "c"), listener);
+
+    // The platform takes the iterator and closes the stream before consuming it.
+    var iterator = actual.iterator();
+    actual.close();
+    Assertions.assertThat(events).isEmpty();
+
+    Assertions.assertThat(iterator).toIterable().containsExactly("a", "b", "c");
+    Assertions.assertThat(events).containsExactly("3 complete");
+  }
+
+  @Test
+  @DisplayName("of() should report the consumed elements when the stream is closed before its end")
+  void testCloseBeforeEnd() {
+    var actual = InstrumentedStream.of(Stream.of("a", "b", "c"), listener);
+    var iterator = actual.iterator();
+    iterator.next();
+    actual.close();
+
+    Assertions.assertThat(events).containsExactly("1 closed");
+  }
+
+  @Test
+  @DisplayName("of() should consume the elements of a counted stream")
+  void testCount() {
+    var actual = InstrumentedStream.of(Stream.of("a", "b", "c"), listener);
+
+    Assertions.assertThat(actual.count()).isEqualTo(3);
+    Assertions.assertThat(events).containsExactly("3 complete");
+  }
+
+  @Test
+  @DisplayName("of() should close the source stream")
+  void testCloseSource() {
+    var closed = new ArrayList<String>();
+    var source = Stream.of("a").onClose(() -> closed.add("source"));
+    var actual = InstrumentedStream.of(source, listener);
+    actual.close();
+
+    Assertions.assertThat(closed).containsExactly("source");
+  }
+
+  @Test
+  @DisplayName("of() should report the time since the creation of the stream")
+  void testDuration() {
+    var durations = new ArrayList<Duration>();
+    var actual =
+        InstrumentedStream.of(
+            Stream.of("a"), (count, duration, complete) -> durations.add(duration));
+    actual.forEach(e -> {});
+
+    Assertions.assertThat(durations).hasSize(1);
+    Assertions.assertThat(durations.get(0)).isNotNegative();
+  }
+}
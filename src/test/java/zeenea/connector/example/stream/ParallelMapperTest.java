@@ -0,0 +1,185 @@
+/*
+ * This work is marked with CC0 1.0 Universal.
+ * To view a copy of this license, visit https://creativecommons.org/publicdomain/zero/1.0/
+ *
+ */
+
+package zeenea.connector.example.stream;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import zeenea.connector.example.log.TracingContext;
+
+@Timeout(30)
+class ParallelMapperTest {
+  private static final int PARALLELISM = 4;
+
+  private static final int WINDOW = 8;
+
+  private final TracingContext ctx = TracingContext.test();
+
+  private final ParallelMapper mapper = new ParallelMapper("test-mapper", PARALLELISM, WINDOW);
+
+  @AfterEach
+  void closeMapper() {
+    mapper.close();
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  @DisplayName("map() should provide the results in the order of the input")
+  void testOrder() {
+    var input = IntStream.range(0, 200).boxed();
+
+    List<String> actual;
+    try (var results =
+        mapper.map(
+            ctx,
+            input,
+            i -> {
+              sleep(ThreadLocalRandom.current().nextInt(3));
+              return "r" + i + "-" + Thread.currentThread().getName().startsWith("test-mapper");
+            })) {
+      actual = results.collect(Collectors.toList());
+    }
+
+    var expected = IntStream.range(0, 200).mapToObj(i -> "r" + i + "-true");
+    Assertions.assertThat(actual).containsExactlyElementsOf(expected.collect(Collectors.toList()));
+  }
+
+  @Test
+  @DisplayName("map() should not read the input more than a window ahead of the consumption")
+  void testWindow() {
+    var read = new AtomicInteger();
+    var running = new AtomicInteger();
+    var maxRunning = new AtomicInteger();
+    var input = IntStream.range(0, 100).boxed().peek(i -> read.incrementAndGet());
+
+    try (var results =
+        mapper.map(
+            ctx,
+            input,
+            i -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              sleep(1);
+              running.decrementAndGet();
+              return i;
+            })) {
+      var consumed = 0;
+      for (var it = results.iterator(); it.hasNext(); ) {
+        it.next();
+        ++consumed;
+        Assertions.assertThat(read.get() - consumed).isLessThanOrEqualTo(WINDOW - 1);
+        // A slow consumer doesn't make the input read faster.
+        if (consumed % 10 == 0) sleep(20);
+      }
+      Assertions.assertThat(consumed).isEqualTo(100);
+    }
+    Assertions.assertThat(maxRunning.get()).isLessThanOrEqualTo(PARALLELISM);
+  }
+
+  @Test
+  @DisplayName("map() should throw the exception of the function and cancel the other elements")
+  void testFailure() throws InterruptedException {
+    var started = new AtomicInteger();
+    var interrupted = new CountDownLatch(PARALLELISM - 1);
+    var never = new CountDownLatch(1);
+    var failure = new IllegalArgumentException("invalid element");
+    var input = IntStream.range(0, 100).boxed();
+
+    try (var results =
+        mapper.map(
+            ctx,
+            input,
+            i -> {
+              started.incrementAndGet();
+              if (i == 0) {
+                // Let the other threads start their element.
+                sleep(100);
+                throw failure;
+              }
+              try {
+                never.await();
+              } catch (InterruptedException e) {
+                interrupted.countDown();
+              }
+              return i;
+            })) {
+      Assertions.assertThatThrownBy(() -> results.collect(Collectors.toList())).isSameAs(failure);
+    }
+
+    // The elements being mapped are interrupted, the others are never started.
+    Assertions.assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+    sleep(100);
+    Assertions.assertThat(started.get()).isLessThanOrEqualTo(WINDOW);
+  }
+
+  @Test
+  @DisplayName("close() should make the streams being mapped fail, and the next ones rejected")
+  void testClose() {
+    var never = new CountDownLatch(1);
+    // The whole input is submitted by the first read: some elements wait for a thread.
+    var input = IntStream.range(0, WINDOW).boxed();
+
+    try (var results =
+        mapper.map(
+            ctx,
+            input,
+            i -> {
+              if (i == 0) return i;
+              try {
+                never.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return i;
+            })) {
+      var it = results.iterator();
+      Assertions.assertThat(it.next()).isEqualTo(0);
+
+      mapper.close();
+
+      // The elements not started when the mapper was closed never complete.
+      Assertions.assertThatThrownBy(
+              () -> {
+                while (it.hasNext()) it.next();
+              })
+          .isInstanceOf(CancellationException.class);
+    }
+
+    Assertions.assertThatThrownBy(() -> mapper.map(ctx, IntStream.range(0, 3).boxed(), i -> i))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  @DisplayName("map() with a single thread should map the elements in the consuming thread")
+  void testSingleThread() {
+    var thread = Thread.currentThread();
+    try (var single = new ParallelMapper("single", 1, WINDOW)) {
+      var actual =
+          single
+              .map(ctx, IntStream.range(0, 5).boxed(), i -> Thread.currentThread() == thread)
+              .collect(Collectors.toList());
+
+      Assertions.assertThat(actual).containsExactly(true, true, true, true, true);
+    }
+  }
+}